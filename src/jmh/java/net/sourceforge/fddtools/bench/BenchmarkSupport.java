@@ -0,0 +1,37 @@
+package net.sourceforge.fddtools.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import net.sourceforge.fddtools.service.LoggingService;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/** Shared setup for the benchmarks: quiet logging and scratch directories. */
+final class BenchmarkSupport {
+    private BenchmarkSupport() {}
+
+    /** Turns off perf spans and per-call info logging, so the measured paths do no log I/O. */
+    static void quietLogging() {
+        LoggingService.getInstance().setPerfEnabled(false);
+        LoggingService.getInstance().setAuditEnabled(false);
+        if (LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME) instanceof Logger root) {
+            root.setLevel(Level.WARN);
+        }
+    }
+
+    static Path scratchDirectory() throws IOException {
+        return Files.createTempDirectory("fdd-bench");
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.sourceforge.fddtools.bench;
+
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import net.sourceforge.fddtools.service.ImageExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PNG encoding of an exported canvas image. The image mimics a canvas export: mostly background
+ * with a grid of filled boxes, so it compresses like the real thing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ImageExportBenchmark {
+
+    /** Image width in pixels; the height is three quarters of it. */
+    @Param({"1000", "4000"})
+    public int width;
+
+    private Path dir;
+    private WritableImage image;
+    private File target;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+        dir = BenchmarkSupport.scratchDirectory();
+        target = dir.resolve("canvas.png").toFile();
+        int height = width * 3 / 4;
+        image = new WritableImage(width, height);
+        PixelWriter pw = image.getPixelWriter();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean box = x % 120 < 100 && y % 90 < 70;
+                boolean edge = box && (x % 120 == 0 || x % 120 == 99 || y % 90 == 0 || y % 90 == 69);
+                int shade = (x / 120 * 37 + y / 90 * 61) & 0x7F;
+                pw.setArgb(x, y, edge ? 0xFF000000 : box ? 0xFF80C080 + shade : 0xFFFFFFFF);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkSupport.delete(dir);
+    }
+
+    @Benchmark
+    public File encodePng() throws Exception {
+        return ImageExportService.getInstance().encodePng(image, target);
+    }
+}
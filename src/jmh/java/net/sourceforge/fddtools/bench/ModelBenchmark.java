@@ -0,0 +1,91 @@
+package net.sourceforge.fddtools.bench;
+
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.StatusEnum;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDINodeCopier;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model operations on a generated project: the roll-ups run after a milestone edit, and the
+ * whole-tree copy taken for copy/paste and autosave snapshots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ModelBenchmark {
+
+    @Param({"1000", "10000"})
+    public int features;
+
+    private Program tree;
+    private Feature feature;
+    private Milestone last;
+    private XMLGregorianCalendar early;
+    private XMLGregorianCalendar late;
+    private boolean toggle;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+        tree = new SyntheticProjectGenerator(Shape.forFeatures(features)).generate();
+        feature = middleFeature(tree);
+        last = feature.getMilestone().get(feature.getMilestone().size() - 1);
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        early = df.newXMLGregorianCalendar("2030-01-01");
+        late = df.newXMLGregorianCalendar("2050-01-01");
+    }
+
+    private static Feature middleFeature(FDDINode node) {
+        while (!(node instanceof Feature)) {
+            var children = node.getChildren();
+            node = (FDDINode) children.get(children.size() / 2);
+        }
+        return (Feature) node;
+    }
+
+    /** A feature's last milestone toggles done / not done, then progress rolls up to the root. */
+    @Benchmark
+    public int calculateProgress() {
+        toggle = !toggle;
+        last.setStatus(toggle ? StatusEnum.COMPLETE : StatusEnum.NOTSTARTED);
+        feature.calculateProgress();
+        return tree.getProgress().getCompletion();
+    }
+
+    /** A feature's last planned date moves, then target dates are recalculated up to the root. */
+    @Benchmark
+    public Date calculateTargetDate() {
+        toggle = !toggle;
+        last.setPlanned(toggle ? late : early);
+        feature.calculateTargetDate();
+        return tree.getTargetDate();
+    }
+
+    @Benchmark
+    public Object copy() {
+        return FDDINodeCopier.copy(tree);
+    }
+}
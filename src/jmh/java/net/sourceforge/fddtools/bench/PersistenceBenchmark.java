@@ -0,0 +1,104 @@
+package net.sourceforge.fddtools.bench;
+
+import com.nebulon.xml.fddi.Program;
+import net.sourceforge.fddtools.persistence.FDDCSVImportReader;
+import net.sourceforge.fddtools.persistence.FDDIBinaryReader;
+import net.sourceforge.fddtools.persistence.FDDIBinaryWriter;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileWriter;
+import net.sourceforge.fddtools.persistence.FDDXMLImportReader;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opening, saving and importing a generated project of {@code features} features, in the XML and
+ * the binary project format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PersistenceBenchmark {
+
+    @Param({"1000", "10000"})
+    public int features;
+
+    private Path dir;
+    private Program tree;
+    private Path fddi;
+    private Path saved;
+    private Path fddb;
+    private Path savedBinary;
+    private Path csv;
+    private Path legacyXml;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+        dir = BenchmarkSupport.scratchDirectory();
+        tree = new SyntheticProjectGenerator(Shape.forFeatures(features)).generate();
+        fddi = dir.resolve("project.fddi");
+        saved = dir.resolve("saved.fddi");
+        fddb = dir.resolve("project.fddb");
+        savedBinary = dir.resolve("saved.fddb");
+        csv = dir.resolve("project.csv");
+        legacyXml = dir.resolve("project.xml");
+        if (!FDDIXMLFileWriter.write(tree, fddi.toString())) throw new IllegalStateException("Could not write " + fddi);
+        FDDIBinaryWriter.write(tree, fddb, null);
+        Files.writeString(csv, SyntheticProjectGenerator.toCsv(tree));
+        Files.writeString(legacyXml, SyntheticProjectGenerator.toLegacyXml(tree));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkSupport.delete(dir);
+    }
+
+    @Benchmark
+    public Object readFddi() {
+        return FDDIXMLFileReader.read(fddi.toString());
+    }
+
+    @Benchmark
+    public boolean writeFddi() {
+        return FDDIXMLFileWriter.write(tree, saved.toString());
+    }
+
+    @Benchmark
+    public Object readFddb() throws Exception {
+        return FDDIBinaryReader.read(fddb, null, null);
+    }
+
+    @Benchmark
+    public long writeFddb() throws Exception {
+        return FDDIBinaryWriter.write(tree, savedBinary, null);
+    }
+
+    @Benchmark
+    public Object importCsv() throws Exception {
+        return FDDCSVImportReader.read(csv.toString());
+    }
+
+    @Benchmark
+    public Object importLegacyXml() throws Exception {
+        return FDDXMLImportReader.read(legacyXml.toString());
+    }
+}
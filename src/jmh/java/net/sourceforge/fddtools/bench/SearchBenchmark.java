@@ -0,0 +1,71 @@
+package net.sourceforge.fddtools.bench;
+
+import javafx.scene.control.TreeItem;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.search.FDDSearchIndex;
+import net.sourceforge.fddtools.search.FDDTreeSearchEngine;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree search over a generated project, by scanning the tree items and through the shared
+ * {@link FDDSearchIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SearchBenchmark {
+
+    @Param({"1000", "10000"})
+    public int features;
+
+    @Param({"payment", "validate invoice 42"})
+    public String query;
+
+    private final FDDTreeSearchEngine engine = new FDDTreeSearchEngine();
+    private TreeItem<FDDINode> scanned;
+    private TreeItem<FDDINode> indexed;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator(Shape.forFeatures(features));
+        scanned = items(generator.generate());
+        indexed = items(generator.generate());
+        FDDSearchIndex.getInstance().rebuild(indexed.getValue());
+    }
+
+    private static TreeItem<FDDINode> items(FDDINode node) {
+        TreeItem<FDDINode> item = new TreeItem<>(node);
+        for (FDDTreeNode child : node.getChildren()) item.getChildren().add(items((FDDINode) child));
+        return item;
+    }
+
+    @Benchmark
+    public List<FDDTreeSearchEngine.SearchMatch> scan() {
+        return engine.search(scanned, query);
+    }
+
+    @Benchmark
+    public List<FDDTreeSearchEngine.SearchMatch> indexed() {
+        return engine.search(indexed, query);
+    }
+}
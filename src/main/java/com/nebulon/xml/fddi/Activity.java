@@ -131,6 +131,16 @@ public class Activity extends FDDINode
         this.initials = value;
     }
 
+    public XMLGregorianCalendar getTarget()
+    {
+        return target;
+    }
+
+    public void setTarget(XMLGregorianCalendar value)
+    {
+        this.target = value;
+    }
+
     public List<Feature> getFeature()
     {
         if(feature == null)
@@ -119,6 +119,7 @@ public class Aspect extends FDDINode
 
     public List<Subject> getSubject()
     {
+        loadChildren();
         if(subject == null)
         {
             subject = new ArrayList<Subject>();
@@ -146,12 +147,14 @@ public class Aspect extends FDDINode
     @Override
     public boolean isLeaf()
     {
+        if(!isChildrenLoaded()) return false;
         return (subject != null && (subject.size() <= 0));
     }
 
     // FDDTreeNode overrides for Swing-free API
     @Override
     public java.util.List<? extends net.sourceforge.fddtools.model.FDDTreeNode> getChildren() {
+        loadChildren();
         return subject == null ? java.util.Collections.emptyList() : java.util.Collections.unmodifiableList(subject);
     }
     @Override
@@ -160,11 +163,13 @@ public class Aspect extends FDDINode
     }
     @Override
     public void removeChild(net.sourceforge.fddtools.model.FDDTreeNode child) {
+        loadChildren();
         if (subject != null) subject.remove(child);
     }
 
     @Override
     public void insertChildAt(net.sourceforge.fddtools.model.FDDTreeNode child, int index) {
+        loadChildren();
         if (child instanceof Subject) {
             ((Subject) child).setParentNode(this);
             if (subject == null) subject = new java.util.ArrayList<>();
@@ -68,6 +68,7 @@ import jakarta.xml.bind.annotation.XmlSchemaType;
 import jakarta.xml.bind.annotation.XmlTransient;
 import jakarta.xml.bind.annotation.XmlType;
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.ProgressRollup;
 
 /**
  * 
@@ -201,49 +202,7 @@ public class Feature extends FDDINode
     @Override
     public void calculateProgress()
     {
-        int featureProgress = 0;
-        if(getMilestone().size() > 0)
-        {
-            Aspect aspect = this.getAspectForNode();
-            if (aspect != null && aspect.getInfo() != null && aspect.getInfo().getMilestoneInfo() != null) {
-                int maxIndex = Math.min(aspect.getInfo().getMilestoneInfo().size(), getMilestone().size());
-                for(int i = 0; i < maxIndex; i++)
-                {
-                    if(getMilestone().get(i).getStatus() == StatusEnum.COMPLETE)
-                    {
-                        featureProgress += aspect.getInfo().getMilestoneInfo().get(i).getEffort();
-                    }
-                }
-            }
-        }
-        ObjectFactory of = new ObjectFactory();
-        Progress p = of.createProgress();
-        p.setCompletion(featureProgress);
-        setProgress(p);
-        net.sourceforge.fddtools.model.FDDTreeNode parent = getParentNode();
-        if (parent instanceof FDDINode) {
-            ((FDDINode) parent).calculateProgress();
-        }
-    }
-
-    @Override
-    public void calculateTargetDate()
-    {
-        targetDate = null;
-        for(Milestone m : getMilestone())
-        {
-            if(m.getPlanned() != null)
-            {
-                if(targetDate == null || m.getPlanned().toGregorianCalendar().getTime().after(targetDate))
-                {
-                    setTargetDate(m.getPlanned().toGregorianCalendar().getTime());
-                }
-            }
-            net.sourceforge.fddtools.model.FDDTreeNode parent = getParentNode();
-            if (parent instanceof FDDINode) {
-                ((FDDINode) parent).calculateTargetDate();
-            }
-        }
+        ProgressRollup.refresh(this);
     }
 
     @Override
@@ -114,6 +114,7 @@ public class Program extends FDDINode
 
     public List<Program> getProgram()
     {
+        loadChildren();
         if(program == null)
         {
             program = new ArrayList<Program>();
@@ -123,6 +124,7 @@ public class Program extends FDDINode
 
     public List<Project> getProject()
     {
+        loadChildren();
         if(project == null)
         {
             project = new ArrayList<Project>();
@@ -133,6 +135,7 @@ public class Program extends FDDINode
     @Override
     public boolean isLeaf()
     {
+        if(!isChildrenLoaded()) return false;
         if((program != null && program.size() > 0) ||
            (project != null && project.size() > 0))
         {
@@ -181,6 +184,7 @@ public class Program extends FDDINode
     // FDDTreeNode interface implementation (Swing-free)
     @Override
     public java.util.List<? extends net.sourceforge.fddtools.model.FDDTreeNode> getChildren() {
+        loadChildren();
         java.util.List<net.sourceforge.fddtools.model.FDDTreeNode> list = new java.util.ArrayList<>();
         if (program != null) list.addAll(program);
         if (project != null) list.addAll(project);
@@ -194,6 +198,7 @@ public class Program extends FDDINode
 
     @Override
     public void removeChild(net.sourceforge.fddtools.model.FDDTreeNode child) {
+        loadChildren();
         if (child instanceof Program && program != null) {
             program.remove(child);
         } else if (child instanceof Project && project != null) {
@@ -203,6 +208,7 @@ public class Program extends FDDINode
 
     @Override
     public void insertChildAt(net.sourceforge.fddtools.model.FDDTreeNode child, int index) {
+        loadChildren();
         if (child instanceof Program) {
             ((Program) child).setParentNode(this);
             if (program == null) program = new java.util.ArrayList<>();
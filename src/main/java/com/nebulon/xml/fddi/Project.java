@@ -111,6 +111,7 @@ public class Project extends FDDINode
 
     public List<Aspect> getAspect()
     {
+        loadChildren();
         if(aspect == null)
         {
             aspect = new ArrayList<Aspect>();
@@ -136,6 +137,7 @@ public class Project extends FDDINode
     @Override
     public boolean isLeaf()
     {
+        if(!isChildrenLoaded()) return false;
         return (aspect != null && (aspect.size() <= 0));
     }
 
@@ -158,6 +160,7 @@ public class Project extends FDDINode
     // FDDTreeNode interface implementation (Swing-free)
     @Override
     public java.util.List<? extends net.sourceforge.fddtools.model.FDDTreeNode> getChildren() {
+        loadChildren();
         return aspect == null ? java.util.Collections.emptyList() : java.util.Collections.unmodifiableList(aspect);
     }
 
@@ -168,6 +171,7 @@ public class Project extends FDDINode
 
     @Override
     public void removeChild(net.sourceforge.fddtools.model.FDDTreeNode child) {
+        loadChildren();
         if (aspect != null) {
             aspect.remove(child);
         }
@@ -175,6 +179,7 @@ public class Project extends FDDINode
 
     @Override
     public void insertChildAt(net.sourceforge.fddtools.model.FDDTreeNode child, int index) {
+        loadChildren();
         if (child instanceof Aspect) {
             ((Aspect) child).setParentNode(this);
             if (aspect == null) aspect = new java.util.ArrayList<>();
@@ -39,11 +39,17 @@ public class FDDApplicationFX extends Application {
     }
 
     private FDDMainWindowFX mainWindow;
+    private final StartupPipeline startup = new StartupPipeline();
+
+    /** The window built by {@link #start}; for tests. */
+    FDDMainWindowFX getMainWindow() { return mainWindow; }
 
     @Override
     public void init() throws Exception {
         super.init();
         LOGGER.info("FDD Tools JavaFX application initialized");
+        // JAXB context, fonts, stylesheets and bundles load off the FX thread while the window is built
+        startup.warmUp();
         if (MacOSIntegrationService.isMac()) {
             LOGGER.info("macOS properties verification: apple.awt.application.name={} apple.laf.useScreenMenuBar={}",
                 System.getProperty("apple.awt.application.name"), System.getProperty("apple.laf.useScreenMenuBar"));
@@ -53,6 +59,7 @@ public class FDDApplicationFX extends Application {
     @Override
     public void start(Stage primaryStage) {
         try {
+            long windowStart = System.nanoTime();
             primaryStage.setTitle("FDD Tools");
             // Load stage icons
             try {
@@ -84,6 +91,8 @@ public class FDDApplicationFX extends Application {
             MacOSIntegrationService.applyLastWindowBounds(primaryStage);
             if(primaryStage.getWidth()<=0 || primaryStage.getHeight()<=0) primaryStage.centerOnScreen();
             primaryStage.show();
+            startup.phase("windowMs", windowStart);
+            startup.mark("windowShownMs");
 
             primaryStage.setOnCloseRequest(event -> {
                 if (mainWindow.canClose()) {
@@ -94,31 +103,32 @@ public class FDDApplicationFX extends Application {
 
             LOGGER.info("FDD Tools JavaFX application started successfully");
 
-            try {
-                var prefs = net.sourceforge.fddtools.service.PreferencesService.getInstance();
-                if (prefs.isAutoLoadLastProjectEnabled()) {
-                    String last = prefs.getLastProjectPath();
-                    if (last != null && !last.isBlank() && new java.io.File(last).isFile()) {
-                        org.slf4j.LoggerFactory.getLogger(FDDApplicationFX.class).info("Auto-loading last project: {}", last);
-                        try {
-                            Object root = net.sourceforge.fddtools.persistence.FDDIXMLFileReader.read(last);
-                            if (root instanceof net.sourceforge.fddtools.model.FDDINode) {
-                                net.sourceforge.fddtools.service.ProjectService.getInstance().open(last);
-                            }
-                        } catch (Exception ex) {
-                            var log = org.slf4j.LoggerFactory.getLogger(FDDApplicationFX.class);
-                            log.warn("Auto-load failed: {}", ex.getMessage());
-                            if (LOGGER.isDebugEnabled()) LOGGER.debug("Auto-load failure stacktrace", ex);
-                        }
-                    }
-                }
-            } catch (Exception ignore) {}
+            autoLoadLastProject();
+            startup.finish();
         } catch (Exception e) {
             LOGGER.error("Failed to start FDD Tools application", e);
             Platform.exit();
         }
     }
 
+    /**
+     * Parses the last project once on a background thread; the window stays responsive meanwhile and
+     * the root is shown when ready, unless the user opened, created or edited a project first.
+     */
+    private void autoLoadLastProject() {
+        try {
+            var prefs = net.sourceforge.fddtools.service.PreferencesService.getInstance();
+            if (!prefs.isAutoLoadLastProjectEnabled()) return;
+            String last = prefs.getLastProjectPath();
+            if (last == null || last.isBlank() || !new java.io.File(last).isFile()) return;
+            LOGGER.info("Auto-loading last project: {}", last);
+            // The window already shows an empty placeholder project; only replacing or editing it cancels
+            startup.autoLoad(last, Platform::runLater, StartupPipeline.unlessReplaced(mainWindow::openLoadedProject));
+        } catch (Exception ex) {
+            LOGGER.warn("Auto-load failed: {}", ex.getMessage());
+        }
+    }
+
     /**
      * Creates an Image from a FontAwesome icon for use as application icons.
      * This allows us to use FontAwesome icons consistently throughout the application,
@@ -139,6 +149,8 @@ public class FDDApplicationFX extends Application {
     @Override
     public void stop() throws Exception {
         if (mainWindow != null) { mainWindow.cleanup(); }
+        // The user has answered the unsaved-changes prompt by now; recovery files are only for crashes
+        net.sourceforge.fddtools.service.AutosaveService.getInstance().shutdown();
         super.stop();
     }
 
@@ -0,0 +1,171 @@
+package net.sourceforge.fddtools;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import javafx.css.CssParser;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
+import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.persistence.FDDIPersistenceContext;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
+import net.sourceforge.fddtools.service.AutosaveService;
+import net.sourceforge.fddtools.service.LoggingService;
+import net.sourceforge.fddtools.service.ProjectService;
+import net.sourceforge.fddtools.state.ModelState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Startup work that does not need the FX thread.
+ * <p>
+ * {@link #warmUp()} preloads the JAXB context and schema, fonts, stylesheets and resource bundles in
+ * parallel while the window is being built; {@link #autoLoad} parses the last project once on a
+ * background thread and hands the root to the FX thread. When both are done a {@code startup} perf
+ * span is emitted with the duration of each phase, measured from application init.
+ */
+final class StartupPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupPipeline.class);
+
+    static final String[] STYLESHEETS = {"/styles/fdd-canvas.css", "/styles/global-theme.css", "/styles/semantic-theme.css"};
+
+    private final long startNanos = System.nanoTime();
+    private final LoggingService.Span span = LoggingService.getInstance().startPerf("startup", Map.of());
+    private final Map<String, Long> phases = new ConcurrentHashMap<>();
+    private final List<CompletableFuture<?>> pending = new ArrayList<>();
+    private final ExecutorService executor;
+
+    StartupPipeline() {
+        AtomicInteger count = new AtomicInteger();
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "startup-" + count.incrementAndGet()); //NOI18N
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Starts the warm-up phases; failures are logged and only cost the time they would have saved. */
+    void warmUp() {
+        submit("persistenceMs", () -> {
+            FDDIPersistenceContext context = FDDIPersistenceContext.getInstance();
+            context.getContext();
+            context.getSchema();
+        });
+        submit("fontsMs", () -> {
+            Font.font("System", 12);
+            Font.font("Arial", FontWeight.SEMI_BOLD, 12);
+            new FontAwesomeIconView(FontAwesomeIcon.GEAR);
+            new Text("FDD Tools").getLayoutBounds();
+        });
+        submit("cssMs", () -> {
+            for (String sheet : STYLESHEETS) {
+                URL url = StartupPipeline.class.getResource(sheet);
+                if (url != null) new CssParser().parse(url);
+            }
+        });
+        submit("bundlesMs", () -> ResourceBundle.getBundle("messages", Locale.getDefault()));
+    }
+
+    /** Records a phase that ran elsewhere, e.g. building the window on the FX thread. */
+    void phase(String name, long phaseStartNanos) {
+        phases.put(name, (System.nanoTime() - phaseStartNanos) / 1_000_000L);
+    }
+
+    /** Records the time from init to this call under {@code name}. */
+    void mark(String name) {
+        phase(name, startNanos);
+    }
+
+    /**
+     * Parses {@code path} on a background thread, then runs {@code open} with the root through
+     * {@code fx}. Completes with the root, or {@code null} if the file could not be parsed.
+     */
+    CompletableFuture<FDDINode> autoLoad(String path, Executor fx, BiConsumer<String, FDDINode> open) {
+        CompletableFuture<FDDINode> loaded = CompletableFuture.supplyAsync(() -> {
+            long t = System.nanoTime();
+            Object root = FDDIXMLFileReader.read(path);
+            phase("parseMs", t);
+            return root instanceof FDDINode node ? AutosaveService.getInstance().recover(path, node) : null;
+        }, executor).thenApplyAsync(root -> {
+            if (root == null) {
+                LOGGER.warn("Auto-load failed: could not parse {}", path);
+                return null;
+            }
+            long t = System.nanoTime();
+            open.accept(path, root);
+            phase("openMs", t);
+            mark("projectShownMs");
+            return root;
+        }, fx);
+        synchronized (pending) { pending.add(loaded); }
+        return loaded.exceptionally(ex -> {
+            LOGGER.warn("Auto-load failed: {}", ex.getMessage());
+            if (LOGGER.isDebugEnabled()) LOGGER.debug("Auto-load failure stacktrace", ex);
+            return null;
+        });
+    }
+
+    /**
+     * Wraps {@code open} so that it only runs while the project shown now (at startup, the empty
+     * placeholder) is still shown and unedited; otherwise the user has moved on and the auto-loaded
+     * root is dropped. Call on the FX thread, before starting the load.
+     */
+    static BiConsumer<String, FDDINode> unlessReplaced(BiConsumer<String, FDDINode> open) {
+        FDDINode shown = ProjectService.getInstance().getRoot();
+        long version = ModelState.getInstance().getVersion();
+        return (path, root) -> {
+            if (ProjectService.getInstance().getRoot() != shown) {
+                LOGGER.info("Skipping auto-load of {}: another project was opened first", path);
+            } else if (ModelState.getInstance().getVersion() != version) {
+                LOGGER.info("Skipping auto-load of {}: the startup project was edited", path);
+            } else {
+                open.accept(path, root);
+            }
+        };
+    }
+
+    /** Emits the startup span once everything started so far has finished, and releases the threads. */
+    CompletableFuture<Void> finish() {
+        CompletableFuture<?>[] all;
+        synchronized (pending) { all = pending.toArray(CompletableFuture[]::new); }
+        return CompletableFuture.allOf(all).handle((v, ex) -> {
+            phases.forEach(span::metric);
+            span.metric("totalMs", (System.nanoTime() - startNanos) / 1_000_000L).close();
+            executor.shutdown();
+            return null;
+        });
+    }
+
+    /** Phase durations recorded so far, in milliseconds. */
+    Map<String, Long> phases() { return Map.copyOf(phases); }
+
+    private void submit(String phase, WarmUp work) {
+        CompletableFuture<Void> f = CompletableFuture.runAsync(() -> {
+            long t = System.nanoTime();
+            try {
+                work.run();
+            } catch (Exception | LinkageError ex) {
+                LOGGER.warn("Startup warm-up {} failed: {}", phase, ex.toString());
+            }
+            phase(phase, t);
+        }, executor);
+        synchronized (pending) { pending.add(f); }
+    }
+
+    @FunctionalInterface
+    private interface WarmUp { void run() throws Exception; }
+}
@@ -1,6 +1,7 @@
 package net.sourceforge.fddtools.command;
 
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.state.ModelChange;
 import net.sourceforge.fddtools.state.ModelEventBus;
 
 /**
@@ -24,4 +25,12 @@ public abstract class AbstractCommand implements Command {
     protected final void publishNodeUpdated(FDDINode node) {
         ModelEventBus.get().publish(ModelEventBus.EventType.NODE_UPDATED, node);
     }
+
+    /**
+     * Publishes a typed change together with its coarse TREE_STRUCTURE_CHANGED or NODE_UPDATED event.
+     * Prefer this over the untyped methods so listeners can see exactly what changed.
+     */
+    protected final void publishChange(ModelChange change) {
+        ModelEventBus.get().publishChange(change);
+    }
 }
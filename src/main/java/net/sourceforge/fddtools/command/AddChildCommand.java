@@ -1,6 +1,8 @@
 package net.sourceforge.fddtools.command;
 
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+import net.sourceforge.fddtools.state.ModelChange;
 
 /** Adds a child to a parent node. */
 public class AddChildCommand extends AbstractCommand {
@@ -17,7 +19,8 @@ public class AddChildCommand extends AbstractCommand {
     public void execute() {
         if (executed) return;
         parent.add(child);
-        publishTreeStructureChanged(parent);
+        ProgressRollup.childAttached(parent, child);
+        publishChange(ModelChange.added(child, parent));
         executed = true;
     }
 
@@ -25,10 +28,14 @@ public class AddChildCommand extends AbstractCommand {
     public void undo() {
         if (!executed) return;
         parent.removeChild(child);
-        publishTreeStructureChanged(parent);
+        ProgressRollup.childDetached(parent, child);
+        publishChange(ModelChange.removed(child, parent));
         executed = false;
     }
 
+    @Override
+    public FDDINode mutationScope() { return parent; }
+
     @Override
     public String description() { return "Add " + child.getClass().getSimpleName() + " to " + parent.getName(); }
 }
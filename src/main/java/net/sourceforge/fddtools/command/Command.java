@@ -1,8 +1,16 @@
 package net.sourceforge.fddtools.command;
 
+import net.sourceforge.fddtools.model.FDDINode;
+
 /** Basic reversible command. */
 public interface Command {
     void execute();
     void undo();
     String description();
+
+    /**
+     * Root of the only subtree that executing or undoing this command changes (ancestor progress
+     * roll-up included), or {@code null} when the command may change anything.
+     */
+    default FDDINode mutationScope() { return null; }
 }
@@ -9,6 +9,7 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import net.sourceforge.fddtools.state.ModelEventBus;
+import net.sourceforge.fddtools.state.NodeClipboard;
 
 /**
  * Centralizes execution of Commands so undo/redo availability and dirty state
@@ -26,11 +27,14 @@ public final class CommandExecutionService {
     public CommandStack getStack() { return stack; }
 
     public void execute(Command command) {
-        if (command == null) return;
+        if (command == null || refuseWhileBusy("execute")) return;
         Map<String,String> ctx = buildContext("execute:" + command.description());
         LoggingService.getInstance().withContext(ctx, () -> {
-            stack.execute(command);
-            afterMutation();
+            NodeClipboard.getInstance().beforeModelMutation(command.mutationScope());
+            ModelEventBus.get().batch(() -> {
+                stack.execute(command);
+                afterMutation();
+            });
             if (LOGGER.isDebugEnabled()) LOGGER.debug("Executed command: {}", command.description());
             LoggingService.getInstance().audit("commandExecute", ctx, command::description);
             if (command instanceof MoveNodeCommand mv) {
@@ -44,11 +48,14 @@ public final class CommandExecutionService {
     }
 
     public void undo() {
-        if (stack.canUndo()) {
+        if (stack.canUndo() && !refuseWhileBusy("undo")) {
             Map<String,String> ctx = buildContext("undo:" + stack.peekUndoDescription());
             LoggingService.getInstance().withContext(ctx, () -> {
-                stack.undo();
-                afterMutation();
+                NodeClipboard.getInstance().beforeModelMutation(stack.peekUndo().mutationScope());
+                ModelEventBus.get().batch(() -> {
+                    stack.undo();
+                    afterMutation();
+                });
                 if (LOGGER.isDebugEnabled()) LOGGER.debug("Undid command: {}", ctx.get("action"));
                 LoggingService.getInstance().audit("commandUndo", ctx, () -> stack.peekRedoDescription());
             });
@@ -56,17 +63,27 @@ public final class CommandExecutionService {
     }
 
     public void redo() {
-        if (stack.canRedo()) {
+        if (stack.canRedo() && !refuseWhileBusy("redo")) {
             Map<String,String> ctx = buildContext("redo:" + stack.peekRedoDescription());
             LoggingService.getInstance().withContext(ctx, () -> {
-                stack.redo();
-                afterMutation();
+                NodeClipboard.getInstance().beforeModelMutation(stack.peekRedo().mutationScope());
+                ModelEventBus.get().batch(() -> {
+                    stack.redo();
+                    afterMutation();
+                });
                 if (LOGGER.isDebugEnabled()) LOGGER.debug("Redid command: {}", ctx.get("action"));
                 LoggingService.getInstance().audit("commandRedo", ctx, () -> stack.peekUndoDescription());
             });
         }
     }
 
+    /** The model is frozen while a background save or open is reading or writing it. */
+    private boolean refuseWhileBusy(String action) {
+        if (!ModelState.getInstance().isBusy()) return false;
+        LOGGER.warn("Ignoring {} while a project file operation is in progress", action);
+        return true;
+    }
+
     private void afterMutation() {
         ModelState ms = ModelState.getInstance();
         ms.setUndoAvailable(stack.canUndo());
@@ -74,8 +91,8 @@ public final class CommandExecutionService {
         ms.setDirty(true); // any command mutation marks model dirty
     ms.setNextUndoDescription(stack.canUndo() ? stack.peekUndoDescription() : "");
     ms.setNextRedoDescription(stack.canRedo() ? stack.peekRedoDescription() : "");
-        // Publish a coarse NodeUpdated event for current selection (fine-grained events can be added per command later)
-        if (ms.getSelectedNode() != null) {
+        // Commands publish typed changes; fall back to a coarse NodeUpdated for the selection only for commands that do not
+        if (ms.getSelectedNode() != null && !ModelEventBus.get().batchHasEvents()) {
             ModelEventBus.get().publish(ModelEventBus.EventType.NODE_UPDATED, ms.getSelectedNode());
         }
     }
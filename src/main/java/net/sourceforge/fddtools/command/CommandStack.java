@@ -33,6 +33,11 @@ public class CommandStack {
         undo.push(cmd);
     }
 
+    /** Command that would be undone next, or null. */
+    Command peekUndo() { return undo.peek(); }
+    /** Command that would be redone next, or null. */
+    Command peekRedo() { return redo.peek(); }
+
     /** Description of the command that would be undone next, or null. */
     public String peekUndoDescription() { return undo.isEmpty() ? null : undo.peek().description(); }
     /** Description of the command that would be redone next, or null. */
@@ -1,6 +1,8 @@
 package net.sourceforge.fddtools.command;
 
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+import net.sourceforge.fddtools.state.ModelChange;
 
 /** Removes a node from its parent and can restore it at the same index. */
 public class DeleteNodeCommand extends AbstractCommand {
@@ -18,7 +20,8 @@ public class DeleteNodeCommand extends AbstractCommand {
         if (executed) return;
         if (parent == null) return; // root protection
         parent.removeChild(node);
-        publishTreeStructureChanged(parent);
+        ProgressRollup.childDetached(parent, node);
+        publishChange(ModelChange.removed(node, parent));
         executed = true;
     }
 
@@ -28,10 +31,14 @@ public class DeleteNodeCommand extends AbstractCommand {
         if (parent == null) return;
         // parent.add re-appends; ordering restoration skipped until indexed add available
         parent.add(node);
-        publishTreeStructureChanged(parent);
+        ProgressRollup.childAttached(parent, node);
+        publishChange(ModelChange.added(node, parent));
         executed = false;
     }
 
+    @Override
+    public FDDINode mutationScope() { return parent; }
+
     @Override
     public String description() { return "Delete " + node.getName(); }
 }
@@ -1,13 +1,16 @@
 package net.sourceforge.fddtools.command;
 
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+import net.sourceforge.fddtools.state.ModelChange;
+import net.sourceforge.fddtools.state.ModelEventBus;
 
 /**
  * Generalized edit command capturing before/after snapshots of mutable fields.
  * Currently tracks: name, prefix (Subject), initials (Activity/Feature owner).
  * Can be extended to additional fields (dates, milestones, etc.).
  */
-public class EditNodeCommand implements Command {
+public class EditNodeCommand extends AbstractCommand {
     private final FDDINode node;
     private final Snapshot before;
     private final Snapshot after;
@@ -28,6 +31,7 @@ public class EditNodeCommand implements Command {
     public String description() { return "Edit " + node.getClass().getSimpleName(); }
 
     private void apply(Snapshot s) {
+        Snapshot previous = capture(node);
         node.setName(s.name);
         if (node instanceof com.nebulon.xml.fddi.Subject subj) {
             subj.setPrefix(s.prefix);
@@ -41,6 +45,7 @@ public class EditNodeCommand implements Command {
                 for (int i = 0; i < Math.min(milestones.size(), s.milestoneStatuses.length); i++) {
                     milestones.get(i).setStatus(s.milestoneStatuses[i]);
                 }
+                ProgressRollup.refresh(feat);
             }
             // Work package reassignment (remove from original, add to target)
             if (s.workPackageName != null) {
@@ -61,6 +66,35 @@ public class EditNodeCommand implements Command {
                 }
             }
         }
+        publishFieldChanges(previous, capture(node));
+    }
+
+    /** One FIELD_CHANGED record per field that differs; all coalesce into a single NODE_UPDATED. */
+    private void publishFieldChanges(Snapshot from, Snapshot to) {
+        java.util.List<ModelChange> changes = new java.util.ArrayList<>();
+        addIfChanged(changes, "name", from.name, to.name);
+        addIfChanged(changes, "prefix", from.prefix, to.prefix);
+        addIfChanged(changes, "initials", from.ownerInitials, to.ownerInitials);
+        if (!java.util.Arrays.equals(from.milestoneStatuses, to.milestoneStatuses)) {
+            changes.add(ModelChange.fieldChanged(node, "milestoneStatuses", statuses(from), statuses(to)));
+        }
+        addIfChanged(changes, "workPackage", from.workPackageName, to.workPackageName);
+        if (!java.util.Objects.equals(from.workPackageName, to.workPackageName)
+                && node instanceof com.nebulon.xml.fddi.Feature feat) {
+            // Membership is stored in the project's work packages, not in the feature
+            var project = findOwningProject(feat);
+            if (project != null) changes.add(ModelChange.fieldChanged(project, "workPackageFeatures", from.workPackageName, to.workPackageName));
+        }
+        if (changes.isEmpty()) { publishNodeUpdated(node); return; }
+        ModelEventBus.get().batch(() -> changes.forEach(this::publishChange));
+    }
+
+    private void addIfChanged(java.util.List<ModelChange> changes, String field, Object oldValue, Object newValue) {
+        if (!java.util.Objects.equals(oldValue, newValue)) changes.add(ModelChange.fieldChanged(node, field, oldValue, newValue));
+    }
+
+    private static java.util.List<com.nebulon.xml.fddi.StatusEnum> statuses(Snapshot s) {
+        return s.milestoneStatuses == null ? java.util.List.of() : java.util.Arrays.asList(s.milestoneStatuses.clone());
     }
 
     /** Builder to capture before/after state */
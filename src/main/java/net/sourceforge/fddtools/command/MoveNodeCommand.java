@@ -1,9 +1,11 @@
 package net.sourceforge.fddtools.command;
 
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+import net.sourceforge.fddtools.state.ModelChange;
 
 /** Reparents a node to a new parent (append ordering). Undo restores original parent. */
-public class MoveNodeCommand implements Command {
+public class MoveNodeCommand extends AbstractCommand {
     private final FDDINode node;
     private final FDDINode originalParent;
     private final FDDINode newParent;
@@ -28,25 +30,36 @@ public class MoveNodeCommand implements Command {
             var children = originalParent.getChildren();
             originalIndex = children.indexOf(node);
         }
-        if (originalParent != null) originalParent.removeChild(node);
+        if (originalParent != null) {
+            originalParent.removeChild(node);
+            ProgressRollup.childDetached(originalParent, node);
+        }
         if (newIndex != null && newParent != null) {
             newParent.insertChildAt(node, newIndex);
         } else {
             if (newParent != null) newParent.addChild(node);
         }
+        ProgressRollup.childAttached(newParent, node);
+        publishChange(ModelChange.moved(node, originalParent, newParent));
         executed = true;
     }
 
     @Override public void undo() {
         if (!executed) return;
-        if (newParent != null) newParent.removeChild(node);
+        if (newParent != null) {
+            newParent.removeChild(node);
+            ProgressRollup.childDetached(newParent, node);
+        }
         if (originalParent != null) {
             if (originalIndex >= 0) {
                 originalParent.insertChildAt(node, originalIndex);
             } else {
                 originalParent.addChild(node);
             }
+            ProgressRollup.childAttached(originalParent, node);
         }
+        if (originalParent != null) publishChange(ModelChange.moved(node, newParent, originalParent));
+        else publishTreeStructureChanged(newParent);
         executed = false;
     }
 
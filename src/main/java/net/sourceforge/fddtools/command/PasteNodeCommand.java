@@ -1,37 +1,42 @@
 package net.sourceforge.fddtools.command;
 
 import net.sourceforge.fddtools.model.FDDINode;
-import net.sourceforge.fddtools.util.ObjectCloner;
-import com.nebulon.xml.fddi.Feature;
-import java.util.List;
+import net.sourceforge.fddtools.model.FDDINodeCopier;
+import net.sourceforge.fddtools.model.ProgressRollup;
+import net.sourceforge.fddtools.state.ModelChange;
+import net.sourceforge.fddtools.state.NodeClipboard;
+import java.util.function.Supplier;
 
 /** Paste (clone) a clipboard node under a target parent. */
-public class PasteNodeCommand implements Command {
+public class PasteNodeCommand extends AbstractCommand {
     private final FDDINode parent;
-    private final FDDINode clipboardSource;
+    private final Supplier<FDDINode> source;
+    private final String sourceName;
     private FDDINode pasted;
     private boolean executed;
-    private final boolean resequenceFeatures;
 
     public PasteNodeCommand(FDDINode parent, FDDINode clipboardSource, boolean resequenceFeatures) {
         this.parent = parent;
-        this.clipboardSource = clipboardSource;
-        this.resequenceFeatures = resequenceFeatures;
+        this.source = () -> FDDINodeCopier.copy(clipboardSource, resequenceFeatures);
+        this.sourceName = clipboardSource.getName();
+    }
+
+    /** Pastes the clipboard content; the copy is only made when the command first executes. */
+    public PasteNodeCommand(FDDINode parent, NodeClipboard clipboard, boolean resequenceFeatures) {
+        this.parent = parent;
+        this.source = () -> clipboard.materialize(resequenceFeatures);
+        this.sourceName = clipboard.peek() != null ? clipboard.peek().getName() : null;
     }
 
     @Override
     public void execute() {
         if (executed) return;
-        pasted = (FDDINode) ObjectCloner.deepClone(clipboardSource);
+        // Redo re-attaches the same instance so later commands that reference it stay valid
+        if (pasted == null) pasted = source.get();
         if (pasted == null) throw new IllegalStateException("Clipboard clone failed");
-        if (resequenceFeatures) {
-            List<Feature> features = pasted.getFeaturesForNode();
-            for (Feature f : features) {
-                f.setSeq(f.getNextSequence());
-            }
-        }
         parent.add(pasted);
-        pasted.calculateProgress();
+        ProgressRollup.childAttached(parent, pasted);
+        publishChange(ModelChange.added(pasted, parent));
         executed = true;
     }
 
@@ -39,11 +44,16 @@ public class PasteNodeCommand implements Command {
     public void undo() {
         if (!executed) return;
         parent.removeChild(pasted);
+        ProgressRollup.childDetached(parent, pasted);
+        publishChange(ModelChange.removed(pasted, parent));
         executed = false;
     }
 
     public FDDINode getPasted() { return pasted; }
 
     @Override
-    public String description() { return "Paste " + clipboardSource.getName(); }
+    public FDDINode mutationScope() { return parent; }
+
+    @Override
+    public String description() { return "Paste " + sourceName; }
 }
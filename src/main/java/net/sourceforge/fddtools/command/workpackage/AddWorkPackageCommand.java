@@ -1,11 +1,12 @@
 package net.sourceforge.fddtools.command.workpackage;
 
-import net.sourceforge.fddtools.command.Command;
+import net.sourceforge.fddtools.command.AbstractCommand;
 import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.state.ModelChange;
 import com.nebulon.xml.fddi.Project;
 
 /** Adds a new WorkPackage to a Project (stored in project.any list). */
-public class AddWorkPackageCommand implements Command {
+public class AddWorkPackageCommand extends AbstractCommand {
     private final Project project;
     private final WorkPackage workPackage;
     private boolean executed;
@@ -15,7 +16,15 @@ public class AddWorkPackageCommand implements Command {
         this.workPackage = wp;
     }
 
-    @Override public void execute() { project.getAny().add(workPackage); executed = true; }
-    @Override public void undo() { if (executed) project.getAny().remove(workPackage); }
+    @Override public void execute() {
+        project.getAny().add(workPackage);
+        executed = true;
+        publishChange(ModelChange.fieldChanged(project, "workPackages", null, workPackage));
+    }
+    @Override public void undo() {
+        if (!executed) return;
+        project.getAny().remove(workPackage);
+        publishChange(ModelChange.fieldChanged(project, "workPackages", workPackage, null));
+    }
     @Override public String description() { return "Add Work Package '" + workPackage.getName() + "'"; }
 }
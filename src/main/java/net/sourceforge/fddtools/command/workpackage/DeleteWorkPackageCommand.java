@@ -1,11 +1,12 @@
 package net.sourceforge.fddtools.command.workpackage;
 
-import net.sourceforge.fddtools.command.Command;
+import net.sourceforge.fddtools.command.AbstractCommand;
 import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.state.ModelChange;
 import com.nebulon.xml.fddi.Project;
 
 /** Deletes an existing WorkPackage from a Project. */
-public class DeleteWorkPackageCommand implements Command {
+public class DeleteWorkPackageCommand extends AbstractCommand {
     private final Project project;
     private final WorkPackage workPackage;
     private int priorIndex = -1;
@@ -15,7 +16,15 @@ public class DeleteWorkPackageCommand implements Command {
         this.workPackage = wp;
     }
 
-    @Override public void execute() { priorIndex = project.getAny().indexOf(workPackage); project.getAny().remove(workPackage); }
-    @Override public void undo() { if (priorIndex >= 0) project.getAny().add(priorIndex, workPackage); }
+    @Override public void execute() {
+        priorIndex = project.getAny().indexOf(workPackage);
+        project.getAny().remove(workPackage);
+        publishChange(ModelChange.fieldChanged(project, "workPackages", workPackage, null));
+    }
+    @Override public void undo() {
+        if (priorIndex < 0) return;
+        project.getAny().add(priorIndex, workPackage);
+        publishChange(ModelChange.fieldChanged(project, "workPackages", null, workPackage));
+    }
     @Override public String description() { return "Delete Work Package '" + workPackage.getName() + "'"; }
 }
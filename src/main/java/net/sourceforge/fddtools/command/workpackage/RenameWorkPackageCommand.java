@@ -1,17 +1,31 @@
 package net.sourceforge.fddtools.command.workpackage;
 
-import net.sourceforge.fddtools.command.Command;
+import net.sourceforge.fddtools.command.AbstractCommand;
 import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.state.ModelChange;
+import com.nebulon.xml.fddi.Project;
 
-/** Renames a WorkPackage. */
-public class RenameWorkPackageCommand implements Command {
+/** Renames a WorkPackage of a Project. */
+public class RenameWorkPackageCommand extends AbstractCommand {
+    private final Project project;
     private final WorkPackage workPackage;
     private final String newName;
     private String oldName;
 
-    public RenameWorkPackageCommand(WorkPackage wp, String newName) { this.workPackage = wp; this.newName = newName; }
+    public RenameWorkPackageCommand(Project project, WorkPackage wp, String newName) {
+        this.project = project;
+        this.workPackage = wp;
+        this.newName = newName;
+    }
 
-    @Override public void execute() { oldName = workPackage.getName(); workPackage.setName(newName); }
-    @Override public void undo() { workPackage.setName(oldName); }
+    @Override public void execute() {
+        oldName = workPackage.getName();
+        workPackage.setName(newName);
+        publishChange(ModelChange.fieldChanged(project, "workPackageName", oldName, newName));
+    }
+    @Override public void undo() {
+        workPackage.setName(oldName);
+        publishChange(ModelChange.fieldChanged(project, "workPackageName", newName, oldName));
+    }
     @Override public String description() { return "Rename Work Package to '" + newName + "'"; }
 }
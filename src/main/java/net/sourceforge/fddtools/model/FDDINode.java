@@ -59,7 +59,8 @@ package net.sourceforge.fddtools.model;
 import com.nebulon.xml.fddi.Aspect;
 import com.nebulon.xml.fddi.Progress;
 import com.nebulon.xml.fddi.Feature;
-import com.nebulon.xml.fddi.ObjectFactory;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
@@ -67,7 +68,10 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 // Retaining Swing tree dependencies until legacy Swing UI fully removed
+import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.Unmarshaller;
 import jakarta.xml.bind.annotation.XmlAnyAttribute;
 import jakarta.xml.bind.annotation.XmlAnyElement;
@@ -105,6 +109,25 @@ public abstract class FDDINode implements FDDTreeNode, Serializable
     protected String id;
     @XmlAnyAttribute
     private Map<QName, String> otherAttributes = new HashMap<QName, String>();
+    // Roll-up counters maintained by ProgressRollup (children's completion sum/count, or
+    // completed milestone effort for a feature); never persisted or serialized.
+    transient int rollupSum;
+    transient int rollupCount;
+    transient boolean rollupValid;
+    // Pending source of this node's children for lazily loaded files; null once they are in place.
+    transient ChildLoader childLoader;
+    private static final List<Consumer<FDDINode>> childrenLoadedListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Supplies a node's children on first access, for project files that load subtrees lazily. A
+     * loader must not keep per-node state: copies of a node whose children are still pending share it.
+     */
+    @FunctionalInterface
+    public interface ChildLoader
+    {
+        /** Adds {@code node}'s children to it. */
+        void load(FDDINode node);
+    }
 
 
     public String getName()
@@ -132,7 +155,7 @@ public abstract class FDDINode implements FDDTreeNode, Serializable
     public Date getTargetDate()
     {
         if(targetDate == null)
-            calculateTargetDate();
+            targetDate = ownTargetDate();
         return targetDate;
     }
 
@@ -204,41 +227,32 @@ public abstract class FDDINode implements FDDTreeNode, Serializable
                         feature.setSequence(feature.getSeq());
                     }
                 }
+                // Children complete before their parent, so target dates roll up as elements close
+                if(target instanceof FDDINode)
+                    ((FDDINode) target).deriveTargetDate();
+                // Document root completes last: roll up progress for the whole tree in one pass
+                if(target instanceof FDDINode && parent == null)
+                    ProgressRollup.recompute((FDDINode) target);
             }
         };
     }
 
+    /**
+     * Re-derives this node's completion from its children's cached values and pushes the
+     * change up the parent chain (see {@link ProgressRollup}).
+     */
     public void calculateProgress()
     {
-        int childrenProgress = 0;
-        ObjectFactory of = new ObjectFactory();
-        Progress p = of.createProgress();
-        List<? extends FDDTreeNode> childList = getChildren();
-        if(!childList.isEmpty()) {
-            for (FDDTreeNode tn : childList) {
-                FDDINode node = (FDDINode) tn; // transitional cast
-                childrenProgress += node.getProgress().getCompletion();
-            }
-            p.setCompletion(childrenProgress / childList.size());
-        } else {
-            p.setCompletion(0);
-        }
-        setProgress(p);
-        if(getParentNode() != null) {
-            ((FDDINode) getParentNode()).calculateProgress();
-        }
+        ProgressRollup.refresh(this);
     }
 
+    /**
+     * Re-derives this node's target date and those of its ancestors, once each. Target dates below
+     * this node that were never derived are filled in on the way, without walking back up.
+     */
     public void calculateTargetDate()
     {
-        targetDate = null;
-        for(Feature f : getFeaturesForNode())
-        {
-            if(f.getTargetDate() != null && (targetDate == null || targetDate.before(f.getTargetDate())))
-            {
-                setTargetDate(f.getTargetDate());
-            }
-        }
+        targetDate = ownTargetDate();
         if(getParentNode() != null) {
             ((FDDINode) getParentNode()).calculateTargetDate();
         }
@@ -256,6 +270,46 @@ public abstract class FDDINode implements FDDTreeNode, Serializable
 //        }
     }
     
+    /**
+     * Sets this node's target date from its children's already derived dates (a feature's from its
+     * planned milestones) without walking ancestors; used while a tree is built bottom-up.
+     */
+    void deriveTargetDate()
+    {
+        if(this instanceof Feature)
+        {
+            targetDate = latestPlanned((Feature) this);
+            return;
+        }
+        Date latest = null;
+        for(FDDTreeNode tn : getChildren())
+        {
+            Date child = ((FDDINode) tn).targetDate;
+            if(child != null && (latest == null || child.after(latest))) latest = child;
+        }
+        targetDate = latest;
+    }
+
+    /** Target date from this node's own milestones or subtree, leaving ancestors alone. */
+    private Date ownTargetDate()
+    {
+        return this instanceof Feature ? latestPlanned((Feature) this) : latestFeatureTarget(null);
+    }
+
+    private static Date latestPlanned(Feature feature)
+    {
+        Date latest = null;
+        for(com.nebulon.xml.fddi.Milestone m : feature.getMilestone())
+        {
+            if(m.getPlanned() != null)
+            {
+                Date planned = m.getPlanned().toGregorianCalendar().getTime();
+                if(latest == null || planned.after(latest)) latest = planned;
+            }
+        }
+        return latest;
+    }
+
     public boolean isLate()
     {
         if(getTargetDate() != null &&
@@ -295,6 +349,75 @@ public abstract class FDDINode implements FDDTreeNode, Serializable
     public abstract void addChild(FDDTreeNode child);
     public abstract void removeChild(FDDTreeNode child);
 
+    /**
+     * Latest feature target date below this node, at least {@code latest}. Subtrees whose children
+     * are still pending contribute their stored target date instead of being loaded.
+     */
+    private Date latestFeatureTarget(Date latest)
+    {
+        for (FDDTreeNode tn : getChildren()) {
+            FDDINode node = (FDDINode) tn;
+            Date date = null;
+            if (node instanceof Feature) {
+                date = node.getTargetDate();
+            } else if (!node.isChildrenLoaded()) {
+                date = node.targetDate;
+            } else {
+                latest = node.latestFeatureTarget(latest);
+            }
+            if (date != null && (latest == null || latest.before(date))) latest = date;
+        }
+        return latest;
+    }
+
+    /**
+     * Defers this node's children to {@code loader}, which runs once on the first access to them
+     * (the children accessors, JAXB marshalling and Java serialization all trigger it).
+     */
+    public void setChildLoader(ChildLoader loader)
+    {
+        childLoader = loader;
+    }
+
+    /** False while this node's children are still pending in a lazily loaded file. */
+    public boolean isChildrenLoaded()
+    {
+        return childLoader == null;
+    }
+
+    /**
+     * Registers {@code listener} to run, on the loading thread, each time a pending {@link ChildLoader}
+     * has put a node's children in place; closing the returned handle removes it.
+     */
+    public static AutoCloseable addChildrenLoadedListener(Consumer<FDDINode> listener)
+    {
+        childrenLoadedListeners.add(listener);
+        return () -> childrenLoadedListeners.remove(listener);
+    }
+
+    /** Runs the pending {@link ChildLoader}, if any; called by the subclasses' children accessors. */
+    protected final void loadChildren()
+    {
+        ChildLoader loader = childLoader;
+        if (loader != null) {
+            childLoader = null;
+            loader.load(this);
+            for (Consumer<FDDINode> listener : childrenLoadedListeners) listener.accept(this);
+        }
+    }
+
+    /** JAXB marshal callback: pending children are loaded before the child lists are written. */
+    void beforeMarshal(Marshaller marshaller)
+    {
+        loadChildren();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        loadChildren();
+        out.defaultWriteObject();
+    }
+
     private void collectFeatures(List<Feature> features)
     {
         for (FDDTreeNode tn : getChildren()) {
@@ -0,0 +1,212 @@
+package net.sourceforge.fddtools.model;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.AspectInfo;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.MilestoneInfo;
+import com.nebulon.xml.fddi.Note;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Progress;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.Subject;
+import jakarta.xml.bind.JAXBElement;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+
+/**
+ * Typed deep copy of an FDDI subtree.
+ * <p>
+ * Walks the subtree once, building each node through its own type and wiring parent links as
+ * children are added, instead of round-tripping through Java serialization. The copy is detached:
+ * the root's parent is {@code null}, whatever the source's parent was. Mutable values (calendars,
+ * dates, DOM content in {@code any}, work packages) are copied; strings, enums and QNames are shared.
+ * Unknown objects found in {@code any} lists are assumed immutable and shared as well. Children
+ * still pending in a lazily loaded file are not read: the copy shares the source's loader.
+ */
+public final class FDDINodeCopier {
+    private final boolean resequenceFeatures;
+    private int savedSequence = -1;
+
+    private FDDINodeCopier(boolean resequenceFeatures) {
+        this.resequenceFeatures = resequenceFeatures;
+    }
+
+    /** Copies {@code source} and its descendants, keeping feature sequence numbers. */
+    public static <T extends FDDINode> T copy(T source) {
+        return copy(source, false);
+    }
+
+    /**
+     * Copies {@code source} and its descendants. With {@code resequenceFeatures} every copied feature
+     * takes the next global sequence number in depth-first order; otherwise it keeps the source's.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends FDDINode> T copy(T source, boolean resequenceFeatures) {
+        if (source == null) return null;
+        FDDINodeCopier copier = new FDDINodeCopier(resequenceFeatures);
+        try {
+            return (T) copier.copyNode(source);
+        } finally {
+            // Feature's constructor advances the global counter; undo that when sequences are kept
+            if (copier.savedSequence >= 0) new Feature().setSequence(copier.savedSequence);
+        }
+    }
+
+    private FDDINode copyNode(FDDINode src) {
+        FDDINode copy;
+        // Children still pending in a lazily loaded file stay there; resequencing has to visit them
+        boolean pending = !resequenceFeatures && !src.isChildrenLoaded();
+        if (src instanceof Feature f) {
+            copy = copyFeature(f);
+        } else if (src instanceof Activity a) {
+            Activity c = new Activity();
+            c.setInitials(a.getInitials());
+            c.setTarget(copyCalendar(a.getTarget()));
+            for (Feature f : a.getFeature()) c.add(copyNode(f));
+            copy = c;
+        } else if (src instanceof Subject s) {
+            Subject c = new Subject();
+            c.setPrefix(s.getPrefix());
+            for (Activity a : s.getActivity()) c.add(copyNode(a));
+            copy = c;
+        } else if (src instanceof Aspect a) {
+            Aspect c = new Aspect();
+            if (a.getInfo() != null) c.setInfo(copyInfo(a.getInfo()));
+            if (!pending) for (Subject s : a.getSubject()) c.add(copyNode(s));
+            copy = c;
+        } else if (src instanceof Project p) {
+            Project c = new Project();
+            if (!pending) for (Aspect a : p.getAspect()) c.add(copyNode(a));
+            copy = c;
+        } else if (src instanceof Program p) {
+            Program c = new Program();
+            if (!pending) {
+                for (Program child : p.getProgram()) c.add(copyNode(child));
+                for (Project child : p.getProject()) c.add(copyNode(child));
+            }
+            copy = c;
+        } else {
+            throw new IllegalArgumentException("Unsupported node type: " + src.getClass().getName());
+        }
+        copy.setName(src.getName());
+        copy.setId(src.getId());
+        if (src.progress != null) copy.setProgress(copyProgress(src.progress));
+        if (src.targetDate != null) copy.targetDate = new Date(src.targetDate.getTime());
+        if (src.any != null) copyAny(src.any, copy.getAny());
+        copyAttributes(src.getOtherAttributes(), copy.getOtherAttributes());
+        if (copy instanceof Project p) p.workPackageList = p.getWorkPackages();
+        if (pending) {
+            copy.childLoader = src.childLoader;
+            copy.rollupSum = src.rollupSum;
+            copy.rollupCount = src.rollupCount;
+            copy.rollupValid = src.rollupValid;
+        }
+        return copy;
+    }
+
+    private Feature copyFeature(Feature src) {
+        if (!resequenceFeatures && savedSequence < 0) savedSequence = src.getSequence();
+        Feature c = new Feature(); // constructor hands out the next sequence number
+        if (!resequenceFeatures) c.setSeq(src.getSeq());
+        c.setInitials(src.getInitials());
+        for (Milestone m : src.getMilestone()) c.getMilestone().add(copyMilestone(m));
+        for (Note n : src.getRemarks()) c.getRemarks().add(copyNote(n));
+        return c;
+    }
+
+    private static AspectInfo copyInfo(AspectInfo src) {
+        AspectInfo c = new AspectInfo();
+        c.setSubjectName(src.getSubjectName());
+        c.setActivityName(src.getActivityName());
+        c.setFeatureName(src.getFeatureName());
+        c.setMilestoneName(src.getMilestoneName());
+        c.setId(src.getId());
+        for (MilestoneInfo mi : src.getMilestoneInfo()) {
+            MilestoneInfo m = new MilestoneInfo();
+            m.setName(mi.getName());
+            m.setEffort(mi.getEffort());
+            m.setId(mi.getId());
+            copyAny(mi.getAny(), m.getAny());
+            copyAttributes(mi.getOtherAttributes(), m.getOtherAttributes());
+            c.getMilestoneInfo().add(m);
+        }
+        copyAny(src.getAny(), c.getAny());
+        copyAttributes(src.getOtherAttributes(), c.getOtherAttributes());
+        return c;
+    }
+
+    private static Milestone copyMilestone(Milestone src) {
+        Milestone c = new Milestone();
+        c.setPlanned(copyCalendar(src.getPlanned()));
+        c.setActual(copyCalendar(src.getActual()));
+        c.setStatus(src.getStatus());
+        c.setId(src.getId());
+        copyAny(src.getAny(), c.getAny());
+        copyAttributes(src.getOtherAttributes(), c.getOtherAttributes());
+        return c;
+    }
+
+    private static Note copyNote(Note src) {
+        Note c = new Note();
+        c.setEntered(copyCalendar(src.getEntered()));
+        c.setId(src.getId());
+        copyAny(src.getContent(), c.getContent());
+        copyAttributes(src.getOtherAttributes(), c.getOtherAttributes());
+        return c;
+    }
+
+    private static Progress copyProgress(Progress src) {
+        Progress c = new Progress();
+        // getCount() reports an unset count (0) as 1; keep it unset so the copy marshals the same
+        if (src.getCount() != 1) c.setCount(src.getCount());
+        c.setCompletion(src.getCompletion());
+        c.setStatus(src.getStatus());
+        c.setId(src.getId());
+        for (Progress.Kpi k : src.getKpi()) {
+            Progress.Kpi kc = new Progress.Kpi();
+            kc.setStatus(k.getStatus());
+            kc.setCount(k.getCount());
+            c.getKpi().add(kc);
+        }
+        copyAny(src.getAny(), c.getAny());
+        copyAttributes(src.getOtherAttributes(), c.getOtherAttributes());
+        return c;
+    }
+
+    private static void copyAny(List<Object> src, List<Object> dest) {
+        for (Object o : src) dest.add(copyValue(o));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object copyValue(Object o) {
+        if (o instanceof org.w3c.dom.Node n) return n.cloneNode(true);
+        if (o instanceof WorkPackage wp) {
+            WorkPackage c = new WorkPackage();
+            c.setName(wp.getName());
+            c.setInitials(wp.getInitials());
+            c.getFeatureList().addAll(wp.getFeatureList());
+            return c;
+        }
+        if (o instanceof JAXBElement e) {
+            JAXBElement c = new JAXBElement(e.getName(), e.getDeclaredType(), e.getScope(), copyValue(e.getValue()));
+            c.setNil(e.isNil());
+            return c;
+        }
+        if (o instanceof XMLGregorianCalendar cal) return cal.clone();
+        return o;
+    }
+
+    private static void copyAttributes(Map<QName, String> src, Map<QName, String> dest) {
+        if (!src.isEmpty()) dest.putAll(src);
+    }
+
+    private static XMLGregorianCalendar copyCalendar(XMLGregorianCalendar cal) {
+        return cal == null ? null : (XMLGregorianCalendar) cal.clone();
+    }
+}
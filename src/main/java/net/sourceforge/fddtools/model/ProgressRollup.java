@@ -0,0 +1,205 @@
+package net.sourceforge.fddtools.model;
+
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.MilestoneInfo;
+import com.nebulon.xml.fddi.ObjectFactory;
+import com.nebulon.xml.fddi.Progress;
+import com.nebulon.xml.fddi.StatusEnum;
+
+import java.util.List;
+
+/**
+ * Bottom-up completion roll-up for the FDDI tree.
+ * <p>
+ * Every node caches the sum and count of its children's completion (features cache the
+ * effort of their completed milestones), so a change is pushed up the parent chain as a
+ * delta and stops as soon as an ancestor's percentage no longer moves. Ancestors are never
+ * re-walked child by child; a one-level rescan only happens when a node's counters are
+ * missing or no longer match its child list (e.g. the tree was mutated outside a command).
+ * <p>
+ * Completion semantics are unchanged from the former recursive implementation: a feature's
+ * completion is the summed effort of its COMPLETE milestones (aligned by index with the owning
+ * aspect's milestone definitions) and every other node is the integer average of its children.
+ */
+public final class ProgressRollup {
+    private static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
+
+    private ProgressRollup() {}
+
+    /**
+     * Single post-order pass over the subtree rooted at {@code root}; used after load/import
+     * when no counters exist yet. Does not touch ancestors of {@code root}.
+     */
+    public static void recompute(FDDINode root) {
+        if (root == null) return;
+        recompute(root, aspectFor(root));
+    }
+
+    /**
+     * Re-derives {@code node}'s own counters (milestones for a feature, cached child values
+     * otherwise) and propagates the resulting delta towards the root.
+     */
+    public static void refresh(FDDINode node) {
+        if (node == null) return;
+        int before = cachedCompletion(node);
+        rescan(node);
+        int after = completionOf(node);
+        store(node, after);
+        propagate(node, before, after);
+    }
+
+    /** Accounts for {@code child} having just been added below {@code parent}. */
+    public static void childAttached(FDDINode parent, FDDINode child) {
+        if (parent == null || child == null) return;
+        // The subtree may now sit under a different aspect (milestone efforts), so derive it afresh.
+        int added = recompute(child, aspectFor(parent));
+        int before = cachedCompletion(parent);
+        if (before >= 0 && parent.rollupValid && parent.rollupCount + 1 == parent.getChildren().size()) {
+            parent.rollupSum += added;
+            parent.rollupCount++;
+        } else {
+            rescan(parent);
+        }
+        int after = completionOf(parent);
+        store(parent, after);
+        propagate(parent, before, after);
+    }
+
+    /** Accounts for {@code child} having just been removed from {@code parent}. */
+    public static void childDetached(FDDINode parent, FDDINode child) {
+        if (parent == null || child == null) return;
+        int removed = cachedCompletion(child);
+        int before = cachedCompletion(parent);
+        if (removed >= 0 && before >= 0 && parent.rollupValid && parent.rollupCount - 1 == parent.getChildren().size()) {
+            parent.rollupSum -= removed;
+            parent.rollupCount--;
+        } else {
+            rescan(parent);
+        }
+        int after = completionOf(parent);
+        store(parent, after);
+        propagate(parent, before, after);
+    }
+
+    /**
+     * Installs counters saved with a node whose children are loaded lazily, so it counts as rolled
+     * up without visiting them: {@code sum} is the children's summed completion, {@code count} their
+     * number. The resulting completion is stored on the node.
+     */
+    public static void restore(FDDINode node, int sum, int count) {
+        node.rollupSum = sum;
+        node.rollupCount = count;
+        node.rollupValid = true;
+        store(node, completionOf(node));
+    }
+
+    /** Summed effort of the feature's COMPLETE milestones against the aspect's milestone definitions. */
+    public static int completedEffort(Feature feature, Aspect aspect) {
+        List<com.nebulon.xml.fddi.Milestone> milestones = feature.getMilestone();
+        if (milestones.isEmpty() || aspect == null || aspect.getInfo() == null) return 0;
+        List<MilestoneInfo> infos = aspect.getInfo().getMilestoneInfo();
+        if (infos == null) return 0;
+        int effort = 0;
+        int maxIndex = Math.min(infos.size(), milestones.size());
+        for (int i = 0; i < maxIndex; i++) {
+            if (milestones.get(i).getStatus() == StatusEnum.COMPLETE) {
+                effort += infos.get(i).getEffort();
+            }
+        }
+        return effort;
+    }
+
+    // --- internals ---
+
+    private static int recompute(FDDINode node, Aspect aspect) {
+        if (node instanceof Aspect a) aspect = a;
+        int sum = 0;
+        int count = 0;
+        if (node instanceof Feature feature) {
+            sum = completedEffort(feature, aspect);
+        } else {
+            for (FDDTreeNode child : node.getChildren()) {
+                sum += recompute((FDDINode) child, aspect);
+                count++;
+            }
+        }
+        node.rollupSum = sum;
+        node.rollupCount = count;
+        node.rollupValid = true;
+        int completion = completionOf(node);
+        store(node, completion);
+        return completion;
+    }
+
+    /** One-level rebuild of a node's counters from its children's cached values. */
+    private static void rescan(FDDINode node) {
+        if (node instanceof Feature feature) {
+            node.rollupSum = completedEffort(feature, feature.getAspectForNode());
+            node.rollupCount = 0;
+            node.rollupValid = true;
+            return;
+        }
+        Aspect aspect = null;
+        boolean aspectResolved = false;
+        int sum = 0;
+        int count = 0;
+        for (FDDTreeNode tn : node.getChildren()) {
+            FDDINode child = (FDDINode) tn;
+            int c = cachedCompletion(child);
+            if (c < 0) {
+                if (!aspectResolved) { aspect = aspectFor(node); aspectResolved = true; }
+                c = recompute(child, aspect);
+            }
+            sum += c;
+            count++;
+        }
+        node.rollupSum = sum;
+        node.rollupCount = count;
+        node.rollupValid = true;
+    }
+
+    private static void propagate(FDDINode node, int before, int after) {
+        FDDINode parent = node.getParent();
+        while (parent != null && before != after) {
+            int parentBefore = cachedCompletion(parent);
+            if (before >= 0 && parentBefore >= 0 && parent.rollupValid
+                    && parent.rollupCount == parent.getChildren().size()) {
+                parent.rollupSum += after - before;
+            } else {
+                rescan(parent);
+            }
+            int parentAfter = completionOf(parent);
+            store(parent, parentAfter);
+            before = parentBefore;
+            after = parentAfter;
+            parent = parent.getParent();
+        }
+    }
+
+    private static int completionOf(FDDINode node) {
+        if (node instanceof Feature) return node.rollupSum;
+        return node.rollupCount == 0 ? 0 : node.rollupSum / node.rollupCount;
+    }
+
+    /** Cached completion or -1 when the node has no trustworthy counters yet. */
+    private static int cachedCompletion(FDDINode node) {
+        return node.rollupValid && node.progress != null ? node.progress.getCompletion() : -1;
+    }
+
+    private static void store(FDDINode node, int completion) {
+        Progress p = node.progress;
+        if (p == null) {
+            p = OBJECT_FACTORY.createProgress();
+            node.setProgress(p);
+        }
+        p.setCompletion(completion);
+    }
+
+    private static Aspect aspectFor(FDDINode node) {
+        for (FDDINode n = node; n != null; n = n.getParent()) {
+            if (n instanceof Aspect a) return a;
+        }
+        return null;
+    }
+}
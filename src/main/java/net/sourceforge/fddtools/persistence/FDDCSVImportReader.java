@@ -85,6 +85,7 @@ import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 import net.sourceforge.fddtools.internationalization.Messages;
+import net.sourceforge.fddtools.model.ProgressRollup;
 
 /**
  * Implement the interface TreeNodeTokenizer to convert lines in MS Project
@@ -94,10 +95,6 @@ public class FDDCSVImportReader
 {
     private static final String ROOT_NAME = "Develop";
 
-    private static Project project = null;
-    private static int rootLevel = 0;
-    private static boolean rootFound = false;
-
     private FDDCSVImportReader()
     {
         //Insure class cannot be instantiated except through static method
@@ -114,6 +111,9 @@ public class FDDCSVImportReader
     private static Project buildProject(CSVReader reader) throws IOException, CsvValidationException
     {
         ObjectFactory of = new ObjectFactory();
+        Project project = null;
+        int rootLevel = 0;
+        boolean rootFound = false;
         Aspect aspect = null;
         Subject subject = null;
         Activity activity = null;
@@ -268,6 +268,7 @@ public class FDDCSVImportReader
                 }
             }
 
+        ProgressRollup.recompute(project);
         return project;
     }
 }
@@ -0,0 +1,77 @@
+package net.sourceforge.fddtools.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Layout of the compact binary project format ({@code .fddb}), shared by {@link FDDIBinaryWriter}
+ * and {@link FDDIBinaryReader}.
+ * <p>
+ * A file is the {@link #MAGIC} bytes, a version byte and the root node, written depth-first in the
+ * order the FDDI schema declares the fields. Integers are unsigned LEB128 varints (zig-zag for
+ * values that may be negative). Every string goes through a table built while writing: a
+ * reference of 0 is {@code null}, 1 introduces a new string (length and UTF-8 bytes follow) and
+ * {@code n >= 2} repeats the (n-2)th string introduced so far, so names, initials and prefixes
+ * repeated across thousands of features are stored once. xs:date values are stored as epoch days;
+ * calendars carrying a time of day fall back to their lexical form. Extension content in
+ * {@code any} lists and attribute wildcards is kept: strings, work packages and simple JAXB
+ * elements have compact encodings, everything else is stored as an XML fragment.
+ * <p>
+ * The paged variant ({@link #PAGED_MAGIC}, see {@link FDDIPagedWriter}) stores the same node
+ * encoding in self-contained pages, each with its own string table, so single subtrees can be
+ * decoded from a memory-mapped file.
+ */
+final class FDDIBinaryFormat {
+    /** "FDDB". */
+    static final byte[] MAGIC = {0x46, 0x44, 0x44, 0x42};
+    static final int VERSION = 1;
+    /** "FDDP". */
+    static final byte[] PAGED_MAGIC = {0x46, 0x44, 0x44, 0x50};
+    static final int PAGED_VERSION = 1;
+
+    /** Page holding one node's fields, stored summaries and the offsets of its child pages. */
+    static final int PAGE_NODE = 1;
+    /** Page holding a whole subtree in the plain binary encoding. */
+    static final int PAGE_SUBTREE = 2;
+
+    static final int NODE_PROGRAM = 1;
+    static final int NODE_PROJECT = 2;
+    static final int NODE_ASPECT = 3;
+    static final int NODE_SUBJECT = 4;
+    static final int NODE_ACTIVITY = 5;
+    static final int NODE_FEATURE = 6;
+
+    static final int STRING_NULL = 0;
+    static final int STRING_NEW = 1;
+
+    static final int DATE_NULL = 0;
+    static final int DATE_DAY = 1;
+    static final int DATE_DAY_ZONED = 2;
+    static final int DATE_LEXICAL = 3;
+
+    static final int ANY_STRING = 1;
+    static final int ANY_WORK_PACKAGE = 2;
+    static final int ANY_STRING_ELEMENT = 3;
+    static final int ANY_DOM = 4;
+    static final int ANY_FRAGMENT = 5;
+
+    private FDDIBinaryFormat() {}
+
+    /** True if {@code file} starts with the binary format's magic bytes. */
+    static boolean hasMagic(Path file) {
+        return hasMagic(file, MAGIC);
+    }
+
+    /** True if {@code file} starts with {@code magic}. */
+    static boolean hasMagic(Path file, byte[] magic) {
+        if (!Files.isRegularFile(file)) return false;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] head = in.readNBytes(magic.length);
+            return java.util.Arrays.equals(head, magic);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package net.sourceforge.fddtools.persistence;
+
+import static net.sourceforge.fddtools.persistence.FDDIBinaryFormat.*;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.AspectInfo;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.MilestoneInfo;
+import com.nebulon.xml.fddi.Note;
+import com.nebulon.xml.fddi.ObjectFactory;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Progress;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.StatusEnum;
+import com.nebulon.xml.fddi.Subject;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.stream.StreamSource;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.service.LoggingService;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads a project tree written by {@link FDDIBinaryWriter}.
+ * <p>
+ * Nodes are built the way JAXB builds them and handed to the same
+ * {@link FDDINode#createListener() unmarshal listener} as each one completes, so parent links,
+ * feature sequence numbers, target dates and progress roll-up come out exactly as after reading the
+ * equivalent XML.
+ */
+public final class FDDIBinaryReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+    private static final DatatypeFactory DATATYPES;
+    static {
+        try {
+            DATATYPES = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final InputStream in;
+    private final Unmarshaller.Listener listener = ((FDDINode) new ObjectFactory().createProgram()).createListener();
+    private final BooleanSupplier cancelled;
+    private final List<String> strings = new ArrayList<>();
+
+    FDDIBinaryReader(InputStream in, BooleanSupplier cancelled) {
+        this.in = in;
+        this.cancelled = cancelled;
+    }
+
+    /** True if {@code file} is in the binary project format (by its magic header). */
+    public static boolean isBinaryProject(Path file) {
+        return hasMagic(file);
+    }
+
+    /**
+     * Reads the root node from {@code file}.
+     *
+     * @param progress  optional progress callback, may be {@code null}
+     * @param cancelled optional cancellation check, may be {@code null}
+     * @throws CancellationException if {@code cancelled} reports true before the read completes
+     */
+    public static FDDINode read(Path file, FDDIStreamingReader.ReadProgress progress, BooleanSupplier cancelled)
+            throws IOException, JAXBException {
+        long total = Files.size(file);
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiBinaryRead", Map.of("file", String.valueOf(file.getFileName())));
+             CountingInputStream counted = new CountingInputStream(Files.newInputStream(file), total, progress)) {
+            InputStream in = new BufferedInputStream(counted, BUFFER_SIZE);
+            byte[] head = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(head, MAGIC)) throw new IOException("Not a binary FDDI project: " + file);
+            int version = in.read();
+            if (version != VERSION) throw new IOException("Unsupported binary FDDI version " + version + ": " + file);
+            FDDIBinaryReader reader = new FDDIBinaryReader(in, cancelled);
+            FDDINode root = reader.node(null);
+            span.metric("bytes", total).metric("strings", reader.strings.size());
+            return root;
+        }
+    }
+
+    /** Reads a node and its descendants, handing each to the unmarshal listener as it completes. */
+    FDDINode node(FDDINode parent) throws IOException, JAXBException {
+        FDDINode node = fields();
+        switch (node) {
+            case Activity a -> {
+                for (int i = (int) varint(); i > 0; i--) a.getFeature().add((Feature) node(a));
+            }
+            case Subject s -> {
+                for (int i = (int) varint(); i > 0; i--) s.getActivity().add((Activity) node(s));
+            }
+            case Aspect a -> {
+                for (int i = (int) varint(); i > 0; i--) a.getSubject().add((Subject) node(a));
+            }
+            case Project p -> {
+                for (int i = (int) varint(); i > 0; i--) p.getAspect().add((Aspect) node(p));
+            }
+            case Program p -> {
+                for (int i = (int) varint(); i > 0; i--) p.getProgram().add((Program) node(p));
+                for (int i = (int) varint(); i > 0; i--) p.getProject().add((Project) node(p));
+            }
+            default -> { }
+        }
+        listener.afterUnmarshal(node, parent);
+        return node;
+    }
+
+    /** Reads a node's kind and own fields as written by {@link FDDIBinaryWriter#fields}. */
+    FDDINode fields() throws IOException, JAXBException {
+        if (cancelled != null && cancelled.getAsBoolean()) throw new CancellationException("Read cancelled");
+        int kind = (int) varint();
+        FDDINode node = switch (kind) {
+            case NODE_PROGRAM -> new Program();
+            case NODE_PROJECT -> new Project();
+            case NODE_ASPECT -> new Aspect();
+            case NODE_SUBJECT -> new Subject();
+            case NODE_ACTIVITY -> new Activity();
+            case NODE_FEATURE -> new Feature();
+            default -> throw new IOException("Corrupt binary FDDI file: unknown node kind " + kind);
+        };
+        node.setName(string());
+        node.setId(string());
+        node.setProgress(progress());
+        any(node.getAny());
+        attributes(node.getOtherAttributes());
+        switch (node) {
+            case Feature f -> {
+                f.setSeq((int) varint());
+                f.setInitials(string());
+                for (int i = (int) varint(); i > 0; i--) {
+                    Milestone m = new Milestone();
+                    m.setPlanned(date());
+                    m.setActual(date());
+                    m.setStatus(status());
+                    m.setId(string());
+                    any(m.getAny());
+                    attributes(m.getOtherAttributes());
+                    f.getMilestone().add(m);
+                }
+                for (int i = (int) varint(); i > 0; i--) {
+                    Note n = new Note();
+                    n.setEntered(date());
+                    n.setId(string());
+                    any(n.getContent());
+                    attributes(n.getOtherAttributes());
+                    f.getRemarks().add(n);
+                }
+            }
+            case Activity a -> {
+                a.setInitials(string());
+                a.setTarget(date());
+            }
+            case Subject s -> s.setPrefix(string());
+            case Aspect a -> a.setInfo(info());
+            case Project p -> p.workPackageList = p.getWorkPackages();
+            default -> { }
+        }
+        return node;
+    }
+
+    private Progress progress() throws IOException, JAXBException {
+        if (varint() == 0) return null;
+        Progress p = new Progress();
+        int count = (int) varint();
+        if (count != 0) p.setCount(count);
+        p.setCompletion((int) varint());
+        p.setStatus(status());
+        p.setId(string());
+        for (int i = (int) varint(); i > 0; i--) {
+            Progress.Kpi k = new Progress.Kpi();
+            k.setStatus(status());
+            k.setCount((int) varint());
+            p.getKpi().add(k);
+        }
+        any(p.getAny());
+        attributes(p.getOtherAttributes());
+        return p;
+    }
+
+    private AspectInfo info() throws IOException, JAXBException {
+        if (varint() == 0) return null;
+        AspectInfo info = new AspectInfo();
+        info.setSubjectName(string());
+        info.setActivityName(string());
+        info.setFeatureName(string());
+        info.setMilestoneName(string());
+        info.setId(string());
+        for (int i = (int) varint(); i > 0; i--) {
+            MilestoneInfo mi = new MilestoneInfo();
+            mi.setName(string());
+            mi.setEffort((int) varint());
+            mi.setId(string());
+            any(mi.getAny());
+            attributes(mi.getOtherAttributes());
+            info.getMilestoneInfo().add(mi);
+        }
+        any(info.getAny());
+        attributes(info.getOtherAttributes());
+        return info;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void any(List<Object> values) throws IOException, JAXBException {
+        for (int i = (int) varint(); i > 0; i--) {
+            int tag = (int) varint();
+            switch (tag) {
+                case ANY_STRING -> values.add(string());
+                case ANY_WORK_PACKAGE -> {
+                    WorkPackage wp = new WorkPackage();
+                    wp.setName(string());
+                    wp.setInitials(string());
+                    for (int n = (int) varint(); n > 0; n--) wp.addFeature((int) varint());
+                    values.add(wp);
+                }
+                case ANY_STRING_ELEMENT -> {
+                    QName name = qname();
+                    String scope = string();
+                    Class<?> scopeClass = JAXBElement.GlobalScope.class;
+                    if (scope != null) {
+                        try {
+                            scopeClass = Class.forName(scope);
+                        } catch (ClassNotFoundException ex) {
+                            throw new IOException("Unknown element scope in binary FDDI file: " + scope, ex);
+                        }
+                    }
+                    values.add(new JAXBElement(name, String.class, scopeClass, string()));
+                }
+                case ANY_DOM -> values.add(parseElement(string()));
+                case ANY_FRAGMENT -> values.add(unmarshalFragment(string()));
+                default -> throw new IOException("Corrupt binary FDDI file: unknown extension tag " + tag);
+            }
+        }
+    }
+
+    private void attributes(Map<QName, String> attributes) throws IOException {
+        for (int i = (int) varint(); i > 0; i--) {
+            QName name = qname();
+            attributes.put(name, string());
+        }
+    }
+
+    private QName qname() throws IOException {
+        String ns = string();
+        String local = string();
+        String prefix = string();
+        return new QName(ns, local, prefix);
+    }
+
+    private StatusEnum status() throws IOException {
+        int v = (int) varint();
+        if (v > STATUSES.length) throw new IOException("Corrupt binary FDDI file: unknown status " + v);
+        return v == 0 ? null : STATUSES[v - 1];
+    }
+
+    private XMLGregorianCalendar date() throws IOException {
+        int tag = (int) varint();
+        switch (tag) {
+            case DATE_NULL:
+                return null;
+            case DATE_DAY:
+            case DATE_DAY_ZONED: {
+                LocalDate day = LocalDate.ofEpochDay(zigzag());
+                int zone = tag == DATE_DAY_ZONED ? (int) zigzag() : DatatypeConstants.FIELD_UNDEFINED;
+                return DATATYPES.newXMLGregorianCalendarDate(day.getYear(), day.getMonthValue(), day.getDayOfMonth(), zone);
+            }
+            case DATE_LEXICAL:
+                return DATATYPES.newXMLGregorianCalendar(string());
+            default:
+                throw new IOException("Corrupt binary FDDI file: unknown date tag " + tag);
+        }
+    }
+
+    private String string() throws IOException {
+        int ref = (int) varint();
+        if (ref == STRING_NULL) return null;
+        if (ref == STRING_NEW) {
+            int length = (int) varint();
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) throw new EOFException("Truncated binary FDDI file");
+            String s = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(s);
+            return s;
+        }
+        if (ref - 2 >= strings.size()) throw new IOException("Corrupt binary FDDI file: bad string reference " + ref);
+        return strings.get(ref - 2);
+    }
+
+    private long zigzag() throws IOException {
+        long v = varint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private long varint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated binary FDDI file");
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("Corrupt binary FDDI file: varint too long");
+    }
+
+    private static org.w3c.dom.Element parseElement(String xml) throws IOException {
+        try {
+            DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+            f.setNamespaceAware(true);
+            f.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); //NOI18N
+            return f.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new IOException("Cannot parse extension element in binary FDDI file", ex);
+        }
+    }
+
+    private static Object unmarshalFragment(String xml) throws JAXBException {
+        FDDIPersistenceContext pc = FDDIPersistenceContext.getInstance();
+        Unmarshaller u = pc.borrowUnmarshaller();
+        try {
+            return u.unmarshal(new StreamSource(new StringReader(xml)));
+        } finally {
+            pc.release(u);
+        }
+    }
+
+    /** Reports consumed bytes against the file size. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long total;
+        private final FDDIStreamingReader.ReadProgress progress;
+        private long count;
+
+        CountingInputStream(InputStream in, long total, FDDIStreamingReader.ReadProgress progress) {
+            super(in);
+            this.total = total;
+            this.progress = progress;
+        }
+
+        @Override public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) advance(1);
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) advance(n);
+            return n;
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (progress != null) progress.update(count, total);
+        }
+    }
+}
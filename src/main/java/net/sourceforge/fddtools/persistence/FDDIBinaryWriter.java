@@ -0,0 +1,354 @@
+package net.sourceforge.fddtools.persistence;
+
+import static net.sourceforge.fddtools.persistence.FDDIBinaryFormat.*;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.AspectInfo;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.MilestoneInfo;
+import com.nebulon.xml.fddi.Note;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Progress;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.StatusEnum;
+import com.nebulon.xml.fddi.Subject;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.service.LoggingService;
+
+/**
+ * Writes a project tree in the compact binary format described in {@link FDDIBinaryFormat}.
+ * <p>
+ * Like {@link FDDIStreamingWriter}, the file is written to a sibling temp file, forced to disk and
+ * atomically moved over the target. There is no schema to validate against; the reader rebuilds the
+ * same tree the XML reader would, so a file can be converted back to XML without loss.
+ */
+public final class FDDIBinaryWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** File name extension selecting the binary format on save. */
+    public static final String EXTENSION = ".fddb"; //NOI18N
+
+    private final OutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    FDDIBinaryWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /** True if saving to {@code target} should use the binary format (by its extension). */
+    public static boolean handles(Path target) {
+        return target.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /**
+     * Writes {@code root} to {@code target}, replacing it atomically.
+     *
+     * @param bytesWritten optional callback receiving the running count of bytes written
+     * @return number of bytes written
+     */
+    public static long write(FDDINode root, Path target, LongConsumer bytesWritten) throws IOException, JAXBException {
+        if (root == null) throw new IllegalArgumentException("Root node is null");
+        Path absolute = target.toAbsolutePath();
+        if (Files.isDirectory(absolute)) throw new IOException("Target is a directory: " + absolute);
+        Path tmp = FDDIStreamingWriter.createTemp(absolute);
+        boolean committed = false;
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiBinaryWrite", Map.of("file", String.valueOf(absolute.getFileName())))) {
+            long bytes;
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                FDDIStreamingWriter.CountingOutputStream counted = new FDDIStreamingWriter.CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), bytesWritten);
+                FDDIBinaryWriter writer = new FDDIBinaryWriter(counted);
+                counted.write(MAGIC);
+                counted.write(VERSION);
+                writer.node(root);
+                counted.flush();
+                channel.force(true);
+                bytes = counted.count;
+                span.metric("bytes", bytes).metric("strings", writer.strings.size());
+            }
+            FDDIStreamingWriter.commit(tmp, absolute);
+            committed = true;
+            return bytes;
+        } finally {
+            if (!committed) Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Writes {@code node} and its descendants. */
+    void node(FDDINode node) throws IOException, JAXBException {
+        fields(node);
+        if (node instanceof Activity a) {
+            children(a.getFeature());
+        } else if (node instanceof Subject s) {
+            children(s.getActivity());
+        } else if (node instanceof Aspect a) {
+            children(a.getSubject());
+        } else if (node instanceof Project p) {
+            children(p.getAspect());
+        } else if (node instanceof Program p) {
+            children(p.getProgram());
+            children(p.getProject());
+        }
+    }
+
+    /** Writes {@code node}'s kind and own fields; child nodes are left to the caller. */
+    void fields(FDDINode node) throws IOException, JAXBException {
+        if (node instanceof Feature f) {
+            varint(NODE_FEATURE);
+            common(f);
+            varint(f.getSeq());
+            string(f.getInitials());
+            List<Milestone> milestones = f.getMilestone();
+            varint(milestones.size());
+            for (Milestone m : milestones) {
+                date(m.getPlanned());
+                date(m.getActual());
+                status(m.getStatus());
+                string(m.getId());
+                any(m.getAny());
+                attributes(m.getOtherAttributes());
+            }
+            List<Note> remarks = f.getRemarks();
+            varint(remarks.size());
+            for (Note n : remarks) {
+                date(n.getEntered());
+                string(n.getId());
+                any(n.getContent());
+                attributes(n.getOtherAttributes());
+            }
+        } else if (node instanceof Activity a) {
+            varint(NODE_ACTIVITY);
+            common(a);
+            string(a.getInitials());
+            date(a.getTarget());
+        } else if (node instanceof Subject s) {
+            varint(NODE_SUBJECT);
+            common(s);
+            string(s.getPrefix());
+        } else if (node instanceof Aspect a) {
+            varint(NODE_ASPECT);
+            common(a);
+            info(a.getInfo());
+        } else if (node instanceof Project p) {
+            varint(NODE_PROJECT);
+            common(p);
+        } else if (node instanceof Program p) {
+            varint(NODE_PROGRAM);
+            common(p);
+        } else {
+            throw new IllegalArgumentException("Unsupported node type: " + node.getClass().getName());
+        }
+    }
+
+    private void common(FDDINode node) throws IOException, JAXBException {
+        string(node.getName());
+        string(node.getId());
+        progress(node.getProgress());
+        any(node.getAny());
+        attributes(node.getOtherAttributes());
+    }
+
+    private void children(List<? extends FDDINode> children) throws IOException, JAXBException {
+        varint(children.size());
+        for (FDDINode child : children) node(child);
+    }
+
+    private void progress(Progress p) throws IOException, JAXBException {
+        if (p == null) { varint(0); return; }
+        varint(1);
+        // getCount() reports an unset count (0) as 1; store it unset, as FDDINodeCopier does
+        varint(p.getCount() == 1 ? 0 : p.getCount());
+        varint(p.getCompletion());
+        status(p.getStatus());
+        string(p.getId());
+        varint(p.getKpi().size());
+        for (Progress.Kpi k : p.getKpi()) {
+            status(k.getStatus());
+            varint(k.getCount());
+        }
+        any(p.getAny());
+        attributes(p.getOtherAttributes());
+    }
+
+    private void info(AspectInfo info) throws IOException, JAXBException {
+        if (info == null) { varint(0); return; }
+        varint(1);
+        string(info.getSubjectName());
+        string(info.getActivityName());
+        string(info.getFeatureName());
+        string(info.getMilestoneName());
+        string(info.getId());
+        varint(info.getMilestoneInfo().size());
+        for (MilestoneInfo mi : info.getMilestoneInfo()) {
+            string(mi.getName());
+            varint(mi.getEffort());
+            string(mi.getId());
+            any(mi.getAny());
+            attributes(mi.getOtherAttributes());
+        }
+        any(info.getAny());
+        attributes(info.getOtherAttributes());
+    }
+
+    private void any(List<Object> values) throws IOException, JAXBException {
+        varint(values.size());
+        for (Object o : values) {
+            if (o instanceof String s) {
+                varint(ANY_STRING);
+                string(s);
+            } else if (o instanceof WorkPackage wp) {
+                varint(ANY_WORK_PACKAGE);
+                string(wp.getName());
+                string(wp.getInitials());
+                List<Integer> seqs = wp.getFeatureList();
+                varint(seqs.size());
+                for (Integer seq : seqs) varint(seq);
+            } else if (o instanceof JAXBElement<?> e && e.getValue() instanceof String value && !e.isNil()) {
+                varint(ANY_STRING_ELEMENT);
+                qname(e.getName());
+                string(e.getScope() == JAXBElement.GlobalScope.class ? null : e.getScope().getName());
+                string(value);
+            } else if (o instanceof org.w3c.dom.Element element) {
+                varint(ANY_DOM);
+                string(domToString(element));
+            } else {
+                varint(ANY_FRAGMENT);
+                string(fragment(o));
+            }
+        }
+    }
+
+    private void attributes(Map<QName, String> attributes) throws IOException {
+        varint(attributes.size());
+        for (Map.Entry<QName, String> e : attributes.entrySet()) {
+            qname(e.getKey());
+            string(e.getValue());
+        }
+    }
+
+    private void qname(QName name) throws IOException {
+        string(name.getNamespaceURI());
+        string(name.getLocalPart());
+        string(name.getPrefix());
+    }
+
+    private void status(StatusEnum status) throws IOException {
+        varint(status == null ? 0 : status.ordinal() + 1);
+    }
+
+    private void date(XMLGregorianCalendar cal) throws IOException {
+        if (cal == null) {
+            varint(DATE_NULL);
+        } else if (isPlainDate(cal)) {
+            long day = LocalDate.of(cal.getYear(), cal.getMonth(), cal.getDay()).toEpochDay();
+            if (cal.getTimezone() == DatatypeConstants.FIELD_UNDEFINED) {
+                varint(DATE_DAY);
+                zigzag(day);
+            } else {
+                varint(DATE_DAY_ZONED);
+                zigzag(day);
+                zigzag(cal.getTimezone());
+            }
+        } else {
+            varint(DATE_LEXICAL);
+            string(cal.toXMLFormat());
+        }
+    }
+
+    private static boolean isPlainDate(XMLGregorianCalendar cal) {
+        return cal.getEon() == null
+            && cal.getYear() != DatatypeConstants.FIELD_UNDEFINED
+            && cal.getMonth() != DatatypeConstants.FIELD_UNDEFINED
+            && cal.getDay() != DatatypeConstants.FIELD_UNDEFINED
+            && cal.getHour() == DatatypeConstants.FIELD_UNDEFINED
+            && cal.getMinute() == DatatypeConstants.FIELD_UNDEFINED
+            && cal.getSecond() == DatatypeConstants.FIELD_UNDEFINED
+            && cal.getFractionalSecond() == null;
+    }
+
+    private void string(String s) throws IOException {
+        if (s == null) { varint(STRING_NULL); return; }
+        Integer index = strings.get(s);
+        if (index != null) { varint(index + 2); return; }
+        strings.put(s, strings.size());
+        varint(STRING_NEW);
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        varint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void zigzag(long v) throws IOException {
+        varint((v << 1) ^ (v >> 63));
+    }
+
+    private void varint(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static String domToString(org.w3c.dom.Element element) throws IOException {
+        try {
+            Transformer t = TransformerFactory.newInstance().newTransformer();
+            t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            StringWriter w = new StringWriter();
+            t.transform(new DOMSource(element), new StreamResult(w));
+            return w.toString();
+        } catch (TransformerException ex) {
+            throw new IOException("Cannot serialize extension element " + element.getTagName(), ex);
+        }
+    }
+
+    /** Extension content without a compact encoding, marshalled as an XML fragment. */
+    private static String fragment(Object value) throws JAXBException, IOException {
+        FDDIPersistenceContext pc = FDDIPersistenceContext.getInstance();
+        Marshaller m;
+        try {
+            m = pc.borrowMarshaller(false);
+        } catch (org.xml.sax.SAXException ex) {
+            throw new IOException(ex);
+        }
+        try {
+            m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            StringWriter w = new StringWriter();
+            m.marshal(value, w);
+            return w.toString();
+        } finally {
+            m.setProperty(Marshaller.JAXB_FRAGMENT, false);
+            pc.release(m);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package net.sourceforge.fddtools.persistence;
+
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import com.nebulon.xml.fddi.ObjectFactory;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+
+/**
+ * Append-only change journal for a project file.
+ * <p>
+ * The journal starts with a header naming its base (the project file itself, or an autosave
+ * snapshot next to it); every entry then replaces one subtree of the base, addressed by child
+ * indices from the root, with an FDDI fragment. Entries are length-prefixed and checksummed so a
+ * tail torn by a crash is detected and dropped on {@link #read}. Appends are not forced to disk;
+ * the owner calls {@link #force()} at its own pace.
+ */
+public final class FDDIJournal implements Closeable {
+    private static final int MAGIC = 0x46444A31; // "FDJ1"
+    private static final QName FRAGMENT = new QName("http://www.nebulon.com/xml/2004/fddi", "node"); //NOI18N
+    private static final int MAX_ENTRY_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * @param base file name of the snapshot the entries apply to, next to the project file; empty
+     *             for the project file itself
+     * @param baseModified last-modified time of the project file when the base is the project file
+     */
+    public record Header(String base, long baseModified) {
+        public boolean isProjectFile() { return base.isEmpty(); }
+    }
+
+    /** One decoded entry: {@code node} replaces the node at {@code path} (the root for an empty path). */
+    public record Entry(int[] path, FDDINode node) {}
+
+    /** Header and intact entries of a journal; {@code torn} when trailing bytes had to be dropped. */
+    public record Contents(Header header, List<Entry> entries, boolean torn) {}
+
+    private final FileChannel channel;
+    private long size;
+    private boolean unforced;
+
+    private FDDIJournal(FileChannel channel, long size) {
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * Starts a new journal at {@code file} with {@code header}. The header is written to a sibling
+     * temp file and forced before it atomically replaces any previous journal, so a crash leaves
+     * either the old journal or the new one.
+     */
+    public static FDDIJournal create(Path file, Header header) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path tmp = Files.createTempFile(absolute.getParent(), "." + absolute.getFileName(), ".tmp"); //NOI18N
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeUTF(header.base());
+                out.writeLong(header.baseModified());
+            }
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.write(ByteBuffer.wrap(bytes.toByteArray()));
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        FileChannel channel = FileChannel.open(absolute, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new FDDIJournal(channel, channel.size());
+    }
+
+    /** Appends an entry replacing the node at {@code path} with {@code node}; returns the entry size in bytes. */
+    public int append(int[] path, FDDINode node) throws IOException, JAXBException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeShort(path.length);
+            for (int i : path) out.writeInt(i);
+            out.writeUTF(node.getClass().getName());
+            marshalFragment(node, out);
+        }
+        byte[] body = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer entry = ByteBuffer.allocate(8 + body.length);
+        entry.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+        while (entry.hasRemaining()) channel.write(entry);
+        size += entry.limit();
+        unforced = true;
+        return entry.limit();
+    }
+
+    /** Forces appended entries to disk; a no-op when nothing was appended since the last call. */
+    public void force() throws IOException {
+        if (!unforced) return;
+        channel.force(false);
+        unforced = false;
+    }
+
+    /** Current journal size in bytes, header included. */
+    public long size() { return size; }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the header and every intact entry of {@code file}. Reading stops at the first entry whose
+     * length or checksum does not match; such a tail is what a crash mid-append leaves behind.
+     *
+     * @throws IOException if the file is missing or is not a journal
+     */
+    public static Contents read(Path file) throws IOException, JAXBException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an FDDI journal: " + file);
+            Header header = new Header(in.readUTF(), in.readLong());
+            List<Entry> entries = new ArrayList<>();
+            boolean torn = false;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException end) {
+                    break;
+                }
+                byte[] body;
+                try {
+                    int checksum = in.readInt();
+                    if (length < 0 || length > MAX_ENTRY_BYTES) { torn = true; break; }
+                    body = in.readNBytes(length);
+                    CRC32 crc = new CRC32();
+                    crc.update(body);
+                    if (body.length != length || (int) crc.getValue() != checksum) { torn = true; break; }
+                } catch (EOFException partial) {
+                    torn = true;
+                    break;
+                }
+                entries.add(decode(body));
+            }
+            return new Contents(header, entries, torn);
+        }
+    }
+
+    /**
+     * Applies {@code entry} to the tree under {@code root} and returns the (possibly new) root. The
+     * replaced node's ancestors have their target dates re-derived; progress is left to the caller,
+     * which rolls it up once after the last entry.
+     *
+     * @throws IllegalArgumentException if the entry's path does not exist in the tree
+     */
+    public static FDDINode apply(FDDINode root, Entry entry) {
+        int[] path = entry.path();
+        if (path.length == 0) return entry.node();
+        FDDINode parent = root;
+        for (int i = 0; i < path.length - 1; i++) parent = child(parent, path[i]);
+        int index = path[path.length - 1];
+        FDDINode old = child(parent, index);
+        parent.removeChild(old);
+        parent.insertChildAt(entry.node(), index);
+        parent.calculateTargetDate();
+        return root;
+    }
+
+    private static FDDINode child(FDDINode parent, int index) {
+        List<? extends FDDTreeNode> children = parent.getChildren();
+        if (index < 0 || index >= children.size()) {
+            throw new IllegalArgumentException("No child " + index + " under " + parent.getName());
+        }
+        return (FDDINode) children.get(index);
+    }
+
+    private static Entry decode(byte[] body) throws IOException, JAXBException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int[] path = new int[in.readUnsignedShort()];
+        for (int i = 0; i < path.length; i++) path[i] = in.readInt();
+        String type = in.readUTF();
+        Class<? extends FDDINode> cls;
+        try {
+            cls = Class.forName(type).asSubclass(FDDINode.class);
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("Unknown node type in journal: " + type, ex);
+        }
+        return new Entry(path, unmarshalFragment(in, cls));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void marshalFragment(FDDINode node, DataOutputStream out) throws JAXBException, IOException {
+        FDDIPersistenceContext pc = FDDIPersistenceContext.getInstance();
+        Marshaller m;
+        try {
+            m = pc.borrowMarshaller(false);
+        } catch (org.xml.sax.SAXException ex) {
+            throw new IOException(ex);
+        }
+        try {
+            m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+            m.marshal(new JAXBElement(FRAGMENT, node.getClass(), node), out);
+        } finally {
+            m.setProperty(Marshaller.JAXB_FRAGMENT, false);
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            pc.release(m);
+        }
+    }
+
+    private static FDDINode unmarshalFragment(DataInputStream in, Class<? extends FDDINode> cls) throws JAXBException {
+        FDDIPersistenceContext pc = FDDIPersistenceContext.getInstance();
+        Unmarshaller u = pc.borrowUnmarshaller();
+        try {
+            u.setListener(((FDDINode) new ObjectFactory().createProgram()).createListener());
+            FDDINode node = u.unmarshal(new StreamSource(in), cls).getValue();
+            ProgressRollup.recompute(node);
+            return node;
+        } finally {
+            pc.release(u);
+        }
+    }
+}
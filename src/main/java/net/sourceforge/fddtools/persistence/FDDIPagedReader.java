@@ -0,0 +1,223 @@
+package net.sourceforge.fddtools.persistence;
+
+import static net.sourceforge.fddtools.persistence.FDDIBinaryFormat.*;
+
+import com.nebulon.xml.fddi.Feature;
+import jakarta.xml.bind.JAXBException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+import net.sourceforge.fddtools.service.LoggingService;
+
+/**
+ * Opens a project written by {@link FDDIPagedWriter} without reading it.
+ * <p>
+ * Only the header and the root page are read. Programs, projects and aspects come back with their
+ * own fields, progress and target date restored from the stored summaries, and their children
+ * pending behind a {@link FDDINode.ChildLoader}: the first access to a node's children reads and
+ * decodes just their pages. An aspect's subjects are decoded whole, with the unmarshal listener and
+ * progress roll-up applied as after an XML read.
+ * <p>
+ * Pages are read through a channel kept open on the file while children are pending. A save that
+ * replaces the file calls {@link #release} first, which copies it into memory and closes the
+ * channel: the old contents stay readable, and the file is not held open while it is replaced,
+ * which Windows would refuse.
+ */
+public final class FDDIPagedReader {
+    /** Readers still holding their file open, so a save over it can release them. */
+    private static final Map<FDDIPagedReader, Boolean> OPEN = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Path file;
+    private final long size;
+    private FileChannel channel;
+    private ByteBuffer contents;
+
+    private FDDIPagedReader(Path file, FileChannel channel, long size) {
+        this.file = file;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /** True if {@code file} is in the paged project format (by its magic header). */
+    public static boolean isPagedProject(Path file) {
+        return hasMagic(file, PAGED_MAGIC);
+    }
+
+    /** Opens {@code file} and returns its root node with the children left pending. */
+    public static FDDINode open(Path file) throws IOException, JAXBException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        boolean pending = false;
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiPagedOpen", Map.of("file", String.valueOf(file.getFileName())))) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Paged FDDI file too large to open: " + file);
+            if (size < FDDIPagedWriter.HEADER_SIZE) throw new IOException("Truncated paged FDDI file: " + file);
+            span.metric("bytes", size);
+            FDDIPagedReader reader = new FDDIPagedReader(file, channel, size);
+            ByteBuffer header = reader.read(0, FDDIPagedWriter.HEADER_SIZE);
+            byte[] head = new byte[PAGED_MAGIC.length];
+            header.get(0, head);
+            if (!Arrays.equals(head, PAGED_MAGIC)) throw new IOException("Not a paged FDDI project: " + file);
+            int version = header.get(PAGED_MAGIC.length);
+            if (version != PAGED_VERSION) throw new IOException("Unsupported paged FDDI version " + version + ": " + file);
+            int maxSeq = header.getInt(PAGED_MAGIC.length + 1);
+            long rootOffset = header.getLong(PAGED_MAGIC.length + 5);
+            // Features not loaded yet must not be handed out again: keep new sequence numbers above them
+            Feature probe = new Feature();
+            probe.setSequence(Math.max(probe.getSeq(), maxSeq));
+            FDDINode root = reader.page(rootOffset, null);
+            if (!root.isChildrenLoaded()) {
+                OPEN.put(reader, Boolean.TRUE);
+                pending = true;
+            }
+            return root;
+        } catch (IndexOutOfBoundsException ex) {
+            throw new IOException("Corrupt paged FDDI file: " + file, ex);
+        } finally {
+            if (!pending) channel.close();
+        }
+    }
+
+    /**
+     * Detaches every open tree read from {@code target} from the file before a save replaces it:
+     * each reader copies the file into memory and closes it, so pending children still load.
+     */
+    static void release(Path target) throws IOException {
+        List<FDDIPagedReader> readers;
+        synchronized (OPEN) {
+            readers = new ArrayList<>(OPEN.keySet());
+        }
+        for (FDDIPagedReader reader : readers) {
+            if (sameFile(reader.file, target)) reader.release();
+        }
+    }
+
+    /** True while some reader still holds {@code file} open; for tests. */
+    static boolean isOpen(Path file) {
+        synchronized (OPEN) {
+            return OPEN.keySet().stream().anyMatch(reader -> sameFile(reader.file, file));
+        }
+    }
+
+    private static boolean sameFile(Path a, Path b) {
+        if (a.toAbsolutePath().normalize().equals(b.toAbsolutePath().normalize())) return true;
+        try {
+            return Files.exists(a) && Files.exists(b) && Files.isSameFile(a, b);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private synchronized void release() throws IOException {
+        if (channel == null) return;
+        contents = read(0, (int) size);
+        channel.close();
+        channel = null;
+        OPEN.remove(this);
+    }
+
+    /** Reads {@code length} bytes at {@code offset}, from the file or from its copy once released. */
+    private synchronized ByteBuffer read(long offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IOException("Corrupt paged FDDI file: read past the end of " + file);
+        }
+        if (contents != null) return contents.slice((int) offset, length);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Corrupt paged FDDI file: truncated " + file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    /** Decodes the page at {@code offset}: a whole subtree, or a node whose children stay pending. */
+    private FDDINode page(long offset, FDDINode parent) throws IOException, JAXBException {
+        checkOffset(offset);
+        ByteBuffer header = read(offset, 5);
+        int kind = header.get(0);
+        int length = header.getInt(1);
+        FDDIBinaryReader decoder = new FDDIBinaryReader(new BufferInputStream(read(offset + 5, length)), null);
+        if (kind == PAGE_SUBTREE) {
+            FDDINode node = decoder.node(parent);
+            if (parent != null) {
+                parent.add(node);
+                ProgressRollup.recompute(node);
+            }
+            return node;
+        }
+        if (kind != PAGE_NODE) throw new IOException("Corrupt paged FDDI file: unknown page kind " + kind);
+        FDDINode node = decoder.fields();
+        long at = offset + 5 + length;
+        ByteBuffer summary = read(at, 16);
+        long target = summary.getLong(0);
+        int sum = summary.getInt(8);
+        int children = summary.getInt(12);
+        if (children < 0 || children > size / 8) {
+            throw new IOException("Corrupt paged FDDI file: bad child count " + children + " in " + file);
+        }
+        ByteBuffer table = read(at + 16, 8 * children);
+        long[] offsets = new long[children];
+        for (int i = 0; i < children; i++) offsets[i] = table.getLong(8 * i);
+        if (parent != null) parent.add(node);
+        node.setTargetDate(target == FDDIPagedWriter.NO_TARGET ? null : new Date(target));
+        ProgressRollup.restore(node, sum, children);
+        if (children > 0) node.setChildLoader(new Pages(this, offsets));
+        return node;
+    }
+
+    private void checkOffset(long offset) throws IOException {
+        if (offset < FDDIPagedWriter.HEADER_SIZE || offset >= size) {
+            throw new IOException("Corrupt paged FDDI file: bad page offset " + offset + " in " + file);
+        }
+    }
+
+    /** Pending children of one node: the offsets of their pages. */
+    private record Pages(FDDIPagedReader reader, long[] offsets) implements FDDINode.ChildLoader {
+        @Override
+        public void load(FDDINode node) {
+            try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiPagedLoad", Map.of("node", String.valueOf(node.getName())))) {
+                for (long offset : offsets) reader.page(offset, node);
+                span.metric("pages", offsets.length);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } catch (JAXBException | IndexOutOfBoundsException ex) {
+                throw new UncheckedIOException(new IOException("Corrupt paged FDDI file: " + reader.file, ex));
+            }
+        }
+    }
+
+    /** Reads one page's bytes; each decode gets its own buffer, so loads do not share a position. */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package net.sourceforge.fddtools.persistence;
+
+import static net.sourceforge.fddtools.persistence.FDDIBinaryFormat.*;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.Subject;
+import jakarta.xml.bind.JAXBException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.service.LoggingService;
+
+/**
+ * Writes a project tree in the paged format read lazily by {@link FDDIPagedReader}.
+ * <p>
+ * Programs, projects and aspects each get a node page: their own fields in the binary encoding of
+ * {@link FDDIBinaryFormat}, followed by the summaries needed to show them unexpanded (latest
+ * target date and children's summed completion) and the offsets of their child pages.
+ * Subjects are written whole, activities and features included, as subtree pages. Pages are
+ * written children first, so the root page comes last and its offset is patched into the header:
+ * <pre>
+ *   "FDDP" version:u8 maxFeatureSeq:i32 rootOffset:i64
+ *   page := PAGE_NODE length:i32 fields[length] target:i64 sum:i32 children:i32 offset:i64*
+ *         | PAGE_SUBTREE length:i32 subtree[length]
+ * </pre>
+ * Fixed-width fields are big-endian; a target of {@link Long#MIN_VALUE} means none.
+ */
+public final class FDDIPagedWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final int HEADER_SIZE = PAGED_MAGIC.length + 1 + 4 + 8;
+    static final long NO_TARGET = Long.MIN_VALUE;
+
+    /** File name extension selecting the paged format on save. */
+    public static final String EXTENSION = ".fddp"; //NOI18N
+
+    private final FDDIStreamingWriter.CountingOutputStream counted;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream page = new ByteArrayOutputStream();
+    private int maxSeq;
+    private int pages;
+
+    private FDDIPagedWriter(FDDIStreamingWriter.CountingOutputStream counted) {
+        this.counted = counted;
+        this.out = new DataOutputStream(counted);
+    }
+
+    /** True if saving to {@code target} should use the paged format (by its extension). */
+    public static boolean handles(Path target) {
+        return target.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /**
+     * Writes {@code root} to {@code target}, replacing it atomically. Children still pending in a
+     * lazily loaded tree are read in the process.
+     *
+     * @param bytesWritten optional callback receiving the running count of bytes written
+     * @return number of bytes written
+     */
+    public static long write(FDDINode root, Path target, LongConsumer bytesWritten) throws IOException, JAXBException {
+        if (root == null) throw new IllegalArgumentException("Root node is null");
+        Path absolute = target.toAbsolutePath();
+        if (Files.isDirectory(absolute)) throw new IOException("Target is a directory: " + absolute);
+        Path tmp = FDDIStreamingWriter.createTemp(absolute);
+        boolean committed = false;
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiPagedWrite", Map.of("file", String.valueOf(absolute.getFileName())))) {
+            long bytes;
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                FDDIStreamingWriter.CountingOutputStream counted = new FDDIStreamingWriter.CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), bytesWritten);
+                FDDIPagedWriter writer = new FDDIPagedWriter(counted);
+                writer.out.write(PAGED_MAGIC);
+                writer.out.write(PAGED_VERSION);
+                writer.out.writeInt(0);
+                writer.out.writeLong(0);
+                long rootOffset = writer.page(root).offset();
+                writer.out.flush();
+                ByteBuffer header = ByteBuffer.allocate(12).putInt(writer.maxSeq).putLong(rootOffset).flip();
+                channel.write(header, PAGED_MAGIC.length + 1);
+                channel.force(true);
+                bytes = counted.count;
+                span.metric("bytes", bytes).metric("pages", writer.pages);
+            }
+            FDDIStreamingWriter.commit(tmp, absolute);
+            committed = true;
+            return bytes;
+        } finally {
+            if (!committed) Files.deleteIfExists(tmp);
+        }
+    }
+
+    private record Written(long offset, long target) {}
+
+    private Written page(FDDINode node) throws IOException, JAXBException {
+        if (!(node instanceof Program || node instanceof Project || node instanceof Aspect)) {
+            long target = scanSubtree(node, NO_TARGET);
+            page.reset();
+            new FDDIBinaryWriter(page).node(node);
+            long offset = counted.count;
+            out.writeByte(PAGE_SUBTREE);
+            writePage();
+            return new Written(offset, target);
+        }
+        List<? extends FDDTreeNode> children = node.getChildren();
+        long[] offsets = new long[children.size()];
+        long target = NO_TARGET;
+        int sum = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            FDDINode child = (FDDINode) children.get(i);
+            Written w = page(child);
+            offsets[i] = w.offset();
+            target = Math.max(target, w.target());
+            sum += child.getProgress().getCompletion();
+        }
+        page.reset();
+        new FDDIBinaryWriter(page).fields(node);
+        long offset = counted.count;
+        out.writeByte(PAGE_NODE);
+        writePage();
+        out.writeLong(target);
+        out.writeInt(sum);
+        out.writeInt(offsets.length);
+        for (long o : offsets) out.writeLong(o);
+        return new Written(offset, target);
+    }
+
+    private void writePage() throws IOException {
+        out.writeInt(page.size());
+        page.writeTo(out);
+        pages++;
+    }
+
+    /**
+     * Latest planned milestone below {@code node} (the target date the unmarshal listener would
+     * derive), noting the highest feature sequence number on the way.
+     */
+    private long scanSubtree(FDDINode node, long target) {
+        if (node instanceof Feature f) {
+            maxSeq = Math.max(maxSeq, f.getSeq());
+            for (Milestone m : f.getMilestone()) {
+                if (m.getPlanned() != null) target = Math.max(target, m.getPlanned().toGregorianCalendar().getTimeInMillis());
+            }
+            return target;
+        }
+        if (node instanceof Subject s) {
+            for (Activity a : s.getActivity()) target = scanSubtree(a, target);
+        } else if (node instanceof Activity a) {
+            for (Feature f : a.getFeature()) target = scanSubtree(f, target);
+        }
+        return target;
+    }
+}
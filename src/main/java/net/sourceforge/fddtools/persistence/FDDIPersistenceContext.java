@@ -0,0 +1,150 @@
+package net.sourceforge.fddtools.persistence;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.File;
+import java.net.URL;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import net.sourceforge.fddtools.service.LoggingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Process-wide holder for the FDDI JAXB context and compiled schema.
+ * <p>
+ * Both are expensive to build and immutable once built, so they are created once (lazily or via
+ * {@link #warmUpAsync()}) and shared. Marshallers and Unmarshallers are not thread-safe; they are
+ * handed out from small pools and are confined to the borrowing thread until released.
+ */
+public final class FDDIPersistenceContext {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FDDIPersistenceContext.class);
+    private static final FDDIPersistenceContext INSTANCE = new FDDIPersistenceContext();
+
+    static final String CONTEXT_PATH = "com.nebulon.xml.fddi:net.sourceforge.fddtools.fddi.extension"; //NOI18N
+    static final String SCHEMA_RESOURCE = "/etc/fddi20060119.xsd"; //NOI18N
+    private static final int MAX_POOLED = 4;
+
+    private volatile JAXBContext context;
+    private volatile Schema schema;
+    private volatile boolean schemaResolved;
+    private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+    private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger contextBuilds = new AtomicInteger();
+
+    /** Use {@link #getInstance()}; separate instances with their own pools are for tests. */
+    FDDIPersistenceContext() {}
+
+    public static FDDIPersistenceContext getInstance() { return INSTANCE; }
+
+    /** Shared JAXB context, created on first use. */
+    public JAXBContext getContext() throws JAXBException {
+        JAXBContext ctx = context;
+        if (ctx == null) {
+            synchronized (this) {
+                ctx = context;
+                if (ctx == null) {
+                    try (LoggingService.Span span = LoggingService.getInstance().startPerf("jaxbContextInit", Map.of())) {
+                        ctx = JAXBContext.newInstance(CONTEXT_PATH);
+                        span.metric("builds", contextBuilds.incrementAndGet());
+                    }
+                    context = ctx;
+                }
+            }
+        }
+        return ctx;
+    }
+
+    /**
+     * Compiled FDDI schema loaded from the classpath (falls back to the working-directory copy in
+     * {@code etc/}); {@code null} if neither is available, in which case output is not validated.
+     */
+    public Schema getSchema() throws SAXException {
+        if (!schemaResolved) {
+            synchronized (this) {
+                if (!schemaResolved) {
+                    try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiSchemaCompile", Map.of())) {
+                        SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+                        URL url = FDDIPersistenceContext.class.getResource(SCHEMA_RESOURCE);
+                        File fallback = new File("etc/fddi20060119.xsd"); //NOI18N
+                        if (url != null) {
+                            schema = sf.newSchema(url);
+                            span.metric("source", "classpath");
+                        } else if (fallback.isFile()) {
+                            schema = sf.newSchema(fallback);
+                            span.metric("source", "file");
+                        } else {
+                            LOGGER.warn("FDDI schema not found; project files will be written without validation");
+                        }
+                    }
+                    schemaResolved = true;
+                }
+            }
+        }
+        return schema;
+    }
+
+    /** Builds the context and schema on a daemon thread so the first open/save does not pay for it. */
+    public void warmUpAsync() {
+        Thread t = new Thread(() -> {
+            try {
+                getContext();
+                getSchema();
+            } catch (JAXBException | SAXException | RuntimeException ex) {
+                LOGGER.warn("FDDI persistence warm-up failed: {}", ex.toString());
+            }
+        }, "fddi-persistence-warmup"); //NOI18N
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Borrows a formatted, schema-validating Marshaller; return it with {@link #release(Marshaller)}. */
+    public Marshaller borrowMarshaller() throws JAXBException, SAXException {
+        return borrowMarshaller(true);
+    }
+
+    /**
+     * Borrows a formatted Marshaller that validates against the schema while marshalling only when
+     * {@code validating} is set; return it with {@link #release(Marshaller)}.
+     */
+    public Marshaller borrowMarshaller(boolean validating) throws JAXBException, SAXException {
+        Marshaller m = marshallers.poll();
+        if (m == null) {
+            m = getContext().createMarshaller();
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        }
+        m.setSchema(validating ? getSchema() : null);
+        return m;
+    }
+
+    public void release(Marshaller m) {
+        if (m != null && marshallers.size() < MAX_POOLED) marshallers.offer(m);
+    }
+
+    /** Borrows an Unmarshaller using the default validation handler; return it with {@link #release(Unmarshaller)}. */
+    public Unmarshaller borrowUnmarshaller() throws JAXBException {
+        Unmarshaller u = unmarshallers.poll();
+        if (u == null) {
+            u = getContext().createUnmarshaller();
+            u.setEventHandler(new jakarta.xml.bind.helpers.DefaultValidationEventHandler());
+        }
+        return u;
+    }
+
+    public void release(Unmarshaller u) {
+        if (u == null) return;
+        u.setListener(null);
+        if (unmarshallers.size() < MAX_POOLED) unmarshallers.offer(u);
+    }
+
+    /** Number of times the JAXB context has been built in this process (expected to stay at 1). */
+    int contextBuildCount() { return contextBuilds.get(); }
+}
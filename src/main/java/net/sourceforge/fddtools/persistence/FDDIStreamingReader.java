@@ -0,0 +1,125 @@
+package net.sourceforge.fddtools.persistence;
+
+import com.nebulon.xml.fddi.ObjectFactory;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.service.LoggingService;
+
+/**
+ * Streaming loader for .fddi files.
+ * <p>
+ * The document is pulled through a StAX reader over a byte-counting stream, and the pooled JAXB
+ * unmarshaller binds elements as the reader advances, so progress reflects bytes actually consumed
+ * and a cancellation request stops the parse at the next buffer refill or element boundary. The
+ * {@link FDDINode#createListener()} callbacks wire parent links and roll up progress and target
+ * dates while elements complete, so no second pass over the tree is needed after loading.
+ */
+public final class FDDIStreamingReader {
+
+    /** Receives the number of bytes consumed so far and the total file size. */
+    @FunctionalInterface
+    public interface ReadProgress {
+        void update(long bytesRead, long totalBytes);
+    }
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private FDDIStreamingReader() {}
+
+    /**
+     * Reads the root node from {@code file}.
+     *
+     * @param progress  optional progress callback, may be {@code null}
+     * @param cancelled optional cancellation check, may be {@code null}
+     * @throws CancellationException if {@code cancelled} reports true before the parse completes
+     */
+    public static Object read(File file, ReadProgress progress, BooleanSupplier cancelled)
+            throws IOException, JAXBException, XMLStreamException {
+        long total = file.length();
+        FDDIPersistenceContext pc = FDDIPersistenceContext.getInstance();
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiUnmarshal", Map.of("file", file.getName()));
+             CountingInputStream in = new CountingInputStream(Files.newInputStream(file.toPath()), total, progress, cancelled)) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+            Unmarshaller u = pc.borrowUnmarshaller();
+            try {
+                u.setListener(cancellable(((FDDINode) new ObjectFactory().createProgram()).createListener(), cancelled));
+                Object root = u.unmarshal(reader);
+                span.metric("bytes", in.count);
+                return root;
+            } finally {
+                pc.release(u);
+                reader.close();
+            }
+        }
+    }
+
+    private static Unmarshaller.Listener cancellable(Unmarshaller.Listener delegate, BooleanSupplier cancelled) {
+        if (cancelled == null) return delegate;
+        return new Unmarshaller.Listener() {
+            @Override public void beforeUnmarshal(Object target, Object parent) {
+                if (cancelled.getAsBoolean()) throw new CancellationException("Read cancelled");
+                delegate.beforeUnmarshal(target, parent);
+            }
+            @Override public void afterUnmarshal(Object target, Object parent) {
+                delegate.afterUnmarshal(target, parent);
+            }
+        };
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory f = XMLInputFactory.newFactory();
+        f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return f;
+    }
+
+    /** Counts consumed bytes, reports them and aborts once cancellation is requested. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long total;
+        private final ReadProgress progress;
+        private final BooleanSupplier cancelled;
+        long count;
+
+        CountingInputStream(InputStream in, long total, ReadProgress progress, BooleanSupplier cancelled) {
+            super(in);
+            this.total = total;
+            this.progress = progress;
+            this.cancelled = cancelled;
+        }
+
+        @Override public int read() throws IOException {
+            checkCancelled();
+            int b = super.read();
+            if (b >= 0) advance(1);
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            checkCancelled();
+            int n = super.read(b, off, len);
+            if (n > 0) advance(n);
+            return n;
+        }
+
+        private void checkCancelled() {
+            if (cancelled != null && cancelled.getAsBoolean()) throw new CancellationException("Read cancelled");
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (progress != null) progress.update(count, total);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package net.sourceforge.fddtools.persistence;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import net.sourceforge.fddtools.service.LoggingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Crash-safe streaming writer for .fddi files.
+ * <p>
+ * The document is marshalled straight onto a buffered {@link FileChannel} of a sibling temp file,
+ * which is forced to disk and then atomically moved over the target, so an interrupted save never
+ * leaves a truncated project behind. The replaced file's permissions, owner and group carry over to
+ * the new one, and the directory is forced after the move so the rename survives a crash. Schema
+ * validation is a separate step: either run against the temp file before it replaces the target
+ * ({@link Validation#BEFORE_COMMIT}) or afterwards on a background thread
+ * ({@link Validation#DEFERRED}) so it stays off the save path.
+ */
+public final class FDDIStreamingWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FDDIStreamingWriter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** When the written document is checked against the FDDI schema. */
+    public enum Validation { NONE, BEFORE_COMMIT, DEFERRED }
+
+    private FDDIStreamingWriter() {}
+
+    /**
+     * Writes {@code rootNode} to {@code target}, replacing it atomically.
+     *
+     * @param bytesWritten optional callback receiving the running count of bytes written
+     * @return number of bytes written
+     * @throws SAXException if {@link Validation#BEFORE_COMMIT} validation fails; the target is untouched
+     */
+    public static long write(Object rootNode, Path target, Validation validation, LongConsumer bytesWritten)
+            throws IOException, JAXBException, SAXException {
+        if (rootNode == null) throw new IllegalArgumentException("Root node is null");
+        Path absolute = target.toAbsolutePath();
+        if (Files.isDirectory(absolute)) throw new IOException("Target is a directory: " + absolute);
+        Path tmp = createTemp(absolute);
+        boolean committed = false;
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiMarshal", Map.of("file", String.valueOf(absolute.getFileName())))) {
+            long bytes = marshal(rootNode, tmp, bytesWritten);
+            span.metric("bytes", bytes);
+            if (validation == Validation.BEFORE_COMMIT) {
+                validate(tmp);
+            }
+            commit(tmp, absolute);
+            committed = true;
+            if (validation == Validation.DEFERRED) {
+                verifyAsync(absolute);
+            }
+            return bytes;
+        } finally {
+            if (!committed) Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Validates a written file against the FDDI schema; a no-op when no schema is available. */
+    public static void validate(Path file) throws IOException, SAXException {
+        Schema schema = FDDIPersistenceContext.getInstance().getSchema();
+        if (schema == null) return;
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("fddiValidate", Map.of("file", String.valueOf(file.getFileName())))) {
+            span.metric("bytes", Files.size(file));
+            schema.newValidator().validate(new StreamSource(file.toFile()));
+        }
+    }
+
+    /** Validates {@code file} on a background thread, logging (not throwing) any violation. */
+    public static CompletableFuture<Boolean> verifyAsync(Path file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                validate(file);
+                return true;
+            } catch (IOException | SAXException ex) {
+                LOGGER.warn("Saved file {} failed schema verification: {}", file, ex.getMessage());
+                return false;
+            }
+        });
+    }
+
+    private static long marshal(Object rootNode, Path tmp, LongConsumer bytesWritten)
+            throws IOException, JAXBException, SAXException {
+        FDDIPersistenceContext pc = FDDIPersistenceContext.getInstance();
+        Marshaller m = pc.borrowMarshaller(false);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CountingOutputStream out = new CountingOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), bytesWritten);
+            m.marshal(rootNode, out);
+            out.flush();
+            channel.force(true);
+            return out.count;
+        } finally {
+            pc.release(m);
+        }
+    }
+
+    /**
+     * Creates the sibling temp file a save to {@code target} is written to. When it will replace an
+     * existing file it is private to the owner until {@link #commit} gives it the target's
+     * permissions; otherwise it gets the default permissions of a new file.
+     */
+    static Path createTemp(Path target) throws IOException {
+        Path dir = target.getParent();
+        boolean replacing = Files.exists(target);
+        boolean posix = Files.getFileAttributeView(dir, PosixFileAttributeView.class) != null;
+        while (true) {
+            Path tmp = dir.resolve("." + target.getFileName() + "." //NOI18N
+                + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp"); //NOI18N
+            try {
+                return replacing && posix
+                    ? Files.createFile(tmp, PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)))
+                    : Files.createFile(tmp);
+            } catch (FileAlreadyExistsException ex) {
+                // Name taken; draw another
+            }
+        }
+    }
+
+    /**
+     * Moves a completed temp file over {@code target}, atomically where the file system allows. The
+     * temp file first takes over the target's permissions, and its owner and group where allowed,
+     * and any paged tree still reading the target lets go of it.
+     */
+    static void commit(Path tmp, Path target) throws IOException {
+        copyPosixAttributes(target, tmp);
+        FDDIPagedReader.release(target);
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.getParent());
+    }
+
+    private static void copyPosixAttributes(Path from, Path to) throws IOException {
+        PosixFileAttributeView source = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        PosixFileAttributeView dest = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (source == null || dest == null) return;
+        PosixFileAttributes attrs;
+        try {
+            attrs = source.readAttributes();
+        } catch (NoSuchFileException ex) {
+            return; // a new file keeps the default permissions
+        }
+        // Ownership first: changing it may clear set-id bits
+        try {
+            dest.setGroup(attrs.group());
+            dest.setOwner(attrs.owner());
+        } catch (IOException ex) {
+            LOGGER.debug("Could not carry owner/group of {} over to the saved file: {}", from, ex.toString());
+        }
+        dest.setPermissions(attrs.permissions());
+    }
+
+    /** Forces the directory so a rename in it is durable; not possible on every platform (e.g. Windows). */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            LOGGER.debug("Could not force directory {}: {}", dir, ex.toString());
+        }
+    }
+
+    /** Counts bytes on their way into the buffer and reports the running total. */
+    static final class CountingOutputStream extends FilterOutputStream {
+        private final LongConsumer listener;
+        long count;
+
+        CountingOutputStream(OutputStream out, LongConsumer listener) {
+            super(out);
+            this.listener = listener;
+        }
+
+        @Override public void write(int b) throws IOException {
+            out.write(b);
+            advance(1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            advance(len);
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (listener != null) listener.accept(count);
+        }
+    }
+}
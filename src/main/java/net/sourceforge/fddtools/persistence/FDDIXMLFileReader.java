@@ -57,12 +57,12 @@
 package net.sourceforge.fddtools.persistence;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
 import javafx.concurrent.Task;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Unmarshaller;
-import com.nebulon.xml.fddi.ObjectFactory;
-import com.nebulon.xml.fddi.Program;
-import net.sourceforge.fddtools.model.FDDINode;
+import javax.xml.stream.XMLStreamException;
 
 /**
  *
@@ -77,19 +77,13 @@ public class FDDIXMLFileReader
     
     public static Object read(String fileName)
     {
-       Object rootNode = null;
-       ObjectFactory of = new ObjectFactory();
-       Program program = of.createProgram();
-
+        Object rootNode = null;
+        File file = checkedFile(fileName);
         try
         {
-            JAXBContext jaxbCtx = JAXBContext.newInstance("com.nebulon.xml.fddi:net.sourceforge.fddtools.fddi.extension");
-            Unmarshaller u = jaxbCtx.createUnmarshaller();
-            u.setEventHandler(new jakarta.xml.bind.helpers.DefaultValidationEventHandler());
-            u.setListener(((FDDINode) program).createListener());
-            rootNode = u.unmarshal(new File(fileName));
+            rootNode = readAnyFormat(file, null, null);
         }
-        catch(jakarta.xml.bind.JAXBException ex)
+        catch(jakarta.xml.bind.JAXBException | XMLStreamException | IOException ex)
         {
             org.slf4j.LoggerFactory.getLogger("global").error("Error reading XML", ex); //NOI18N
         }
@@ -97,33 +91,67 @@ public class FDDIXMLFileReader
     }
 
     /**
-     * Creates a JavaFX Task that performs the same read but emits coarse progress updates.
-     * Progress sequence (percentage): 0 init, 10 context, 40 unmarshal, 100 done.
+     * Creates a JavaFX Task that performs the same read, streaming the file and reporting
+     * progress as bytes read against the file size. Cancelling the task aborts the parse; a file
+     * that cannot be read or parsed fails the task with the cause.
      */
     public static Task<Object> createReadTask(String fileName) {
+        return createReadTask(fileName, UnaryOperator.identity());
+    }
+
+    /**
+     * Like {@link #createReadTask(String)}, then passes the parsed root through {@code afterRead} on
+     * the same background thread (e.g. to replay an autosave journal) and returns its result.
+     */
+    public static Task<Object> createReadTask(String fileName, UnaryOperator<Object> afterRead) {
         return new Task<>() {
-            @Override protected Object call() {
+            @Override protected Object call() throws Exception {
                 updateProgress(0,100); updateMessage("Initializing");
-                Object rootNode = null;
-                ObjectFactory of = new ObjectFactory();
-                Program program = of.createProgram();
                 try {
-                    updateProgress(10,100); updateMessage("Preparing JAXB");
-                    JAXBContext jaxbCtx = JAXBContext.newInstance("com.nebulon.xml.fddi:net.sourceforge.fddtools.fddi.extension");
-                    Unmarshaller u = jaxbCtx.createUnmarshaller();
-                    u.setEventHandler(new jakarta.xml.bind.helpers.DefaultValidationEventHandler());
-                    u.setListener(((FDDINode) program).createListener());
-                    updateProgress(40,100); updateMessage("Parsing XML");
-                    rootNode = u.unmarshal(new File(fileName));
+                    File file = checkedFile(fileName);
+                    updateMessage("Parsing XML");
+                    Object rootNode = readAnyFormat(file, (done, total) -> updateProgress(done, Math.max(total, done)), this::isCancelled);
+                    rootNode = afterRead.apply(rootNode);
                     updateProgress(100,100); updateMessage("Done");
-                } catch (jakarta.xml.bind.JAXBException ex) {
+                    return rootNode;
+                } catch (CancellationException ex) {
+                    updateMessage("Cancelled");
+                    return null;
+                } catch (jakarta.xml.bind.JAXBException | XMLStreamException | IOException | IllegalArgumentException ex) {
                     org.slf4j.LoggerFactory.getLogger("global").error("Error reading XML", ex);
                     updateMessage("Error: "+ex.getMessage());
-                    cancel();
+                    throw ex;
                 }
-                return rootNode;
             }
         };
     }
-}
 
+    /**
+     * Reads binary projects (recognised by their magic header) with {@link FDDIBinaryReader}, opens
+     * paged ones lazily with {@link FDDIPagedReader} and reads anything else as XML.
+     */
+    private static Object readAnyFormat(File file, FDDIStreamingReader.ReadProgress progress, BooleanSupplier cancelled)
+            throws jakarta.xml.bind.JAXBException, XMLStreamException, IOException
+    {
+        if(FDDIPagedReader.isPagedProject(file.toPath()))
+        {
+            return FDDIPagedReader.open(file.toPath());
+        }
+        if(FDDIBinaryReader.isBinaryProject(file.toPath()))
+        {
+            return FDDIBinaryReader.read(file.toPath(), progress, cancelled);
+        }
+        return FDDIStreamingReader.read(file, progress, cancelled);
+    }
+
+    /** Rejects missing files and directories up front, as unmarshalling from a File always did. */
+    private static File checkedFile(String fileName)
+    {
+        File file = new File(fileName);
+        if(!file.isFile())
+        {
+            throw new IllegalArgumentException("Not a readable file: " + fileName); //NOI18N
+        }
+        return file;
+    }
+}
@@ -57,11 +57,12 @@
 package net.sourceforge.fddtools.persistence;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
 import javafx.concurrent.Task;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Marshaller;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.persistence.FDDIStreamingWriter.Validation;
 
 public class FDDIXMLFileWriter
 {
@@ -70,20 +71,18 @@ public class FDDIXMLFileWriter
         //Insure class cannot be instantiated except through static method
     }
 
+    /**
+     * Writes the tree via a temp file that replaces {@code fileName} only once it is complete and
+     * schema-valid, so a failed save leaves any existing file untouched.
+     */
     public static boolean write(Object rootNode, String fileName)
     {
         boolean success = true;
         try
         {
-            JAXBContext jaxbCtx = JAXBContext.newInstance("com.nebulon.xml.fddi:net.sourceforge.fddtools.fddi.extension");
-            Marshaller m = jaxbCtx.createMarshaller();
-            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            SchemaFactory sf = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = sf.newSchema(new File("etc/fddi20060119.xsd"));
-            m.setSchema(schema);
-            m.marshal(rootNode, new File(fileName));
+            writeAnyFormat(rootNode, Path.of(fileName), Validation.BEFORE_COMMIT, null);
         }
-        catch(jakarta.xml.bind.JAXBException ex)
+        catch(jakarta.xml.bind.JAXBException | IOException ex)
         {
             org.slf4j.LoggerFactory.getLogger("global").error("Error writing XML", ex); //NOI18N
             success = false;
@@ -97,32 +96,49 @@ public class FDDIXMLFileWriter
     }
 
     /**
-     * Creates a JavaFX Task for writing with coarse progress updates: 0 init, 15 context, 40 schema, 90 marshal, 100 done.
+     * Creates a JavaFX Task for writing. Progress is bytes written measured against the size of the
+     * file being replaced (indeterminate for a new file), then 100 once committed. A failed write
+     * fails the task with the cause and leaves any existing file untouched.
      */
     public static Task<Boolean> createWriteTask(Object rootNode, String fileName) {
         return new Task<>() {
-            @Override protected Boolean call() {
+            @Override protected Boolean call() throws Exception {
                 updateProgress(0,100); updateMessage("Initializing");
                 try {
-                    updateProgress(15,100); updateMessage("Preparing JAXB");
-                    JAXBContext jaxbCtx = JAXBContext.newInstance("com.nebulon.xml.fddi:net.sourceforge.fddtools.fddi.extension");
-                    Marshaller m = jaxbCtx.createMarshaller();
-                    m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-                    updateProgress(40,100); updateMessage("Loading Schema");
-                    SchemaFactory sf = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
-                    Schema schema = sf.newSchema(new File("etc/fddi20060119.xsd"));
-                    m.setSchema(schema);
-                    updateProgress(70,100); updateMessage("Marshalling");
-                    m.marshal(rootNode, new File(fileName));
+                    File existing = new File(fileName);
+                    long estimate = existing.isFile() ? existing.length() : -1;
+                    updateMessage("Marshalling");
+                    writeAnyFormat(rootNode, Path.of(fileName), Validation.BEFORE_COMMIT,
+                        bytes -> updateProgress(bytes, estimate > 0 ? Math.max(bytes, estimate) : -1));
                     updateProgress(100,100); updateMessage("Done");
                     return true;
-                } catch (jakarta.xml.bind.JAXBException | org.xml.sax.SAXException ex) {
+                } catch (jakarta.xml.bind.JAXBException | org.xml.sax.SAXException | IOException ex) {
                     org.slf4j.LoggerFactory.getLogger("global").error("Error writing XML", ex);
                     updateMessage("Error: "+ex.getMessage());
-                    cancel();
-                    return false;
+                    throw ex;
                 }
             }
         };
     }
+
+    /**
+     * Writes {@code rootNode} in the format chosen by the target's extension: the binary format for
+     * {@value FDDIBinaryWriter#EXTENSION}, the paged format for {@value FDDIPagedWriter#EXTENSION},
+     * XML (checked with {@code validation}) otherwise.
+     *
+     * @return number of bytes written
+     */
+    public static long writeAnyFormat(Object rootNode, Path target, Validation validation, LongConsumer bytesWritten)
+            throws jakarta.xml.bind.JAXBException, IOException, org.xml.sax.SAXException
+    {
+        if(FDDIBinaryWriter.handles(target) && rootNode instanceof FDDINode node)
+        {
+            return FDDIBinaryWriter.write(node, target, bytesWritten);
+        }
+        if(FDDIPagedWriter.handles(target) && rootNode instanceof FDDINode node)
+        {
+            return FDDIPagedWriter.write(node, target, bytesWritten);
+        }
+        return FDDIStreamingWriter.write(rootNode, target, validation, bytesWritten);
+    }
 }
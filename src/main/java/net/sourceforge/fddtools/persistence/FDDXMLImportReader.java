@@ -83,6 +83,7 @@ import javax.xml.parsers.*;
 
 import org.w3c.dom.*;
 import org.xml.sax.SAXException;
+import net.sourceforge.fddtools.model.ProgressRollup;
 
 public class FDDXMLImportReader
 {
@@ -188,6 +189,7 @@ public class FDDXMLImportReader
                 }
             }
         }
+        ProgressRollup.recompute(project);
         return project;
     }
 
@@ -0,0 +1,563 @@
+package net.sourceforge.fddtools.search;
+
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.StatusEnum;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.search.FDDSearchQuery.AspectName;
+import net.sourceforge.fddtools.search.FDDSearchQuery.Clause;
+import net.sourceforge.fddtools.search.FDDSearchQuery.Late;
+import net.sourceforge.fddtools.search.FDDSearchQuery.MilestoneStatus;
+import net.sourceforge.fddtools.search.FDDSearchQuery.NameContains;
+import net.sourceforge.fddtools.search.FDDSearchQuery.Owner;
+import net.sourceforge.fddtools.search.FDDSearchQuery.SeqRange;
+import net.sourceforge.fddtools.search.FDDSearchQuery.WorkPackageName;
+import net.sourceforge.fddtools.service.LoggingService;
+import net.sourceforge.fddtools.state.ModelEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Search index over the loaded model, so a search only scores plausible candidates.
+ * <p>
+ * The shared instance is rebuilt on {@code PROJECT_LOADED} and kept current from
+ * {@code NODE_UPDATED} (name changes) and {@code TREE_STRUCTURE_CHANGED} (children of the
+ * payload node added or removed). Lowercased names are held three ways:
+ * <ul>
+ *   <li>a sorted name map, whose range scan answers exact and prefix matches;</li>
+ *   <li>trigram postings, whose smallest list bounds the substring candidates;</li>
+ *   <li>length buckets, since a fuzzy match needs a name shorter than five times the query.</li>
+ * </ul>
+ * Queries walk these tiers from the best possible score down and stop as soon as the
+ * top-{@code limit} result can no longer change. Scores are identical to a full scan with
+ * {@link FDDTreeSearchEngine}; ties come back in document order as of indexing.
+ * Nodes do not override {@code equals}, so the hash collections below are identity-based.
+ * <p>
+ * Features are also indexed by owner, sequence number, milestone status and the planned date of
+ * their earliest incomplete milestone, for the field clauses of {@link FDDSearchQuery}. A structured
+ * query starts from the clause with the fewest indexed candidates and checks the others against
+ * each candidate, most selective first.
+ * <p>
+ * Subtrees still pending in a lazily loaded file are not loaded for indexing: they are indexed
+ * when their children load (the shared instance listens for that on {@link FDDINode}), and a query
+ * made while some are pending loads them first, since its answer may lie in any of them.
+ */
+public final class FDDSearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FDDSearchIndex.class);
+    private static final FDDSearchIndex INSTANCE = createShared();
+    public static FDDSearchIndex getInstance() { return INSTANCE; }
+
+    /** An indexed node and its score for a query. */
+    public record Hit(FDDINode node, double score) {}
+
+    static final double EXACT = 1.0;
+    static final double PREFIX = 0.9;
+    static final double CONTAINS = 0.7;
+    static final double FUZZY_WEIGHT = 0.6;
+    private static final double FUZZY_THRESHOLD = 0.2;
+
+    // Status key for "any milestone"
+    private static final String ANY_MILESTONE = "";
+
+    private static final class Entry {
+        String name;
+        long order;
+        FDDINode[] children; // as indexed; null for leaves and pending nodes
+        FeatureKeys feature; // features only
+    }
+
+    private record FeatureKeys(String owner, int seq, Map<String, StatusEnum> statuses, long openSince) {}
+
+    private FDDINode root;
+    private final Map<FDDINode, Entry> entries = new HashMap<>();
+    private final NavigableMap<String, Set<FDDINode>> byName = new TreeMap<>();
+    private final Map<String, Set<FDDINode>> trigrams = new HashMap<>();
+    private final NavigableMap<Integer, Set<FDDINode>> byLength = new TreeMap<>();
+    private final Set<FDDINode> features = new HashSet<>();
+    private final Set<FDDINode> projects = new HashSet<>();
+    // Indexed nodes whose children are still pending in a lazily loaded file
+    private final Set<FDDINode> pending = new HashSet<>();
+    private final Map<String, Set<FDDINode>> byOwner = new HashMap<>();
+    private final NavigableMap<Integer, Set<FDDINode>> bySeq = new TreeMap<>();
+    private final Map<String, Map<StatusEnum, Set<FDDINode>>> byStatus = new HashMap<>();
+    private final NavigableMap<Long, Set<FDDINode>> byOpenSince = new TreeMap<>();
+    private long nextOrder;
+
+    FDDSearchIndex() {}
+
+    private static FDDSearchIndex createShared() {
+        FDDSearchIndex index = new FDDSearchIndex();
+        ModelEventBus.get().subscribe(index::onModelEvent);
+        FDDINode.addChildrenLoadedListener(index::childrenLoaded);
+        return index;
+    }
+
+    void onModelEvent(ModelEventBus.Event e) {
+        if (!(e.payload instanceof FDDINode node)) return;
+        switch (e.type) {
+            case PROJECT_LOADED -> rebuild(node);
+            case NODE_UPDATED -> nodeUpdated(node);
+            case TREE_STRUCTURE_CHANGED -> structureChanged(node);
+            default -> { }
+        }
+    }
+
+    /** Root of the indexed model, or {@code null} before any project was loaded. */
+    public synchronized FDDINode getRoot() { return root; }
+
+    public synchronized int size() { return entries.size(); }
+
+    /** Number of indexed nodes whose children are still pending in a lazily loaded file. */
+    public synchronized int pendingSubtrees() { return pending.size(); }
+
+    /** Discards the current index and indexes the tree under {@code newRoot}. */
+    public synchronized void rebuild(FDDINode newRoot) {
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("searchIndexBuild", Map.of())) {
+            entries.clear();
+            byName.clear();
+            trigrams.clear();
+            byLength.clear();
+            features.clear();
+            projects.clear();
+            pending.clear();
+            byOwner.clear();
+            bySeq.clear();
+            byStatus.clear();
+            byOpenSince.clear();
+            nextOrder = 0;
+            root = newRoot;
+            if (newRoot != null) addSubtree(newRoot);
+            span.metric("nodes", entries.size()).metric("trigrams", trigrams.size()).metric("pending", pending.size());
+        }
+    }
+
+    /**
+     * Re-reads the name and, for features, the indexed fields of {@code node}; an aspect's
+     * milestone names key the status index, so its features are re-read as well.
+     * No-op for nodes outside the index.
+     */
+    public synchronized void nodeUpdated(FDDINode node) {
+        Entry entry = entries.get(node);
+        if (entry == null) return;
+        String name = normalize(node.getName());
+        if (!name.equals(entry.name)) {
+            unindexName(node, entry.name);
+            entry.name = name;
+            indexName(node, name);
+        }
+        if (node instanceof Feature f) {
+            reindexFeature(f, entry);
+        } else if (node instanceof Aspect) {
+            reindexFeatures(node);
+        }
+    }
+
+    /** Indexes the children of {@code node} once they have loaded; no-op unless it was pending here. */
+    synchronized void childrenLoaded(FDDINode node) {
+        Entry entry = entries.get(node);
+        if (entry == null || !pending.remove(node)) return;
+        entry.children = snapshotChildren(node);
+        if (entry.children != null) {
+            for (FDDINode child : entry.children) {
+                if (!entries.containsKey(child)) addSubtree(child);
+            }
+        }
+    }
+
+    /**
+     * Brings the children of {@code parent} in line with the model: removed subtrees are dropped,
+     * new ones indexed, moved ones re-read (their aspect, and so their milestone names, may have
+     * changed) and the parent's own name refreshed. No-op for nodes outside the index.
+     */
+    public synchronized void structureChanged(FDDINode parent) {
+        Entry entry = entries.get(parent);
+        if (entry == null) return;
+        nodeUpdated(parent);
+        Set<FDDINode> current = new HashSet<>();
+        for (FDDTreeNode child : parent.getChildren()) current.add((FDDINode) child);
+        // An edit loads the children first; without the listener they are taken in below
+        pending.remove(parent);
+        if (entry.children != null) {
+            for (FDDINode old : entry.children) {
+                if (!current.contains(old) && !attachedElsewhere(old, parent)) removeSubtree(old);
+            }
+        }
+        Set<FDDINode> previous = entry.children == null ? Set.of() : new HashSet<>(List.of(entry.children));
+        for (FDDINode child : current) {
+            if (!entries.containsKey(child)) {
+                addSubtree(child);
+            } else if (!previous.contains(child)) {
+                // Moved here: the entries stay, the feature keys follow the new aspect
+                reindexFeatures(child);
+            }
+        }
+        entry.children = snapshotChildren(parent);
+    }
+
+    /**
+     * Returns at most {@code limit} nodes matching {@code query}, best score first.
+     * Empty for a blank query.
+     */
+    public synchronized List<Hit> query(String query, int limit) {
+        if (query == null || query.isBlank() || entries.isEmpty()) return List.of();
+        if (!pending.isEmpty()) loadPending();
+        FDDSearchQuery parsed;
+        try {
+            parsed = FDDSearchQuery.parse(query);
+        } catch (IllegalArgumentException e) {
+            // Usually a clause still being typed
+            LOGGER.debug("Unusable search query '{}': {}", query, e.getMessage());
+            return List.of();
+        }
+        return parsed.isStructured() ? structuredQuery(parsed, limit) : nameQuery(parsed.getText(), limit);
+    }
+
+    private List<Hit> nameQuery(String query, int limit) {
+        String q = normalize(query);
+        TopMatches<FDDINode> top = new TopMatches<>(limit);
+
+        // Exact and prefix matches: a contiguous range of the sorted name map
+        for (Map.Entry<String, Set<FDDINode>> e : byName.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+            double score = e.getKey().equals(q) ? EXACT : PREFIX;
+            for (FDDINode node : e.getValue()) top.offer(node, score, entries.get(node).order);
+        }
+
+        if (!top.excludes(CONTAINS)) {
+            for (FDDINode node : substringCandidates(q)) {
+                String name = entries.get(node).name;
+                if (!name.startsWith(q) && name.contains(q)) top.offer(node, CONTAINS, entries.get(node).order);
+            }
+        }
+
+        // Fuzzy: shortest names first, since a longer name can only score lower
+        int maxLength = 5 * q.length();
+        for (Map.Entry<Integer, Set<FDDINode>> bucket : byLength.headMap(maxLength, false).entrySet()) {
+            double best = FUZZY_WEIGHT * Math.min(1.0, (double) q.length() / bucket.getKey());
+            if (top.excludes(best)) break;
+            for (FDDINode node : bucket.getValue()) {
+                String name = entries.get(node).name;
+                if (name.contains(q)) continue;
+                double score = fuzzyScore(name, q);
+                if (score > 0) top.offer(node, score, entries.get(node).order);
+            }
+        }
+
+        return hits(top);
+    }
+
+    private List<Hit> structuredQuery(FDDSearchQuery query, int limit) {
+        long now = System.currentTimeMillis();
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("structuredSearch", Map.of())) {
+            Map<Clause, Integer> estimates = new IdentityHashMap<>();
+            List<Clause> plan = new ArrayList<>(query.clauses());
+            for (Clause c : plan) estimates.put(c, estimate(c, now));
+            plan.sort((a, b) -> Integer.compare(estimates.get(a), estimates.get(b)));
+
+            TopMatches<FDDINode> top = new TopMatches<>(limit);
+            int scanned = 0;
+            for (FDDINode node : candidates(plan.get(0), now)) {
+                scanned++;
+                double score = structuredScore(plan, node, now);
+                if (score > 0) top.offer(node, score, entries.get(node).order);
+            }
+            span.metric("clauses", plan.size()).metric("candidates", scanned)
+                .metric("plan", plan.get(0).getClass().getSimpleName());
+            return hits(top);
+        }
+    }
+
+    /**
+     * Score of {@code node} for structured clauses: 0 unless it is a feature satisfying all of
+     * them, otherwise its name score for the free text, or 1.0 without free text.
+     */
+    static double structuredScore(List<Clause> clauses, FDDINode node, long now) {
+        if (!(node instanceof Feature f)) return 0;
+        String text = null;
+        for (Clause c : clauses) {
+            if (!c.test(f, now)) return 0;
+            if (c instanceof NameContains n) text = n.text();
+        }
+        return text == null ? EXACT : score(normalize(f.getName()), text);
+    }
+
+    private int estimate(Clause clause, long now) {
+        return switch (clause) {
+            case Owner o -> sizeOf(byOwner.get(normalize(o.initials())));
+            case SeqRange r -> sizeOfAll(bySeq.subMap(r.min(), true, r.max(), true).values());
+            case MilestoneStatus m -> sizeOf(statusSet(m));
+            case Late l -> l.late() ? lateCount(now) : features.size() - lateCount(now);
+            case AspectName a -> {
+                int n = 0;
+                for (Aspect aspect : aspectsNamed(a.name())) n += aspect.getFeaturesForNode().size();
+                yield n;
+            }
+            case WorkPackageName w -> {
+                int n = 0;
+                for (WorkPackage wp : workPackagesNamed(w.name())) n += wp.getFeatureList().size();
+                yield n;
+            }
+            case NameContains t -> t.text().length() < 3 ? entries.size() : sizeOfSmallest(t.text());
+        };
+    }
+
+    /** Superset of the features satisfying {@code clause}; callers still test every clause. */
+    private Iterable<FDDINode> candidates(Clause clause, long now) {
+        return switch (clause) {
+            case Owner o -> orEmpty(byOwner.get(normalize(o.initials())));
+            case SeqRange r -> flatten(bySeq.subMap(r.min(), true, r.max(), true).values());
+            case MilestoneStatus m -> orEmpty(statusSet(m));
+            case Late l -> l.late() ? flatten(byOpenSince.headMap(now, false).values()) : features;
+            case AspectName a -> {
+                List<FDDINode> out = new ArrayList<>();
+                for (Aspect aspect : aspectsNamed(a.name())) out.addAll(aspect.getFeaturesForNode());
+                yield out;
+            }
+            case WorkPackageName w -> {
+                List<FDDINode> out = new ArrayList<>();
+                for (WorkPackage wp : workPackagesNamed(w.name())) {
+                    for (Integer seq : wp.getFeatureList()) out.addAll(orEmpty(bySeq.get(seq)));
+                }
+                yield out;
+            }
+            case NameContains t -> substringCandidates(t.text());
+        };
+    }
+
+    private Set<FDDINode> statusSet(MilestoneStatus m) {
+        Map<StatusEnum, Set<FDDINode>> byValue = byStatus.get(m.milestone() == null ? ANY_MILESTONE : m.milestone());
+        return byValue == null ? null : byValue.get(m.status());
+    }
+
+    private int lateCount(long now) {
+        return sizeOfAll(byOpenSince.headMap(now, false).values());
+    }
+
+    private List<Aspect> aspectsNamed(String name) {
+        List<Aspect> out = new ArrayList<>();
+        for (FDDINode node : orEmpty(byName.get(normalize(name)))) {
+            if (node instanceof Aspect a) out.add(a);
+        }
+        return out;
+    }
+
+    private List<WorkPackage> workPackagesNamed(String name) {
+        List<WorkPackage> out = new ArrayList<>();
+        for (FDDINode project : projects) {
+            for (WorkPackage wp : ((Project) project).getWorkPackages()) {
+                if (name.equalsIgnoreCase(wp.getName())) out.add(wp);
+            }
+        }
+        return out;
+    }
+
+    private int sizeOfSmallest(String text) {
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            smallest = Math.min(smallest, sizeOf(trigrams.get(text.substring(i, i + 3))));
+        }
+        return smallest;
+    }
+
+    private static int sizeOf(Set<FDDINode> set) { return set == null ? 0 : set.size(); }
+
+    private static int sizeOfAll(Collection<Set<FDDINode>> sets) {
+        int n = 0;
+        for (Set<FDDINode> set : sets) n += set.size();
+        return n;
+    }
+
+    private static Set<FDDINode> orEmpty(Set<FDDINode> set) { return set == null ? Collections.emptySet() : set; }
+
+    private static Iterable<FDDINode> flatten(Collection<Set<FDDINode>> sets) {
+        return () -> sets.stream().flatMap(Set::stream).iterator();
+    }
+
+    private static List<Hit> hits(TopMatches<FDDINode> top) {
+        List<Hit> hits = new ArrayList<>();
+        for (TopMatches.Ranked<FDDINode> r : top.ranked()) hits.add(new Hit(r.item(), r.score()));
+        return hits;
+    }
+
+    /**
+     * Score of {@code name} against {@code query}, both already lowercased: 1.0 exact, 0.9 prefix,
+     * 0.7 substring, otherwise a scaled in-order character match, or 0 for no match.
+     */
+    static double score(String name, String query) {
+        if (name.equals(query)) return EXACT;
+        if (name.startsWith(query)) return PREFIX;
+        if (name.contains(query)) return CONTAINS;
+        return fuzzyScore(name, query);
+    }
+
+    private static double fuzzyScore(String name, String query) {
+        if (name.isEmpty() || query.isEmpty()) return 0;
+        int matches = 0;
+        int queryIndex = 0;
+        for (int i = 0; i < name.length() && queryIndex < query.length(); i++) {
+            if (name.charAt(i) == query.charAt(queryIndex)) {
+                matches++;
+                queryIndex++;
+            }
+        }
+        double matchRatio = (double) matches / query.length();
+        double lengthPenalty = Math.min(1.0, (double) query.length() / name.length());
+        double sequenceScore = matchRatio * lengthPenalty;
+        return sequenceScore > FUZZY_THRESHOLD ? sequenceScore * FUZZY_WEIGHT : 0;
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private Iterable<FDDINode> substringCandidates(String q) {
+        if (q.length() < 3) return entries.keySet();
+        Set<FDDINode> smallest = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            Set<FDDINode> posting = trigrams.get(q.substring(i, i + 3));
+            if (posting == null) return Collections.emptySet();
+            if (smallest == null || posting.size() < smallest.size()) smallest = posting;
+        }
+        return smallest;
+    }
+
+    /** Loads the subtrees still pending, so a query sees the whole tree; each one is indexed as it loads. */
+    private void loadPending() {
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("searchIndexLoadPending", Map.of())) {
+            int subtrees = 0;
+            while (!pending.isEmpty()) {
+                FDDINode node = pending.iterator().next();
+                node.getChildren();
+                childrenLoaded(node); // no-op if the listener got there first
+                subtrees++;
+            }
+            span.metric("subtrees", subtrees).metric("nodes", entries.size());
+        }
+    }
+
+    private void addSubtree(FDDINode node) {
+        Entry entry = new Entry();
+        entry.name = normalize(node.getName());
+        entry.order = nextOrder++;
+        if (node.isChildrenLoaded()) entry.children = snapshotChildren(node);
+        else pending.add(node);
+        entries.put(node, entry);
+        indexName(node, entry.name);
+        if (node instanceof Feature f) reindexFeature(f, entry);
+        if (node instanceof Project) projects.add(node);
+        if (entry.children != null) {
+            for (FDDINode child : entry.children) addSubtree(child);
+        }
+    }
+
+    private void reindexFeatures(FDDINode node) {
+        Entry entry = entries.get(node);
+        if (entry == null) return;
+        if (node instanceof Feature f) reindexFeature(f, entry);
+        if (entry.children != null) {
+            for (FDDINode child : entry.children) reindexFeatures(child);
+        }
+    }
+
+    private void removeSubtree(FDDINode node) {
+        Entry entry = entries.remove(node);
+        if (entry == null) return;
+        unindexName(node, entry.name);
+        if (entry.feature != null) unindexFeature(node, entry.feature);
+        projects.remove(node);
+        pending.remove(node);
+        if (entry.children != null) {
+            for (FDDINode child : entry.children) removeSubtree(child);
+        }
+    }
+
+    private void indexName(FDDINode node, String name) {
+        if (name.isEmpty()) return;
+        byName.computeIfAbsent(name, k -> new HashSet<>(2)).add(node);
+        byLength.computeIfAbsent(name.length(), k -> new HashSet<>()).add(node);
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            trigrams.computeIfAbsent(name.substring(i, i + 3), k -> new HashSet<>()).add(node);
+        }
+    }
+
+    private void unindexName(FDDINode node, String name) {
+        if (name.isEmpty()) return;
+        removeFrom(byName, name, node);
+        removeFrom(byLength, name.length(), node);
+        for (int i = 0; i + 3 <= name.length(); i++) removeFrom(trigrams, name.substring(i, i + 3), node);
+    }
+
+    private void reindexFeature(Feature f, Entry entry) {
+        Map<String, StatusEnum> statuses = new HashMap<>();
+        List<Milestone> milestones = f.getMilestone();
+        Aspect aspect = milestones.isEmpty() ? null : f.getAspectForNode();
+        for (int i = 0; i < milestones.size(); i++) {
+            statuses.put(FDDSearchQuery.milestoneKey(aspect, i), FDDSearchQuery.statusOf(milestones.get(i)));
+        }
+        FeatureKeys keys = new FeatureKeys(normalize(f.getInitials()), f.getSeq(), statuses, FDDSearchQuery.openSince(f));
+        if (keys.equals(entry.feature)) return;
+        if (entry.feature != null) unindexFeature(f, entry.feature);
+        entry.feature = keys;
+        features.add(f);
+        if (!keys.owner().isEmpty()) byOwner.computeIfAbsent(keys.owner(), k -> new HashSet<>()).add(f);
+        bySeq.computeIfAbsent(keys.seq(), k -> new HashSet<>(2)).add(f);
+        for (Map.Entry<String, StatusEnum> e : keys.statuses().entrySet()) {
+            statusBucket(e.getKey(), e.getValue()).add(f);
+            statusBucket(ANY_MILESTONE, e.getValue()).add(f);
+        }
+        if (keys.openSince() != Long.MAX_VALUE) byOpenSince.computeIfAbsent(keys.openSince(), k -> new HashSet<>()).add(f);
+    }
+
+    private Set<FDDINode> statusBucket(String milestone, StatusEnum status) {
+        return byStatus.computeIfAbsent(milestone, k -> new EnumMap<>(StatusEnum.class))
+            .computeIfAbsent(status, k -> new HashSet<>());
+    }
+
+    private void unindexFeature(FDDINode f, FeatureKeys keys) {
+        features.remove(f);
+        removeFrom(byOwner, keys.owner(), f);
+        removeFrom(bySeq, keys.seq(), f);
+        for (Map.Entry<String, StatusEnum> e : keys.statuses().entrySet()) {
+            removeFrom(byStatus.get(e.getKey()), e.getValue(), f);
+            removeFrom(byStatus.get(ANY_MILESTONE), e.getValue(), f);
+        }
+        removeFrom(byOpenSince, keys.openSince(), f);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<FDDINode>> map, K key, FDDINode node) {
+        if (map == null) return;
+        Set<FDDINode> set = map.get(key);
+        if (set != null && set.remove(node) && set.isEmpty()) map.remove(key);
+    }
+
+    // Removal leaves the parent link in place, a move re-points it; only the latter keeps the node
+    private boolean attachedElsewhere(FDDINode node, FDDINode formerParent) {
+        FDDINode parent = node.getParent();
+        return parent != null && parent != formerParent && entries.containsKey(parent)
+            && parent.getChildren().contains(node);
+    }
+
+    private static FDDINode[] snapshotChildren(FDDINode node) {
+        List<? extends FDDTreeNode> children = node.getChildren();
+        if (children.isEmpty()) return null;
+        FDDINode[] out = new FDDINode[children.size()];
+        for (int i = 0; i < out.length; i++) out[i] = (FDDINode) children.get(i);
+        return out;
+    }
+}
@@ -0,0 +1,232 @@
+package net.sourceforge.fddtools.search;
+
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.MilestoneInfo;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.StatusEnum;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.model.FDDINode;
+
+/**
+ * Parsed tree search query.
+ * <p>
+ * A query is a whitespace-separated list of free text and {@code field:value} clauses; values with
+ * spaces are double-quoted. All clauses must hold. Recognized fields, which all select features:
+ * <pre>
+ *   owner:JD                           feature owner initials
+ *   seq:1200  seq:&gt;1200  seq:100..200   sequence number, also &lt; &lt;= &gt;=
+ *   status:underway                    any milestone has the status
+ *   status:design-inspection=complete  the named milestone (spaces written as '-') has it
+ *   late:true  late:false              {@link Feature#isLate()}
+ *   aspect:"Dev"                       lies in an aspect with that name
+ *   wp:"Sprint 3"                      belongs to the work package with that name
+ * </pre>
+ * Any other {@code word:word} token is ordinary text. Without clauses the query is a plain name
+ * search; with clauses, free text must occur in the feature name.
+ */
+public final class FDDSearchQuery {
+
+    /** A field condition on a feature; {@code now} is the reference time for lateness. */
+    sealed interface Clause {
+        boolean test(Feature feature, long now);
+    }
+
+    record Owner(String initials) implements Clause {
+        public boolean test(Feature f, long now) {
+            return f.getInitials() != null && f.getInitials().equalsIgnoreCase(initials);
+        }
+    }
+
+    record SeqRange(int min, int max) implements Clause {
+        public boolean test(Feature f, long now) { return f.getSeq() >= min && f.getSeq() <= max; }
+    }
+
+    /** {@code milestone} is a milestone key (see {@link #milestoneKey}) or {@code null} for any milestone. */
+    record MilestoneStatus(String milestone, StatusEnum status) implements Clause {
+        public boolean test(Feature f, long now) {
+            List<Milestone> milestones = f.getMilestone();
+            for (int i = 0; i < milestones.size(); i++) {
+                if (statusOf(milestones.get(i)) != status) continue;
+                if (milestone == null || milestone.equals(milestoneKey(f.getAspectForNode(), i))) return true;
+            }
+            return false;
+        }
+    }
+
+    record Late(boolean late) implements Clause {
+        public boolean test(Feature f, long now) { return (openSince(f) < now) == late; }
+    }
+
+    record AspectName(String name) implements Clause {
+        public boolean test(Feature f, long now) {
+            Aspect a = f.getAspectForNode();
+            return a != null && a.getName() != null && a.getName().equalsIgnoreCase(name);
+        }
+    }
+
+    record WorkPackageName(String name) implements Clause {
+        public boolean test(Feature f, long now) {
+            Project project = owningProject(f);
+            if (project == null) return false;
+            for (WorkPackage wp : project.getWorkPackages()) {
+                if (name.equalsIgnoreCase(wp.getName()) && wp.getFeatureList().contains(f.getSeq())) return true;
+            }
+            return false;
+        }
+    }
+
+    /** Free text that must occur in the feature name. */
+    record NameContains(String text) implements Clause {
+        public boolean test(Feature f, long now) {
+            return FDDSearchIndex.normalize(f.getName()).contains(text);
+        }
+    }
+
+    private final String text;
+    private final List<Clause> clauses;
+
+    private FDDSearchQuery(String text, List<Clause> clauses) {
+        this.text = text;
+        this.clauses = clauses;
+    }
+
+    /** True if the query has field clauses and therefore selects features only. */
+    public boolean isStructured() { return !clauses.isEmpty(); }
+
+    /** Free text: the whole query when unstructured, otherwise the non-clause words. */
+    public String getText() { return text; }
+
+    /** Field clauses, plus the free text as a {@link NameContains} clause when structured. */
+    List<Clause> clauses() { return clauses; }
+
+    /**
+     * Parses {@code query}.
+     * @throws IllegalArgumentException if a recognized field has a malformed value
+     */
+    public static FDDSearchQuery parse(String query) {
+        String trimmed = query == null ? "" : query.trim();
+        List<Clause> clauses = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        for (String token : tokenize(trimmed)) {
+            int colon = token.indexOf(':');
+            Clause clause = colon > 0 ? clause(token.substring(0, colon).toLowerCase(Locale.ROOT),
+                unquote(token.substring(colon + 1))) : null;
+            if (clause != null) clauses.add(clause); else words.add(unquote(token));
+        }
+        if (clauses.isEmpty()) return new FDDSearchQuery(trimmed, Collections.emptyList());
+        String text = String.join(" ", words);
+        if (!text.isBlank()) clauses.add(new NameContains(FDDSearchIndex.normalize(text)));
+        return new FDDSearchQuery(text, Collections.unmodifiableList(clauses));
+    }
+
+    private static Clause clause(String field, String value) {
+        switch (field) {
+            case "owner": return new Owner(requireValue(field, value));
+            case "seq": return seqRange(requireValue(field, value));
+            case "status": return milestoneStatus(requireValue(field, value));
+            case "late":
+                if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes")) return new Late(true);
+                if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no")) return new Late(false);
+                throw new IllegalArgumentException("late: expects true or false, got '" + value + "'");
+            case "aspect": return new AspectName(requireValue(field, value));
+            case "wp": return new WorkPackageName(requireValue(field, value));
+            default: return null;
+        }
+    }
+
+    private static String requireValue(String field, String value) {
+        if (value.isBlank()) throw new IllegalArgumentException(field + ": needs a value");
+        return value;
+    }
+
+    private static SeqRange seqRange(String value) {
+        try {
+            int range = value.indexOf("..");
+            if (range >= 0) {
+                return new SeqRange(Integer.parseInt(value.substring(0, range)), Integer.parseInt(value.substring(range + 2)));
+            }
+            if (value.startsWith(">=")) return new SeqRange(Integer.parseInt(value.substring(2)), Integer.MAX_VALUE);
+            if (value.startsWith("<=")) return new SeqRange(Integer.MIN_VALUE, Integer.parseInt(value.substring(2)));
+            if (value.startsWith(">")) return new SeqRange(Math.addExact(Integer.parseInt(value.substring(1)), 1), Integer.MAX_VALUE);
+            if (value.startsWith("<")) return new SeqRange(Integer.MIN_VALUE, Math.subtractExact(Integer.parseInt(value.substring(1)), 1));
+            int seq = Integer.parseInt(value.startsWith("=") ? value.substring(1) : value);
+            return new SeqRange(seq, seq);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("seq: expects a number, comparison or range, got '" + value + "'");
+        }
+    }
+
+    private static MilestoneStatus milestoneStatus(String value) {
+        int eq = value.lastIndexOf('=');
+        String milestone = eq >= 0 ? slug(value.substring(0, eq)) : null;
+        String status = value.substring(eq + 1).toLowerCase(Locale.ROOT);
+        for (StatusEnum s : StatusEnum.values()) {
+            if (s.value().equals(status)) return new MilestoneStatus(milestone, s);
+        }
+        throw new IllegalArgumentException("status: unknown status '" + status + "'");
+    }
+
+    /** Splits on whitespace outside double quotes; quotes stay in the token. */
+    private static List<String> tokenize(String s) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') quoted = !quoted;
+            if (Character.isWhitespace(c) && !quoted) {
+                if (current.length() > 0) tokens.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) tokens.add(current.toString());
+        return tokens;
+    }
+
+    private static String unquote(String s) {
+        return s.replace("\"", "");
+    }
+
+    static String slug(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", "-");
+    }
+
+    /** Key of the milestone at {@code index}: its slugged aspect name, or "milestone-N" if unnamed. */
+    static String milestoneKey(Aspect aspect, int index) {
+        if (aspect != null && aspect.getInfo() != null) {
+            List<MilestoneInfo> infos = aspect.getInfo().getMilestoneInfo();
+            if (index < infos.size() && infos.get(index).getName() != null) return slug(infos.get(index).getName());
+        }
+        return "milestone-" + (index + 1);
+    }
+
+    static StatusEnum statusOf(Milestone m) {
+        return m.getStatus() == null ? StatusEnum.NOTSTARTED : m.getStatus();
+    }
+
+    /** Earliest planned date of an incomplete milestone; the feature is late once it has passed. */
+    static long openSince(Feature f) {
+        long earliest = Long.MAX_VALUE;
+        for (Milestone m : f.getMilestone()) {
+            if (m.getPlanned() != null && m.getStatus() != StatusEnum.COMPLETE) {
+                earliest = Math.min(earliest, m.getPlanned().toGregorianCalendar().getTimeInMillis());
+            }
+        }
+        return earliest;
+    }
+
+    static Project owningProject(FDDINode node) {
+        for (FDDINode n = node; n != null; n = n.getParent()) {
+            if (n instanceof Project p) return p;
+        }
+        return null;
+    }
+}
@@ -1,20 +1,44 @@
 package net.sourceforge.fddtools.search;
 
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.service.LoggingService;
 import net.sourceforge.fddtools.ui.fx.FDDTreeViewFX;
 import javafx.scene.control.TreeItem;
 import javafx.application.Platform;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Controls search operations and result navigation for the FDD tree.
  * Manages search state, highlighting, and navigation between matches.
+ * <p>
+ * Search-as-you-type goes through {@link #searchAsync(String)}: keystrokes are debounced, the
+ * query runs against the search index on a background thread, and a query overtaken by a newer
+ * one is dropped. Only the difference to the previous result (highlights gained and lost, paths
+ * to expand or collapse) is applied on the FX thread, in one pass.
+ * <p>
+ * Highlight and current-match flags live in the tree view's per-node view state, so cells read
+ * them directly and a result change repaints only the cells whose flags changed.
  */
 public class FDDTreeSearchController {
+
+    /** Quiet period after the last keystroke before an asynchronous search runs. */
+    static final long DEBOUNCE_MS = 150;
+
+    private static final ScheduledExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tree-search");
+        t.setDaemon(true);
+        return t;
+    });
     
     private final FDDTreeViewFX treeView;
     private final FDDTreeSearchEngine searchEngine;
@@ -24,9 +48,14 @@ public class FDDTreeSearchController {
     private int currentMatchIndex = -1;
     private String currentQuery = "";
     
-    // Visual state
-    private final Set<TreeItem<FDDINode>> highlightedItems = new HashSet<>();
+    // Visual state; highlights are kept by the tree view
     private final Set<TreeItem<FDDINode>> expandedForSearch = new HashSet<>();
+
+    // Async state: every new request or clear bumps the generation, which invalidates older ones
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong cancelledQueries = new AtomicLong();
+    private ScheduledFuture<?> pendingQuery;
+    private LoggingService.Span pendingSpan;
     
     /**
      * Listener interface for search events.
@@ -39,17 +68,11 @@ public class FDDTreeSearchController {
     
     private SearchListener searchListener;
     
-    /**
-     * Check if running in headless mode where TreeView refresh operations can be problematic.
-     */
-    private boolean isHeadlessMode() {
-        return Boolean.getBoolean("java.awt.headless") || 
-               "true".equals(System.getProperty("testfx.headless"));
-    }
-    
     public FDDTreeSearchController(FDDTreeViewFX treeView) {
         this.treeView = treeView;
         this.searchEngine = new FDDTreeSearchEngine();
+        // Resolve matches through the tree's node index; it also creates lazily built items
+        searchEngine.setItemLookup(treeView::itemFor);
     }
     
     public void setSearchListener(SearchListener listener) {
@@ -61,13 +84,11 @@ public class FDDTreeSearchController {
      * @param query the search query string
      */
     public void search(String query) {
-        clearCurrentSearch();
-        
+        generation.incrementAndGet();
+        cancelPending();
+
         if (query == null || query.trim().isEmpty()) {
-            currentQuery = "";
-            currentMatches.clear();
-            currentMatchIndex = -1;
-            notifySearchCleared();
+            clearSearch();
             return;
         }
         
@@ -75,19 +96,92 @@ public class FDDTreeSearchController {
         TreeItem<FDDINode> root = treeView.getRoot();
         
         if (root != null) {
-            currentMatches = searchEngine.search(root, currentQuery);
-            currentMatchIndex = currentMatches.isEmpty() ? -1 : 0;
-            
-            // Apply highlighting and expand tree paths
-            highlightMatches();
-            expandPathsToMatches();
-            
-            // Navigate to first match if any
-            if (!currentMatches.isEmpty()) {
-                navigateToCurrentMatch(false); // false = don't steal focus while typing
+            applyResults(currentQuery, searchEngine.search(root, currentQuery));
+        } else {
+            clearCurrentSearch();
+            currentMatches.clear();
+            currentMatchIndex = -1;
+        }
+    }
+
+    /**
+     * Debounced, asynchronous variant of {@link #search(String)} for search-as-you-type.
+     * Call on the FX thread; results and listener callbacks are delivered there too.
+     * @param query the search query string
+     */
+    public void searchAsync(String query) {
+        long requested = generation.incrementAndGet();
+        cancelPending();
+
+        if (query == null || query.trim().isEmpty()) {
+            clearSearch();
+            return;
+        }
+
+        TreeItem<FDDINode> root = treeView.getRoot();
+        if (root == null) return;
+        String trimmed = query.trim();
+        FDDINode rootNode = root.getValue();
+        // Spans from keystroke to applied result, so latency includes the debounce
+        LoggingService.Span span = LoggingService.getInstance().startPerf("treeSearch", Map.of("query", trimmed));
+        synchronized (this) {
+            pendingSpan = span;
+            pendingQuery = SEARCH_EXECUTOR.schedule(() -> runQuery(requested, trimmed, root, rootNode, span),
+                DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Number of asynchronous queries dropped because a newer one superseded them. */
+    public long getCancelledQueryCount() {
+        return cancelledQueries.get();
+    }
+
+    private void runQuery(long requested, String query, TreeItem<FDDINode> root, FDDINode rootNode,
+                          LoggingService.Span span) {
+        if (requested != generation.get()) {
+            cancelled(span);
+            return;
+        }
+        long start = System.nanoTime();
+        FDDSearchIndex index = searchEngine.getIndex();
+        // The hit list is a private copy, so later model edits cannot change it under us
+        List<FDDSearchIndex.Hit> hits = index.getRoot() == rootNode
+            ? index.query(query, FDDTreeSearchEngine.DEFAULT_LIMIT) : null;
+        span.metric("queryMs", (System.nanoTime() - start) / 1_000_000L);
+        if (requested != generation.get()) {
+            cancelled(span);
+            return;
+        }
+        Platform.runLater(() -> {
+            if (requested != generation.get() || treeView.getRoot() != root) {
+                cancelled(span);
+                return;
             }
-            
-            notifySearchResults();
+            currentQuery = query;
+            // Without an index for this tree fall back to scanning the items here on the FX thread
+            List<FDDTreeSearchEngine.SearchMatch> matches = hits != null
+                ? searchEngine.toMatches(root, hits) : searchEngine.search(root, query);
+            applyResults(query, matches);
+            span.metric("matches", matches.size()).metric("indexed", hits != null)
+                .metric("cancelledTotal", cancelledQueries.get());
+            span.close();
+        });
+    }
+
+    private void cancelPending() {
+        synchronized (this) {
+            // A query that already started notices the new generation and cancels itself
+            if (pendingQuery != null && pendingQuery.cancel(false)) cancelled(pendingSpan);
+            pendingQuery = null;
+            pendingSpan = null;
+        }
+    }
+
+    private void cancelled(LoggingService.Span span) {
+        long total = cancelledQueries.incrementAndGet();
+        if (span != null) {
+            span.metric("cancelled", true).metric("cancelledTotal", total);
+            span.close();
         }
     }
     
@@ -122,6 +216,8 @@ public class FDDTreeSearchController {
      * Clears the current search and removes all highlighting.
      */
     public void clearSearch() {
+        generation.incrementAndGet();
+        cancelPending();
         clearCurrentSearch();
         currentQuery = "";
         currentMatches.clear();
@@ -154,14 +250,21 @@ public class FDDTreeSearchController {
      * Checks if an item is currently highlighted by search.
      */
     public boolean isHighlighted(TreeItem<FDDINode> item) {
-        return highlightedItems.contains(item);
+        return item != null && treeView.isSearchHighlighted(item.getValue());
+    }
+
+    /**
+     * Checks if an item is the current match.
+     */
+    public boolean isCurrentMatch(TreeItem<FDDINode> item) {
+        return item != null && treeView.isCurrentSearchMatch(item.getValue());
     }
     
     // Private methods
     
     private void clearCurrentSearch() {
-        // Remove highlighting
-        highlightedItems.clear();
+        // Remove highlighting; only the affected cells repaint
+        treeView.setSearchHighlights(List.of(), null);
         
         // Collapse items that were expanded for search
         for (TreeItem<FDDINode> item : expandedForSearch) {
@@ -170,65 +273,72 @@ public class FDDTreeSearchController {
             }
         }
         expandedForSearch.clear();
-        
-        // Refresh tree view to update styling (skip in headless mode to avoid tree corruption)
-        if (!isHeadlessMode()) {
-            Platform.runLater(() -> {
-                treeView.refresh();
-            });
-        }
     }
     
-    private void highlightMatches() {
-        highlightedItems.clear();
+    /**
+     * Replaces the current result with {@code matches}, touching only the items whose highlight
+     * or expansion actually changes.
+     */
+    private void applyResults(String query, List<FDDTreeSearchEngine.SearchMatch> matches) {
+        LoggingService.Span span = LoggingService.getInstance().startPerf("treeHighlight", Map.of("action", "highlight"));
+        currentQuery = query;
+        currentMatches = new ArrayList<>(matches);
+        currentMatchIndex = currentMatches.isEmpty() ? -1 : 0;
+
+        List<FDDINode> highlights = new ArrayList<>(currentMatches.size());
+        Set<TreeItem<FDDINode>> keepExpanded = new HashSet<>();
         for (FDDTreeSearchEngine.SearchMatch match : currentMatches) {
-            if (match.getTreeItem() != null) {
-                highlightedItems.add(match.getTreeItem());
+            TreeItem<FDDINode> item = match.getTreeItem();
+            if (item == null) continue;
+            highlights.add(match.getNode());
+            for (TreeItem<FDDINode> p = item.getParent(); p != null; p = p.getParent()) {
+                // Ancestors are shared between matches; stop at one already handled
+                if (!keepExpanded.add(p)) break;
             }
         }
-        
-        // Refresh tree view to show highlighting (skip in headless mode to avoid tree corruption)
-        if (!isHeadlessMode()) {
-            Platform.runLater(() -> {
-                treeView.refresh();
-            });
-        }
-    }
-    
-    private void expandPathsToMatches() {
-        for (FDDTreeSearchEngine.SearchMatch match : currentMatches) {
-            expandPathToItem(match.getTreeItem());
+        FDDINode current = currentMatches.isEmpty() ? null : currentMatches.get(0).getNode();
+        int repainted = treeView.setSearchHighlights(highlights, current);
+        boolean changed = repainted > 0;
+
+        // Collapse what this search opened and no longer needs, then open what it needs
+        for (var it = expandedForSearch.iterator(); it.hasNext(); ) {
+            TreeItem<FDDINode> item = it.next();
+            if (!keepExpanded.contains(item)) {
+                item.setExpanded(false);
+                it.remove();
+                changed = true;
+            }
         }
-    }
-    
-    private void expandPathToItem(TreeItem<FDDINode> item) {
-        if (item == null) return;
-        
-        TreeItem<FDDINode> current = item.getParent();
-        while (current != null) {
-            if (!current.isExpanded()) {
-                current.setExpanded(true);
-                expandedForSearch.add(current);
+        for (TreeItem<FDDINode> item : keepExpanded) {
+            if (!item.isExpanded()) {
+                item.setExpanded(true);
+                expandedForSearch.add(item);
+                changed = true;
             }
-            current = current.getParent();
         }
+
+        span.metric("matches", currentMatches.size()).metric("highlighted", highlights.size())
+            .metric("repainted", repainted).metric("expanded", expandedForSearch.size()).metric("changed", changed).close();
+
+        // Navigate to first match if any
+        if (!currentMatches.isEmpty()) {
+            navigateToCurrentMatch(false); // false = don't steal focus while typing
+        }
+
+        notifySearchResults();
     }
     
     private void navigateToCurrentMatch(boolean requestFocus) {
         if (currentMatchIndex >= 0 && currentMatchIndex < currentMatches.size()) {
             FDDTreeSearchEngine.SearchMatch match = currentMatches.get(currentMatchIndex);
             TreeItem<FDDINode> item = match.getTreeItem();
+            treeView.setCurrentSearchMatch(match.getNode());
             
             if (item != null) {
                 Platform.runLater(() -> {
                     // Use the proper selectNode method instead of direct selection model access
                     treeView.selectNode(item.getValue());
                     
-                    // Add explicit refresh to ensure visual update (skip in headless mode to avoid tree corruption)
-                    if (!isHeadlessMode()) {
-                        treeView.refresh();
-                    }
-                    
                     // Only request focus for explicit navigation (F3, arrow buttons)
                     // Don't steal focus while user is typing in search field
                     if (requestFocus) {
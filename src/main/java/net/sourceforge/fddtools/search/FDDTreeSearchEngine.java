@@ -4,11 +4,13 @@ import net.sourceforge.fddtools.model.FDDINode;
 import javafx.scene.control.TreeItem;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Fuzzy search engine for FDD tree nodes.
- * Provides fuzzy matching on node names with scoring and ranking.
+ * Provides fuzzy matching on node names with scoring and ranking, and field queries
+ * over features (see {@link FDDSearchQuery}).
  */
 public class FDDTreeSearchEngine {
     
@@ -40,112 +42,134 @@ public class FDDTreeSearchEngine {
         }
     }
     
+    /** Maximum number of matches returned by {@link #search(TreeItem, String)}. */
+    public static final int DEFAULT_LIMIT = 1000;
+
+    private final FDDSearchIndex index;
+    /** Resolves a node to its tree item ahead of walking the items; may return null. */
+    private Function<FDDINode, TreeItem<FDDINode>> itemLookup;
+
+    public FDDTreeSearchEngine() {
+        this(FDDSearchIndex.getInstance());
+    }
+
+    FDDTreeSearchEngine(FDDSearchIndex index) {
+        this.index = index;
+    }
+
     /**
      * Searches for nodes matching the query string.
      * @param rootItem the root tree item to search from
      * @param query the search query string
-     * @return list of matches sorted by relevance score (highest first)
+     * @return up to {@link #DEFAULT_LIMIT} matches sorted by relevance score (highest first)
      */
     public List<SearchMatch> search(TreeItem<FDDINode> rootItem, String query) {
+        return search(rootItem, query, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Searches for nodes matching the query string, keeping only the best {@code limit} matches.
+     * The query may use the field syntax of {@link FDDSearchQuery}; a malformed one matches nothing.
+     * Uses the shared {@link FDDSearchIndex} when it indexes the tree under {@code rootItem};
+     * otherwise scans the tree items. Equal scores are returned in tree order.
+     */
+    public List<SearchMatch> search(TreeItem<FDDINode> rootItem, String query, int limit) {
         if (query == null || query.trim().isEmpty() || rootItem == null) {
             return Collections.emptyList();
         }
 
-        String normalizedQuery = query.trim().toLowerCase();
-        
+        if (covers(rootItem)) {
+            return toMatches(rootItem, index.query(query, limit));
+        }
+
+        FDDSearchQuery parsed;
+        try {
+            parsed = FDDSearchQuery.parse(query);
+        } catch (IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+        ToDoubleFunction<FDDINode> scorer;
+        if (parsed.isStructured()) {
+            long now = System.currentTimeMillis();
+            scorer = node -> FDDSearchIndex.structuredScore(parsed.clauses(), node, now);
+        } else {
+            String normalizedQuery = FDDSearchIndex.normalize(parsed.getText());
+            scorer = node -> FDDSearchIndex.score(FDDSearchIndex.normalize(node.getName()), normalizedQuery);
+        }
+        TopMatches<SearchMatch> top = new TopMatches<>(limit);
+        searchRecursive(rootItem, scorer, top, new long[1]);
         List<SearchMatch> matches = new ArrayList<>();
-        
-        // Recursively search all nodes
-        searchRecursive(rootItem, normalizedQuery, matches);
-        
-        // Sort by score (highest first) and return
-        return matches.stream()
-            .sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
-            .collect(Collectors.toList());
+        for (TopMatches.Ranked<SearchMatch> r : top.ranked()) matches.add(r.item());
+        return matches;
     }
-    
+
+    FDDSearchIndex getIndex() { return index; }
+
+    /** Sets a direct node-to-item lookup (the tree view's index) used before walking down from the root item. */
+    void setItemLookup(Function<FDDINode, TreeItem<FDDINode>> lookup) { this.itemLookup = lookup; }
+
+    /** True if the index holds the model shown under {@code rootItem}. */
+    boolean covers(TreeItem<FDDINode> rootItem) {
+        return rootItem != null && rootItem.getValue() != null && index.getRoot() == rootItem.getValue();
+    }
+
+    /** Pairs index hits with their tree items under {@code rootItem}; touches the items, so FX thread only. */
+    List<SearchMatch> toMatches(TreeItem<FDDINode> rootItem, List<FDDSearchIndex.Hit> hits) {
+        List<SearchMatch> matches = new ArrayList<>(hits.size());
+        for (FDDSearchIndex.Hit hit : hits) {
+            FDDINode node = hit.node();
+            TreeItem<FDDINode> item = itemLookup != null ? itemLookup.apply(node) : null;
+            if (item == null) item = findItem(rootItem, node);
+            matches.add(new SearchMatch(item, node, hit.score(), node.getName()));
+        }
+        return matches;
+    }
+
     /**
      * Recursively searches through tree items.
      */
-    private void searchRecursive(TreeItem<FDDINode> item, String query, List<SearchMatch> matches) {
+    private void searchRecursive(TreeItem<FDDINode> item, ToDoubleFunction<FDDINode> scorer,
+                                 TopMatches<SearchMatch> top, long[] order) {
         if (item == null) return;
-        
+
         FDDINode node = item.getValue();
         if (node != null && node.getName() != null) {
-            double score = calculateFuzzyScore(node.getName(), query);
+            double score = scorer.applyAsDouble(node);
             if (score > 0) {
-                matches.add(new SearchMatch(item, node, score, node.getName()));
+                top.offer(new SearchMatch(item, node, score, node.getName()), score, order[0]);
             }
         }
-        
+        order[0]++;
+
         // Search children
         for (TreeItem<FDDINode> child : item.getChildren()) {
-            searchRecursive(child, query, matches);
+            searchRecursive(child, scorer, top, order);
         }
     }
-    
+
     /**
-     * Calculates fuzzy match score between node name and query.
-     * Higher score = better match.
-     * @param nodeName the name of the node to match against
-     * @param query the search query
-     * @return score between 0 (no match) and 1 (perfect match)
+     * Finds the tree item showing {@code node} by following the node's ancestors down from
+     * {@code rootItem}; {@code null} if the node is not (yet) represented under it.
      */
-    private double calculateFuzzyScore(String nodeName, String query) {
-        if (nodeName == null || query == null) return 0;
-        
-        String normalizedName = nodeName.toLowerCase();
-        String normalizedQuery = query.toLowerCase();
-        
-        // Exact match gets highest score
-        if (normalizedName.equals(normalizedQuery)) {
-            return 1.0;
-        }
-        
-        // Starts with query gets high score
-        if (normalizedName.startsWith(normalizedQuery)) {
-            return 0.9;
-        }
-        
-        // Contains query gets medium score
-        if (normalizedName.contains(normalizedQuery)) {
-            return 0.7;
+    private static TreeItem<FDDINode> findItem(TreeItem<FDDINode> rootItem, FDDINode node) {
+        Deque<FDDINode> path = new ArrayDeque<>();
+        for (FDDINode n = node; n != rootItem.getValue(); n = n.getParent()) {
+            if (n == null) return null;
+            path.push(n);
         }
-        
-        // Fuzzy match using simple character sequence matching
-        double fuzzyScore = calculateSequenceScore(normalizedName, normalizedQuery);
-        
-        // Only return if fuzzy score is reasonable (lowered threshold for better matching)
-        return fuzzyScore > 0.2 ? fuzzyScore * 0.6 : 0;
-    }
-    
-    /**
-     * Calculates score based on character sequence matching.
-     * This is a simplified fuzzy matching algorithm.
-     */
-    private double calculateSequenceScore(String text, String query) {
-        if (text.length() == 0 || query.length() == 0) return 0;
-        
-        int matches = 0;
-        int queryIndex = 0;
-        
-        // Count sequential character matches
-        for (int i = 0; i < text.length() && queryIndex < query.length(); i++) {
-            if (text.charAt(i) == query.charAt(queryIndex)) {
-                matches++;
-                queryIndex++;
+        TreeItem<FDDINode> current = rootItem;
+        while (!path.isEmpty()) {
+            FDDINode next = path.pop();
+            TreeItem<FDDINode> found = null;
+            for (TreeItem<FDDINode> child : current.getChildren()) {
+                if (child.getValue() == next) { found = child; break; }
             }
+            if (found == null) return null;
+            current = found;
         }
-        
-        // Score based on how many query characters were matched
-        double matchRatio = (double) matches / query.length();
-        
-        // Bonus for shorter text (more specific matches)
-        double lengthPenalty = Math.min(1.0, (double) query.length() / text.length());
-        
-        return matchRatio * lengthPenalty;
+        return current;
     }
-    
+
     /**
      * Gets the path from root to the given tree item for breadcrumb display.
      * @param item the tree item to get path for
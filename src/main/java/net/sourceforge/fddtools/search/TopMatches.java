@@ -0,0 +1,52 @@
+package net.sourceforge.fddtools.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded best-first collector: keeps the {@code limit} highest-scoring items seen so far.
+ * Equal scores are ranked by {@code order} (lower first), so results stay in document order
+ * when the caller offers a preorder position.
+ */
+final class TopMatches<T> {
+
+    record Ranked<T>(T item, double score, long order) {}
+
+    private static final Comparator<Ranked<?>> BEST_FIRST =
+        Comparator.<Ranked<?>>comparingDouble(Ranked::score).reversed().thenComparingLong(Ranked::order);
+
+    private final int limit;
+    // Worst retained entry at the head
+    private final PriorityQueue<Ranked<T>> heap;
+
+    TopMatches(int limit) {
+        this.limit = Math.max(1, limit);
+        this.heap = new PriorityQueue<>(Math.min(this.limit, 256), BEST_FIRST.reversed());
+    }
+
+    void offer(T item, double score, long order) {
+        if (heap.size() < limit) {
+            heap.add(new Ranked<>(item, score, order));
+            return;
+        }
+        Ranked<T> worst = heap.peek();
+        if (score > worst.score() || (score == worst.score() && order < worst.order())) {
+            heap.poll();
+            heap.add(new Ranked<>(item, score, order));
+        }
+    }
+
+    /** True once no item scoring at most {@code score} can enter the result any more. */
+    boolean excludes(double score) {
+        return heap.size() >= limit && heap.peek().score() > score;
+    }
+
+    /** Retained entries, best first. */
+    List<Ranked<T>> ranked() {
+        List<Ranked<T>> out = new ArrayList<>(heap);
+        out.sort(BEST_FIRST);
+        return out;
+    }
+}
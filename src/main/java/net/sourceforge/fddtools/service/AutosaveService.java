@@ -0,0 +1,426 @@
+package net.sourceforge.fddtools.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDINodeCopier;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+import net.sourceforge.fddtools.persistence.FDDIJournal;
+import net.sourceforge.fddtools.persistence.FDDIStreamingWriter;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
+import net.sourceforge.fddtools.state.ModelChange;
+import net.sourceforge.fddtools.state.ModelEventBus;
+import net.sourceforge.fddtools.state.ModelState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Autosave and crash recovery for the open project.
+ * <p>
+ * Every change set published on the {@link ModelEventBus} (one per executed, undone or redone
+ * command) is recorded in {@code <project>.journal} next to the project file as a copy of the
+ * smallest subtree covering the change. Appends run on a background thread and are forced to disk
+ * in batches. After {@link #COMPACT_AFTER_ENTRIES} entries, {@link #COMPACT_AFTER_BYTES} bytes, or
+ * periodically when the model changed, the whole project is written to a new
+ * {@code <project>.snapshot-N} and the journal restarts from it; the newest
+ * {@link #KEEP_SNAPSHOTS} snapshots are kept. Saving the project cleanly, closing it or exiting
+ * normally deletes the journal and snapshots, so whatever is found when a project is opened was left
+ * by a crash and is replayed by {@link #recover}.
+ * <p>
+ * Projects that were never saved have no file to sit next to and are not journaled.
+ */
+public final class AutosaveService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AutosaveService.class);
+    private static final AutosaveService INSTANCE = new AutosaveService();
+    public static AutosaveService getInstance() { return INSTANCE; }
+
+    static final String JOURNAL_SUFFIX = ".journal"; //NOI18N
+    static final String SNAPSHOT_SUFFIX = ".snapshot-"; //NOI18N
+    static final int KEEP_SNAPSHOTS = 3;
+    static final int COMPACT_AFTER_ENTRIES = 200;
+    static final long COMPACT_AFTER_BYTES = 1024 * 1024;
+    static final long FORCE_INTERVAL_MS = 250;
+    static final long COMPACT_INTERVAL_MS = 120_000;
+
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "fdd-autosave"); //NOI18N
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Session session;
+    private Recovered recovered; // guarded by this
+
+    private AutosaveService() {
+        ModelEventBus.get().subscribe(this::onModelEvent);
+        io.scheduleWithFixedDelay(this::forceJournal, FORCE_INTERVAL_MS, FORCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        io.scheduleWithFixedDelay(this::requestPeriodicCompaction, COMPACT_INTERVAL_MS, COMPACT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Journal file for {@code project}. */
+    public static Path journalFile(Path project) {
+        return project.resolveSibling(project.getFileName() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Replays the journal left next to {@code path} onto {@code parsed}, the tree just read from the
+     * project file, and returns the recovered tree; returns {@code parsed} when there is nothing to
+     * recover. Safe to call off the FX thread. A journal that cannot be replayed is renamed aside
+     * rather than deleted.
+     */
+    public FDDINode recover(String path, FDDINode parsed) {
+        if (path == null || parsed == null) return parsed;
+        Path project = Paths.get(path).toAbsolutePath();
+        Path journal = journalFile(project);
+        if (!Files.isRegularFile(journal)) return parsed;
+        try (LoggingService.Span span = LoggingService.getInstance().startPerf("journalReplay", Map.of("file", String.valueOf(project.getFileName())))) {
+            FDDIJournal.Contents contents = FDDIJournal.read(journal);
+            FDDIJournal.Header header = contents.header();
+            FDDINode root;
+            if (header.isProjectFile()) {
+                if (Files.getLastModifiedTime(project).toMillis() != header.baseModified()) {
+                    LOGGER.warn("Discarding autosave journal for {}: the project file changed since it was written", project);
+                    deleteFiles(project);
+                    return parsed;
+                }
+                if (contents.entries().isEmpty()) return parsed;
+                root = parsed;
+            } else {
+                Object base = FDDIXMLFileReader.read(project.resolveSibling(header.base()).toString());
+                if (!(base instanceof FDDINode node)) throw new IOException("Unreadable autosave snapshot " + header.base());
+                root = node;
+            }
+            for (FDDIJournal.Entry entry : contents.entries()) root = FDDIJournal.apply(root, entry);
+            ProgressRollup.recompute(root);
+            span.metric("entries", contents.entries().size()).metric("torn", contents.torn());
+            LOGGER.info("Recovered unsaved changes for {} ({} journal entries{})", project,
+                contents.entries().size(), contents.torn() ? ", incomplete last entry dropped" : "");
+            synchronized (this) { recovered = new Recovered(project, root); }
+            return root;
+        } catch (Exception | LinkageError ex) {
+            LOGGER.warn("Could not recover unsaved changes for {}: {}", project, ex.toString());
+            try {
+                Files.move(journal, journal.resolveSibling(journal.getFileName() + ".failed"), StandardCopyOption.REPLACE_EXISTING); //NOI18N
+            } catch (IOException moveFailed) {
+                LOGGER.warn("Could not set aside journal {}: {}", journal, moveFailed.toString());
+            }
+            return parsed;
+        }
+    }
+
+    /**
+     * Starts journaling changes to {@code root}, the project now open from {@code path}; any previous
+     * project is detached first. Returns true if {@code root} came from {@link #recover}, in which case
+     * the recovered state is compacted into a fresh snapshot and the project should be marked dirty.
+     */
+    public boolean attach(String path, FDDINode root) {
+        Path project = Paths.get(path).toAbsolutePath();
+        boolean wasRecovered;
+        synchronized (this) {
+            wasRecovered = recovered != null && recovered.root() == root && recovered.project().equals(project);
+            recovered = null;
+        }
+        Session previous = session;
+        if (previous != null && previous.root == root && previous.project.equals(project)) return wasRecovered;
+        detach(true);
+        Session s = new Session(project, root);
+        session = s;
+        if (wasRecovered) {
+            compact();
+        } else {
+            io.execute(s::reset); // leftovers were either recovered or set aside by recover()
+        }
+        return wasRecovered;
+    }
+
+    /**
+     * Stops journaling. With {@code discard} the journal and snapshots are deleted, as after a clean
+     * close; otherwise they stay on disk for recovery.
+     */
+    public void detach(boolean discard) {
+        Session s = session;
+        session = null;
+        if (s == null) return;
+        io.execute(() -> {
+            s.closeJournal();
+            if (discard) deleteFiles(s.project);
+        });
+    }
+
+    /**
+     * Called after the project was written to {@code path}. A clean save makes the file the new base
+     * and drops the journal; if the model changed while saving, the current state is compacted instead.
+     */
+    public void saved(String path, FDDINode root, boolean clean) {
+        Session s = session;
+        Path project = Paths.get(path).toAbsolutePath();
+        if (s == null || s.root != root || !s.project.equals(project)) {
+            attach(path, root);
+            s = session;
+            if (clean) return;
+        }
+        if (clean) {
+            s.entriesSinceCompaction = 0;
+            s.compactedVersion = ModelState.getInstance().getVersion();
+            Session current = s;
+            io.execute(current::reset);
+        } else {
+            compact();
+        }
+    }
+
+    /**
+     * Writes the current project to a new snapshot and restarts the journal from it. The copy is taken
+     * on the calling thread, which must be the thread that mutates the model; the write runs in the
+     * background.
+     */
+    public void compact() {
+        Session s = session;
+        if (s == null) return;
+        LoggingService.Span span = LoggingService.getInstance().startPerf("journalCompact", Map.of("file", String.valueOf(s.project.getFileName())));
+        long copyStart = System.nanoTime();
+        FDDINode copy = FDDINodeCopier.copy(s.root);
+        span.metric("copyMs", (System.nanoTime() - copyStart) / 1_000_000L);
+        s.entriesSinceCompaction = 0;
+        s.compactedVersion = ModelState.getInstance().getVersion();
+        io.execute(() -> {
+            try (span) {
+                s.writeSnapshot(copy, span);
+            }
+        });
+    }
+
+    /** Completes once everything queued so far has been written and forced to disk. */
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(this::forceJournal, io);
+    }
+
+    /** Detaches and deletes the recovery files of a cleanly closed project, waiting briefly for the writes. */
+    public void shutdown() {
+        detach(true);
+        try {
+            flush().get(5, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            LOGGER.warn("Autosave did not finish before exit: {}", ex.toString());
+        }
+    }
+
+    private void onModelEvent(ModelEventBus.Event event) {
+        if (event.type != ModelEventBus.EventType.CHANGE_SET) return;
+        Session s = session;
+        if (s == null || !(event.payload instanceof ModelEventBus.ModelChangeSet set)) return;
+        FDDINode covering = coveringNode(s.root, set.changes());
+        if (covering == null) return;
+        if (covering == s.root) {
+            compact();
+            return;
+        }
+        LoggingService.Span span = LoggingService.getInstance().startPerf("journalAppend", Map.of("file", String.valueOf(s.project.getFileName())));
+        int[] path = pathOf(covering);
+        FDDINode copy = FDDINodeCopier.copy(covering);
+        s.entriesSinceCompaction++;
+        io.execute(() -> {
+            try (span) {
+                s.append(path, copy, span);
+            }
+        });
+        if (s.entriesSinceCompaction >= COMPACT_AFTER_ENTRIES || s.journalBytes >= COMPACT_AFTER_BYTES) compact();
+    }
+
+    /** Deepest node under {@code root} containing every position touched by {@code changes}, or null if none is in the tree. */
+    static FDDINode coveringNode(FDDINode root, List<ModelChange> changes) {
+        List<FDDINode> common = null;
+        for (ModelChange change : changes) {
+            List<FDDINode> touched = new ArrayList<>(2);
+            switch (change.kind()) {
+                case FIELD_CHANGED -> touched.add(change.node());
+                case MOVED -> { touched.add(change.parent()); touched.add(change.oldParent()); }
+                default -> touched.add(change.parent());
+            }
+            for (FDDINode node : touched) {
+                List<FDDINode> chain = chainFromRoot(root, node);
+                if (chain == null) continue;
+                if (common == null) { common = chain; continue; }
+                int n = 0;
+                while (n < common.size() && n < chain.size() && common.get(n) == chain.get(n)) n++;
+                common = common.subList(0, n);
+            }
+        }
+        return common == null || common.isEmpty() ? null : common.get(common.size() - 1);
+    }
+
+    private static List<FDDINode> chainFromRoot(FDDINode root, FDDINode node) {
+        if (node == null) return null;
+        List<FDDINode> chain = new ArrayList<>();
+        for (FDDINode n = node; n != null; n = n.getParent()) {
+            chain.add(n);
+            if (n == root) {
+                Collections.reverse(chain);
+                return chain;
+            }
+        }
+        return null; // detached from the project
+    }
+
+    private static int[] pathOf(FDDINode node) {
+        List<Integer> indices = new ArrayList<>();
+        for (FDDINode n = node; n.getParent() != null; n = n.getParent()) {
+            List<? extends FDDTreeNode> siblings = n.getParent().getChildren();
+            indices.add(siblings.indexOf(n));
+        }
+        int[] path = new int[indices.size()];
+        for (int i = 0; i < path.length; i++) path[i] = indices.get(path.length - 1 - i);
+        return path;
+    }
+
+    private void forceJournal() {
+        Session s = session;
+        if (s != null) s.force();
+    }
+
+    private void requestPeriodicCompaction() {
+        Session s = session;
+        if (s == null) return;
+        if (s.entriesSinceCompaction == 0 && s.compactedVersion == ModelState.getInstance().getVersion()) return;
+        try {
+            Platform.runLater(() -> { if (session == s) compact(); });
+        } catch (IllegalStateException toolkitNotRunning) {
+            // No FX thread to take the copy on; try again next period
+        }
+    }
+
+    /** Snapshot files next to {@code project}, oldest first. */
+    static List<Path> snapshots(Path project) {
+        String prefix = project.getFileName() + SNAPSHOT_SUFFIX;
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(project.getParent(), prefix + "*")) {
+            for (Path p : dir) if (generation(p, prefix) >= 0) found.add(p);
+        } catch (IOException ex) {
+            LOGGER.debug("Could not list autosave snapshots for {}: {}", project, ex.toString());
+        }
+        found.sort((a, b) -> Long.compare(generation(a, prefix), generation(b, prefix)));
+        return found;
+    }
+
+    private static long generation(Path snapshot, String prefix) {
+        try {
+            return Long.parseLong(snapshot.getFileName().toString().substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static void deleteFiles(Path project) {
+        try {
+            Files.deleteIfExists(journalFile(project));
+            for (Path p : snapshots(project)) Files.deleteIfExists(p);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not delete autosave files for {}: {}", project, ex.toString());
+        }
+    }
+
+    private record Recovered(Path project, FDDINode root) {}
+
+    /**
+     * Journaling state of one open project. {@code root}, {@code entriesSinceCompaction} and
+     * {@code compactedVersion} belong to the model thread; the journal itself to the autosave thread.
+     */
+    private static final class Session {
+        final Path project;
+        final FDDINode root;
+        volatile int entriesSinceCompaction;
+        volatile long compactedVersion = ModelState.getInstance().getVersion();
+        volatile long journalBytes;
+        private FDDIJournal journal;
+        private FDDIJournal.Header base;
+        private boolean failed;
+
+        Session(Path project, FDDINode root) {
+            this.project = project;
+            this.root = root;
+        }
+
+        /** Makes the project file the base again and deletes the journal and snapshots. */
+        void reset() {
+            closeJournal();
+            failed = false;
+            base = null;
+            journalBytes = 0;
+            deleteFiles(project);
+        }
+
+        void append(int[] path, FDDINode node, LoggingService.Span span) {
+            if (failed) return;
+            try {
+                if (journal == null) {
+                    // The journal is only created once there is something to record
+                    if (base == null) base = new FDDIJournal.Header("", Files.getLastModifiedTime(project).toMillis());
+                    journal = FDDIJournal.create(journalFile(project), base);
+                }
+                span.metric("bytes", journal.append(path, node)).metric("depth", path.length);
+                journalBytes = journal.size();
+            } catch (Exception ex) {
+                fail("append to", ex);
+            }
+        }
+
+        void writeSnapshot(FDDINode copy, LoggingService.Span span) {
+            try {
+                List<Path> existing = snapshots(project);
+                long generation = existing.isEmpty() ? 1
+                    : generation(existing.get(existing.size() - 1), project.getFileName() + SNAPSHOT_SUFFIX) + 1;
+                Path snapshot = project.resolveSibling(project.getFileName() + SNAPSHOT_SUFFIX + generation);
+                span.metric("bytes", FDDIStreamingWriter.write(copy, snapshot, FDDIStreamingWriter.Validation.NONE, null));
+                span.metric("generation", generation);
+                closeJournal();
+                base = new FDDIJournal.Header(snapshot.getFileName().toString(), 0);
+                journal = FDDIJournal.create(journalFile(project), base);
+                journalBytes = journal.size();
+                failed = false;
+                existing.add(snapshot);
+                for (int i = 0; i < existing.size() - KEEP_SNAPSHOTS; i++) Files.deleteIfExists(existing.get(i));
+            } catch (Exception ex) {
+                fail("compact", ex);
+            }
+        }
+
+        void force() {
+            if (journal == null) return;
+            try {
+                journal.force();
+            } catch (IOException ex) {
+                fail("sync", ex);
+            }
+        }
+
+        void closeJournal() {
+            if (journal == null) return;
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                LOGGER.debug("Closing journal for {} failed: {}", project, ex.toString());
+            }
+            journal = null;
+        }
+
+        /** Stops appending after a write error; the next successful compaction starts a fresh journal. */
+        private void fail(String what, Exception ex) {
+            if (!failed) LOGGER.warn("Autosave could not {} the journal for {}: {}", what, project, ex.toString());
+            failed = true;
+            closeJournal();
+        }
+    }
+}
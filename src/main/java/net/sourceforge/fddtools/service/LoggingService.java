@@ -77,6 +77,25 @@ public final class LoggingService {
     // --- Performance span helpers ---
     public Span startPerf(String name, Map<String,String> ctx) { return perfEnabled ? new Span(name, ctx) : NO_OP_SPAN; }
 
+    /** A closed span as seen by a {@link PerfListener}; {@code allocatedBytes} is -1 when not measured. */
+    public record PerfSample(String name, long durationNanos, long allocatedBytes, Map<String,Object> metrics) {}
+
+    /** Receives every closed perf span, whether or not the perf logger is enabled (benchmarks, budgets). */
+    @FunctionalInterface
+    public interface PerfListener { void spanClosed(PerfSample sample); }
+
+    private final java.util.List<PerfListener> perfListeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+    /** Adds a span listener; while any is registered, spans also measure bytes allocated by their thread. */
+    public void addPerfListener(PerfListener l){ if(l!=null) perfListeners.add(l); }
+    public void removePerfListener(PerfListener l){ perfListeners.remove(l); }
+
+    private static long allocatedBytes(Thread thread){
+        if(java.lang.management.ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx && mx.isThreadAllocatedMemoryEnabled()) {
+            return mx.getThreadAllocatedBytes(thread.threadId());
+        }
+        return -1;
+    }
+
     private final Span NO_OP_SPAN = new NoOpSpan();
 
     private final class NoOpSpan extends Span {
@@ -91,9 +110,18 @@ public final class LoggingService {
         private final Map<String,String> ctx;
         private boolean closed;
         private final Map<String,Object> metrics = new java.util.HashMap<>();
+        // Allocation is only sampled for listeners, and only counts if the span closes on the thread that opened it
+        private final Thread thread = Thread.currentThread();
+        private final long allocatedAtStart = perfListeners.isEmpty() ? -1 : allocatedBytes(thread);
         Span(String name, Map<String,String> ctx){ this.name=name; this.ctx = ctx==null?java.util.Collections.emptyMap():ctx; }
         public Span metric(String k, Object v){ if(v!=null) metrics.put(k,v); return this; }
-        @Override public void close(){ if(closed) return; closed=true; long durMs=(System.nanoTime()-start)/1_000_000L; metrics.put("durationMs", durMs); emit(durMs); }
+        @Override public void close(){ if(closed) return; closed=true; long durNanos=System.nanoTime()-start; long durMs=durNanos/1_000_000L; metrics.put("durationMs", durMs); emit(durMs); notifyListeners(durNanos); }
+        private void notifyListeners(long durNanos){
+            if(perfListeners.isEmpty()) return;
+            long allocated = allocatedAtStart >= 0 && thread == Thread.currentThread() ? allocatedBytes(thread) - allocatedAtStart : -1;
+            PerfSample sample = new PerfSample(name, durNanos, allocated, java.util.Collections.unmodifiableMap(new java.util.HashMap<>(metrics)));
+            for(PerfListener l : perfListeners) l.spanClosed(sample);
+        }
         private void emit(long durMs){ if(!perfLogger.isInfoEnabled()) return; Map<String,String> m=new java.util.HashMap<>(ctx); m.put("perfSpan", name); m.put("durationMs", String.valueOf(durMs)); withContext(m, () -> perfLogger.info(buildMessage(name, null, m) + formatMetrics(metrics))); }
     }
 
@@ -38,9 +38,15 @@ public final class PreferencesService {
     public static final String KEY_AUTO_LOAD_LAST = "project.autoload.last"; // boolean
     public static final String KEY_LAST_ZOOM = "canvas.last.zoom"; // double
     public static final String KEY_RESTORE_LAST_ZOOM = "canvas.restore.last"; // boolean
+    public static final String KEY_CANVAS_SPRITE_CACHE_MB = "canvas.spriteCache.mb"; // int: memory for rasterized element boxes (0 = off)
     public static final String KEY_LOG_AUDIT_ENABLED = "log.audit.enabled"; // boolean (default true)
     public static final String KEY_LOG_PERF_ENABLED = "log.perf.enabled"; // boolean (default true)
     
+    // Tree preferences keys
+    public static final String KEY_TREE_LAZY_THRESHOLD = "tree.lazy.threshold"; // int: node count above which the tree is built on demand
+    public static final String KEY_TREE_EXPAND_DEPTH = "tree.lazy.expandDepth"; // int: levels opened when a large tree is shown
+    public static final String KEY_TREE_RELEASE_SECONDS = "tree.lazy.releaseSeconds"; // int: idle seconds before a collapsed subtree drops its items (0 = never)
+
     // Layout preferences keys
     public static final String KEY_MAIN_DIVIDER = "layout.mainDivider"; // horizontal: tree vs canvas
     public static final String KEY_RIGHT_DIVIDER = "layout.rightDivider"; // vertical: canvas vs info panels
@@ -51,6 +57,10 @@ public final class PreferencesService {
 
     // Defaults
     private static final int DEFAULT_RECENTS_LIMIT = 10;
+    private static final int DEFAULT_TREE_LAZY_THRESHOLD = 5000;
+    private static final int DEFAULT_TREE_EXPAND_DEPTH = 2;
+    private static final int DEFAULT_TREE_RELEASE_SECONDS = 60;
+    private static final int DEFAULT_CANVAS_SPRITE_CACHE_MB = 64;
 
     private PreferencesService() {
         // Store in user home directory under .fddtools
@@ -127,12 +137,25 @@ public final class PreferencesService {
 
     public boolean isRestoreLastZoomEnabled() { return Boolean.parseBoolean(get(KEY_RESTORE_LAST_ZOOM)); }
     public void setRestoreLastZoomEnabled(boolean enabled) { set(KEY_RESTORE_LAST_ZOOM, String.valueOf(enabled)); }
+    public int getCanvasSpriteCacheMb() { return intValue(KEY_CANVAS_SPRITE_CACHE_MB, DEFAULT_CANVAS_SPRITE_CACHE_MB); }
+    public void setCanvasSpriteCacheMb(int mb) { if (mb >= 0) set(KEY_CANVAS_SPRITE_CACHE_MB, String.valueOf(mb)); }
 
     public boolean isAuditLoggingEnabled() { return Boolean.parseBoolean(get(KEY_LOG_AUDIT_ENABLED)); }
     public void setAuditLoggingEnabled(boolean enabled) { set(KEY_LOG_AUDIT_ENABLED, String.valueOf(enabled)); }
     public boolean isPerfLoggingEnabled() { return Boolean.parseBoolean(get(KEY_LOG_PERF_ENABLED)); }
     public void setPerfLoggingEnabled(boolean enabled) { set(KEY_LOG_PERF_ENABLED, String.valueOf(enabled)); }
 
+    public int getTreeLazyThreshold() { return intValue(KEY_TREE_LAZY_THRESHOLD, DEFAULT_TREE_LAZY_THRESHOLD); }
+    public void setTreeLazyThreshold(int nodes) { if (nodes >= 0) set(KEY_TREE_LAZY_THRESHOLD, String.valueOf(nodes)); }
+    public int getTreeExpandDepth() { return intValue(KEY_TREE_EXPAND_DEPTH, DEFAULT_TREE_EXPAND_DEPTH); }
+    public void setTreeExpandDepth(int depth) { if (depth >= 0) set(KEY_TREE_EXPAND_DEPTH, String.valueOf(depth)); }
+    public int getTreeReleaseSeconds() { return intValue(KEY_TREE_RELEASE_SECONDS, DEFAULT_TREE_RELEASE_SECONDS); }
+    public void setTreeReleaseSeconds(int seconds) { if (seconds >= 0) set(KEY_TREE_RELEASE_SECONDS, String.valueOf(seconds)); }
+
+    private int intValue(String key, int fallback) {
+        try { return Integer.parseInt(get(key)); } catch (Exception e) { return fallback; }
+    }
+
     public void setLastWindowBounds(double x, double y, double w, double h) {
         set(KEY_LAST_WINDOW_X, String.valueOf((int)x));
         set(KEY_LAST_WINDOW_Y, String.valueOf((int)y));
@@ -5,14 +5,22 @@ import com.nebulon.xml.fddi.Program;
 import net.sourceforge.fddtools.model.FDDINode;
 import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
 import net.sourceforge.fddtools.persistence.FDDIXMLFileWriter;
+import net.sourceforge.fddtools.persistence.FDDIStreamingWriter.Validation;
+import jakarta.xml.bind.JAXBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.function.LongConsumer;
 
 /**
  * Handles creation, opening, and saving of project root nodes.
  * Thin service layer to decouple file IO from UI.
  */
 public class ProjectFileService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectFileService.class);
     private static final ProjectFileService INSTANCE = new ProjectFileService();
     public static ProjectFileService getInstance() { return INSTANCE; }
     private ProjectFileService() {}
@@ -33,8 +41,25 @@ public class ProjectFileService {
     }
 
     public boolean save(FDDINode root, String absolutePath) throws Exception {
+        return save(root, absolutePath, null);
+    }
+
+    /**
+     * Streams the tree to a temp file that atomically replaces {@code absolutePath}; schema
+     * verification of the saved file runs afterwards in the background. A {@code .fddb} or
+     * {@code .fddp} path is written in the binary or paged format instead.
+     *
+     * @param bytesWritten optional callback receiving the running count of bytes written
+     */
+    public boolean save(FDDINode root, String absolutePath, LongConsumer bytesWritten) throws Exception {
         if (root == null) throw new IllegalArgumentException("Root node is null");
         File file = new File(absolutePath);
-        return FDDIXMLFileWriter.write(root, file.getAbsolutePath());
+        try {
+            FDDIXMLFileWriter.writeAnyFormat(root, file.toPath(), Validation.DEFERRED, bytesWritten);
+            return true;
+        } catch (IOException | JAXBException | SAXException ex) {
+            LOGGER.error("Error writing project {}: {}", file.getAbsolutePath(), ex.getMessage(), ex);
+            return false;
+        }
     }
 }
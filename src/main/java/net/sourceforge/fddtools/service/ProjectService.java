@@ -4,16 +4,21 @@ import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDINodeCopier;
 import net.sourceforge.fddtools.state.ModelState;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.util.function.LongConsumer;
+
 /**
  * Higher-level facade over ProjectFileService that tracks the current
  * in-memory root, its display name/path, and dirty state. UI layers can
  * bind to ModelState.dirtyProperty while this service centralizes mutation.
+ * The {@link AutosaveService} journal follows the open project: it is attached
+ * on open, reset on a clean save and discarded on close.
  */
 public final class ProjectService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProjectService.class);
@@ -36,6 +41,7 @@ public final class ProjectService {
     public BooleanProperty hasProjectProperty() { return hasProject; }
 
     public void newProject(String name) {
+    AutosaveService.getInstance().detach(true);
     root = fileService.createNewRoot(name);
     displayName = name == null ? "New Program" : name;
     absolutePath = null;
@@ -51,6 +57,7 @@ public final class ProjectService {
 
     /** Create a new project using an externally prepared root node (UI must supply). */
     public void newProject(FDDINode existingRoot, String name) {
+        AutosaveService.getInstance().detach(true);
         root = existingRoot;
         displayName = name == null ? "New Program" : name;
         absolutePath = null;
@@ -66,14 +73,14 @@ public final class ProjectService {
 
     public boolean open(String path) {
         try {
-            FDDINode loaded = fileService.open(path);
+            FDDINode loaded = AutosaveService.getInstance().recover(path, fileService.open(path));
             root = loaded;
             absolutePath = path;
             int idx = path.lastIndexOf('/');
             displayName = idx >= 0 ? path.substring(idx + 1) : path;
             hasProject.set(true);
             hasPath.set(true);
-            setDirty(false);
+            setDirty(AutosaveService.getInstance().attach(path, root));
             MDC.put("action", "openProject");
             MDC.put("projectPath", path);
             LOGGER.info("Opened project: {}", displayName);
@@ -98,7 +105,7 @@ public final class ProjectService {
             displayName = idx >= 0 ? path.substring(idx + 1) : path;
             hasProject.set(true);
             hasPath.set(true);
-            setDirty(false);
+            setDirty(AutosaveService.getInstance().attach(path, root));
             MDC.put("action", "openProject");
             MDC.put("projectPath", path);
             LOGGER.info("Opened project (provided root): {}", displayName);
@@ -115,39 +122,71 @@ public final class ProjectService {
     }
 
     public boolean save() throws Exception {
+        return save(null);
+    }
+
+    /** Saves to the current path, reporting the running count of bytes written to {@code bytesWritten}. */
+    public boolean save(LongConsumer bytesWritten) throws Exception {
         if (root == null) throw new IllegalStateException("No project loaded");
         if (absolutePath == null) throw new IllegalStateException("No target path set (use saveAs)");
-        boolean ok = fileService.save(root, absolutePath);
-        if (ok) {
-            setDirty(false);
-            hasPath.set(true);
-            MDC.put("action", "saveProject");
-            MDC.put("projectPath", absolutePath);
-            LOGGER.info("Saved project to existing path: {}", absolutePath);
-            LoggingService.getInstance().audit("projectSave", java.util.Map.of("projectPath", absolutePath), () -> displayName);
-            MDC.clear();
-        }
+        boolean ok = fileService.save(root, absolutePath, bytesWritten);
+        if (ok) markSaved(absolutePath, false, true);
         return ok;
     }
 
     public boolean saveAs(String path) throws Exception {
+        return saveAs(path, null);
+    }
+
+    /** Saves to {@code path}, reporting the running count of bytes written to {@code bytesWritten}. */
+    public boolean saveAs(String path, LongConsumer bytesWritten) throws Exception {
         if (root == null) throw new IllegalStateException("No project loaded");
-        boolean ok = fileService.save(root, path);
-        if (ok) {
-            absolutePath = path;
-            int idx = path.lastIndexOf('/');
-            displayName = idx >= 0 ? path.substring(idx + 1) : path;
-            setDirty(false);
-            hasPath.set(true);
-            MDC.put("action", "saveAsProject");
-            MDC.put("projectPath", path);
-            LOGGER.info("Saved project (saveAs) to: {}", path);
-            LoggingService.getInstance().audit("projectSaveAs", java.util.Map.of("projectPath", path), () -> displayName);
-            MDC.clear();
-        }
+        boolean ok = fileService.save(root, path, bytesWritten);
+        if (ok) markSaved(path, true, true);
         return ok;
     }
 
+    /**
+     * Detached copy of the project taken at one model version. Saving the copy on a background
+     * thread lets editing continue on the live tree while the file is written.
+     */
+    public record Snapshot(FDDINode source, FDDINode root, long version) {}
+
+    /** Copies the current root; call on the thread that mutates the model (the FX thread). */
+    public Snapshot snapshot() {
+        if (root == null) throw new IllegalStateException("No project loaded");
+        long version = ModelState.getInstance().getVersion();
+        return new Snapshot(root, FDDINodeCopier.copy(root), version);
+    }
+
+    /**
+     * Records that {@code snapshot} was written to {@code path}. The project takes the path; the dirty
+     * flag is cleared only if the model has not changed since the snapshot was taken. Returns false
+     * (and records nothing) if another project was opened meanwhile.
+     */
+    public boolean markSaved(String path, Snapshot snapshot) {
+        if (root == null || snapshot.source() != root) return false;
+        boolean changedSince = ModelState.getInstance().getVersion() != snapshot.version();
+        if (changedSince) LOGGER.info("Model changed while saving {}; keeping it dirty", path);
+        markSaved(path, !path.equals(absolutePath), !changedSince);
+        return true;
+    }
+
+    private void markSaved(String path, boolean saveAs, boolean clearDirty) {
+        absolutePath = path;
+        int idx = path.lastIndexOf('/');
+        displayName = idx >= 0 ? path.substring(idx + 1) : path;
+        if (clearDirty) setDirty(false);
+        hasPath.set(true);
+        AutosaveService.getInstance().saved(path, root, clearDirty);
+        MDC.put("action", saveAs ? "saveAsProject" : "saveProject");
+        MDC.put("projectPath", path);
+        if (saveAs) LOGGER.info("Saved project (saveAs) to: {}", path);
+        else LOGGER.info("Saved project to existing path: {}", path);
+        LoggingService.getInstance().audit(saveAs ? "projectSaveAs" : "projectSave", java.util.Map.of("projectPath", path), () -> displayName);
+        MDC.clear();
+    }
+
     public void markDirty() { setDirty(true); }
 
     private void setDirty(boolean dirty) {
@@ -164,6 +203,7 @@ public final class ProjectService {
     }
 
     public void clear() {
+        AutosaveService.getInstance().detach(true);
         root = null;
         displayName = null;
         absolutePath = null;
@@ -0,0 +1,50 @@
+package net.sourceforge.fddtools.state;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import net.sourceforge.fddtools.model.FDDINode;
+
+/**
+ * One typed model mutation carried by {@link ModelEventBus.Event#changes}.
+ *
+ * @param kind what happened
+ * @param node the added, removed, moved or edited node
+ * @param parent the parent after the change (the old parent for {@link Kind#REMOVED}, {@code null} for field edits)
+ * @param oldParent the parent before a {@link Kind#MOVED}, otherwise {@code null}
+ * @param field edited field name for {@link Kind#FIELD_CHANGED}, otherwise {@code null}
+ * @param oldValue previous field value
+ * @param newValue new field value
+ * @param ancestors ancestor chain of the affected position, nearest first, captured when the change was made
+ */
+public record ModelChange(Kind kind, FDDINode node, FDDINode parent, FDDINode oldParent,
+                          String field, Object oldValue, Object newValue, List<FDDINode> ancestors) {
+
+    public enum Kind { ADDED, REMOVED, MOVED, FIELD_CHANGED }
+
+    public static ModelChange added(FDDINode node, FDDINode parent) {
+        return new ModelChange(Kind.ADDED, node, parent, null, null, null, null, chain(parent));
+    }
+
+    public static ModelChange removed(FDDINode node, FDDINode parent) {
+        return new ModelChange(Kind.REMOVED, node, parent, null, null, null, null, chain(parent));
+    }
+
+    public static ModelChange moved(FDDINode node, FDDINode from, FDDINode to) {
+        return new ModelChange(Kind.MOVED, node, to, from, null, null, null, chain(to));
+    }
+
+    public static ModelChange fieldChanged(FDDINode node, String field, Object oldValue, Object newValue) {
+        return new ModelChange(Kind.FIELD_CHANGED, node, null, null, field, oldValue, newValue, chain(node.getParent()));
+    }
+
+    /** True for changes to a child list (add, remove, move). */
+    public boolean isStructural() { return kind != Kind.FIELD_CHANGED; }
+
+    private static List<FDDINode> chain(FDDINode from) {
+        if (from == null) return Collections.emptyList();
+        List<FDDINode> out = new ArrayList<>();
+        for (FDDINode n = from; n != null; n = n.getParent()) out.add(n);
+        return Collections.unmodifiableList(out);
+    }
+}
@@ -1,20 +1,207 @@
 package net.sourceforge.fddtools.state;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
+import javafx.application.Platform;
+import net.sourceforge.fddtools.service.LoggingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-/** Lightweight observable model event bus. */
+/**
+ * Lightweight observable model event bus.
+ * <p>
+ * Events published inside {@link #batch} on the same thread are collected and delivered when the
+ * outermost batch ends, with duplicates (same type and payload instance) merged; a {@link EventType#CHANGE_SET}
+ * event carrying all {@link ModelChange} records of the batch follows them. Subscribers choose their
+ * {@link Delivery}: synchronous on the publishing thread, or queued to the shared dispatcher thread or
+ * the FX thread, where events still pending for that subscriber are coalesced the same way.
+ * Listener exceptions are logged and do not affect other listeners; listeners slower than
+ * {@link #SLOW_LISTENER_MS} are reported in the perf log.
+ */
 public final class ModelEventBus {
-    public enum EventType { NODE_UPDATED, TREE_STRUCTURE_CHANGED, PROJECT_LOADED, UI_THEME_CHANGED, UI_LANGUAGE_CHANGED }
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelEventBus.class);
+    static final long SLOW_LISTENER_MS = 16;
+
+    public enum EventType { NODE_UPDATED, TREE_STRUCTURE_CHANGED, PROJECT_LOADED, UI_THEME_CHANGED, UI_LANGUAGE_CHANGED,
+        /** Payload is the {@link ModelChangeSet} of one batch. */
+        CHANGE_SET }
+
+    public enum Delivery { SYNC, DISPATCHER, FX }
+
     public static final class Event {
         public final EventType type; public final Object payload;
-        public Event(EventType type, Object payload){ this.type=type; this.payload=payload; }
+        /** Typed changes behind this event; empty for events published without them. */
+        public final List<ModelChange> changes;
+        public Event(EventType type, Object payload){ this(type, payload, Collections.emptyList()); }
+        public Event(EventType type, Object payload, List<ModelChange> changes){ this.type=type; this.payload=payload; this.changes=changes; }
     }
-    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+
+    /** All changes made by one command or bulk operation, in order. */
+    public record ModelChangeSet(List<ModelChange> changes) {}
+
+    private static final ExecutorService DISPATCHER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "model-events");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final List<Subscriber> listeners = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Batch> batch = new ThreadLocal<>();
     private static final ModelEventBus INSTANCE = new ModelEventBus();
     private ModelEventBus(){}
     public static ModelEventBus get(){ return INSTANCE; }
-    public AutoCloseable subscribe(Consumer<Event> l){ listeners.add(l); return ()->listeners.remove(l); }
-    public void publish(EventType type, Object payload){ for(var l: listeners){ try { l.accept(new Event(type,payload)); } catch(Exception ignored){} } }
+
+    public AutoCloseable subscribe(Consumer<Event> l){ return subscribe(l, Delivery.SYNC); }
+
+    public AutoCloseable subscribe(Consumer<Event> l, Delivery delivery){
+        Subscriber s = new Subscriber(l, delivery);
+        listeners.add(s);
+        return () -> listeners.remove(s);
+    }
+
+    public void publish(EventType type, Object payload){ publish(type, payload, Collections.emptyList()); }
+
+    public void publish(EventType type, Object payload, List<ModelChange> changes){
+        Event event = new Event(type, payload, changes);
+        Batch b = batch.get();
+        if (b != null) b.add(event); else dispatch(event);
+    }
+
+    /**
+     * Publishes a typed change under its coarse event: structure changes as TREE_STRUCTURE_CHANGED for
+     * each affected parent, field edits as NODE_UPDATED for the node.
+     */
+    public void publishChange(ModelChange change){
+        List<ModelChange> one = List.of(change);
+        switch (change.kind()) {
+            case FIELD_CHANGED -> publish(EventType.NODE_UPDATED, change.node(), one);
+            case MOVED -> {
+                if (change.oldParent() != null && change.oldParent() != change.parent()) publish(EventType.TREE_STRUCTURE_CHANGED, change.oldParent(), one);
+                publish(EventType.TREE_STRUCTURE_CHANGED, change.parent(), one);
+            }
+            default -> publish(EventType.TREE_STRUCTURE_CHANGED, change.parent(), one);
+        }
+    }
+
+    /** Runs {@code work}, delivering the events it publishes on this thread as one coalesced set afterwards. */
+    public void batch(Runnable work){
+        Batch outer = batch.get();
+        if (outer != null) { work.run(); return; }
+        Batch b = new Batch();
+        batch.set(b);
+        try {
+            work.run();
+        } finally {
+            batch.remove();
+            for (Pending p : b.pending.values()) dispatch(p.toEvent());
+            if (!b.changes.isEmpty()) dispatch(new Event(EventType.CHANGE_SET, new ModelChangeSet(List.copyOf(b.changes))));
+        }
+    }
+
+    /** True if this thread is inside {@link #batch} and an event has been published there. */
+    public boolean batchHasEvents(){ Batch b = batch.get(); return b != null && !b.pending.isEmpty(); }
+
+    private void dispatch(Event event){
+        long slowestNanos = 0; Subscriber slowest = null; int sync = 0;
+        for (Subscriber s : listeners) {
+            if (s.delivery != Delivery.SYNC) { s.enqueue(event); continue; }
+            long nanos = s.deliver(event);
+            sync++;
+            if (nanos > slowestNanos) { slowestNanos = nanos; slowest = s; }
+        }
+        if (slowest != null && slowestNanos >= SLOW_LISTENER_MS * 1_000_000L) {
+            LoggingService.getInstance().startPerf("eventDispatch", Map.of("event", event.type.name()))
+                .metric("listeners", sync).metric("slowestListener", slowest.name).metric("slowestMs", slowestNanos / 1_000_000L).close();
+        }
+    }
+
+    /** Identity key: same event type and same payload instance. */
+    private record Key(EventType type, Object payload) {
+        @Override public boolean equals(Object o){ return o instanceof Key k && k.type == type && k.payload == payload; }
+        @Override public int hashCode(){ return 31 * type.hashCode() + System.identityHashCode(payload); }
+    }
+
+    /** Events waiting for delivery; changes of merged duplicates accumulate in one list. */
+    private static final class Pending {
+        final Event first;
+        List<ModelChange> changes;
+        Pending(Event first){ this.first = first; }
+        Event toEvent(){ return changes == null ? first : new Event(first.type, first.payload, changes); }
+    }
+
+    private static void merge(Map<Key, Pending> pending, Event event){
+        Key key = new Key(event.type, event.payload);
+        Pending previous = pending.get(key);
+        if (previous == null) { pending.put(key, new Pending(event)); return; }
+        if (event.changes.isEmpty()) return;
+        if (previous.changes == null) previous.changes = new ArrayList<>(previous.first.changes);
+        previous.changes.addAll(event.changes);
+    }
+
+    private static final class Batch {
+        final Map<Key, Pending> pending = new LinkedHashMap<>();
+        final List<ModelChange> changes = new ArrayList<>();
+        private final Set<ModelChange> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        void add(Event e){
+            merge(pending, e);
+            for (ModelChange c : e.changes) if (seen.add(c)) changes.add(c); // a move is published for both parents
+        }
+    }
+
+    private static final class Subscriber {
+        final Consumer<Event> listener;
+        final Delivery delivery;
+        final String name;
+        private Map<Key, Pending> queued = new LinkedHashMap<>(); // guarded by this
+        private boolean drainScheduled; // guarded by this
+
+        Subscriber(Consumer<Event> listener, Delivery delivery){
+            this.listener = listener; this.delivery = delivery;
+            this.name = listener.getClass().getName();
+        }
+
+        long deliver(Event event){
+            long start = System.nanoTime();
+            try { listener.accept(event); }
+            catch (RuntimeException ex) { LOGGER.warn("Model event listener {} failed on {}: {}", name, event.type, ex.toString(), ex); }
+            long nanos = System.nanoTime() - start;
+            if (delivery != Delivery.SYNC && nanos >= SLOW_LISTENER_MS * 1_000_000L) {
+                LoggingService.getInstance().startPerf("eventListener", Map.of("event", event.type.name(), "delivery", delivery.name()))
+                    .metric("listener", name).metric("listenerMs", nanos / 1_000_000L).close();
+            }
+            return nanos;
+        }
+
+        void enqueue(Event event){
+            synchronized (this) {
+                merge(queued, event);
+                if (drainScheduled) return;
+                drainScheduled = true;
+            }
+            if (delivery == Delivery.FX) {
+                try { Platform.runLater(this::drain); return; }
+                catch (IllegalStateException toolkitNotRunning) { /* fall through to the dispatcher */ }
+            }
+            DISPATCHER.execute(this::drain);
+        }
+
+        private void drain(){
+            Map<Key, Pending> batch;
+            synchronized (this) {
+                batch = queued;
+                queued = new LinkedHashMap<>();
+                drainScheduled = false;
+            }
+            for (Pending p : batch.values()) deliver(p.toEvent());
+        }
+    }
 }
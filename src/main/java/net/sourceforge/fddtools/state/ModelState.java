@@ -1,5 +1,6 @@
 package net.sourceforge.fddtools.state;
 
+import java.util.concurrent.atomic.AtomicLong;
 import javafx.beans.property.*;
 import net.sourceforge.fddtools.model.FDDINode;
 
@@ -18,6 +19,8 @@ public final class ModelState {
     private final BooleanProperty redoAvailable = new SimpleBooleanProperty(false);
     private final StringProperty nextUndoDescription = new SimpleStringProperty("");
     private final StringProperty nextRedoDescription = new SimpleStringProperty("");
+    private final BooleanProperty busy = new SimpleBooleanProperty(false);
+    private final AtomicLong version = new AtomicLong();
 
     private ModelState() {}
 
@@ -27,7 +30,11 @@ public final class ModelState {
 
     public BooleanProperty dirtyProperty() { return dirty; }
     public boolean isDirty() { return dirty.get(); }
-    public void setDirty(boolean v) { dirty.set(v); }
+    /** Every model change marks the model dirty, so marking it dirty also advances {@link #getVersion()}. */
+    public void setDirty(boolean v) { if (v) version.incrementAndGet(); dirty.set(v); }
+
+    /** Counter of model changes; a save taken at one version is current only while the version is unchanged. */
+    public long getVersion() { return version.get(); }
 
     public BooleanProperty clipboardNotEmptyProperty() { return clipboardNotEmpty; }
     public boolean isClipboardNotEmpty() { return clipboardNotEmpty.get(); }
@@ -45,4 +52,9 @@ public final class ModelState {
     public StringProperty nextRedoDescriptionProperty() { return nextRedoDescription; }
     public void setNextRedoDescription(String d) { nextRedoDescription.set(d); }
     public String getNextRedoDescription() { return nextRedoDescription.get(); }
+
+    /** True while a background open/save owns the model; commands are refused meanwhile. */
+    public BooleanProperty busyProperty() { return busy; }
+    public boolean isBusy() { return busy.get(); }
+    public void setBusy(boolean v) { busy.set(v); }
 }
@@ -0,0 +1,104 @@
+package net.sourceforge.fddtools.state;
+
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import java.util.Map;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDINodeCopier;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.service.LoggingService;
+
+/**
+ * Copy/cut clipboard that shares structure with the model until it has to diverge.
+ * <p>
+ * Copying only records a reference to the selected subtree. The reference stays valid until the
+ * model is about to change ({@link #beforeModelMutation(FDDINode)}, called by the command service
+ * and the edit dialogs); at that point, if the clipboard still points into the changing part of the
+ * model, the subtree is copied once into a private snapshot. Pastes materialize their own copy from whatever the clipboard holds,
+ * so repeated pastes of the same content share a single reference or snapshot.
+ */
+public final class NodeClipboard {
+    private static final NodeClipboard INSTANCE = new NodeClipboard();
+    public static NodeClipboard getInstance() { return INSTANCE; }
+
+    // Rough retained sizes (compressed oops) used for the clipboardMemory metric only.
+    private static final int NODE_BYTES = 160;
+    private static final int MILESTONE_BYTES = 96;
+
+    private FDDINode contents;
+    private boolean shared;
+
+    private NodeClipboard() {
+        // A shared reference would keep the previous project's whole tree alive through parent links
+        ModelEventBus.get().subscribe(e -> {
+            if (e.type == ModelEventBus.EventType.PROJECT_LOADED) beforeModelMutation(null);
+        });
+    }
+
+    /** Places {@code node} on the clipboard without copying it. */
+    public synchronized void copy(FDDINode node) {
+        contents = node;
+        shared = node != null;
+        ModelState.getInstance().setClipboardNotEmpty(node != null);
+        report("copy");
+    }
+
+    public synchronized void clear() {
+        contents = null;
+        shared = false;
+        ModelState.getInstance().setClipboardNotEmpty(false);
+    }
+
+    public synchronized boolean isEmpty() { return contents == null; }
+
+    /** Current clipboard content, for display only; never insert it into the tree (use {@link #materialize}). */
+    public synchronized FDDINode peek() { return contents; }
+
+    /** True while the clipboard still shares its content with the model instead of owning a snapshot. */
+    public synchronized boolean isShared() { return shared; }
+
+    /** Produces a fresh, detached copy of the clipboard content for pasting, or {@code null} if empty. */
+    public synchronized FDDINode materialize(boolean resequenceFeatures) {
+        return contents == null ? null : FDDINodeCopier.copy(contents, resequenceFeatures);
+    }
+
+    /**
+     * Must be called before the model is changed. Takes the private snapshot if the clipboard
+     * still shares its content with the model and the change may reach it; cheap no-op otherwise.
+     *
+     * @param scope root of the subtree about to change, or {@code null} if unknown
+     */
+    public synchronized void beforeModelMutation(FDDINode scope) {
+        if (!shared) return;
+        if (scope != null && !isWithinContents(scope)) return;
+        contents = FDDINodeCopier.copy(contents);
+        shared = false;
+        report("snapshot");
+    }
+
+    private boolean isWithinContents(FDDINode node) {
+        for (FDDINode n = node; n != null; n = n.getParent()) {
+            if (n == contents) return true;
+        }
+        return false;
+    }
+
+    private void report(String reason) {
+        LoggingService logging = LoggingService.getInstance();
+        if (!logging.isPerfEnabled()) return;
+        try (LoggingService.Span span = logging.startPerf("clipboardMemory", Map.of("reason", reason))) {
+            long bytes = 0;
+            if (contents != null && !shared) bytes = estimateBytes(contents);
+            span.metric("shared", shared).metric("retainedBytes", bytes);
+        }
+    }
+
+    private static long estimateBytes(FDDINode node) {
+        long bytes = NODE_BYTES;
+        if (node instanceof Feature f) {
+            for (Milestone m : f.getMilestone()) bytes += m != null ? MILESTONE_BYTES : 0;
+        }
+        for (FDDTreeNode child : node.getChildren()) bytes += estimateBytes((FDDINode) child);
+        return bytes;
+    }
+}
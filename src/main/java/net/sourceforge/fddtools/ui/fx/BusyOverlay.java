@@ -0,0 +1,63 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import javafx.beans.binding.Bindings;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import net.sourceforge.fddtools.internationalization.I18n;
+
+/**
+ * Overlay shown over the main content while a background task runs. Message and progress are bound
+ * to the task; the Cancel button cancels it. A blocking overlay dims the content and swallows clicks;
+ * a non-blocking one shows only the progress box in a corner and leaves the content usable.
+ */
+public class BusyOverlay extends StackPane {
+    private final Label message = new Label();
+    private final ProgressBar progress = new ProgressBar();
+    private final Button cancel = new Button();
+    private final VBox box;
+
+    public BusyOverlay() {
+        getStyleClass().add("busy-overlay");
+        progress.setPrefWidth(260);
+        box = new VBox(10, message, progress, cancel);
+        box.setAlignment(Pos.CENTER);
+        box.setMaxSize(320, 140);
+        box.setStyle("-fx-background-color: -fx-background; -fx-padding: 16; -fx-background-radius: 6;");
+        getChildren().add(box);
+        setVisible(false);
+        setManaged(false);
+    }
+
+    /** Shows a blocking overlay bound to {@code task} until {@link #hide()}. */
+    public void show(Task<?> task) { show(task, true); }
+
+    /** Shows the overlay bound to {@code task} until {@link #hide()}. */
+    public void show(Task<?> task, boolean blocking) {
+        setStyle(blocking ? "-fx-background-color: rgba(0,0,0,0.25);" : null);
+        setPickOnBounds(blocking); // non-blocking: only the box receives clicks
+        setAlignment(box, blocking ? Pos.CENTER : Pos.BOTTOM_RIGHT);
+        setMargin(box, blocking ? null : new Insets(12));
+        message.textProperty().bind(Bindings.createStringBinding(
+            () -> task.getMessage() == null || task.getMessage().isBlank() ? I18n.get("BusyOverlay.Working") : task.getMessage(),
+            task.messageProperty()));
+        progress.progressProperty().bind(task.progressProperty());
+        cancel.setText(I18n.get("BusyOverlay.Cancel"));
+        cancel.setOnAction(e -> task.cancel());
+        setManaged(true);
+        setVisible(true);
+    }
+
+    public void hide() {
+        message.textProperty().unbind();
+        progress.progressProperty().unbind();
+        cancel.setOnAction(null);
+        setVisible(false);
+        setManaged(false);
+    }
+}
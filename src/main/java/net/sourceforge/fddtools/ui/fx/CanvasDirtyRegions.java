@@ -0,0 +1,125 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.geometry.Rectangle2D;
+
+/**
+ * Book-keeping for partial canvas repaints, in canvas pixel coordinates.
+ * <p>
+ * Tracks one rectangle whose pixels are current (the union of recently painted viewports, as long
+ * as that union stays rectangular) plus rectangles inside it that went stale since. Each paint pass
+ * asks {@link #collect} for the parts of the visible area that need painting: the strips newly
+ * scrolled into view and the stale rectangles that are visible.
+ */
+final class CanvasDirtyRegions {
+    private Rectangle2D valid;
+    private final List<Rectangle2D> stale = new ArrayList<>();
+
+    /** Forgets all painted content, e.g. after a layout, zoom or size change. */
+    void invalidateAll() {
+        valid = null;
+        stale.clear();
+    }
+
+    /** Marks {@code r} as needing a repaint; areas never painted need no marking. */
+    void invalidate(Rectangle2D r) {
+        if (valid != null && valid.intersects(r)) stale.add(r);
+    }
+
+    boolean hasValidContent() { return valid != null; }
+
+    /** Whether all of {@code r} is painted and none of it is stale. */
+    boolean isCurrent(Rectangle2D r) {
+        if (valid == null || !valid.contains(r)) return false;
+        for (Rectangle2D s : stale) {
+            if (s.intersects(r)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the rectangles of {@code visible} to paint now and records them as painted.
+     * An empty list means the visible area is already current.
+     */
+    List<Rectangle2D> collect(Rectangle2D visible) {
+        List<Rectangle2D> out = new ArrayList<>();
+        if (visible == null || visible.getWidth() <= 0 || visible.getHeight() <= 0) return out;
+        if (valid == null || !valid.intersects(visible)) {
+            out.add(visible);
+        } else {
+            out.addAll(subtract(visible, valid));
+            for (Rectangle2D r : stale) {
+                Rectangle2D part = intersection(r, visible);
+                if (part != null) out.add(part);
+            }
+        }
+        Rectangle2D union = valid == null ? null : unionIfRectangular(valid, visible);
+        valid = union != null ? union : visible;
+        // Keep only the stale parts that were not painted now and still lie in painted content
+        List<Rectangle2D> remaining = new ArrayList<>();
+        for (Rectangle2D r : stale) {
+            for (Rectangle2D part : subtract(r, visible)) {
+                if (valid.intersects(part)) remaining.add(part);
+            }
+        }
+        stale.clear();
+        stale.addAll(remaining);
+        return out;
+    }
+
+    static long area(List<Rectangle2D> rects) {
+        long total = 0;
+        for (Rectangle2D r : rects) total += Math.round(r.getWidth() * r.getHeight());
+        return total;
+    }
+
+    static Rectangle2D intersection(Rectangle2D a, Rectangle2D b) {
+        if (!a.intersects(b)) return null;
+        double minX = Math.max(a.getMinX(), b.getMinX());
+        double minY = Math.max(a.getMinY(), b.getMinY());
+        double maxX = Math.min(a.getMaxX(), b.getMaxX());
+        double maxY = Math.min(a.getMaxY(), b.getMaxY());
+        return new Rectangle2D(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /** {@code a} minus {@code b} as up to four non-overlapping strips. */
+    static List<Rectangle2D> subtract(Rectangle2D a, Rectangle2D b) {
+        List<Rectangle2D> out = new ArrayList<>(4);
+        Rectangle2D overlap = intersection(a, b);
+        if (overlap == null) {
+            out.add(a);
+            return out;
+        }
+        if (overlap.getMinY() > a.getMinY()) {
+            out.add(new Rectangle2D(a.getMinX(), a.getMinY(), a.getWidth(), overlap.getMinY() - a.getMinY()));
+        }
+        if (overlap.getMaxY() < a.getMaxY()) {
+            out.add(new Rectangle2D(a.getMinX(), overlap.getMaxY(), a.getWidth(), a.getMaxY() - overlap.getMaxY()));
+        }
+        if (overlap.getMinX() > a.getMinX()) {
+            out.add(new Rectangle2D(a.getMinX(), overlap.getMinY(), overlap.getMinX() - a.getMinX(), overlap.getHeight()));
+        }
+        if (overlap.getMaxX() < a.getMaxX()) {
+            out.add(new Rectangle2D(overlap.getMaxX(), overlap.getMinY(), a.getMaxX() - overlap.getMaxX(), overlap.getHeight()));
+        }
+        return out;
+    }
+
+    /** Union of two overlapping or touching rectangles if it is itself a rectangle, else {@code null}. */
+    static Rectangle2D unionIfRectangular(Rectangle2D a, Rectangle2D b) {
+        if (a.contains(b)) return a;
+        if (b.contains(a)) return b;
+        boolean sameColumns = a.getMinX() == b.getMinX() && a.getMaxX() == b.getMaxX();
+        boolean sameRows = a.getMinY() == b.getMinY() && a.getMaxY() == b.getMaxY();
+        if (sameColumns && a.getMinY() <= b.getMaxY() && b.getMinY() <= a.getMaxY()) {
+            double minY = Math.min(a.getMinY(), b.getMinY());
+            return new Rectangle2D(a.getMinX(), minY, a.getWidth(), Math.max(a.getMaxY(), b.getMaxY()) - minY);
+        }
+        if (sameRows && a.getMinX() <= b.getMaxX() && b.getMinX() <= a.getMaxX()) {
+            double minX = Math.min(a.getMinX(), b.getMinX());
+            return new Rectangle2D(minX, a.getMinY(), Math.max(a.getMaxX(), b.getMaxX()) - minX, a.getHeight());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,206 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import net.sourceforge.fddtools.model.FDDINode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Rasterized element boxes of an {@link FDDCanvasFX}, so a repaint blits the boxes of unchanged nodes
+ * instead of drawing them again. A sprite is valid for its node's {@link FDDGraphicFX.RenderState},
+ * the zoom (to 1/1000) and the style (canvas font, theme and the window's output scale); a lookup with
+ * anything else drops it.
+ * Node change events drop a node's sprite at once, and the least recently used sprites go when the
+ * pixel memory exceeds the cap. A cap of 0 turns caching off. FX thread only.
+ * <p>
+ * Sprites are made in batches: the boxes missed during a repaint are drawn side by side on a scratch
+ * canvas, which is snapshot once and cut into one image per box. The scratch canvas is sized in device
+ * pixels, zoom times output scale, so a sprite blitted into its box on a HiDPI screen maps one image
+ * pixel to one screen pixel; snapshotting a canvas under a scale transform would only resample it.
+ */
+final class CanvasSpriteCache {
+
+    /** Margin (natural units) kept around a box for strokes and text overhang. */
+    static final double MARGIN = 2;
+
+    /** Largest side (pixels) of the scratch canvas a batch is drawn on. */
+    private static final int ATLAS_SIZE = 2048;
+
+    /**
+     * Canvas-wide inputs of a box's pixels besides its node and the zoom; the output scale is the
+     * window's render scale (2 on a typical HiDPI screen), which changes when it moves between screens.
+     */
+    record Style(TextMetricsCache.FontKey font, String theme, double outputScaleX, double outputScaleY) {}
+
+    /** Counts since the cache was created, with the current size. */
+    record Stats(long hits, long misses, long evictions, long invalidations, int entries, long bytes) {
+        /** Counts of the interval since {@code earlier}; size stays current. */
+        Stats since(Stats earlier) {
+            return new Stats(hits - earlier.hits, misses - earlier.misses, evictions - earlier.evictions,
+                invalidations - earlier.invalidations, entries, bytes);
+        }
+
+        double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+    }
+
+    /** A box missed during a repaint, to be rasterized afterwards. */
+    record Pending(FDDINode node, FDDGraphicFX.RenderState state, double width, double height) {}
+
+    private record Sprite(FDDGraphicFX.RenderState state, int zoomBucket, Style style, WritableImage image, long bytes) {}
+
+    private final LinkedHashMap<FDDINode, Sprite> sprites = new LinkedHashMap<>(64, 0.75f, true);
+    private long maxBytes;
+    private long bytes;
+    private long hits, misses, evictions, invalidations;
+
+    CanvasSpriteCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /** Changes the memory cap, evicting as needed. */
+    void setMaxBytes(long value) {
+        maxBytes = Math.max(0, value);
+        evict();
+    }
+
+    static int zoomBucket(double zoom) {
+        return (int) Math.round(zoom * 1000);
+    }
+
+    /** The sprite of {@code node} if one was made for this state, zoom and style; a stale one is dropped. */
+    WritableImage get(FDDINode node, FDDGraphicFX.RenderState state, int zoomBucket, Style style) {
+        if (!isEnabled()) return null;
+        Sprite sprite = sprites.get(node);
+        if (sprite != null && sprite.zoomBucket == zoomBucket && sprite.state.equals(state) && sprite.style.equals(style)) {
+            hits++;
+            return sprite.image;
+        }
+        misses++;
+        if (sprite != null) remove(node);
+        return null;
+    }
+
+    void put(FDDINode node, FDDGraphicFX.RenderState state, int zoomBucket, Style style, WritableImage image) {
+        if (!isEnabled()) return;
+        long size = (long) image.getWidth() * (long) image.getHeight() * 4;
+        if (size > maxBytes) return;
+        Sprite old = sprites.put(node, new Sprite(state, zoomBucket, style, image, size));
+        if (old != null) bytes -= old.bytes;
+        bytes += size;
+        evict();
+    }
+
+    /** Drops the sprite of {@code node}, after a change to it. */
+    void invalidate(FDDINode node) {
+        if (remove(node)) invalidations++;
+    }
+
+    void clear() {
+        sprites.clear();
+        bytes = 0;
+    }
+
+    Stats stats() {
+        return new Stats(hits, misses, evictions, invalidations, sprites.size(), bytes);
+    }
+
+    private boolean remove(FDDINode node) {
+        Sprite sprite = sprites.remove(node);
+        if (sprite == null) return false;
+        bytes -= sprite.bytes;
+        return true;
+    }
+
+    private void evict() {
+        for (Iterator<Sprite> it = sprites.values().iterator(); bytes > maxBytes && it.hasNext(); ) {
+            bytes -= it.next().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Rasterizes the {@code pending} boxes at {@code zoom} with {@code font} as the canvas would draw them,
+     * at the output scale of {@code style}, and caches the sprites.
+     */
+    void render(List<Pending> pending, double zoom, Font font, Style style) {
+        if (!isEnabled() || pending.isEmpty()) return;
+        int bucket = zoomBucket(zoom);
+        List<Pending> batch = new ArrayList<>();
+        List<Rectangle2D> cells = new ArrayList<>();
+        double x = 0, y = 0, rowHeight = 0;
+        for (Pending p : pending) {
+            int w = (int) Math.ceil((p.width() + 2 * MARGIN) * zoom * style.outputScaleX());
+            int h = (int) Math.ceil((p.height() + 2 * MARGIN) * zoom * style.outputScaleY());
+            if (w > ATLAS_SIZE || h > ATLAS_SIZE) continue;
+            if (x + w > ATLAS_SIZE) { x = 0; y += rowHeight; rowHeight = 0; }
+            if (y + h > ATLAS_SIZE) {
+                rasterize(batch, cells, zoom, font, bucket, style);
+                batch.clear(); cells.clear();
+                x = 0; y = 0; rowHeight = 0;
+            }
+            batch.add(p);
+            cells.add(new Rectangle2D(x, y, w, h));
+            x += w;
+            rowHeight = Math.max(rowHeight, h);
+        }
+        rasterize(batch, cells, zoom, font, bucket, style);
+    }
+
+    private void rasterize(List<Pending> batch, List<Rectangle2D> cells, double zoom, Font font, int bucket, Style style) {
+        if (batch.isEmpty()) return;
+        double width = 0, height = 0;
+        for (Rectangle2D c : cells) { width = Math.max(width, c.getMaxX()); height = Math.max(height, c.getMaxY()); }
+        Canvas scratch = new Canvas(width, height);
+        GraphicsContext gc = scratch.getGraphicsContext2D();
+        gc.setImageSmoothing(false);
+        for (int i = 0; i < batch.size(); i++) {
+            Pending p = batch.get(i);
+            Rectangle2D cell = cells.get(i);
+            gc.save();
+            gc.beginPath(); gc.rect(cell.getMinX(), cell.getMinY(), cell.getWidth(), cell.getHeight()); gc.clip();
+            gc.translate(cell.getMinX(), cell.getMinY());
+            // Scale to fill the whole cell so the sprite maps exactly onto the box plus margin
+            gc.scale(cell.getWidth() / (p.width() + 2 * MARGIN), cell.getHeight() / (p.height() + 2 * MARGIN));
+            gc.setFont(font);
+            new FDDGraphicFX(p.node(), MARGIN, MARGIN, p.width(), p.height()).draw(gc, zoom);
+            gc.restore();
+        }
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        WritableImage atlas = scratch.snapshot(params, null);
+        for (int i = 0; i < batch.size(); i++) {
+            Pending p = batch.get(i);
+            Rectangle2D cell = cells.get(i);
+            WritableImage image = new WritableImage(atlas.getPixelReader(),
+                (int) cell.getMinX(), (int) cell.getMinY(), (int) cell.getWidth(), (int) cell.getHeight());
+            put(p.node(), p.state(), bucket, style, image);
+        }
+    }
+
+    /** Sprites held, for tests. */
+    int size() {
+        return sprites.size();
+    }
+
+    /** Nodes from least to most recently used, for tests. */
+    List<FDDINode> nodes() {
+        return new ArrayList<>(sprites.keySet());
+    }
+}
@@ -59,9 +59,7 @@ package net.sourceforge.fddtools.ui.fx;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -128,11 +126,22 @@ public final class CenteredTextDrawerFX {
      * @return Required height
      */
     public static double getTitleTextHeight(GraphicsContext gc, String text, double maxWidth) {
+        return getTitleTextHeight(gc.getFont(), text, maxWidth);
+    }
+    
+    /**
+     * Calculates the height required for the given text in the given font when wrapped to the specified width.
+     * 
+     * @param font Font to measure with
+     * @param text Text to measure
+     * @param maxWidth Maximum width available
+     * @return Required height
+     */
+    public static double getTitleTextHeight(Font font, String text, double maxWidth) {
         if (text == null || text.trim().isEmpty()) {
             return 0;
         }
         
-        Font font = gc.getFont();
         List<String> lines = wrapText(text, font, maxWidth);
         return lines.size() * getTextHeight(font);
     }
@@ -143,51 +152,10 @@ public final class CenteredTextDrawerFX {
      * @param text Text to wrap
      * @param font Font to use for measurements
      * @param maxWidth Maximum width
-     * @return List of wrapped lines
+     * @return List of wrapped lines (cached, not modifiable)
      */
     private static List<String> wrapText(String text, Font font, double maxWidth) {
-        List<String> lines = new ArrayList<>();
-        
-        if (text == null || text.trim().isEmpty()) {
-            return lines;
-        }
-        
-        // Split text into words
-        String[] words = text.trim().split("\\s+");
-        
-        if (words.length == 0) {
-            return lines;
-        }
-        
-        StringBuilder currentLine = new StringBuilder();
-        
-        for (String word : words) {
-            String testLine = currentLine.length() > 0 ? 
-                            currentLine + " " + word : word;
-            
-            double testWidth = getTextWidth(testLine, font);
-            
-            if (testWidth <= maxWidth || currentLine.length() == 0) {
-                // Word fits or it's the first word (even if it doesn't fit)
-                if (currentLine.length() > 0) {
-                    currentLine.append(" ");
-                }
-                currentLine.append(word);
-            } else {
-                // Word doesn't fit, start new line
-                if (currentLine.length() > 0) {
-                    lines.add(currentLine.toString());
-                    currentLine = new StringBuilder(word);
-                }
-            }
-        }
-        
-        // Add the last line if it has content
-        if (currentLine.length() > 0) {
-            lines.add(currentLine.toString());
-        }
-        
-        return lines;
+        return TextMetricsCache.getInstance().wrap(text, font, maxWidth);
     }
     
     /**
@@ -198,10 +166,7 @@ public final class CenteredTextDrawerFX {
      * @return Text width
      */
     private static double getTextWidth(String text, Font font) {
-        // Create a temporary Text node to measure text width
-        Text textNode = new Text(text);
-        textNode.setFont(font);
-        return textNode.getBoundsInLocal().getWidth();
+        return TextMetricsCache.getInstance().width(text, font);
     }
 
     /** Compute horizontally centered X coordinate (package-private for testing). */
@@ -220,10 +185,7 @@ public final class CenteredTextDrawerFX {
      * @return Text height
      */
     private static double getTextHeight(Font font) {
-        // Create a temporary Text node to measure text height
-        Text textNode = new Text("Mg"); // Use characters with ascenders and descenders
-        textNode.setFont(font);
-        return textNode.getBoundsInLocal().getHeight();
+        return TextMetricsCache.getInstance().lineHeight(font);
     }
     
     /**
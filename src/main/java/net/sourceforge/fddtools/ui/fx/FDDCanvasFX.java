@@ -6,8 +6,11 @@ import javafx.beans.property.ReadOnlyDoubleWrapper;
 import javafx.geometry.Bounds;
 import javafx.geometry.BoundingBox;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.control.*;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -29,6 +32,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.FileChooser;
+import javafx.stage.Window;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
 import net.sourceforge.fddtools.model.FDDINode;
@@ -38,6 +42,11 @@ import org.slf4j.LoggerFactory;
 
 // AWT-based export now isolated inside ImageExportService (no direct imports here)
 import java.io.File;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import net.sourceforge.fddtools.internationalization.I18n;
 
 /**
@@ -52,6 +61,8 @@ public class FDDCanvasFX extends BorderPane {
     private static final double MIN_ZOOM = 0.1;
     private static final double MAX_ZOOM = 5.0;
     private static final double ZOOM_FACTOR = 1.1;
+    /** Pixels painted from the top left before the canvas is shown and has a viewport. */
+    private static final double UNSHOWN_VIEWPORT = 2048;
 
     /**
      * Interface for handling Canvas-to-Tree focus communication.
@@ -64,7 +75,7 @@ public class FDDCanvasFX extends BorderPane {
         void onCanvasNodeClicked(FDDINode clickedNode);
     }
 
-    private final Canvas canvas = new Canvas();
+    private final TiledCanvas canvas = new TiledCanvas(this::paintRegion);
     private final ScrollPane scrollPane = new ScrollPane();
     private final Pane canvasHolder = new Pane(canvas); // Changed from StackPane to Pane
     private final Label zoomLabel = new Label("100%"); // Percent format can be localized in a later pass
@@ -86,6 +97,16 @@ public class FDDCanvasFX extends BorderPane {
     private ContextMenu sharedContextMenu; // reused to avoid multiple instances
     private boolean autoFitActive = false; // if true, auto-refit on viewport resize
     private boolean fitting = false; // reentrancy guard
+    // Partial repaint state: child element layout and bounds kept between paints (natural units)
+    private final Map<FDDINode, Rectangle2D> childBounds = new IdentityHashMap<>();
+    private ChildLayout childLayout;
+    private final AtomicBoolean paintScheduled = new AtomicBoolean();
+    private volatile boolean fullRepaint = true;
+    private long lastRepaintedPixels;
+    // Rasterized child boxes, and the boxes drawn directly in the current paint that still need one
+    private final CanvasSpriteCache sprites = new CanvasSpriteCache(
+        net.sourceforge.fddtools.service.PreferencesService.getInstance().getCanvasSpriteCacheMb() * 1024L * 1024L);
+    private final Map<FDDINode, CanvasSpriteCache.Pending> pendingSprites = new IdentityHashMap<>();
     
     // Canvas-to-Tree focus integration
     private CanvasClickHandler canvasClickHandler;
@@ -364,12 +385,22 @@ public class FDDCanvasFX extends BorderPane {
         setBottom(actionBar);  // Toolbar at bottom as originally designed
         
         // Set initial canvas height (width is bound to viewport)
-        canvas.setHeight(canvasHeight);
+        canvas.setSurfaceSize(canvasWidth, canvasHeight);
         
+        // Moving to a screen with another output scale needs sprites rasterized at its pixel density
+        var window = sceneProperty().flatMap(Scene::windowProperty);
+        window.flatMap(Window::outputScaleXProperty).addListener((o, a, b) -> redraw());
+        window.flatMap(Window::outputScaleYProperty).addListener((o, a, b) -> redraw());
+
         // CRITICAL: Listen to ScrollPane viewport changes like Swing does
         // This is equivalent to your Swing componentResized() listener
         scrollPane.viewportBoundsProperty().addListener((o, a, b) -> {
             if (b != null) {
+                // Scrolling moves the viewport without resizing it: only the exposed strips need painting
+                if (a != null && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight()) {
+                    schedulePaint();
+                    return;
+                }
                 updateButtonDisableStates();
                 // Only trigger reflow if not in fitting state
                 if (!fitting && !autoFitActive) {
@@ -390,6 +421,7 @@ public class FDDCanvasFX extends BorderPane {
     public final void reflow() {
         // Skip reflow if we're in the middle of fitting or auto-fit is active
         if (fitting || autoFitActive) return;
+        net.sourceforge.fddtools.service.LoggingService.Span span = net.sourceforge.fddtools.service.LoggingService.getInstance().startPerf("canvasReflow", java.util.Map.of("action","reflow"));
         
         // Update scroll behavior based on current zoom level
         updateScrollBehavior();
@@ -409,8 +441,7 @@ public class FDDCanvasFX extends BorderPane {
         // Handle canvas sizing based on zoom level
         if (Math.abs(zoom - 1.0) < 0.01) {
             // At 100% zoom: size canvas to fit viewport width
-            canvas.setWidth(naturalWidth);
-            canvas.setHeight(naturalHeight);
+            canvas.setSurfaceSize(naturalWidth, naturalHeight);
             
             // Set canvasHolder to use computed size - let ScrollPane control it
             canvasHolder.setPrefWidth(Region.USE_COMPUTED_SIZE);
@@ -425,8 +456,7 @@ public class FDDCanvasFX extends BorderPane {
             double canvasWidthWithZoom = naturalWidth * zoom;
             double canvasHeightWithZoom = naturalHeight * zoom;
             
-            canvas.setWidth(canvasWidthWithZoom);
-            canvas.setHeight(canvasHeightWithZoom);
+            canvas.setSurfaceSize(canvasWidthWithZoom, canvasHeightWithZoom);
             
             canvasHolder.setPrefWidth(canvasWidthWithZoom);
             canvasHolder.setPrefHeight(canvasHeightWithZoom);
@@ -448,6 +478,8 @@ public class FDDCanvasFX extends BorderPane {
             canvasHolder.setMaxHeight(Double.MAX_VALUE);
         }
         
+        span.metric("zoom", zoom).metric("elementsInRow", elementsInRow).close();
+        
         // Trigger redraw
         redraw();
     }
@@ -494,9 +526,7 @@ public class FDDCanvasFX extends BorderPane {
         
         // Add title height if not a feature  
         if(!(currentNode instanceof com.nebulon.xml.fddi.Feature) && currentNode != null) {
-            GraphicsContext gc = canvas.getGraphicsContext2D();
-            gc.setFont(textFont);
-            height += CenteredTextDrawerFX.getTitleTextHeight(gc, currentNode.getName(), (int)availableWidth);
+            height += CenteredTextDrawerFX.getTitleTextHeight(textFont, currentNode.getName(), (int)availableWidth);
         }
         
         return height;
@@ -526,8 +556,6 @@ public class FDDCanvasFX extends BorderPane {
         });
         setOnKeyPressed(this::onKey);
         setFocusTraversable(true);
-        canvas.widthProperty().addListener((o,a,b)-> redraw());
-        canvas.heightProperty().addListener((o,a,b)-> redraw());
         
         // Viewport listener is set up in setupLayout() - no duplicate needed here
     }
@@ -699,8 +727,7 @@ public class FDDCanvasFX extends BorderPane {
             setZoom(1.0); // Use 100% zoom and size canvas to viewport
             
             // Directly set canvas size to match viewport exactly
-            canvas.setWidth(vp.getWidth());
-            canvas.setHeight(vp.getHeight());
+            canvas.setSurfaceSize(vp.getWidth(), vp.getHeight());
             canvasHolder.setPrefWidth(vp.getWidth());
             canvasHolder.setPrefHeight(vp.getHeight());
             canvasHolder.setMinWidth(vp.getWidth());
@@ -715,9 +742,6 @@ public class FDDCanvasFX extends BorderPane {
             return; 
         }
         
-        GraphicsContext gc=canvas.getGraphicsContext2D(); 
-        gc.setFont(textFont);
-        
         // Find the layout that perfectly fits the viewport
         double bestScale = MIN_ZOOM; 
         int bestCols = 1; 
@@ -731,7 +755,7 @@ public class FDDCanvasFX extends BorderPane {
             int contentWidth = (cols * (FEATURE_ELEMENT_WIDTH + FRINGE_WIDTH)) + FRINGE_WIDTH;
             double titleHeight = 0; 
             if(!(currentNode instanceof com.nebulon.xml.fddi.Feature)) {
-                titleHeight = CenteredTextDrawerFX.getTitleTextHeight(gc, currentNode.getName(), contentWidth);
+                titleHeight = CenteredTextDrawerFX.getTitleTextHeight(textFont, currentNode.getName(), contentWidth);
             }
             
             double totalContentWidth = contentWidth + (2 * BORDER_WIDTH);
@@ -764,8 +788,7 @@ public class FDDCanvasFX extends BorderPane {
         canvasHeight = bestContentHeight;
         
         // Set canvas to exact viewport dimensions - this is the KEY to no scrolling
-        canvas.setWidth(vp.getWidth());
-        canvas.setHeight(vp.getHeight());
+        canvas.setSurfaceSize(vp.getWidth(), vp.getHeight());
         canvasHolder.setPrefWidth(vp.getWidth());
         canvasHolder.setPrefHeight(vp.getHeight());
         canvasHolder.setMinWidth(vp.getWidth());
@@ -813,6 +836,8 @@ public class FDDCanvasFX extends BorderPane {
     private void persistZoom(){ try { net.sourceforge.fddtools.service.PreferencesService.getInstance().setLastZoomLevel(getZoom()); net.sourceforge.fddtools.service.PreferencesService.getInstance().flushNow(); } catch (Exception ignored) {} }
     { // instance initializer to hook zoom listener for persistence
         zoomLevel.addListener((o,a,b)-> persistZoom());
+        // Select the new zoom's tiles before the reflow resizes the surface for it
+        zoomLevel.addListener((o,a,b)-> canvas.setZoomBucket(CanvasSpriteCache.zoomBucket(b.doubleValue())));
     }
     public void restoreLastZoomIfEnabled(){ var prefs=net.sourceforge.fddtools.service.PreferencesService.getInstance(); if(prefs.isRestoreLastZoomEnabled()) { setZoom(prefs.getLastZoomLevel()); } }
     public double getZoom(){ return zoomLevel.get(); }
@@ -851,27 +876,143 @@ public class FDDCanvasFX extends BorderPane {
     public void setTextFont(Font font){ this.textFont = (font!=null? Font.font(font.getFamily(), FontWeight.SEMI_BOLD, font.getSize()) : Font.font("Arial", FontWeight.SEMI_BOLD,12)); redraw(); }
     public Font getTextFont(){ return textFont; }
 
-    public void redraw(){ if(currentNode==null) return; Platform.runLater(()->{
+    /** Repaints the whole canvas on the next pulse; repeated calls before then coalesce. */
+    public void redraw(){ if(currentNode==null) return; childLayout=null; fullRepaint=true; schedulePaint(); }
+
+    /**
+     * Repaints only the element showing {@code node}: the node itself if it is a visible child, or the
+     * child containing it. Changes to the current node repaint everything; other nodes are ignored.
+     */
+    public void nodeChanged(FDDINode node){
+        if(node==null || currentNode==null) return;
+        if(!Platform.isFxApplicationThread()){ Platform.runLater(()->nodeChanged(node)); return; }
+        if(node==currentNode || !canvas.hasPaintedContent()){ redraw(); return; }
+        sprites.invalidate(node);
+        FDDINode child=node;
+        while(child!=null && child.getParent()!=currentNode) child=child.getParent();
+        if(child==null) return;
+        sprites.invalidate(child);
+        Rectangle2D bounds=childBounds.get(child);
+        if(bounds==null){ redraw(); return; }
+        // Pad by two natural units for strokes and text overhang, then snap outward to whole pixels
+        double z=getZoom();
+        double minX=Math.floor((bounds.getMinX()-2)*z), minY=Math.floor((bounds.getMinY()-2)*z);
+        double maxX=Math.ceil((bounds.getMaxX()+2)*z), maxY=Math.ceil((bounds.getMaxY()+2)*z);
+        canvas.invalidate(new Rectangle2D(minX, minY, maxX-minX, maxY-minY));
+        schedulePaint();
+    }
+
+    private void schedulePaint(){ if(paintScheduled.compareAndSet(false,true)) Platform.runLater(this::paint); }
+
+    /**
+     * Paints the visible parts of the canvas that are stale or were never painted; tiles in the margin
+     * around the viewport are painted in later pulses.
+     */
+    private void paint(){
+        paintScheduled.set(false);
+        if(currentNode==null) return;
+        boolean full=fullRepaint;
+        canvas.setZoomBucket(CanvasSpriteCache.zoomBucket(getZoom()));
+        if(full){ fullRepaint=false; canvas.invalidateAll(); }
+        Rectangle2D visible=visibleRegion();
+        if(!canvas.needsPaint(visible)){ canvas.paint(visible); return; }
         net.sourceforge.fddtools.service.LoggingService.Span span = net.sourceforge.fddtools.service.LoggingService.getInstance()
-            .startPerf("canvasRedraw", java.util.Map.of("action","redraw"));
-        GraphicsContext gc=canvas.getGraphicsContext2D();
+            .startPerf("canvasRedraw", java.util.Map.of("action", full ? "redraw" : "partial"));
+        TextMetricsCache.Stats textBefore=TextMetricsCache.getInstance().stats();
+        CanvasSpriteCache.Stats spritesBefore=sprites.stats();
+        TiledCanvas.Stats tilesBefore=canvas.stats();
+        List<Rectangle2D> regions=canvas.paint(visible);
+        renderPendingSprites();
+        lastRepaintedPixels=CanvasDirtyRegions.area(regions);
+        TextMetricsCache.Stats text=TextMetricsCache.getInstance().stats().since(textBefore);
+        CanvasSpriteCache.Stats sprite=sprites.stats().since(spritesBefore);
+        TiledCanvas.Stats tiles=canvas.stats().since(tilesBefore);
+        int childCount = (currentNode!=null && currentNode.getChildren()!=null) ? currentNode.getChildren().size() : 0;
+        span.metric("children", childCount).metric("zoom", getZoom()).metric("regions", regions.size())
+            .metric("pixels", lastRepaintedPixels).metric("canvasPixels", (long)(canvas.getSurfaceWidth()*canvas.getSurfaceHeight()))
+            .metric("textWrapHitRate", text.wrapHitRate()).metric("glyphHitRate", text.glyphHitRate())
+            .metric("spriteHitRate", sprite.hitRate()).metric("spriteEvictions", sprite.evictions())
+            .metric("sprites", sprite.entries()).metric("spriteKb", sprite.bytes()/1024)
+            .metric("tiles", tiles.attached()).metric("tilesCached", tiles.cached())
+            .metric("tileHits", tiles.hits()).metric("tileMisses", tiles.misses()).metric("tilesRecycled", tiles.recycled()).close();
+    }
+
+    /** Paints the entire canvas onto a fresh canvas of the surface size, bypassing the tiles (used for export). */
+    private Canvas paintAll(){
+        Canvas image=new Canvas(canvas.getSurfaceWidth(), canvas.getSurfaceHeight());
+        if(currentNode==null) return image;
+        GraphicsContext gc=image.getGraphicsContext2D();
         gc.setImageSmoothing(false);
-        gc.clearRect(0,0,canvas.getWidth(),canvas.getHeight());
+        canvas.paintAll(gc);
+        renderPendingSprites();
+        return image;
+    }
+
+    /** Rasterizes the child boxes that were drawn directly in this paint, for the next one to blit. */
+    private void renderPendingSprites(){
+        if(pendingSprites.isEmpty()) return;
+        sprites.render(new ArrayList<>(pendingSprites.values()), getZoom(), textFont, spriteStyle());
+        pendingSprites.clear();
+    }
+
+    private CanvasSpriteCache.Style spriteStyle(){
+        Window window=getScene()==null ? null : getScene().getWindow();
+        return new CanvasSpriteCache.Style(TextMetricsCache.FontKey.of(textFont),
+            net.sourceforge.fddtools.service.PreferencesService.getInstance().getTheme(),
+            window==null ? 1 : window.getOutputScaleX(), window==null ? 1 : window.getOutputScaleY());
+    }
+
+    /** Draws a child's box: a blit of its sprite when one is cached, otherwise directly. */
+    private void drawElement(GraphicsContext gc, FDDGraphicFX g, FDDINode node, Rectangle2D bounds, CanvasSpriteCache.Style style){
+        if(!sprites.isEnabled()){ g.draw(gc, getZoom()); return; }
+        FDDGraphicFX.RenderState state=FDDGraphicFX.RenderState.of(node);
+        WritableImage sprite=sprites.get(node, state, CanvasSpriteCache.zoomBucket(getZoom()), style);
+        if(sprite!=null){
+            double m=CanvasSpriteCache.MARGIN;
+            gc.drawImage(sprite, bounds.getMinX()-m, bounds.getMinY()-m, bounds.getWidth()+2*m, bounds.getHeight()+2*m);
+            return;
+        }
+        g.draw(gc, getZoom());
+        pendingSprites.put(node, new CanvasSpriteCache.Pending(node, state, bounds.getWidth(), bounds.getHeight()));
+    }
+
+    /** The part of the canvas inside the scroll pane viewport, or the top left of the canvas when not yet shown. */
+    private Rectangle2D visibleRegion(){
+        Rectangle2D all=new Rectangle2D(0,0,Math.max(0,canvas.getSurfaceWidth()),Math.max(0,canvas.getSurfaceHeight()));
+        Bounds vp=scrollPane.getViewportBounds();
+        if(scrollPane.getScene()==null || vp==null || vp.getWidth()<=0 || vp.getHeight()<=0){
+            return new Rectangle2D(0,0,Math.min(all.getWidth(),UNSHOWN_VIEWPORT),Math.min(all.getHeight(),UNSHOWN_VIEWPORT));
+        }
+        // Viewport bounds carry the negated scroll offset of the content
+        Rectangle2D view=new Rectangle2D(Math.floor(-vp.getMinX()), Math.floor(-vp.getMinY()), Math.ceil(vp.getWidth())+1, Math.ceil(vp.getHeight())+1);
+        Rectangle2D visible=CanvasDirtyRegions.intersection(all, view);
+        return visible!=null ? visible : all;
+    }
+
+    private void paintRegion(GraphicsContext gc, Rectangle2D r){
+        gc.save();
+        gc.beginPath(); gc.rect(r.getMinX(), r.getMinY(), r.getWidth(), r.getHeight()); gc.clip();
+        gc.clearRect(r.getMinX(), r.getMinY(), r.getWidth(), r.getHeight());
         gc.setFill(Color.WHITE);
-        gc.fillRect(0,0,canvas.getWidth(),canvas.getHeight());
-        gc.save(); gc.scale(getZoom(), getZoom()); gc.setFont(textFont); drawGraphics(gc); gc.restore();
-        int childCount = (currentNode!=null && currentNode.getChildren()!=null) ? currentNode.getChildren().size() : 0;
-        span.metric("children", childCount).metric("zoom", getZoom()).metric("pixels", (int)(canvas.getWidth()*canvas.getHeight())).close();
-    }); }
-    private void drawGraphics(GraphicsContext gc){
+        gc.fillRect(r.getMinX(), r.getMinY(), r.getWidth(), r.getHeight());
+        double z=getZoom();
+        gc.scale(z, z); gc.setFont(textFont);
+        drawGraphics(gc, new Rectangle2D(r.getMinX()/z, r.getMinY()/z, r.getWidth()/z, r.getHeight()/z));
+        gc.restore();
+    }
+
+    /** Draws the elements intersecting {@code clip}, given in natural (unzoomed) coordinates. */
+    private void drawGraphics(GraphicsContext gc, Rectangle2D clip){
         gc.setStroke(Color.BLACK);
         gc.setFill(Color.BLACK);
         if(hasChildren()){
             // CRITICAL FIX: When fitted, use the actual canvas width for layout; otherwise use stored canvasWidth
-            int contentWidth = autoFitActive ? (int)(canvas.getWidth() / getZoom()) : (int)canvasWidth;
+            int contentWidth = autoFitActive ? (int)(canvas.getSurfaceWidth() / getZoom()) : (int)canvasWidth;
             double titleHeight=CenteredTextDrawerFX.getTitleTextHeight(gc,currentNode.getName(),contentWidth);
-            CenteredTextDrawerFX.draw(gc,currentNode.getName(),BORDER_WIDTH,BORDER_WIDTH+FRINGE_WIDTH,contentWidth);
-            Bounds sub=drawChildren(gc,BORDER_WIDTH,titleHeight+FRINGE_WIDTH+BORDER_WIDTH,contentWidth);
+            if(clip.getMinY() < titleHeight+FRINGE_WIDTH+BORDER_WIDTH+2) {
+                CenteredTextDrawerFX.draw(gc,currentNode.getName(),BORDER_WIDTH,BORDER_WIDTH+FRINGE_WIDTH,contentWidth);
+            }
+            Bounds sub=drawChildren(gc,BORDER_WIDTH,titleHeight+FRINGE_WIDTH+BORDER_WIDTH,contentWidth,clip);
             gc.setStroke(Color.GRAY);
             gc.setLineWidth(2);
             gc.strokeRect(0,0, sub.getWidth()+(2*BORDER_WIDTH), sub.getHeight()+titleHeight+FRINGE_WIDTH+(2*BORDER_WIDTH));
@@ -880,43 +1021,59 @@ public class FDDCanvasFX extends BorderPane {
             new FDDGraphicFX(currentNode,FRINGE_WIDTH,FRINGE_WIDTH,FEATURE_ELEMENT_WIDTH,FEATURE_ELEMENT_HEIGHT).draw(gc, getZoom());
         }
     }
-    // Updated to accept double coordinates/width for layout flexibility (avoids int/double mismatch)
-    private Bounds drawChildren(GraphicsContext gc,double x,double y,double maxWidth){
-        double currentX=FRINGE_WIDTH,currentY=FRINGE_WIDTH,currentHeight=FRINGE_WIDTH,currentWidth=FRINGE_WIDTH,imgWidth=0;
-        int elementIndex = 0;
-        int elementsInCurrentRow = 0;
-        
+    /**
+     * Positions of the current node's child elements, in natural units, kept between paints until the
+     * layout changes. Rows are regular, so the rows crossing a clip are found by arithmetic.
+     */
+    private record ChildLayout(FDDINode node, int count, double x, double y, double maxWidth, int maxPerRow, int perRow,
+                               List<FDDINode> children, List<Rectangle2D> bounds, Bounds extent) {}
+
+    private ChildLayout childLayout(double x,double y,double maxWidth){
         // Calculate actual elements per row based on available width
         int actualElementsInRow = autoFitActive ? 
             Math.max(1, (int)Math.floor((maxWidth - (2 * BORDER_WIDTH) - FRINGE_WIDTH) / (FRINGE_WIDTH + FEATURE_ELEMENT_WIDTH))) :
             elementsInRow;
-        
+        int count=currentNode.getChildren().size();
+        ChildLayout layout=childLayout;
+        if(layout!=null && layout.node()==currentNode && layout.count()==count && layout.x()==x && layout.y()==y
+            && layout.maxWidth()==maxWidth && layout.maxPerRow()==actualElementsInRow) return layout;
+        // Wrap when we've reached the calculated elements per row OR when the next element won't fit
+        int perRow=1;
+        while(perRow<actualElementsInRow && x+FRINGE_WIDTH+perRow*(FEATURE_ELEMENT_WIDTH+FRINGE_WIDTH)+FEATURE_ELEMENT_WIDTH+FRINGE_WIDTH<=maxWidth) perRow++;
+        List<FDDINode> children=new ArrayList<>(count);
+        List<Rectangle2D> bounds=new ArrayList<>(count);
+        childBounds.clear();
         for(FDDTreeNode tn: currentNode.getChildren()){
-            FDDINode child=(FDDINode)tn;
-            
-            // Wrap when we've reached the calculated elements per row OR when element won't fit
-            double elementEndX = currentX + FEATURE_ELEMENT_WIDTH + FRINGE_WIDTH;
-            boolean shouldWrap = (elementsInCurrentRow >= actualElementsInRow) || 
-                                (elementIndex > 0 && (x + elementEndX) > maxWidth);
-            
-            if(shouldWrap){
-                currentX=FRINGE_WIDTH;
-                currentY+=(FEATURE_ELEMENT_HEIGHT+FRINGE_WIDTH);
-                elementsInCurrentRow = 0;
-            }
-            
-            FDDGraphicFX g=new FDDGraphicFX(child,x+currentX,y+currentY,FEATURE_ELEMENT_WIDTH,FEATURE_ELEMENT_HEIGHT);
-            g.draw(gc, getZoom());
-            currentWidth=currentX+g.getWidth()+FRINGE_WIDTH;
-            if(currentWidth>imgWidth) imgWidth=currentWidth;
-            currentHeight=currentY+g.getHeight()+FRINGE_WIDTH;
-            
-            // Move to next position
-            currentX+=(g.getWidth()+FRINGE_WIDTH);
-            elementIndex++;
-            elementsInCurrentRow++;
+            int i=children.size();
+            Rectangle2D b=new Rectangle2D(x+FRINGE_WIDTH+(i%perRow)*(FEATURE_ELEMENT_WIDTH+FRINGE_WIDTH),
+                y+FRINGE_WIDTH+(i/perRow)*(FEATURE_ELEMENT_HEIGHT+FRINGE_WIDTH), FEATURE_ELEMENT_WIDTH, FEATURE_ELEMENT_HEIGHT);
+            children.add((FDDINode)tn);
+            bounds.add(b);
+            childBounds.put((FDDINode)tn, b);
+        }
+        int cols=Math.min(perRow, count), rows=(count+perRow-1)/perRow;
+        Bounds extent=new BoundingBox(0,0,count==0 ? 0 : FRINGE_WIDTH+cols*(FEATURE_ELEMENT_WIDTH+FRINGE_WIDTH),
+            FRINGE_WIDTH+rows*(FEATURE_ELEMENT_HEIGHT+FRINGE_WIDTH));
+        childLayout=new ChildLayout(currentNode, count, x, y, maxWidth, actualElementsInRow, perRow, children, bounds, extent);
+        return childLayout;
+    }
+
+    /** Draws the child elements crossing {@code clip}; rows outside it are skipped without a visit. */
+    private Bounds drawChildren(GraphicsContext gc,double x,double y,double maxWidth,Rectangle2D clip){
+        ChildLayout layout=childLayout(x,y,maxWidth);
+        CanvasSpriteCache.Style spriteStyle=spriteStyle();
+        // Pad by two natural units for strokes and text overhang
+        double stride=FEATURE_ELEMENT_HEIGHT+FRINGE_WIDTH, top=y+FRINGE_WIDTH;
+        int firstRow=Math.max(0,(int)Math.floor((clip.getMinY()-2-top-FEATURE_ELEMENT_HEIGHT)/stride));
+        int lastRow=(int)Math.floor((clip.getMaxY()+2-top)/stride);
+        int to=(int)Math.min(layout.children().size(), (lastRow+1L)*layout.perRow());
+        for(int i=firstRow*layout.perRow(); i<to; i++){
+            Rectangle2D bounds=layout.bounds().get(i);
+            if(!clip.intersects(bounds.getMinX()-2,bounds.getMinY()-2,bounds.getWidth()+4,bounds.getHeight()+4)) continue;
+            FDDINode child=layout.children().get(i);
+            drawElement(gc, new FDDGraphicFX(child,bounds.getMinX(),bounds.getMinY(),bounds.getWidth(),bounds.getHeight()), child, bounds, spriteStyle);
         }
-        return new BoundingBox(0,0,imgWidth,currentHeight);
+        return layout.extent();
     }
 
     // --- Export / misc ---
@@ -930,7 +1087,8 @@ public class FDDCanvasFX extends BorderPane {
             try {
                 String ext=getExt(f.getName());
                 if(!ext.equalsIgnoreCase("png")) ext = "png"; // force png only
-                net.sourceforge.fddtools.service.ImageExportService.getInstance().export(canvas, f, ext);
+                // Tiles cover only the viewport; the image is painted whole
+                net.sourceforge.fddtools.service.ImageExportService.getInstance().export(paintAll(), f, ext);
                 // Removed verbose save log (retain audit via higher-level services if needed)
                 net.sourceforge.fddtools.service.LoggingService.getInstance().audit("imageExport", java.util.Map.of("action","exportImage"), f::getName);
             } catch (Exception ex) {
@@ -947,5 +1105,7 @@ public class FDDCanvasFX extends BorderPane {
     // BEGIN TEST ACCESSOR
     /** Test-only accessor for verifying responsive layout calculations. */
     public int getElementsInRowForTest() { return elementsInRow; }
+    /** Test-only accessor: canvas pixels repainted by the most recent paint pass. */
+    long getLastRepaintedPixelsForTest() { return lastRepaintedPixels; }
     // END TEST ACCESSOR
 }
\ No newline at end of file
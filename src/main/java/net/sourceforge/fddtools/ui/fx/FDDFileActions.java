@@ -22,6 +22,8 @@ public class FDDFileActions {
         void loadProjectFromPath(String path, boolean rebuildUI) throws Exception;
         void rebuildProjectUI(FDDINode root, boolean markDirty);
         javafx.stage.Stage getPrimaryStage();
+        /** Overlay that shows background save progress; none by default. */
+        default BusyOverlay getBusyOverlay() { return null; }
     }
 
     private final Host host;
@@ -65,6 +67,8 @@ public class FDDFileActions {
                     fc.setTitle("Save FDD Project");
                     fc.getExtensionFilters().addAll(
                         new FileChooser.ExtensionFilter("FDD Files", "*.fddi"),
+                        new FileChooser.ExtensionFilter("FDD Binary Files", "*.fddb"),
+                        new FileChooser.ExtensionFilter("FDD Paged Files", "*.fddp"),
                         new FileChooser.ExtensionFilter("XML Files", "*.xml"),
                         new FileChooser.ExtensionFilter("All Files", "*.*")
                     );
@@ -81,42 +85,37 @@ public class FDDFileActions {
         });
     }
 
+    /**
+     * Writes a snapshot of the project to {@code fileName} on a background thread, so editing can
+     * continue meanwhile. The project path, recent files and title are updated once the write has
+     * committed; the project stays dirty if it was edited during the save. Returns false if there is
+     * no project to save, true once the save has started.
+     */
     public boolean saveToFile(String fileName) {
-        Object root = ProjectService.getInstance().getRoot();
-        if (root == null) { if (LOGGER.isWarnEnabled()) LOGGER.warn("saveToFile called with null root (ignored)"); return false; }
         var ps = ProjectService.getInstance();
+        if (ps.getRoot() == null) { if (LOGGER.isWarnEnabled()) LOGGER.warn("saveToFile called with null root (ignored)"); return false; }
         String currentPath = ps.getAbsolutePath();
         boolean isSaveAs = currentPath == null || !currentPath.equals(fileName);
         String normalized = FileNameUtil.ensureFddiOrXmlExtension(FileNameUtil.stripDuplicateFddi(fileName));
-        
-        try {
-            long start = System.currentTimeMillis();
-            // Direct synchronous save - no async overlay needed
-            boolean success = FDDIXMLFileWriter.write(root, normalized);
+        long start = System.currentTimeMillis();
+        ProjectService.Snapshot snapshot = ps.snapshot();
+        long snapshotMs = System.currentTimeMillis() - start;
+        ProjectIoTasks.run(FDDIXMLFileWriter.createWriteTask(snapshot.root(), normalized), host.getBusyOverlay(), false, written -> {
             long dur = System.currentTimeMillis() - start;
-            if (success) {
-                if (isSaveAs) {
-                    ps.saveAs(normalized);
-                    PreferencesService.getInstance().addRecentFile(normalized);
-                    host.refreshRecentFilesMenu();
-                } else {
-                    ps.save();
-                }
-                if (LOGGER.isInfoEnabled()) LOGGER.info("Saved project (mode={}) path={} dirtyCleared durationMs={}", isSaveAs?"saveAs":"save", normalized, dur);
-                net.sourceforge.fddtools.service.PreferencesService.getInstance().setLastProjectPath(ps.getAbsolutePath());
-                net.sourceforge.fddtools.service.PreferencesService.getInstance().flushNow();
-                host.updateTitle();
-                return true;
-            } else {
-                if (LOGGER.isWarnEnabled()) LOGGER.warn("Save writer returned false (path={})", normalized);
-                host.showErrorDialog("Save Error", "Failed to save the project file.");
-                return false;
+            if (!ps.markSaved(normalized, snapshot)) { LOGGER.warn("Project changed while saving to {}; saved state not recorded", normalized); return; }
+            if (isSaveAs) {
+                PreferencesService.getInstance().addRecentFile(normalized);
+                host.refreshRecentFilesMenu();
             }
-        } catch (Exception ex) {
-            LOGGER.warn("Save operation failed: {}", ex.getMessage(), ex);
-            host.showErrorDialog("Save Error", "An error occurred while saving: " + ex.getMessage());
-            return false;
-        }
+            if (LOGGER.isInfoEnabled()) LOGGER.info("Saved project (mode={}) path={} dirty={} snapshotMs={} durationMs={}", isSaveAs?"saveAs":"save", normalized, net.sourceforge.fddtools.state.ModelState.getInstance().isDirty(), snapshotMs, dur);
+            PreferencesService.getInstance().setLastProjectPath(ps.getAbsolutePath());
+            PreferencesService.getInstance().flushNow();
+            host.updateTitle();
+        }, ex -> {
+            LOGGER.warn("Save operation failed: {}", ex == null ? "unknown" : ex.getMessage(), ex);
+            host.showErrorDialog("Save Error", "An error occurred while saving: " + (ex == null ? "unknown" : ex.getMessage()));
+        });
+        return true;
     }
 
     public void openProject(java.util.function.Consumer<String> loadPathConsumer) {
@@ -124,7 +123,7 @@ public class FDDFileActions {
             File selected = dialogStrategy.showOpen(fc -> {
                 fc.setTitle("Open FDD Project");
                 fc.getExtensionFilters().addAll(
-                    new FileChooser.ExtensionFilter("FDD Files", "*.fddi", "*.xml"),
+                    new FileChooser.ExtensionFilter("FDD Files", "*.fddi", "*.fddb", "*.fddp", "*.xml"),
                     new FileChooser.ExtensionFilter("All Files", "*.*")
                 );
             }, host.getPrimaryStage());
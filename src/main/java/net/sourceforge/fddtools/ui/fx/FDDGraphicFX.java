@@ -60,18 +60,40 @@ import com.nebulon.xml.fddi.Feature;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
 import net.sourceforge.fddtools.model.FDDINode;
 
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.Locale;
 
 /**
  * JavaFX implementation of FDD graphic component for drawing FDD elements.
  * This is the modern replacement for the Swing-based FDDGraphic.
  */
 class FDDGraphicFX {
-    
+
+    /**
+     * Everything of a node that its graphic shows. Two equal states draw the same box, so this serves
+     * as the node's render version for cached sprites.
+     */
+    record RenderState(String name, String owner, int children, int completion, boolean late, long targetDate) {
+        static RenderState of(FDDINode node) {
+            String owner = node instanceof Feature f ? f.getInitials() : null;
+            int completion = node.getProgress() != null ? node.getProgress().getCompletion() : 0;
+            Date target = node.getTargetDate();
+            return new RenderState(node.getName(), owner, node.getChildren().size(), completion, node.isLate(),
+                target != null ? target.getTime() : Long.MIN_VALUE);
+        }
+    }
+
+    private record OptimizedFont(String family, double size, Font font) {}
+    private record DateFormat(Locale locale, DateTimeFormatter formatter) {}
+
+    // All boxes of a repaint share one font and one date format; keep the last of each
+    private static volatile OptimizedFont lastFont;
+    private static volatile DateFormat lastDateFormat;
+
     private final FDDINode fddiNode;
     private final double originX;
     private final double originY;
@@ -153,16 +175,12 @@ class FDDGraphicFX {
             // Always reserve a fixed band for feature owner initials so all feature boxes are consistent height
             if (fddiNode instanceof Feature) {
                 Font font = gc.getFont();
-                // Measure a representative sample to establish reserved height (even if no initials)
-                Text measure = new Text("WW"); // wide characters for height/ascender baseline
-                measure.setFont(font);
-                ownerNameHeight = measure.getBoundsInLocal().getHeight() + (height / 32);
+                // Reserve one line of the font (even if no initials)
+                ownerNameHeight = TextMetricsCache.getInstance().lineHeight(font) + (height / 32);
 
                 String owner = ((Feature) fddiNode).getInitials();
                 if (owner != null && !owner.trim().isEmpty()) {
-                    Text ownerText = new Text(owner);
-                    ownerText.setFont(font);
-                    double ownerWidth = ownerText.getBoundsInLocal().getWidth();
+                    double ownerWidth = TextMetricsCache.getInstance().width(owner, font);
                     // Right-align with a small padding so it does not touch the border
                     double padding = 2.0;
                     double textX = Math.round((originX + width) - ownerWidth - padding);
@@ -286,9 +304,7 @@ class FDDGraphicFX {
         gc.setFont(consistentFont);
         
         // Get precise text measurements for perfect centering
-        Text tempText = new Text(progressText);
-        tempText.setFont(consistentFont);
-        double textWidth = tempText.getBoundsInLocal().getWidth();
+        double textWidth = TextMetricsCache.getInstance().width(progressText, consistentFont);
         
         // Calculate perfect horizontal centering with generous padding for clipping prevention
         double safePadding = Math.max(8.0, w * 0.08); // Generous 8px minimum or 8% padding
@@ -306,7 +322,7 @@ class FDDGraphicFX {
         // Proper vertical centering for fillText() baseline positioning
         // In JavaFX, fillText() positions text by its baseline, not top-left corner
         // We need to account for the text's baseline offset for perfect centering
-        double textBaseline = tempText.getBaselineOffset();
+        double textBaseline = TextMetricsCache.getInstance().baselineOffset(consistentFont);
         double centerY = y + (h / 2);
         double textY = centerY + (textBaseline / 2); // Position baseline at center
         
@@ -336,8 +352,7 @@ class FDDGraphicFX {
         Date targetDate = fddiNode.getTargetDate();
         if (targetDate != null) {
             gc.setFill(Color.BLACK);
-            SimpleDateFormat formatter = new SimpleDateFormat("MMM dd, yyyy");
-            String dateText = formatter.format(targetDate);
+            String dateText = formatDate(targetDate);
             
             double textHeight = getTextHeight(consistentFont);
             // Position text within border area
@@ -372,9 +387,7 @@ class FDDGraphicFX {
      * Gets the height of text for the current font.
      */
     private double getTextHeight(Font font) {
-        Text text = new Text("Mg"); // Characters with ascenders and descenders
-        text.setFont(font);
-        return text.getBoundsInLocal().getHeight();
+        return TextMetricsCache.getInstance().lineHeight(font);
     }
     
     /**
@@ -407,9 +420,26 @@ class FDDGraphicFX {
         double finalSize = Math.min(zoomAdjustedSize, optimalSize * 1.2);
         
         // Return font with safe size that won't overflow
-        return Font.font(baseFont.getFamily(), 
+        OptimizedFont cached = lastFont;
+        if (cached != null && cached.size() == finalSize && cached.family().equals(baseFont.getFamily())) {
+            return cached.font();
+        }
+        Font font = Font.font(baseFont.getFamily(), 
                         javafx.scene.text.FontWeight.NORMAL, 
                         javafx.scene.text.FontPosture.REGULAR, 
                         finalSize);
+        lastFont = new OptimizedFont(baseFont.getFamily(), finalSize, font);
+        return font;
+    }
+
+    /** Formats a target date as "MMM dd, yyyy" in the current format locale. */
+    private static String formatDate(Date date) {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        DateFormat format = lastDateFormat;
+        if (format == null || !format.locale().equals(locale)) {
+            format = new DateFormat(locale, DateTimeFormatter.ofPattern("MMM dd, yyyy", locale));
+            lastDateFormat = format;
+        }
+        return format.formatter().format(date.toInstant().atZone(ZoneId.systemDefault()));
     }
 }
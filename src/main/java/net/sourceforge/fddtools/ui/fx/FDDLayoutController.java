@@ -33,6 +33,8 @@ public class FDDLayoutController {
         FDDTreeViewFX getProjectTree();
         /** Gets the action handler for tree action panel. */
         FDDActionPanelFX.FDDActionHandler getActionHandler();
+        /** Overlay that shows background open progress; none by default. */
+        default BusyOverlay getBusyOverlay() { return null; }
     }
 
     private final Host host;
@@ -159,21 +161,26 @@ public class FDDLayoutController {
         navigationHistory.clear();
     }
 
+    /** Parses the project on a background thread behind the busy overlay, then shows it. */
     public void loadProjectFromPath(String absolutePath){
         if (absolutePath==null) return;
         LOGGER.debug("Loading project from {}", absolutePath);
-        try {
-            FDDINode rootNode = (FDDINode) FDDIXMLFileReader.read(absolutePath);
-            if (rootNode == null) { host.showErrorDialog("Open Project Failed","Failed to parse the selected file."); return; }
-            ProjectService.getInstance().openWithRoot(absolutePath, rootNode);
-            rebuildProjectUI(rootNode, false);
-            
-            // Add to recent files and update preferences
-            PreferencesService.getInstance().addRecentFile(absolutePath);
-            PreferencesService.getInstance().setLastProjectPath(absolutePath);
-            PreferencesService.getInstance().flushNow();
-            
-            LOGGER.info("Project loaded: {}", absolutePath);
-        } catch (Exception e){ LOGGER.error("Load project failed: {}", e.getMessage(), e); host.showErrorDialog("Open Project Failed", e.getMessage()); }
+        ProjectIoTasks.run(FDDIXMLFileReader.createReadTask(absolutePath, parsed -> ProjectLifecycleController.recoverUnsaved(absolutePath, parsed)), host.getBusyOverlay(), loaded -> {
+            if (!(loaded instanceof FDDINode rootNode)) { host.showErrorDialog("Open Project Failed","Failed to parse the selected file."); return; }
+            openLoadedProject(absolutePath, rootNode);
+        }, e -> { LOGGER.error("Load project failed: {}", e == null ? "unknown" : e.getMessage(), e); host.showErrorDialog("Open Project Failed", e == null ? "unknown" : e.getMessage()); });
+    }
+
+    /** Shows a project root parsed elsewhere (e.g. on a background thread) without reading the file again. */
+    public void openLoadedProject(String absolutePath, FDDINode rootNode){
+        ProjectService.getInstance().openWithRoot(absolutePath, rootNode);
+        rebuildProjectUI(rootNode, false);
+        
+        // Add to recent files and update preferences
+        PreferencesService.getInstance().addRecentFile(absolutePath);
+        PreferencesService.getInstance().setLastProjectPath(absolutePath);
+        PreferencesService.getInstance().flushNow();
+        
+        LOGGER.info("Project loaded: {}", absolutePath);
     }
 }
@@ -55,6 +55,7 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
     private MenuBar menuBar;
     private ToolBar toolBar;
     private SplitPane mainSplitPane;
+    private final BusyOverlay busyOverlay = new BusyOverlay();
     private SplitPane rightSplitPane; // For canvas and panels
     private TabPane infoPanelContainer; // Container for aspect and work package panels
     private FDDTreeViewFX projectTreeFX;
@@ -93,6 +94,7 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
             @Override public void loadProjectFromPath(String path, boolean rebuildUI) throws Exception { layoutController.loadProjectFromPath(path); }
             @Override public void rebuildProjectUI(FDDINode root, boolean markDirty) { layoutController.rebuildProjectUI(root, markDirty); }
             @Override public Stage getPrimaryStage() { return primaryStage; }
+            @Override public BusyOverlay getBusyOverlay() { return busyOverlay; }
         });
     this.commandBindings = new FDDCommandBindings(commandExec, this::refreshView, this::updateTitle);
     this.layoutController = new FDDLayoutController(new FDDLayoutController.Host() {
@@ -111,6 +113,7 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
             FDDMainWindowFX.this.updateNavigationButtons(canGoBack, canGoForward); 
         }
         @Override public FDDTreeViewFX getProjectTree() { return projectTreeFX; }
+        @Override public BusyOverlay getBusyOverlay() { return busyOverlay; }
         @Override public FDDActionPanelFX.FDDActionHandler getActionHandler() {
             return new FDDActionPanelFX.FDDActionHandler() {
                 @Override public void onAdd() { addFromSelected(); }
@@ -129,6 +132,7 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
         @Override public void updateTitle() { FDDMainWindowFX.this.updateTitle(); }
         @Override public boolean canClose() { return FDDMainWindowFX.this.canClose(); }
         @Override public void showErrorDialog(String title, String message) { FDDMainWindowFX.this.showErrorDialog(title,message); }
+        @Override public BusyOverlay getBusyOverlay() { return busyOverlay; }
     });
         
     // Options system removed; using default font configuration
@@ -166,9 +170,25 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
         net.sourceforge.fddtools.state.ModelEventBus.get().subscribe(new java.util.function.Consumer<>() {
             private boolean scheduled;
             private void schedule(){ if(scheduled) return; scheduled=true; Platform.runLater(()->{ scheduled=false; refreshView(); }); }
+            // Patch synchronously when on the FX thread so callers can select freshly added nodes right away
+            private void onFx(Runnable r){ if (Platform.isFxApplicationThread()) r.run(); else Platform.runLater(r); }
             @Override public void accept(net.sourceforge.fddtools.state.ModelEventBus.Event ev){
                 switch(ev.type){
-                    case NODE_UPDATED, TREE_STRUCTURE_CHANGED, PROJECT_LOADED -> schedule();
+                    // Node edits and structure changes patch the tree and repaint only the affected canvas element
+                    case NODE_UPDATED -> {
+                        if (ev.payload instanceof FDDINode n) onFx(() -> {
+                            if (projectTreeFX != null) projectTreeFX.nodeUpdated(n);
+                            if (canvasFX != null) canvasFX.nodeChanged(n);
+                        });
+                    }
+                    case TREE_STRUCTURE_CHANGED -> {
+                        if (ev.payload instanceof FDDINode n) onFx(() -> {
+                            if (projectTreeFX != null) projectTreeFX.childrenChanged(n);
+                            if (canvasFX != null) canvasFX.nodeChanged(n);
+                        }); else schedule();
+                    }
+                    // rebuildProjectUI has already built tree and canvas for the new root
+                    case PROJECT_LOADED -> { }
                     case UI_LANGUAGE_CHANGED -> Platform.runLater(() -> { FDDMainWindowFX.this.refreshI18n(); FDDMainWindowFX.this.refreshView(); });
                     case UI_THEME_CHANGED -> Platform.runLater(this::schedule);
                 }
@@ -255,8 +275,8 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
     private void layoutComponents() {
         // Set up the main layout
         setTop(new VBox(menuBar, toolBar));
-        // Direct center placement - clean and simple without wrapper issues
-        setCenter(mainSplitPane);
+        // Busy overlay sits above the content while a project open/save runs in the background
+        setCenter(new javafx.scene.layout.StackPane(mainSplitPane, busyOverlay));
         // Bottom status bar removed - action panel now integrated into tree container
         
         // Ensure split pane has two items so divider exists
@@ -582,6 +602,8 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
     private void editSelectedNode(FDDINode node) {
         if (node != null) {
             Platform.runLater(() -> {
+                // The dialog edits the node in place before the command is issued
+                net.sourceforge.fddtools.state.NodeClipboard.getInstance().beforeModelMutation(null);
                 var beforeSnapshot = EditNodeCommand.capture(node);
                 FDDElementDialogFX dlg = new FDDElementDialogFX(primaryStage, node);
                 configureDialogCentering(dlg);
@@ -635,9 +657,9 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
                         commandBindings.updateUndoRedoState();
                     }
                     markDirty();
-                    if (canvasFX != null) canvasFX.redraw();
+                    if (canvasFX != null) canvasFX.nodeChanged(node);
                     if (projectTreeFX != null) {
-                        projectTreeFX.refresh();
+                        projectTreeFX.nodeUpdated(node);
                         projectTreeFX.selectNode(node);
                     }
                 }
@@ -715,6 +737,13 @@ public class FDDMainWindowFX extends BorderPane implements FDDTreeContextMenuHan
         return true;
     }
 
+    /** Shows a project root that was already parsed, e.g. by the startup auto-load, and announces it. */
+    public void openLoadedProject(String path, FDDINode root) {
+        layoutController.openLoadedProject(path, root);
+        refreshRecentFilesMenu();
+        net.sourceforge.fddtools.state.ModelEventBus.get().publish(net.sourceforge.fddtools.state.ModelEventBus.EventType.PROJECT_LOADED, root);
+    }
+
     public void cleanup() { LOGGER.info("FDDMainWindowFX cleanup completed"); }
 
     private void configureDialogCentering(Stage stage) {
@@ -45,14 +45,8 @@ public class FDDSearchableTreeCell extends TreeCell<FDDINode> {
                 if (treeItem != null && searchController.isHighlighted(treeItem)) {
                     getStyleClass().add("search-highlight");
                     
-                    // Check if this is the current match
-                    int currentIndex = searchController.getCurrentMatchIndex();
-                    if (currentIndex >= 0 && currentIndex < searchController.getCurrentMatches().size()) {
-                        TreeItem<FDDINode> currentMatch = searchController.getCurrentMatches()
-                            .get(currentIndex).getTreeItem();
-                        if (treeItem == currentMatch) {
-                            getStyleClass().add("search-current-match");
-                        }
+                    if (searchController.isCurrentMatch(treeItem)) {
+                        getStyleClass().add("search-current-match");
                     }
                 }
             }
@@ -4,8 +4,10 @@ import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.geometry.Insets;
+import javafx.util.Duration;
 import net.sourceforge.fddtools.model.FDDINode;
 import net.sourceforge.fddtools.search.FDDTreeSearchController;
+import net.sourceforge.fddtools.service.PreferencesService;
 
 /**
  * Container that holds the tree view with search toolbar and action panel,
@@ -29,6 +31,10 @@ public class FDDTreeContainerFX extends VBox {
         
         // Initialize components
         treeView = new FDDTreeViewFX(enableProgramBusinessLogic);
+        PreferencesService prefs = PreferencesService.getInstance();
+        int releaseSeconds = prefs.getTreeReleaseSeconds();
+        treeView.setLazyLoading(prefs.getTreeLazyThreshold(), prefs.getTreeExpandDepth(),
+            releaseSeconds > 0 ? Duration.seconds(releaseSeconds) : null);
         actionPanel = new FDDActionPanelFX();
         searchUI = new FDDTreeSearchUI();
         searchController = new FDDTreeSearchController(treeView);
@@ -104,7 +104,7 @@ public class FDDTreeSearchUI extends HBox implements FDDTreeSearchController.Sea
                     if (!hasText) {
                         searchController.clearSearch();
                     } else {
-                        searchController.search(newValue);
+                        searchController.searchAsync(newValue);
                     }
                 }
             }
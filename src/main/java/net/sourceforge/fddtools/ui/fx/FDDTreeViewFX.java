@@ -23,13 +23,21 @@ import com.nebulon.xml.fddi.Subject;
 import com.nebulon.xml.fddi.Activity;
 import com.nebulon.xml.fddi.Feature;
 import net.sourceforge.fddtools.state.ModelState;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.IdentityHashMap;
+import javafx.animation.PauseTransition;
+import javafx.collections.ObservableList;
+import javafx.event.Event;
+import javafx.util.Duration;
 // Drag & drop specific imports removed (handled by FDDTreeDragAndDropController)
 import javafx.scene.input.KeyEvent;
 import net.sourceforge.fddtools.search.FDDTreeSearchController;
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
 import net.sourceforge.fddtools.command.MoveNodeCommand;
 import net.sourceforge.fddtools.command.CommandExecutionService;
 import net.sourceforge.fddtools.service.LoggingService;
@@ -41,11 +49,19 @@ public class FDDTreeViewFX extends TreeView<FDDINode> {
     /** Drag source tracked for DnD (package visibility for controller). */
     FDDINode dragSourceNode;
     private FDDTreeDragAndDropController dndController;
-    /** Fast lookup from domain node identity to its TreeItem for incremental updates. */
-    private final Map<FDDINode, TreeItem<FDDINode>> nodeItemIndex = new IdentityHashMap<>();
+    /** Per-node view state (TreeItem, search flags, expansion) by node identity. */
+    private final TreeNodeViewIndex nodeViews = new TreeNodeViewIndex();
+    /** Trees with more nodes than this are shown lazily (see {@link #setLazyLoading}); eager by default. */
+    private int lazyThreshold = Integer.MAX_VALUE;
+    /** Levels below the root that a lazily shown tree opens expanded. */
+    private int lazyExpandDepth = 2;
+    /** Idle time after which a collapsed lazy subtree drops its items; null keeps them. */
+    private Duration lazyReleaseDelay = Duration.seconds(60);
+    /** Whether the current tree was built lazily. */
+    private boolean lazy;
     /** Flag to suppress automatic scrolling during drag and drop operations */
     private boolean suppressAutoScroll = false;
-    /** Search controller for search highlighting support */
+    /** Search controller driving the highlights kept in {@link #nodeViews} */
     private FDDTreeSearchController searchController;
 
     public FDDTreeViewFX() {
@@ -179,8 +195,6 @@ public class FDDTreeViewFX extends TreeView<FDDINode> {
      */
     public void setSearchController(FDDTreeSearchController searchController) {
         this.searchController = searchController;
-        // Recreate cell factory to include search highlighting
-        setupCellFactory();
     }
 
     private void setupCellFactory() {
@@ -287,21 +301,10 @@ public class FDDTreeViewFX extends TreeView<FDDINode> {
                     if (isSelected()) setStyle("");
                     
                     // Apply search highlighting if applicable
-                    if (searchController != null) {
-                        TreeItem<FDDINode> treeItem = getTreeItem();
-                        if (treeItem != null && searchController.isHighlighted(treeItem)) {
-                            getStyleClass().add("search-highlight");
-                            
-                            // Check if this is the current match
-                            int currentIndex = searchController.getCurrentMatchIndex();
-                            if (currentIndex >= 0 && currentIndex < searchController.getCurrentMatches().size()) {
-                                TreeItem<FDDINode> currentMatch = searchController.getCurrentMatches()
-                                    .get(currentIndex).getTreeItem();
-                                if (treeItem == currentMatch) {
-                                    getStyleClass().add("search-current-match");
-                                }
-                            }
-                        }
+                    TreeNodeViewIndex.NodeView view = nodeViews.get(item);
+                    if (view != null && view.highlighted) {
+                        getStyleClass().add("search-highlight");
+                        if (view.currentMatch) getStyleClass().add("search-current-match");
                     }
                 }
             }
@@ -415,45 +418,302 @@ public class FDDTreeViewFX extends TreeView<FDDINode> {
             return;
         }
         
-    nodeItemIndex.clear();
-    TreeItem<FDDINode> rootItem = buildTreeItem(rootNode);
+        LoggingService.Span span = LoggingService.getInstance().startPerf("treePopulate", Map.of("action", "populate"));
+    // Rebuilding the same tree keeps each node's expansion; another tree starts afresh
+    if (getRoot() != null && getRoot().getValue() == rootNode) nodeViews.unbindAll(); else nodeViews.clear();
+    lazy = !hasAtMostNodes(rootNode, lazyThreshold);
+    TreeItem<FDDINode> rootItem = buildTreeItem(rootNode, lazyExpandDepth);
         setRoot(rootItem);
         rootItem.setExpanded(true);
         setShowRoot(true);
     // Re-apply stylesheet after root assignment to ensure highest precedence
         // loadStylesheet(); // Removed invalid call
     getStyleClass().add("fdd-tree-view");
+        span.metric("items", nodeViews.itemCount()).metric("lazy", lazy).close();
+    }
+
+    /**
+     * Shows trees of more than {@code threshold} nodes lazily: only the top {@code expandDepth} levels
+     * below the root get TreeItems and open expanded, deeper items are created when their parent is
+     * expanded or a lookup ({@link #selectNode}, search reveal) needs them, and a subtree left collapsed
+     * for {@code releaseAfter} drops its items again ({@code null} keeps them). Smaller trees are built
+     * in full and fully expanded. Applies from the next {@link #populateTree}.
+     */
+    public void setLazyLoading(int threshold, int expandDepth, Duration releaseAfter) {
+        this.lazyThreshold = threshold;
+        this.lazyExpandDepth = Math.max(0, expandDepth);
+        this.lazyReleaseDelay = releaseAfter;
+    }
+
+    /** True if the current tree creates its items on demand. */
+    public boolean isLazy() { return lazy; }
+
+    // Package-visible for tests: number of TreeItems currently created.
+    int itemCount() { return nodeViews.itemCount(); }
+
+    /**
+     * Highlights {@code nodes} as search matches, with {@code currentMatch} (may be null) as the
+     * current one. Only cells whose state changed are repainted.
+     * @return the number of nodes whose highlight changed
+     */
+    public int setSearchHighlights(java.util.Collection<FDDINode> nodes, FDDINode currentMatch) {
+        return repaint(nodeViews.setHighlights(nodes, currentMatch));
+    }
+
+    /** Moves the current search match to {@code node} (null for none), repainting the two cells involved. */
+    public void setCurrentSearchMatch(FDDINode node) {
+        repaint(nodeViews.setCurrentMatch(node));
+    }
+
+    public boolean isSearchHighlighted(FDDINode node) { return nodeViews.isHighlighted(node); }
+
+    public boolean isCurrentSearchMatch(FDDINode node) { return nodeViews.isCurrentMatch(node); }
+
+    private int repaint(List<FDDINode> nodes) {
+        for (FDDINode node : nodes) nodeUpdated(node);
+        return nodes.size();
+    }
+
+    /** True if the tree under {@code root} has at most {@code limit} nodes, all already loaded. */
+    private static boolean hasAtMostNodes(FDDINode root, int limit) {
+        if (limit == Integer.MAX_VALUE) return true;
+        Deque<FDDINode> pending = new ArrayDeque<>();
+        pending.push(root);
+        int count = 0;
+        while (!pending.isEmpty()) {
+            FDDINode node = pending.pop();
+            // A node with pending children (paged file) counts as large rather than being loaded here
+            if (++count > limit || !node.isChildrenLoaded()) return false;
+            for (FDDTreeNode child : node.getChildren()) pending.push((FDDINode) child);
+        }
+        return true;
     }
 
     /**
      * Refreshes the tree by repopulating it from the current root.
+     * Full rebuild: model edits are patched in place by {@link #nodeUpdated} and {@link #childrenChanged};
+     * this remains the explicit fallback (project reload, View &gt; Refresh, untracked mutations).
      */
-    public void refresh() { // legacy full rebuild
+    public void refresh() {
         if (getRoot() == null) return;
-        // Preserve expansion state & selection
+        LoggingService.Span span = LoggingService.getInstance().startPerf("treeRefresh", Map.of("action", "refresh"));
+        // Preserve selection; populateTree keeps the expansion of a rebuilt tree
         FDDINode selected = getSelectedNode();
-        Map<FDDINode, Boolean> expanded = snapshotExpansion();
         FDDINode rootNode = getRoot().getValue();
         populateTree(rootNode);
-        restoreExpansion(expanded);
         if (selected != null) selectNode(selected);
+        span.metric("items", nodeViews.itemCount()).close();
+    }
+
+    /**
+     * Re-renders the cell of {@code node} after its own fields (name, owner, milestones) changed.
+     * Children and expansion are untouched.
+     */
+    public void nodeUpdated(FDDINode node) {
+        TreeItem<FDDINode> item = nodeViews.item(node);
+        if (item == null) return;
+        // Same value instance, so setValue would not notify; the skin rebuilds visible cells on this event
+        Event.fireEvent(item, new TreeItem.TreeModificationEvent<>(TreeItem.valueChangedEvent(), item, node));
     }
 
     /**
-     * Recursively builds a TreeItem hierarchy from the FDDINode hierarchy.
+     * Patches the children of {@code parent}'s TreeItem to match the model after an add, delete, paste,
+     * move, undo or redo. Surviving items are reused, so expansion and selection are kept; only the changed
+     * range of the child list is replaced. Falls back to {@link #refresh()} if the parent is in the tree
+     * but has no item.
      */
-    private TreeItem<FDDINode> buildTreeItem(FDDINode node) {
+    public void childrenChanged(FDDINode parent) {
+        if (parent == null || getRoot() == null) return;
+        TreeItem<FDDINode> parentItem = nodeViews.item(parent);
+        if (parentItem == null) {
+            if (isInTree(parent) && !belowUnbuiltItem(parent)) refresh();
+            return;
+        }
+        if (parentItem instanceof NodeItem lazyItem && !lazyItem.built) {
+            // No child items to patch; they are created from the model on expansion. Redraw the disclosure arrow.
+            nodeUpdated(parent);
+            return;
+        }
+        List<TreeItem<FDDINode>> target = new ArrayList<>(parent.getChildren().size());
+        for (FDDTreeNode tn : parent.getChildren()) {
+            FDDINode child = (FDDINode) tn;
+            TreeItem<FDDINode> item = nodeViews.item(child);
+            if (item == null) {
+                item = buildTreeItem(child, 0);
+            } else if (item.getParent() != null && item.getParent() != parentItem) {
+                item.getParent().getChildren().remove(item); // moved here from another parent
+            }
+            target.add(item);
+        }
+        var current = parentItem.getChildren();
+        int start = 0;
+        while (start < current.size() && start < target.size() && current.get(start) == target.get(start)) start++;
+        int endCurrent = current.size(), endTarget = target.size();
+        while (endCurrent > start && endTarget > start && current.get(endCurrent - 1) == target.get(endTarget - 1)) {
+            endCurrent--; endTarget--;
+        }
+        if (start == endCurrent && start == endTarget) return;
+
+        LoggingService.Span span = LoggingService.getInstance().startPerf("treePatch", Map.of("action", "childrenChanged"));
+        FDDINode selected = getSelectedNode();
+        List<TreeItem<FDDINode>> removed = new ArrayList<>(current.subList(start, endCurrent));
+        current.subList(start, endCurrent).clear();
+        current.addAll(start, target.subList(start, endTarget));
+        if (endTarget > start) parentItem.setExpanded(true);
+        for (TreeItem<FDDINode> item : removed) {
+            if (item.getParent() == null && !attachedElsewhere(item.getValue(), parent)) unindex(item, false);
+        }
+        if (selected != null && getSelectedNode() != selected && nodeViews.hasItem(selected)) selectNode(selected, false);
+        span.metric("removed", endCurrent - start).metric("added", endTarget - start).metric("items", nodeViews.itemCount()).close();
+    }
+
+    /** True if {@code node} was moved under another parent whose structure event may still be pending. */
+    private boolean attachedElsewhere(FDDINode node, FDDINode oldParent) {
+        FDDINode parent = node.getParent();
+        return parent != null && parent != oldParent && nodeViews.hasItem(parent) && parent.getChildren().contains(node);
+    }
+
+    /** True if the nearest ancestor of {@code node} that has an item has not created its children yet. */
+    private boolean belowUnbuiltItem(FDDINode node) {
+        for (FDDINode n = node.getParent(); n != null; n = n.getParent()) {
+            TreeItem<FDDINode> item = nodeViews.item(n);
+            if (item != null) return item instanceof NodeItem lazyItem && !lazyItem.built;
+        }
+        return false;
+    }
+
+    private boolean isInTree(FDDINode node) {
+        FDDINode rootNode = getRoot().getValue();
+        for (FDDINode n = node; n != null; n = n.getParent()) {
+            if (n == rootNode) return true;
+        }
+        return false;
+    }
+
+    /** Drops the items of a subtree from the index; {@code remember} keeps their expansion for re-created items. */
+    private void unindex(TreeItem<FDDINode> item, boolean remember) {
+        nodeViews.unbind(item, remember);
+        for (TreeItem<FDDINode> child : builtChildren(item)) unindex(child, remember);
+    }
+
+    /** Child items that already exist, without creating those of a lazy item. */
+    private static List<TreeItem<FDDINode>> builtChildren(TreeItem<FDDINode> item) {
+        return item instanceof NodeItem lazyItem && !lazyItem.built ? List.of() : item.getChildren();
+    }
+
+    /**
+     * Makes sure {@code node} has a TreeItem, rebuilding the tree as a fallback when a mutation
+     * bypassed the structure events.
+     */
+    void ensureItem(FDDINode node) {
+        if (node != null && getRoot() != null && itemFor(node) == null) refresh();
+    }
+
+    /**
+     * The TreeItem showing {@code node}, creating the lazy items on the path down to it if needed;
+     * {@code null} if the node is not in this tree.
+     */
+    public TreeItem<FDDINode> itemFor(FDDINode node) {
+        if (node == null) return null;
+        TreeItem<FDDINode> item = nodeViews.item(node);
+        if (item != null) return item;
+        TreeItem<FDDINode> parentItem = itemFor(node.getParent());
+        if (!(parentItem instanceof NodeItem lazyItem) || lazyItem.built) return null;
+        lazyItem.build(0);
+        return nodeViews.item(node);
+    }
+
+    /**
+     * Builds the TreeItem for {@code node}. Eager trees get the whole subtree, expanded; lazy trees get
+     * items for the next {@code depth} levels, expanded, and placeholders below. A node whose earlier
+     * item was seen opens as that item was.
+     */
+    private TreeItem<FDDINode> buildTreeItem(FDDINode node, int depth) {
+        if (lazy) {
+            NodeItem item = new NodeItem(node);
+            boolean open = nodeViews.rememberedExpansion(node, depth > 0);
+            nodeViews.bind(node, item);
+            if (open && !node.isLeaf()) {
+                item.build(Math.max(0, depth - 1));
+                item.setExpanded(true);
+            }
+            return item;
+        }
         TreeItem<FDDINode> item = new TreeItem<>(node);
-        nodeItemIndex.put(node, item);
+        boolean open = nodeViews.rememberedExpansion(node, true);
+        nodeViews.bind(node, item);
     if (node != null && !node.getChildren().isEmpty()) {
-            for (net.sourceforge.fddtools.model.FDDTreeNode tn : node.getChildren()) {
+            for (FDDTreeNode tn : node.getChildren()) {
                 FDDINode childNode = (FDDINode) tn; // transitional cast
-                item.getChildren().add(buildTreeItem(childNode));
+                item.getChildren().add(buildTreeItem(childNode, depth));
             }
         }
-        item.setExpanded(true); // expand by default
+        item.setExpanded(open); // expand by default
         return item;
     }
+
+    /**
+     * TreeItem of a lazily shown tree. Its children are created from the model on first access
+     * (expansion, {@link #itemFor}, a walk over {@link #getChildren()}); until then it reports
+     * {@link #isLeaf()} from the model. Once collapsed and idle for the release delay it drops them
+     * again, unless the selection is below it.
+     */
+    private final class NodeItem extends TreeItem<FDDINode> {
+        private boolean built;
+        private PauseTransition release;
+
+        NodeItem(FDDINode node) {
+            super(node);
+            expandedProperty().addListener((obs, was, expanded) -> {
+                if (expanded) {
+                    if (release != null) release.stop();
+                    build(0);
+                } else {
+                    scheduleRelease();
+                }
+            });
+        }
+
+        @Override
+        public ObservableList<TreeItem<FDDINode>> getChildren() {
+            if (!built) build(0);
+            return super.getChildren();
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return built ? super.getChildren().isEmpty() : getValue().isLeaf();
+        }
+
+        /** Creates the child items, opening the next {@code depth} levels below them. */
+        void build(int depth) {
+            if (built) return;
+            built = true;
+            List<TreeItem<FDDINode>> items = new ArrayList<>();
+            for (FDDTreeNode child : getValue().getChildren()) items.add(buildTreeItem((FDDINode) child, depth));
+            super.getChildren().setAll(items);
+        }
+
+        private void scheduleRelease() {
+            if (!built || lazyReleaseDelay == null || lazyReleaseDelay.lessThanOrEqualTo(Duration.ZERO)) return;
+            if (release == null) {
+                release = new PauseTransition(lazyReleaseDelay);
+                release.setOnFinished(e -> release());
+            }
+            release.playFromStart();
+        }
+
+        private void release() {
+            if (!built || isExpanded() || nodeViews.item(getValue()) != this) return;
+            TreeItem<FDDINode> selected = getSelectionModel().getSelectedItem();
+            for (TreeItem<FDDINode> p = selected != null ? selected.getParent() : null; p != null; p = p.getParent()) {
+                if (p == this) return;
+            }
+            for (TreeItem<FDDINode> child : super.getChildren()) unindex(child, true);
+            super.getChildren().clear();
+            built = false;
+        }
+    }
     
     // Removed Swing embedding (JFXPanel) for pure JavaFX deployment
     
@@ -475,7 +735,7 @@ public class FDDTreeViewFX extends TreeView<FDDINode> {
     /** Internal selection helper with optional scrolling. */
     void selectNode(FDDINode nodeToSelect, boolean scroll) {
         if (nodeToSelect != null && getRoot() != null) {
-            TreeItem<FDDINode> itemToSelect = findTreeItem(getRoot(), nodeToSelect);
+            TreeItem<FDDINode> itemToSelect = itemFor(nodeToSelect);
             if (itemToSelect != null) {
                 if (suppressAutoScroll) {
                     // During drag and drop, use a different approach to prevent scrolling
@@ -570,37 +830,24 @@ public class FDDTreeViewFX extends TreeView<FDDINode> {
         this.suppressAutoScroll = suppress;
     }
     
-    /**
-     * Recursively searches for a TreeItem containing the target node.
-     */
-    private TreeItem<FDDINode> findTreeItem(TreeItem<FDDINode> parent, FDDINode target) {
-        if (parent.getValue() == target) {
-            return parent;
-        }
-        
-        for (TreeItem<FDDINode> child : parent.getChildren()) {
-            TreeItem<FDDINode> result = findTreeItem(child, target);
-            if (result != null) {
-                return result;
-            }
-        }
-        
-        return null;
-    }
-
     /** Incrementally update UI after a MoveNodeCommand to avoid full tree rebuild. */
     void updateAfterMove(FDDINode node, FDDINode newParent, int newIndex) {
     if (node == null || newParent == null) { /* fallback */ refresh(); return; }
     // Guard against illegal self-parenting or descendant cycles (should not occur if command validated)
     if (node == newParent) { return; }
     if (isDescendant(newParent, node)) { return; }
-        TreeItem<FDDINode> item = nodeItemIndex.get(node);
-        TreeItem<FDDINode> newParentItem = nodeItemIndex.get(newParent);
+        TreeItem<FDDINode> item = nodeViews.item(node);
+        TreeItem<FDDINode> newParentItem = itemFor(newParent);
     if (item == null || newParentItem == null) { /* fallback */ refresh(); return; }
     TreeItem<FDDINode> oldParentItem = item.getParent();
     var oldList = oldParentItem != null ? oldParentItem.getChildren() : null;
-    var newList = newParentItem.getChildren();
-    TreeMoveHelper.move(oldList, newList, item, newIndex);
+    if (newParentItem instanceof NodeItem lazyItem && !lazyItem.built) {
+        // The target's items come from the model, which already has the node in place
+        if (oldList != null) oldList.remove(item);
+        unindex(item, true);
+    } else {
+        TreeMoveHelper.move(oldList, newParentItem.getChildren(), item, newIndex);
+    }
     // ensure mapping consistent (parent unchanged) and expand new parent
         newParentItem.setExpanded(true);
     // During drag and drop, delay selection to avoid auto-scrolling - the drag controller will handle scroll restoration
@@ -620,23 +867,6 @@ public class FDDTreeViewFX extends TreeView<FDDINode> {
     announceStatus("Moved '"+node.getName()+"'");
     }
 
-    private Map<FDDINode, Boolean> snapshotExpansion(){
-        Map<FDDINode, Boolean> map = new IdentityHashMap<>();
-        snapshotExpansionRec(getRoot(), map);
-        return map;
-    }
-    private void snapshotExpansionRec(TreeItem<FDDINode> item, Map<FDDINode, Boolean> map){
-        if (item == null) return; map.put(item.getValue(), item.isExpanded());
-        for (TreeItem<FDDINode> child : item.getChildren()) snapshotExpansionRec(child, map);
-    }
-    private void restoreExpansion(Map<FDDINode, Boolean> state){
-        if (state==null) return; restoreExpansionRec(getRoot(), state);
-    }
-    private void restoreExpansionRec(TreeItem<FDDINode> item, Map<FDDINode, Boolean> state){
-        if (item==null) return; Boolean exp = state.get(item.getValue()); if (exp!=null) item.setExpanded(exp);
-        for (TreeItem<FDDINode> c: item.getChildren()) restoreExpansionRec(c, state);
-    }
-
     // Hook for status announcements (status bar / accessibility). Overridden by layout controller injection.
     void announceStatus(String message){ /* default no-op; wired externally */ }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import net.sourceforge.fddtools.state.ModelState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs project I/O tasks (open, save) on a background thread, one at a time, with the busy overlay
+ * (if any) showing progress. Tasks that work on the live model (opening replaces it) mark the model
+ * busy, which freezes command execution; tasks that work on a snapshot (saving) leave it editable.
+ * Completion callbacks run once on the FX thread.
+ */
+public final class ProjectIoTasks {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectIoTasks.class);
+    private static boolean running; // FX thread only
+
+    private ProjectIoTasks() {}
+
+    /** True while a task started here has not completed; read on the FX thread. */
+    public static boolean isRunning() { return running; }
+
+    /** Runs {@code task} with the model frozen; see {@link #run(Task, BusyOverlay, boolean, Consumer, Consumer)}. */
+    public static <T> void run(Task<T> task, BusyOverlay overlay, Consumer<T> onSucceeded, Consumer<Throwable> onFailed) {
+        run(task, overlay, true, onSucceeded, onFailed);
+    }
+
+    /**
+     * Starts {@code task}. {@code onSucceeded} receives the task value; {@code onFailed} receives the
+     * failure cause. Nothing is called back when the user cancels, or when another project task is
+     * still running, in which case the task is not started. With {@code freezeModel} commands are
+     * refused until the task completes and the overlay blocks the content; without it the overlay
+     * only shows progress.
+     */
+    public static <T> void run(Task<T> task, BusyOverlay overlay, boolean freezeModel, Consumer<T> onSucceeded, Consumer<Throwable> onFailed) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> run(task, overlay, freezeModel, onSucceeded, onFailed));
+            return;
+        }
+        if (running) {
+            LOGGER.warn("Ignoring project file operation while another one is in progress");
+            return;
+        }
+        running = true;
+        ModelState state = ModelState.getInstance();
+        if (freezeModel) state.setBusy(true);
+        if (overlay != null) overlay.show(task, freezeModel);
+        Runnable finish = () -> {
+            running = false;
+            if (freezeModel) state.setBusy(false);
+            if (overlay != null) overlay.hide();
+        };
+        task.setOnSucceeded(e -> { finish.run(); onSucceeded.accept(task.getValue()); });
+        task.setOnFailed(e -> {
+            finish.run();
+            Throwable cause = task.getException();
+            LOGGER.warn("Background task failed: {}", cause == null ? "unknown" : cause.toString());
+            onFailed.accept(cause);
+        });
+        task.setOnCancelled(e -> { finish.run(); LOGGER.info("Background task cancelled"); });
+        Thread t = new Thread(task, "fdd-project-io"); //NOI18N
+        t.setDaemon(true);
+        t.start();
+    }
+}
@@ -5,6 +5,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import net.sourceforge.fddtools.model.FDDINode;
 import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
+import net.sourceforge.fddtools.service.AutosaveService;
 import net.sourceforge.fddtools.service.DialogService;
 import net.sourceforge.fddtools.service.ProjectService;
 import net.sourceforge.fddtools.state.ModelState;
@@ -30,6 +31,8 @@ public class ProjectLifecycleController {
         void updateTitle();
         boolean canClose();
         void showErrorDialog(String title, String message);
+        /** Overlay that shows background open progress; none by default. */
+        default BusyOverlay getBusyOverlay() { return null; }
     }
 
     /** Strategy for file dialogs to enable headless testing */
@@ -86,21 +89,13 @@ public class ProjectLifecycleController {
             File f = fileDialogStrategy.showOpenDialog(fc -> {
                 fc.setTitle("Open FDD Project");
                 fc.getExtensionFilters().addAll(
-                    new FileChooser.ExtensionFilter("FDD Files","*.fddi","*.xml"), 
+                    new FileChooser.ExtensionFilter("FDD Files","*.fddi","*.fddb","*.fddp","*.xml"), 
                     new FileChooser.ExtensionFilter("All Files","*.*")
                 );
             }, host.getPrimaryStage());
             
             if(f!=null){ 
-                FDDINode root=(FDDINode)FDDIXMLFileReader.read(f.getAbsolutePath()); 
-                // CRITICAL FIX: Update ProjectService with the opened file path
-                ProjectService.getInstance().openWithRoot(f.getAbsolutePath(), root);
-                host.rebuildProjectUI(root, false); 
-                net.sourceforge.fddtools.state.ModelEventBus.get().publish(net.sourceforge.fddtools.state.ModelEventBus.EventType.PROJECT_LOADED, root); 
-                PreferencesService.getInstance().addRecentFile(f.getAbsolutePath()); 
-                host.refreshRecentFilesMenu(); 
-                PreferencesService.getInstance().setLastProjectPath(f.getAbsolutePath()); 
-                PreferencesService.getInstance().flushNow(); 
+                openInBackground(f.getAbsolutePath(), true);
             } 
         } catch(Exception e){ 
             LOGGER.error("Open failed: {}", e.getMessage(), e); 
@@ -116,18 +111,38 @@ public class ProjectLifecycleController {
             host.refreshRecentFilesMenu(); 
             return; 
         } 
-        try { 
-            FDDINode root=(FDDINode)FDDIXMLFileReader.read(f.getAbsolutePath()); 
+        openInBackground(f.getAbsolutePath(), false);
+    }
+
+    /**
+     * Parses {@code path} on a background thread behind the busy overlay, then installs the root and
+     * rebuilds the UI once. {@code rememberAsLast} also records it as the project to auto-load.
+     */
+    private void openInBackground(String path, boolean rememberAsLast){
+        ProjectIoTasks.run(FDDIXMLFileReader.createReadTask(path, parsed -> recoverUnsaved(path, parsed)), host.getBusyOverlay(), loaded -> {
+            if (!(loaded instanceof FDDINode root)) {
+                host.showErrorDialog("Open Project Failed", "Failed to parse the selected file.");
+                return;
+            }
             // CRITICAL FIX: Update ProjectService with the opened file path
-            ProjectService.getInstance().openWithRoot(f.getAbsolutePath(), root);
+            ProjectService.getInstance().openWithRoot(path, root);
             host.rebuildProjectUI(root, false); 
             net.sourceforge.fddtools.state.ModelEventBus.get().publish(net.sourceforge.fddtools.state.ModelEventBus.EventType.PROJECT_LOADED, root); 
             PreferencesService.getInstance().addRecentFile(path); 
             host.refreshRecentFilesMenu(); 
-        } catch(Exception e){ 
-            LOGGER.error("Failed to load recent: {}", e.getMessage(), e); 
-            host.showErrorDialog("Open Project Failed","Error loading file: "+e.getMessage()); 
-        } 
+            if (rememberAsLast) {
+                PreferencesService.getInstance().setLastProjectPath(path); 
+                PreferencesService.getInstance().flushNow(); 
+            }
+        }, ex -> {
+            LOGGER.error("Open failed: {}", ex == null ? "unknown" : ex.getMessage(), ex); 
+            host.showErrorDialog("Open Project Failed", "Error loading file: "+(ex == null ? "unknown" : ex.getMessage())); 
+        });
+    }
+
+    /** Replays unsaved work left by a crash onto a freshly parsed root; runs on the read task's thread. */
+    static Object recoverUnsaved(String path, Object parsed){
+        return parsed instanceof FDDINode root ? AutosaveService.getInstance().recover(path, root) : parsed;
     }
 
     private void handleUnsavedChanges(Runnable proceed){ UnsavedChangesHandler.handle(ModelState.getInstance().isDirty(), () -> { ButtonType save = new ButtonType(I18n.get("UnsavedChanges.Save")); ButtonType dont = new ButtonType(I18n.get("UnsavedChanges.DontSave")); ButtonType cancel = new ButtonType(I18n.get("BusyOverlay.Cancel"), ButtonBar.ButtonData.CANCEL_CLOSE); ButtonType c = DialogService.getInstance().confirmWithChoices(host.getPrimaryStage(),I18n.get("UnsavedChanges.Title"),I18n.get("UnsavedChanges.Header"),I18n.get("UnsavedChanges.Content"), save,dont,cancel); if(c==save) return UnsavedChangesHandler.Decision.SAVE; if(c==dont) return UnsavedChangesHandler.Decision.DONT_SAVE; return UnsavedChangesHandler.Decision.CANCEL; }, this::saveCurrentProjectBlocking, proceed); }
@@ -189,6 +204,8 @@ public class ProjectLifecycleController {
                 fc.setTitle("Save FDD Project");
                 fc.getExtensionFilters().addAll(
                     new FileChooser.ExtensionFilter("FDD Files","*.fddi"), 
+                    new FileChooser.ExtensionFilter("FDD Binary Files","*.fddb"), 
+                    new FileChooser.ExtensionFilter("FDD Paged Files","*.fddp"), 
                     new FileChooser.ExtensionFilter("XML Files","*.xml")
                 );
                 fc.setInitialFileName(FileNameUtil.buildDefaultSaveFileName(ps.getDisplayName()));
@@ -35,7 +35,8 @@ public class SelectionCommandMediator {
 
     public void afterModelMutation(FDDINode nodeToSelect){
         if (host.getProjectTree() != null) {
-            host.getProjectTree().refresh();
+            // Commands patch the tree through their structure events; rebuild only if that did not happen
+            host.getProjectTree().ensureItem(nodeToSelect);
             host.getProjectTree().selectNode(nodeToSelect);
         }
         if (host.getCanvas() != null) {
@@ -67,6 +68,8 @@ public class SelectionCommandMediator {
     private void editSelectedNodeInternal(FDDINode node){
         if (node == null) return;
         Platform.runLater(() -> {
+            // The dialog edits the node in place before the command is issued
+            net.sourceforge.fddtools.state.NodeClipboard.getInstance().beforeModelMutation(null);
             EditNodeCommand.Snapshot beforeSnapshot = EditNodeCommand.capture(node);
             var dlg = new FDDElementDialogFX(host.getPrimaryStage(), node);
             host.configureDialogCentering(dlg);
@@ -111,8 +114,8 @@ public class SelectionCommandMediator {
                     commandBindings.updateUndoRedoState();
                 }
                 markDirty();
-                if (host.getCanvas() != null) host.getCanvas().redraw();
-                if (host.getProjectTree() != null) { host.getProjectTree().refresh(); host.getProjectTree().selectNode(node); }
+                if (host.getCanvas() != null) host.getCanvas().nodeChanged(node);
+                if (host.getProjectTree() != null) { host.getProjectTree().nodeUpdated(node); host.getProjectTree().selectNode(node); }
             }
         });
     }
@@ -0,0 +1,266 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text measurement for canvas drawing. Per font (family, style, size) it measures each glyph's
+ * advance width, the line height and the baseline offset once, so a string's width is a sum of
+ * cached advances instead of a layout of a throw-away {@link Text} node. Wrapped lines are kept in
+ * an LRU cache keyed by text, font and width, since the canvas wraps the same names on every paint.
+ * Font metrics are LRU-bounded too: zooming derives font sizes continuously, so the fonts of
+ * earlier zoom levels must not pile up.
+ * <p>
+ * Widths are sums of glyph advances, so kerning is ignored; that moves centred text by a fraction
+ * of a pixel at most. Hit and miss counts are reported through {@link #stats()}.
+ */
+final class TextMetricsCache {
+
+    static final int DEFAULT_WRAP_CAPACITY = 4096;
+    static final int FONT_CAPACITY = 64;
+
+    private static final TextMetricsCache INSTANCE = new TextMetricsCache(DEFAULT_WRAP_CAPACITY, new TextNodeMeasurer());
+
+    static TextMetricsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** Measures single glyphs and line metrics of a font; called once per glyph and font. */
+    interface Measurer {
+        double advance(Font font, char c);
+        double lineHeight(Font font);
+        double baselineOffset(Font font);
+    }
+
+    /** Cache key of a font: family, style (weight and posture) and size. */
+    record FontKey(String family, String style, double size) {
+        static FontKey of(Font font) {
+            return new FontKey(font.getFamily(), font.getStyle(), font.getSize());
+        }
+    }
+
+    /** Hit and miss counts since startup; {@link #since} gives the counts of an interval. */
+    record Stats(long glyphHits, long glyphMisses, long wrapHits, long wrapMisses, long wrapEvictions) {
+        Stats since(Stats earlier) {
+            return new Stats(glyphHits - earlier.glyphHits, glyphMisses - earlier.glyphMisses,
+                wrapHits - earlier.wrapHits, wrapMisses - earlier.wrapMisses, wrapEvictions - earlier.wrapEvictions);
+        }
+
+        double glyphHitRate() {
+            return rate(glyphHits, glyphMisses);
+        }
+
+        double wrapHitRate() {
+            return rate(wrapHits, wrapMisses);
+        }
+
+        private static double rate(long hits, long misses) {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+    }
+
+    /** Cached metrics of one font. */
+    final class FontMetrics {
+        private final Font font;
+        private final double lineHeight;
+        private final double baselineOffset;
+        private final double[] latin = new double[256];
+        private final Map<Character, Double> others = new HashMap<>();
+
+        private FontMetrics(Font font) {
+            this.font = font;
+            this.lineHeight = measurer.lineHeight(font);
+            this.baselineOffset = measurer.baselineOffset(font);
+            Arrays.fill(latin, Double.NaN);
+        }
+
+        double lineHeight() {
+            return lineHeight;
+        }
+
+        double baselineOffset() {
+            return baselineOffset;
+        }
+
+        double advance(char c) {
+            if (c < latin.length) {
+                double w = latin[c];
+                if (Double.isNaN(w)) {
+                    glyphMisses++;
+                    w = latin[c] = measurer.advance(font, c);
+                } else {
+                    glyphHits++;
+                }
+                return w;
+            }
+            Double w = others.get(c);
+            if (w == null) {
+                glyphMisses++;
+                w = measurer.advance(font, c);
+                others.put(c, w);
+            } else {
+                glyphHits++;
+            }
+            return w;
+        }
+
+        double width(CharSequence text) {
+            double w = 0;
+            for (int i = 0; i < text.length(); i++) w += advance(text.charAt(i));
+            return w;
+        }
+    }
+
+    private record WrapKey(String text, FontKey font, double width) {}
+
+    private final Measurer measurer;
+    private final int wrapCapacity;
+    private final Map<FontKey, FontMetrics> fonts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FontKey, FontMetrics> eldest) {
+            return size() > FONT_CAPACITY;
+        }
+    };
+    private final LinkedHashMap<WrapKey, List<String>> wrapped;
+    private Font lastFont;
+    private FontMetrics lastMetrics;
+    private long glyphHits, glyphMisses, wrapHits, wrapMisses, wrapEvictions;
+
+    TextMetricsCache(int wrapCapacity, Measurer measurer) {
+        this.measurer = measurer;
+        this.wrapCapacity = wrapCapacity;
+        this.wrapped = new LinkedHashMap<>(Math.min(wrapCapacity, 256), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WrapKey, List<String>> eldest) {
+                if (size() <= TextMetricsCache.this.wrapCapacity) return false;
+                wrapEvictions++;
+                return true;
+            }
+        };
+    }
+
+    /** Metrics of {@code font}, measured on first use. */
+    synchronized FontMetrics metrics(Font font) {
+        if (font == lastFont) return lastMetrics;
+        FontMetrics metrics = fonts.computeIfAbsent(FontKey.of(font), k -> new FontMetrics(font));
+        lastFont = font;
+        lastMetrics = metrics;
+        return metrics;
+    }
+
+    synchronized double width(String text, Font font) {
+        return text == null ? 0 : metrics(font).width(text);
+    }
+
+    synchronized double lineHeight(Font font) {
+        return metrics(font).lineHeight();
+    }
+
+    synchronized double baselineOffset(Font font) {
+        return metrics(font).baselineOffset();
+    }
+
+    /**
+     * Greedy word wrap of {@code text} to {@code maxWidth}: words are separated by single spaces and a
+     * word wider than the line gets a line of its own. Blank text gives no lines.
+     * @return the lines, unmodifiable and shared between callers
+     */
+    synchronized List<String> wrap(String text, Font font, double maxWidth) {
+        if (text == null || text.isBlank()) return List.of();
+        WrapKey key = new WrapKey(text, FontKey.of(font), maxWidth);
+        List<String> lines = wrapped.get(key);
+        if (lines != null) {
+            wrapHits++;
+            return lines;
+        }
+        wrapMisses++;
+        lines = wrapWords(text, metrics(font), maxWidth);
+        wrapped.put(key, lines);
+        return lines;
+    }
+
+    private static List<String> wrapWords(String text, FontMetrics metrics, double maxWidth) {
+        List<String> lines = new ArrayList<>();
+        double space = metrics.advance(' ');
+        StringBuilder line = new StringBuilder();
+        double lineWidth = 0;
+        for (String word : text.trim().split("\\s+")) {
+            double wordWidth = metrics.width(word);
+            if (line.length() == 0) {
+                line.append(word);
+                lineWidth = wordWidth;
+            } else if (lineWidth + space + wordWidth <= maxWidth) {
+                line.append(' ').append(word);
+                lineWidth += space + wordWidth;
+            } else {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(word);
+                lineWidth = wordWidth;
+            }
+        }
+        lines.add(line.toString());
+        return List.copyOf(lines);
+    }
+
+    synchronized Stats stats() {
+        return new Stats(glyphHits, glyphMisses, wrapHits, wrapMisses, wrapEvictions);
+    }
+
+    synchronized int wrapEntries() {
+        return wrapped.size();
+    }
+
+    synchronized int fontEntries() {
+        return fonts.size();
+    }
+
+    /** Drops all metrics and wrapped lines; counts are kept. */
+    synchronized void clear() {
+        fonts.clear();
+        wrapped.clear();
+        lastFont = null;
+        lastMetrics = null;
+    }
+
+    /** Measures with one reused {@link Text} node, as the drawing code did per call before. */
+    private static final class TextNodeMeasurer implements Measurer {
+        private Text text;
+
+        @Override
+        public double advance(Font font, char c) {
+            if (Character.isWhitespace(c)) {
+                // Trailing whitespace may be left out of the bounds; measure it between two glyphs
+                return measure(font, "x" + c + "x").getWidth() - measure(font, "xx").getWidth();
+            }
+            return measure(font, String.valueOf(c)).getWidth();
+        }
+
+        @Override
+        public double lineHeight(Font font) {
+            // Characters with ascenders and descenders
+            return measure(font, "Mg").getHeight();
+        }
+
+        @Override
+        public double baselineOffset(Font font) {
+            measure(font, "Mg");
+            return text.getBaselineOffset();
+        }
+
+        private javafx.geometry.Bounds measure(Font font, String s) {
+            if (text == null) text = new Text();
+            text.setFont(font);
+            text.setText(s);
+            return text.getBoundsInLocal();
+        }
+    }
+}
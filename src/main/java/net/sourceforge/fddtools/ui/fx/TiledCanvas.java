@@ -0,0 +1,323 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drawing surface of {@link FDDCanvasFX}, made of fixed-size canvas tiles instead of one canvas as
+ * large as the zoomed content. Only the tiles under the viewport plus a margin are in the scene; the
+ * visible parts are painted at once and the margin in later pulses, a few milliseconds at a time, so
+ * scrolling mostly reveals finished tiles. Tiles are cached in an LRU keyed by zoom and tile
+ * position, each valid for the surface size it was cut for. Resizing the surface drops the tiles of
+ * the current zoom only; those of other zooms stay cached, so going back to a zoom whose layout did
+ * not change shows its tiles without painting them again. The least recently used tile off screen
+ * is recycled for a new position when the cache is full. Each tile tracks its painted and stale
+ * pixels with a {@link CanvasDirtyRegions}.
+ * <p>
+ * The surface size is the zoomed content size in pixels; the owner paints through a {@link Painter}
+ * in surface coordinates. FX thread only.
+ */
+final class TiledCanvas extends Region {
+
+    static final int TILE_SIZE = 512;
+    static final int DEFAULT_MAX_TILES = 64;
+    /** Pixels around the viewport whose tiles are kept in the scene and painted ahead. */
+    static final double DEFAULT_MARGIN = TILE_SIZE / 2.0;
+    /** Time per pulse spent painting margin tiles. */
+    private static final long PREFETCH_BUDGET_NANOS = 4_000_000;
+
+    /** Paints {@code region} of the surface; {@code gc} is translated so surface coordinates apply. */
+    interface Painter {
+        void paint(GraphicsContext gc, Rectangle2D region);
+    }
+
+    record TileKey(int zoomBucket, int col, int row) {}
+
+    /** Tile counts since creation, with the current numbers of tiles. */
+    record Stats(long hits, long misses, long recycled, int attached, int cached) {
+        /** Counts of the interval since {@code earlier}; tile numbers stay current. */
+        Stats since(Stats earlier) {
+            return new Stats(hits - earlier.hits, misses - earlier.misses, recycled - earlier.recycled, attached, cached);
+        }
+    }
+
+    private static final class Tile {
+        TileKey key;
+        double surfaceWidth, surfaceHeight; // of the layout the tile was cut from
+        final Canvas canvas = new Canvas();
+        final CanvasDirtyRegions regions = new CanvasDirtyRegions();
+        boolean attached;
+    }
+
+    private final Painter painter;
+    private final int maxTiles;
+    private final double margin;
+    private final LinkedHashMap<TileKey, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true);
+    private final Deque<Tile> spare = new ArrayDeque<>();
+    private final Deque<TileKey> prefetch = new ArrayDeque<>();
+    private boolean prefetchScheduled;
+    private double surfaceWidth, surfaceHeight;
+    private int zoomBucket;
+    private long hits, misses, recycled;
+
+    TiledCanvas(Painter painter) {
+        this(painter, DEFAULT_MAX_TILES, DEFAULT_MARGIN);
+    }
+
+    TiledCanvas(Painter painter, int maxTiles, double margin) {
+        this.painter = painter;
+        this.maxTiles = maxTiles;
+        this.margin = margin;
+    }
+
+    /**
+     * Sets the zoomed content size at the current zoom bucket (select it first); that zoom's tiles of
+     * another size are dropped for reuse, other zooms' tiles stay cached.
+     */
+    void setSurfaceSize(double width, double height) {
+        width = Math.max(0, width);
+        height = Math.max(0, height);
+        if (width == surfaceWidth && height == surfaceHeight) return;
+        surfaceWidth = width;
+        surfaceHeight = height;
+        // Edge tiles change size, and the content moves with the layout
+        for (Iterator<Tile> it = tiles.values().iterator(); it.hasNext(); ) {
+            Tile t = it.next();
+            detach(t);
+            if (t.key.zoomBucket() == zoomBucket && !fits(t)) {
+                it.remove();
+                spare.push(t);
+            }
+        }
+        prefetch.clear();
+        requestLayout();
+        requestParentLayout();
+    }
+
+    double getSurfaceWidth() { return surfaceWidth; }
+
+    double getSurfaceHeight() { return surfaceHeight; }
+
+    /** Selects the tiles of a zoom level; those of other levels stay cached until evicted. */
+    void setZoomBucket(int bucket) {
+        zoomBucket = bucket;
+    }
+
+    /** Marks every cached tile as needing a full repaint. */
+    void invalidateAll() {
+        for (Tile t : tiles.values()) t.regions.invalidateAll();
+    }
+
+    /** Marks {@code r} (surface pixels at the current zoom) as stale; tiles of other layouts go stale entirely. */
+    void invalidate(Rectangle2D r) {
+        for (Tile t : tiles.values()) {
+            if (t.key.zoomBucket() != zoomBucket || !fits(t)) {
+                t.regions.invalidateAll();
+                continue;
+            }
+            Rectangle2D local = CanvasDirtyRegions.intersection(tileBounds(t.key), r);
+            if (local != null) t.regions.invalidate(toTile(t.key, local));
+        }
+    }
+
+    /** Whether any tile of the current zoom holds painted pixels. */
+    boolean hasPaintedContent() {
+        for (Tile t : tiles.values()) {
+            if (t.key.zoomBucket() == zoomBucket && fits(t) && t.regions.hasValidContent()) return true;
+        }
+        return false;
+    }
+
+    /** Whether {@link #paint} would paint anything in {@code visible}. */
+    boolean needsPaint(Rectangle2D visible) {
+        for (TileKey key : keysCovering(visible)) {
+            Tile t = tiles.get(key);
+            Rectangle2D part = CanvasDirtyRegions.intersection(tileBounds(key), visible);
+            if (t == null || !fits(t) || (part != null && !t.regions.isCurrent(toTile(key, part)))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Shows the tiles under {@code visible} (surface pixels) plus the margin, paints what is stale in
+     * {@code visible} and queues the rest of the margin tiles for painting in later pulses.
+     * @return the painted rectangles, in surface pixels
+     */
+    List<Rectangle2D> paint(Rectangle2D visible) {
+        List<Rectangle2D> painted = new ArrayList<>();
+        prefetch.clear();
+        if (visible == null || surfaceWidth <= 0 || surfaceHeight <= 0) return painted;
+        Rectangle2D area = new Rectangle2D(visible.getMinX() - margin, visible.getMinY() - margin,
+            visible.getWidth() + 2 * margin, visible.getHeight() + 2 * margin);
+        Set<TileKey> wanted = keysCovering(area);
+        for (Tile t : tiles.values()) {
+            if (t.attached && !wanted.contains(t.key)) detach(t);
+        }
+        for (TileKey key : wanted) {
+            Tile t = acquire(key);
+            if (!t.attached) {
+                t.attached = true;
+                getChildren().add(t.canvas);
+                t.canvas.relocate(key.col() * (double) TILE_SIZE, key.row() * (double) TILE_SIZE);
+            }
+            Rectangle2D part = CanvasDirtyRegions.intersection(tileBounds(key), visible);
+            if (part != null) paintTile(t, toTile(key, part), painted);
+            if (!t.regions.isCurrent(new Rectangle2D(0, 0, t.canvas.getWidth(), t.canvas.getHeight()))) prefetch.add(key);
+        }
+        schedulePrefetch();
+        return painted;
+    }
+
+    /** Paints the whole surface onto {@code gc} in one pass, bypassing the tiles (for export). */
+    void paintAll(GraphicsContext gc) {
+        painter.paint(gc, new Rectangle2D(0, 0, surfaceWidth, surfaceHeight));
+    }
+
+    Stats stats() {
+        int attached = 0;
+        for (Tile t : tiles.values()) if (t.attached) attached++;
+        return new Stats(hits, misses, recycled, attached, tiles.size());
+    }
+
+    /** Tiles currently in the scene, for tests. */
+    List<TileKey> attachedTiles() {
+        List<TileKey> keys = new ArrayList<>();
+        for (Tile t : tiles.values()) if (t.attached) keys.add(t.key);
+        return keys;
+    }
+
+    /** Whether margin tiles are still waiting to be painted, for tests. */
+    boolean hasPendingPrefetch() {
+        return !prefetch.isEmpty();
+    }
+
+    /** Tiles of the current zoom intersecting {@code r}, clipped to the surface, row by row. */
+    private Set<TileKey> keysCovering(Rectangle2D r) {
+        Set<TileKey> keys = new LinkedHashSet<>();
+        Rectangle2D clipped = CanvasDirtyRegions.intersection(r, new Rectangle2D(0, 0, surfaceWidth, surfaceHeight));
+        if (clipped == null || clipped.getWidth() <= 0 || clipped.getHeight() <= 0) return keys;
+        int col0 = (int) Math.floor(clipped.getMinX() / TILE_SIZE);
+        int col1 = (int) Math.ceil(clipped.getMaxX() / TILE_SIZE) - 1;
+        int row0 = (int) Math.floor(clipped.getMinY() / TILE_SIZE);
+        int row1 = (int) Math.ceil(clipped.getMaxY() / TILE_SIZE) - 1;
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) keys.add(new TileKey(zoomBucket, col, row));
+        }
+        return keys;
+    }
+
+    /** Bounds of a tile in surface pixels; edge tiles end with the surface. */
+    private Rectangle2D tileBounds(TileKey key) {
+        double x = key.col() * (double) TILE_SIZE, y = key.row() * (double) TILE_SIZE;
+        return new Rectangle2D(x, y, Math.min(TILE_SIZE, surfaceWidth - x), Math.min(TILE_SIZE, surfaceHeight - y));
+    }
+
+    private static Rectangle2D toTile(TileKey key, Rectangle2D r) {
+        return new Rectangle2D(r.getMinX() - key.col() * (double) TILE_SIZE, r.getMinY() - key.row() * (double) TILE_SIZE,
+            r.getWidth(), r.getHeight());
+    }
+
+    /** Whether {@code t} was cut for the current surface size. */
+    private boolean fits(Tile t) {
+        return t.surfaceWidth == surfaceWidth && t.surfaceHeight == surfaceHeight;
+    }
+
+    /** The cached tile for {@code key}, or a spare, recycled or new one set up for it. */
+    private Tile acquire(TileKey key) {
+        Tile t = tiles.get(key);
+        if (t != null && fits(t)) {
+            hits++;
+            return t;
+        }
+        misses++;
+        // A tile of another layout at this key is set up again in place
+        if (t == null) t = spare.poll();
+        if (t == null && tiles.size() >= maxTiles) {
+            for (Iterator<Tile> it = tiles.values().iterator(); it.hasNext(); ) {
+                Tile old = it.next();
+                if (!old.attached) {
+                    it.remove();
+                    t = old;
+                    recycled++;
+                    break;
+                }
+            }
+        }
+        if (t == null) t = new Tile();
+        t.key = key;
+        t.surfaceWidth = surfaceWidth;
+        t.surfaceHeight = surfaceHeight;
+        Rectangle2D bounds = tileBounds(key);
+        t.canvas.setWidth(Math.ceil(bounds.getWidth()));
+        t.canvas.setHeight(Math.ceil(bounds.getHeight()));
+        t.regions.invalidateAll();
+        tiles.put(key, t);
+        return t;
+    }
+
+    private void detach(Tile t) {
+        if (!t.attached) return;
+        t.attached = false;
+        getChildren().remove(t.canvas);
+    }
+
+    /** Paints the stale parts of {@code local} (tile pixels) and adds them to {@code painted} in surface pixels. */
+    private void paintTile(Tile t, Rectangle2D local, List<Rectangle2D> painted) {
+        List<Rectangle2D> stale = t.regions.collect(local);
+        if (stale.isEmpty()) return;
+        double x = t.key.col() * (double) TILE_SIZE, y = t.key.row() * (double) TILE_SIZE;
+        GraphicsContext gc = t.canvas.getGraphicsContext2D();
+        gc.setImageSmoothing(false);
+        gc.save();
+        gc.translate(-x, -y);
+        for (Rectangle2D r : stale) {
+            Rectangle2D surface = new Rectangle2D(r.getMinX() + x, r.getMinY() + y, r.getWidth(), r.getHeight());
+            painter.paint(gc, surface);
+            painted.add(surface);
+        }
+        gc.restore();
+    }
+
+    private void schedulePrefetch() {
+        if (prefetchScheduled || prefetch.isEmpty()) return;
+        prefetchScheduled = true;
+        Platform.runLater(this::prefetchStep);
+    }
+
+    /** Paints queued margin tiles until the pulse budget is spent, then yields. */
+    private void prefetchStep() {
+        prefetchScheduled = false;
+        long deadline = System.nanoTime() + PREFETCH_BUDGET_NANOS;
+        List<Rectangle2D> ignored = new ArrayList<>();
+        while (!prefetch.isEmpty() && System.nanoTime() < deadline) {
+            Tile t = tiles.get(prefetch.poll());
+            if (t == null || !t.attached) continue;
+            paintTile(t, new Rectangle2D(0, 0, t.canvas.getWidth(), t.canvas.getHeight()), ignored);
+        }
+        schedulePrefetch();
+    }
+
+    @Override protected double computeMinWidth(double height) { return surfaceWidth; }
+    @Override protected double computeMinHeight(double width) { return surfaceHeight; }
+    @Override protected double computePrefWidth(double height) { return surfaceWidth; }
+    @Override protected double computePrefHeight(double width) { return surfaceHeight; }
+    @Override protected double computeMaxWidth(double height) { return surfaceWidth; }
+    @Override protected double computeMaxHeight(double width) { return surfaceHeight; }
+
+    @Override
+    protected void layoutChildren() {
+        // Tiles are placed when attached
+    }
+}
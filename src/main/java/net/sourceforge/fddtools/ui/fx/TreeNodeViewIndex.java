@@ -0,0 +1,167 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import javafx.scene.control.TreeItem;
+import net.sourceforge.fddtools.model.FDDINode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * View state of the nodes shown in an {@link FDDTreeViewFX}, keyed by node identity: the node's
+ * TreeItem (once created), its search highlight and current-match flags, and the expansion its
+ * last item had. Selection, search, cell rendering and tree patching all look nodes up here,
+ * so none of them walks the TreeItems or the match list.
+ * <p>
+ * A node keeps its entry while it has an item or any state; remembered expansion outlives the
+ * item, so rebuilt and re-created items open as they were. FX thread only.
+ */
+final class TreeNodeViewIndex {
+
+    /** View state of one node. */
+    static final class NodeView {
+        TreeItem<FDDINode> item;
+        boolean highlighted;
+        boolean currentMatch;
+        /** Expansion of the node's previous item; null if none was seen. */
+        Boolean expanded;
+
+        private boolean isEmpty() {
+            return item == null && !highlighted && !currentMatch && expanded == null;
+        }
+    }
+
+    private final Map<FDDINode, NodeView> views = new IdentityHashMap<>();
+    private final Set<FDDINode> highlighted = Collections.newSetFromMap(new IdentityHashMap<>());
+    private FDDINode currentMatch;
+    private int itemCount;
+
+    NodeView get(FDDINode node) {
+        return node != null ? views.get(node) : null;
+    }
+
+    TreeItem<FDDINode> item(FDDINode node) {
+        NodeView view = get(node);
+        return view != null ? view.item : null;
+    }
+
+    boolean hasItem(FDDINode node) {
+        return item(node) != null;
+    }
+
+    int itemCount() {
+        return itemCount;
+    }
+
+    /** Records {@code item} as the TreeItem of {@code node}, replacing any previous one. */
+    void bind(FDDINode node, TreeItem<FDDINode> item) {
+        NodeView view = views.computeIfAbsent(node, n -> new NodeView());
+        if (view.item == null) itemCount++;
+        view.item = item;
+    }
+
+    /**
+     * Drops {@code item} if it is still the TreeItem of its node. With {@code remember} its expansion
+     * is kept for the node's next item; otherwise that is forgotten as well.
+     */
+    void unbind(TreeItem<FDDINode> item, boolean remember) {
+        NodeView view = get(item.getValue());
+        if (view == null || view.item != item) return;
+        view.item = null;
+        itemCount--;
+        view.expanded = remember ? Boolean.valueOf(item.isExpanded()) : null;
+        if (view.isEmpty()) views.remove(item.getValue());
+    }
+
+    /** Drops all items, remembering their expansion for a rebuild of the same tree. */
+    void unbindAll() {
+        for (var it = views.values().iterator(); it.hasNext(); ) {
+            NodeView view = it.next();
+            if (view.item != null) {
+                view.expanded = view.item.isExpanded();
+                view.item = null;
+            }
+            if (view.isEmpty()) it.remove();
+        }
+        itemCount = 0;
+    }
+
+    /** Forgets everything, for a different tree. */
+    void clear() {
+        views.clear();
+        highlighted.clear();
+        currentMatch = null;
+        itemCount = 0;
+    }
+
+    /** Expansion the node's previous item had, or {@code fallback}. */
+    boolean rememberedExpansion(FDDINode node, boolean fallback) {
+        NodeView view = get(node);
+        return view != null && view.expanded != null ? view.expanded : fallback;
+    }
+
+    boolean isHighlighted(FDDINode node) {
+        NodeView view = get(node);
+        return view != null && view.highlighted;
+    }
+
+    boolean isCurrentMatch(FDDINode node) {
+        NodeView view = get(node);
+        return view != null && view.currentMatch;
+    }
+
+    /**
+     * Replaces the highlighted nodes and the current match.
+     * @return the nodes whose flags changed, whose cells need repainting
+     */
+    List<FDDINode> setHighlights(Collection<FDDINode> nodes, FDDINode current) {
+        List<FDDINode> changed = new ArrayList<>();
+        Set<FDDINode> next = Collections.newSetFromMap(new IdentityHashMap<>());
+        next.addAll(nodes);
+        for (FDDINode node : highlighted) {
+            if (!next.contains(node)) {
+                update(node, v -> v.highlighted = false);
+                changed.add(node);
+            }
+        }
+        for (FDDINode node : next) {
+            if (!highlighted.contains(node)) {
+                update(node, v -> v.highlighted = true);
+                changed.add(node);
+            }
+        }
+        highlighted.clear();
+        highlighted.addAll(next);
+        changed.addAll(setCurrentMatch(current));
+        return changed;
+    }
+
+    /**
+     * Moves the current-match flag to {@code node} (null for none).
+     * @return the nodes whose flag changed
+     */
+    List<FDDINode> setCurrentMatch(FDDINode node) {
+        if (node == currentMatch) return List.of();
+        List<FDDINode> changed = new ArrayList<>(2);
+        if (currentMatch != null) {
+            update(currentMatch, v -> v.currentMatch = false);
+            changed.add(currentMatch);
+        }
+        currentMatch = node;
+        if (node != null) {
+            update(node, v -> v.currentMatch = true);
+            changed.add(node);
+        }
+        return changed;
+    }
+
+    private void update(FDDINode node, java.util.function.Consumer<NodeView> change) {
+        NodeView view = views.computeIfAbsent(node, n -> new NodeView());
+        change.accept(view);
+        if (view.isEmpty()) views.remove(node);
+    }
+}
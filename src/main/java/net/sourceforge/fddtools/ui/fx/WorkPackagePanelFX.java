@@ -56,7 +56,7 @@ public class WorkPackagePanelFX extends VBox {
             WorkPackage wp = event.getRowValue();
             String newName = event.getNewValue();
             if (newName != null && !newName.trim().isEmpty() && !newName.equals(wp.getName())) {
-                CommandExecutionService.getInstance().execute(new RenameWorkPackageCommand(wp, newName.trim()));
+                CommandExecutionService.getInstance().execute(new RenameWorkPackageCommand(project, wp, newName.trim()));
                 workPackageTable.refresh();
             }
         });
@@ -64,9 +64,9 @@ public final class FileNameUtil {
     }
     
     /**
-     * Ensures a file path has either .fddi or .xml extension.
+     * Ensures a file path has a project extension (.fddi, .fddb, .fddp or .xml).
      * 
-     * Adds .fddi extension if the path doesn't already end with .fddi or .xml.
+     * Adds .fddi extension if the path doesn't already end with .fddi, .fddb, .fddp or .xml.
      * Used to ensure proper file extensions for FDD project files.
      * 
      * @param path the file path to process
@@ -75,7 +75,7 @@ public final class FileNameUtil {
     public static String ensureFddiOrXmlExtension(String path) {
         if (path == null) return null;
         String lower = path.toLowerCase();
-        if (lower.endsWith(".fddi") || lower.endsWith(".xml")) {
+        if (lower.endsWith(".fddi") || lower.endsWith(".fddb") || lower.endsWith(".fddp") || lower.endsWith(".xml")) {
             return path;
         }
         return path + ".fddi";
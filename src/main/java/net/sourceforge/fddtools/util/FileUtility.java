@@ -58,6 +58,9 @@ package net.sourceforge.fddtools.util;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import net.sourceforge.fddtools.persistence.FDDIBinaryReader;
+import net.sourceforge.fddtools.persistence.FDDIPagedReader;
 
 public class FileUtility
 {
@@ -66,8 +69,20 @@ public class FileUtility
     {
         // Don't allow instantiation by default constructor
     }
+    /**
+     * Sniffs the format of {@code fileName}: "fddb" for a binary project and "fddp" for a paged one
+     * (by their magic headers), "fdd" for a legacy FDDProject XML file, "csv" for a CSV import, otherwise {@code null}.
+     */
     public static String getFileType(String fileName) throws IOException
     {
+        if(FDDIBinaryReader.isBinaryProject(Path.of(fileName)))
+        {
+            return "fddb";
+        }
+        if(FDDIPagedReader.isPagedProject(Path.of(fileName)))
+        {
+            return "fddp";
+        }
         String fileType = null;
         int lineCount = 0;
         try
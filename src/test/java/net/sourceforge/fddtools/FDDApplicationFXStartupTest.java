@@ -0,0 +1,72 @@
+package net.sourceforge.fddtools;
+
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import javafx.scene.control.TreeView;
+import javafx.stage.Stage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileWriter;
+import net.sourceforge.fddtools.service.PreferencesService;
+import net.sourceforge.fddtools.service.ProjectService;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Application start-up with auto-load enabled shows the last project in place of the empty placeholder. */
+class FDDApplicationFXStartupTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void lastProjectIsShownAfterStartup() throws Exception {
+        Program program = new Program();
+        program.setName("Last Program");
+        Project project = new Project();
+        project.setName("Last Project");
+        program.add(project);
+        Path file = tempDir.resolve("last.fddi");
+        assertTrue(FDDIXMLFileWriter.write(program, file.toString()));
+
+        PreferencesService prefs = PreferencesService.getInstance();
+        String previousPath = prefs.getLastProjectPath();
+        boolean previousAutoLoad = prefs.isAutoLoadLastProjectEnabled();
+        prefs.setLastProjectPath(file.toString());
+        prefs.setAutoLoadLastProjectEnabled(true);
+        FDDApplicationFX app = new FDDApplicationFX();
+        AtomicReference<Stage> stage = new AtomicReference<>();
+        try {
+            FxTestUtil.runOnFxAndWait(10, () -> {
+                stage.set(new Stage());
+                app.start(stage.get());
+            });
+            ProjectService projects = ProjectService.getInstance();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            AtomicReference<String> shownPath = new AtomicReference<>();
+            while (!file.toString().equals(shownPath.get()) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+                FxTestUtil.runOnFxAndWait(5, () -> shownPath.set(projects.getAbsolutePath()));
+            }
+            assertEquals(file.toString(), shownPath.get(), "the last project replaces the startup placeholder");
+            FxTestUtil.runOnFxAndWait(5, () -> {
+                FDDINode root = projects.getRoot();
+                assertEquals("Last Program", root.getName());
+                TreeView<?> tree = (TreeView<?>) app.getMainWindow().lookup(".tree-view");
+                assertNotNull(tree, "the project tree is shown");
+                assertSame(root, tree.getRoot().getValue());
+            });
+        } finally {
+            if (stage.get() != null) FxTestUtil.runOnFxAndWait(5, () -> stage.get().hide());
+            prefs.setLastProjectPath(previousPath);
+            prefs.setAutoLoadLastProjectEnabled(previousAutoLoad);
+            prefs.flushNow();
+            ProjectService.getInstance().clear();
+        }
+    }
+}
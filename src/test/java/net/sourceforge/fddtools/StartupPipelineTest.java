@@ -0,0 +1,94 @@
+package net.sourceforge.fddtools;
+
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileWriter;
+import net.sourceforge.fddtools.service.ProjectService;
+import net.sourceforge.fddtools.state.ModelState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for StartupPipeline: single background parse handed to the UI executor, and phase timing.
+ */
+class StartupPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void autoLoadParsesOnceOffTheCallingThreadAndHandsRootToExecutor() throws Exception {
+        Program program = new Program();
+        program.setName("Program");
+        Project project = new Project();
+        project.setName("Project");
+        program.add(project);
+        Path file = tempDir.resolve("last.fddi");
+        assertTrue(FDDIXMLFileWriter.write(program, file.toString()));
+
+        StartupPipeline startup = new StartupPipeline();
+        startup.warmUp();
+        List<Runnable> uiQueue = new ArrayList<>();
+        List<FDDINode> opened = new ArrayList<>();
+        var loaded = startup.autoLoad(file.toString(), uiQueue::add, (path, root) -> opened.add(root));
+
+        // The open step waits for the "UI thread" to run it
+        for (int i = 0; i < 200 && uiQueue.isEmpty(); i++) Thread.sleep(10);
+        assertEquals(1, uiQueue.size());
+        assertTrue(opened.isEmpty());
+        uiQueue.get(0).run();
+
+        FDDINode root = loaded.get(5, TimeUnit.SECONDS);
+        assertEquals("Program", root.getName());
+        assertEquals(List.of(root), opened);
+        startup.finish().get(5, TimeUnit.SECONDS);
+        var phases = startup.phases();
+        for (String phase : List.of("parseMs", "openMs", "projectShownMs", "persistenceMs", "fontsMs", "cssMs", "bundlesMs")) {
+            assertTrue(phases.containsKey(phase), phase);
+        }
+    }
+
+    @Test
+    void unreadableFileCompletesWithoutOpening() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("broken.fddi"), "<not-fddi");
+        StartupPipeline startup = new StartupPipeline();
+        List<FDDINode> opened = new ArrayList<>();
+        FDDINode root = startup.autoLoad(file.toString(), Runnable::run, (path, r) -> opened.add(r)).get(5, TimeUnit.SECONDS);
+        assertNull(root);
+        assertTrue(opened.isEmpty());
+        startup.finish().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void autoLoadReplacesOnlyTheUntouchedStartupProject() {
+        ProjectService projects = ProjectService.getInstance();
+        List<String> opened = new ArrayList<>();
+        try {
+            projects.newProject("New Program");
+            StartupPipeline.unlessReplaced((path, root) -> opened.add(path)).accept("shown", new Program());
+            assertEquals(List.of("shown"), opened, "the placeholder project is replaced");
+
+            var afterOpen = StartupPipeline.unlessReplaced((path, root) -> opened.add(path));
+            projects.newProject("Opened meanwhile");
+            afterOpen.accept("after-open", new Program());
+
+            projects.newProject("New Program");
+            var afterEdit = StartupPipeline.unlessReplaced((path, root) -> opened.add(path));
+            ModelState.getInstance().setDirty(true);
+            afterEdit.accept("after-edit", new Program());
+            assertEquals(List.of("shown"), opened, "nor a newer or edited project");
+        } finally {
+            projects.clear();
+            ModelState.getInstance().setDirty(false);
+        }
+    }
+}
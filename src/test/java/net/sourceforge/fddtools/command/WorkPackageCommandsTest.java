@@ -24,7 +24,7 @@ public class WorkPackageCommandsTest {
         assertTrue(project.getAny().contains(wp));
         assertEquals("WP1", wp.getName());
 
-        stack.execute(new RenameWorkPackageCommand(wp, "Renamed"));
+        stack.execute(new RenameWorkPackageCommand(project, wp, "Renamed"));
         assertEquals("Renamed", wp.getName());
 
         stack.undo(); // undo rename
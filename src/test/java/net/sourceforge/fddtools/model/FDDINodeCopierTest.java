@@ -0,0 +1,118 @@
+package net.sourceforge.fddtools.model;
+
+import com.nebulon.xml.fddi.*;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.persistence.FDDIPersistenceContext;
+import net.sourceforge.fddtools.util.ObjectCloner;
+import jakarta.xml.bind.Marshaller;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.namespace.QName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Verifies FDDINodeCopier produces detached, independent copies equivalent to serialization cloning. */
+public class FDDINodeCopierTest {
+
+    static Program sampleProgram(int features) throws Exception {
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        Program program = new Program();
+        program.setName("Program");
+        Project project = new Project();
+        project.setName("Project");
+        WorkPackage wp = new WorkPackage();
+        wp.setName("WP1");
+        wp.addFeature(1);
+        project.getAny().add(wp);
+        Aspect aspect = new Aspect();
+        aspect.setName("Aspect");
+        aspect.setStandardMilestones();
+        aspect.getOtherAttributes().put(new QName("urn:x", "flag"), "on");
+        Subject subject = new Subject();
+        subject.setName("Subject");
+        subject.setPrefix("SU");
+        Activity activity = new Activity();
+        activity.setName("Activity");
+        activity.setInitials("AB");
+        for (int i = 0; i < features; i++) {
+            Feature feature = new Feature();
+            feature.setName("Feature " + i);
+            for (int m = 0; m < 6; m++) {
+                Milestone ms = new Milestone();
+                ms.setPlanned(df.newXMLGregorianCalendar("2031-02-1" + m));
+                ms.setStatus(m < 2 ? StatusEnum.COMPLETE : StatusEnum.NOTSTARTED);
+                feature.getMilestone().add(ms);
+            }
+            Note note = new Note();
+            note.getContent().add("remark " + i);
+            feature.getRemarks().add(note);
+            activity.add(feature);
+        }
+        subject.add(activity);
+        aspect.add(subject);
+        project.add(aspect);
+        program.add(project);
+        ProgressRollup.recompute(program);
+        return program;
+    }
+
+    private static String xml(Object node) throws Exception {
+        Marshaller m = FDDIPersistenceContext.getInstance().borrowMarshaller(false);
+        try {
+            StringWriter out = new StringWriter();
+            m.marshal(node, out);
+            return out.toString();
+        } finally {
+            FDDIPersistenceContext.getInstance().release(m);
+        }
+    }
+
+    @Test
+    void copyMarshalsIdenticallyToSerializationClone() throws Exception {
+        Program source = sampleProgram(5);
+        Program viaSerialization = (Program) ObjectCloner.deepClone(source);
+        Program viaCopier = FDDINodeCopier.copy(source);
+        assertEquals(xml(viaSerialization), xml(viaCopier));
+    }
+
+    @Test
+    void copyIsDetachedWithRebuiltParentLinks() throws Exception {
+        Program source = sampleProgram(3);
+        Aspect aspect = source.getProject().get(0).getAspect().get(0);
+        Aspect copy = FDDINodeCopier.copy(aspect);
+        assertNull(copy.getParentNode());
+        Subject subject = copy.getSubject().get(0);
+        Activity activity = subject.getActivity().get(0);
+        assertSame(copy, subject.getParentNode());
+        assertSame(activity, activity.getFeature().get(0).getParentNode());
+        assertNotSame(aspect.getInfo(), copy.getInfo());
+        assertEquals("on", copy.getOtherAttributes().get(new QName("urn:x", "flag")));
+
+        Feature copiedFeature = activity.getFeature().get(0);
+        copiedFeature.getMilestone().get(0).getPlanned().setYear(1999);
+        copiedFeature.getMilestone().get(0).setStatus(StatusEnum.UNDERWAY);
+        Feature sourceFeature = aspect.getSubject().get(0).getActivity().get(0).getFeature().get(0);
+        assertEquals(2031, sourceFeature.getMilestone().get(0).getPlanned().getYear());
+        assertEquals(StatusEnum.COMPLETE, sourceFeature.getMilestone().get(0).getStatus());
+    }
+
+    @Test
+    void sequenceNumbersAreKeptOrReissued() throws Exception {
+        Program source = sampleProgram(3);
+        Activity activity = source.getProject().get(0).getAspect().get(0).getSubject().get(0).getActivity().get(0);
+        int counter = activity.getFeature().get(0).getSequence();
+
+        Activity kept = FDDINodeCopier.copy(activity);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(activity.getFeature().get(i).getSeq(), kept.getFeature().get(i).getSeq());
+        }
+        assertEquals(counter, kept.getFeature().get(0).getSequence(), "Keeping sequences must not consume numbers");
+
+        Activity reissued = FDDINodeCopier.copy(activity, true);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(counter + i, reissued.getFeature().get(i).getSeq());
+        }
+    }
+}
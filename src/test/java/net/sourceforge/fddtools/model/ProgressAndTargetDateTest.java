@@ -57,4 +57,28 @@ public class ProgressAndTargetDateTest {
         Feature f2 = (Feature) ((Activity) s2.getChildren().get(0)).getChildren().get(0);
         assertEquals(StatusEnum.NOTSTARTED, f2.getMilestone().get(0).getStatus());
     }
+
+    @Test
+    void targetDatesDeriveOnDemandInLargeUnderivedTrees() throws Exception {
+        ObjectFactory of = new ObjectFactory();
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        Activity activity = of.createActivity();
+        activity.setName("Wide");
+        Subject subject = of.createSubject();
+        subject.add(activity);
+        // Built in code, so no feature has a derived target date yet
+        for (int i = 0; i < 20_000; i++) {
+            Feature feature = of.createFeature();
+            for (int m = 0; m < 6; m++) {
+                Milestone ms = of.createMilestone();
+                ms.setPlanned(df.newXMLGregorianCalendar(i == 12_345 ? "2031-07-0" + (m + 1) : "2030-01-0" + (m + 1)));
+                feature.getMilestone().add(ms);
+            }
+            activity.add(feature);
+        }
+        Feature first = (Feature) activity.getChildren().get(0);
+        first.calculateTargetDate();
+        assertEquals(df.newXMLGregorianCalendar("2031-07-06").toGregorianCalendar().getTime(), subject.getTargetDate());
+        assertEquals(df.newXMLGregorianCalendar("2030-01-06").toGregorianCalendar().getTime(), first.getTargetDate());
+    }
 }
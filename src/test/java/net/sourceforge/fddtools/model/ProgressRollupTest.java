@@ -0,0 +1,156 @@
+package net.sourceforge.fddtools.model;
+
+import com.nebulon.xml.fddi.*;
+import net.sourceforge.fddtools.command.DeleteNodeCommand;
+import net.sourceforge.fddtools.command.EditNodeCommand;
+import net.sourceforge.fddtools.command.MoveNodeCommand;
+import net.sourceforge.fddtools.command.PasteNodeCommand;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Verifies incremental and bulk completion roll-up through ProgressRollup. */
+public class ProgressRollupTest {
+
+    private final ObjectFactory of = new ObjectFactory();
+
+    /** Program > Project > Aspect(efforts 40/60) > Subject > 2 Activities x 2 Features. */
+    private Program buildProgram() throws Exception {
+        XMLGregorianCalendar planned = DatatypeFactory.newInstance().newXMLGregorianCalendar("2030-01-15");
+        Program program = of.createProgram();
+        program.setName("P");
+        Project project = of.createProject();
+        project.setName("Proj");
+        Aspect aspect = of.createAspect();
+        aspect.setName("Dev");
+        aspect.setInfo(of.createAspectInfo());
+        aspect.getInfo().setSubjectName("Subj");
+        aspect.getInfo().setActivityName("Act");
+        aspect.getInfo().setFeatureName("Feat");
+        aspect.getInfo().setMilestoneName("MS");
+        MilestoneInfo design = of.createMilestoneInfo();
+        design.setName("Design");
+        design.setEffort(40);
+        MilestoneInfo code = of.createMilestoneInfo();
+        code.setName("Code");
+        code.setEffort(60);
+        aspect.getInfo().addMilestone(design);
+        aspect.getInfo().addMilestone(code);
+        Subject subject = of.createSubject();
+        subject.setName("S");
+        subject.setPrefix("S");
+        for (int a = 0; a < 2; a++) {
+            Activity activity = of.createActivity();
+            activity.setName("A" + a);
+            for (int f = 0; f < 2; f++) {
+                Feature feature = of.createFeature();
+                feature.setName("F" + a + f);
+                for (int m = 0; m < 2; m++) {
+                    Milestone ms = of.createMilestone();
+                    ms.setStatus(StatusEnum.NOTSTARTED);
+                    ms.setPlanned(planned);
+                    feature.getMilestone().add(ms);
+                }
+                activity.add(feature);
+            }
+            subject.add(activity);
+        }
+        aspect.add(subject);
+        project.add(aspect);
+        program.add(project);
+        return program;
+    }
+
+    private Feature feature(Program p, int activity, int index) {
+        Subject s = (Subject) ((Aspect) ((Project) p.getChildren().get(0)).getChildren().get(0)).getChildren().get(0);
+        return (Feature) ((Activity) s.getChildren().get(activity)).getChildren().get(index);
+    }
+
+    @Test
+    void bulkRecomputeAveragesChildrenAndSumsMilestoneEffort() throws Exception {
+        Program p = buildProgram();
+        feature(p, 0, 0).getMilestone().get(0).setStatus(StatusEnum.COMPLETE);
+        feature(p, 0, 1).getMilestone().get(0).setStatus(StatusEnum.COMPLETE);
+        feature(p, 0, 1).getMilestone().get(1).setStatus(StatusEnum.COMPLETE);
+        ProgressRollup.recompute(p);
+        assertEquals(40, feature(p, 0, 0).getProgress().getCompletion());
+        assertEquals(100, feature(p, 0, 1).getProgress().getCompletion());
+        assertEquals(70, ((FDDINode) feature(p, 0, 0).getParentNode()).getProgress().getCompletion());
+        assertEquals(35, p.getProgress().getCompletion());
+    }
+
+    @Test
+    void milestoneEditPropagatesDeltaToRoot() throws Exception {
+        Program p = buildProgram();
+        ProgressRollup.recompute(p);
+        assertEquals(0, p.getProgress().getCompletion());
+        Feature f = feature(p, 1, 1);
+        var before = EditNodeCommand.capture(f);
+        f.getMilestone().get(0).setStatus(StatusEnum.COMPLETE);
+        f.getMilestone().get(1).setStatus(StatusEnum.COMPLETE);
+        var after = EditNodeCommand.capture(f);
+        f.getMilestone().get(0).setStatus(StatusEnum.NOTSTARTED);
+        f.getMilestone().get(1).setStatus(StatusEnum.NOTSTARTED);
+        EditNodeCommand cmd = new EditNodeCommand(f, before, after);
+        cmd.execute();
+        assertEquals(100, f.getProgress().getCompletion());
+        assertEquals(50, ((FDDINode) f.getParentNode()).getProgress().getCompletion());
+        assertEquals(25, p.getProgress().getCompletion());
+        cmd.undo();
+        assertEquals(0, p.getProgress().getCompletion());
+    }
+
+    @Test
+    void structuralCommandsKeepAncestorsInSync() throws Exception {
+        Program p = buildProgram();
+        Feature done = feature(p, 0, 0);
+        done.getMilestone().forEach(m -> m.setStatus(StatusEnum.COMPLETE));
+        ProgressRollup.recompute(p);
+        Activity a0 = (Activity) done.getParentNode();
+        Activity a1 = (Activity) feature(p, 1, 0).getParentNode();
+        assertEquals(50, a0.getProgress().getCompletion());
+
+        DeleteNodeCommand delete = new DeleteNodeCommand(feature(p, 0, 1));
+        delete.execute();
+        assertEquals(100, a0.getProgress().getCompletion());
+        assertEquals(50, p.getProgress().getCompletion());
+        delete.undo();
+        assertEquals(50, a0.getProgress().getCompletion());
+
+        MoveNodeCommand move = new MoveNodeCommand(done, a1);
+        move.execute();
+        assertEquals(0, a0.getProgress().getCompletion());
+        assertEquals(33, a1.getProgress().getCompletion());
+        move.undo();
+        assertEquals(50, a0.getProgress().getCompletion());
+        assertEquals(0, a1.getProgress().getCompletion());
+
+        PasteNodeCommand paste = new PasteNodeCommand(a1, done, false);
+        paste.execute();
+        assertEquals(100, paste.getPasted().getProgress().getCompletion());
+        assertEquals(33, a1.getProgress().getCompletion());
+        paste.undo();
+        assertEquals(0, a1.getProgress().getCompletion());
+    }
+
+    @Test
+    void loadRecomputesStoredProgressInSinglePass() throws Exception {
+        Program p = buildProgram();
+        feature(p, 0, 0).getMilestone().get(1).setStatus(StatusEnum.COMPLETE);
+        ProgressRollup.recompute(p);
+        p.getProgress().setCompletion(99); // stale value persisted in the file
+        File tmp = File.createTempFile("rollup", ".fddi");
+        tmp.deleteOnExit();
+        assertTrue(FDDIXMLFileWriter.write(p, tmp.getAbsolutePath()));
+        Program loaded = (Program) FDDIXMLFileReader.read(tmp.getAbsolutePath());
+        assertNotNull(loaded);
+        assertEquals(60, feature(loaded, 0, 0).getProgress().getCompletion());
+        assertEquals(15, loaded.getProgress().getCompletion());
+    }
+}
@@ -210,6 +210,21 @@ class FDDCSVImportReaderSimplifiedTest {
         }, "Should not throw exception when 'Develop' root is missing");
     }
 
+    @Test
+    @DisplayName("Should not carry parse state over to the next import")
+    void consecutiveImportsAreIndependent() throws IOException, CsvValidationException {
+        Path other = tempDir.resolve("other.csv");
+        Files.writeString(other, """
+                1,Develop,0%,Sun 1/1/06,Owner1
+                2,Billing,0%,Mon 1/2/06,Owner2
+                """);
+        Project first = FDDCSVImportReader.read(validCsvFile.toString());
+        Project second = FDDCSVImportReader.read(other.toString());
+
+        assertNotSame(first, second, "Each import should build its own project");
+        assertEquals("Billing", second.getAspect().get(0).getSubject().get(0).getName());
+    }
+
     @Test
     @DisplayName("Should handle empty files gracefully")
     void handleEmptyFiles() throws IOException, CsvValidationException {
@@ -0,0 +1,192 @@
+package net.sourceforge.fddtools.persistence;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.Note;
+import com.nebulon.xml.fddi.ObjectFactory;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Progress;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.StatusEnum;
+import com.nebulon.xml.fddi.Subject;
+import jakarta.xml.bind.Marshaller;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.util.FileUtility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringWriter;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for the binary project format: lossless round trip through XML, detection by magic header,
+ * and dispatch from the XML reader/writer entry points.
+ */
+class FDDIBinaryFormatTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** A tree exercising every field, including extension content. */
+    static Program richProgram() throws Exception {
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        Program program = new Program();
+        program.setName("Portfolio");
+        program.getOtherAttributes().put(new QName("urn:x", "owner", "x"), "pmo");
+        Program sub = new Program();
+        sub.setName("Sub program");
+        program.add(sub);
+
+        Project project = new Project();
+        project.setName("Project");
+        WorkPackage wp = new WorkPackage();
+        wp.setName("WP1");
+        wp.setInitials("WP");
+        wp.addFeature(1);
+        wp.addFeature(2);
+        project.getAny().add(wp);
+        org.w3c.dom.Document doc = DocumentBuilderFactory.newDefaultNSInstance().newDocumentBuilder().newDocument();
+        org.w3c.dom.Element ext = doc.createElementNS("urn:ext", "e:custom");
+        ext.setAttribute("level", "3");
+        ext.setTextContent("extension text");
+        project.getAny().add(ext);
+        sub.add(project);
+
+        Aspect aspect = new Aspect();
+        aspect.setName("Aspect");
+        aspect.setStandardMilestones();
+        Subject subject = new Subject();
+        subject.setName("Subject");
+        subject.setPrefix("SU");
+        Activity activity = new Activity();
+        activity.setName("Activity");
+        activity.setInitials("AB");
+        activity.setTarget(df.newXMLGregorianCalendar("2031-03-01+02:00"));
+        for (int i = 0; i < 3; i++) {
+            Feature feature = new Feature();
+            feature.setName("Feature " + i);
+            feature.setInitials(i == 0 ? null : "CD");
+            feature.setSeq(10 + i);
+            for (int m = 0; m < 6; m++) {
+                Milestone ms = new Milestone();
+                ms.setPlanned(df.newXMLGregorianCalendar("2031-02-1" + m));
+                if (m == 0) ms.setActual(df.newXMLGregorianCalendar("2031-02-09T10:15:00Z"));
+                ms.setStatus(m < 2 ? StatusEnum.COMPLETE : m == 2 ? StatusEnum.UNDERWAY : null);
+                feature.getMilestone().add(ms);
+            }
+            Note note = new Note();
+            note.setEntered(df.newXMLGregorianCalendar("2030-12-24"));
+            note.getContent().add("remark ");
+            note.getContent().add(new ObjectFactory().createNoteInitials("XY"));
+            note.getContent().add(" é ünïcode");
+            feature.getRemarks().add(note);
+            activity.getFeature().add(feature);
+        }
+        Progress progress = new Progress();
+        progress.setCompletion(40);
+        progress.setCount(3);
+        progress.setStatus(StatusEnum.ATTENTION);
+        Progress.Kpi kpi = new Progress.Kpi();
+        kpi.setStatus(StatusEnum.COMPLETE);
+        kpi.setCount(2);
+        progress.getKpi().add(kpi);
+        activity.setProgress(progress);
+        subject.getActivity().add(activity);
+        aspect.getSubject().add(subject);
+        project.getAspect().add(aspect);
+        return program;
+    }
+
+    static String xml(Object node) throws Exception {
+        Marshaller m = FDDIPersistenceContext.getInstance().borrowMarshaller(false);
+        try {
+            StringWriter out = new StringWriter();
+            m.marshal(node, out);
+            return out.toString();
+        } finally {
+            FDDIPersistenceContext.getInstance().release(m);
+        }
+    }
+
+    @Test
+    void roundTripThroughXmlIsLossless() throws Exception {
+        Path xmlFile = tempDir.resolve("rich.fddi");
+        FDDIStreamingWriter.write(richProgram(), xmlFile, FDDIStreamingWriter.Validation.NONE, null);
+        FDDINode fromXml = (FDDINode) FDDIXMLFileReader.read(xmlFile.toString());
+
+        Path binFile = tempDir.resolve("rich.fddb");
+        long bytes = FDDIBinaryWriter.write(fromXml, binFile, null);
+        assertEquals(Files.size(binFile), bytes);
+        assertTrue(bytes < Files.size(xmlFile), "binary file is smaller than the XML");
+        FDDINode fromBinary = FDDIBinaryReader.read(binFile, null, null);
+
+        String roundTripped = xml(fromBinary);
+        assertEquals(xml(fromXml), roundTripped);
+        for (String kept : new String[] {"extension text", "XY", "2031-02-09", "WP1", "pmo"}) {
+            assertTrue(roundTripped.contains(kept), kept);
+        }
+        Activity activity = firstActivity(fromBinary);
+        assertSame(activity, activity.getFeature().get(2).getParent());
+        assertEquals(fromXml.getProgress().getCompletion(), fromBinary.getProgress().getCompletion());
+        assertEquals(firstActivity(fromXml).getTargetDate(), activity.getTargetDate());
+        assertNotNull(activity.getTargetDate());
+    }
+
+    private static Activity firstActivity(FDDINode root) {
+        FDDINode n = root;
+        while (!(n instanceof Activity)) n = (FDDINode) n.getChildren().get(0);
+        return (Activity) n;
+    }
+
+    @Test
+    void formatIsDetectedByMagicAndChosenByExtension() throws Exception {
+        Path binFile = tempDir.resolve("p.fddb");
+        FDDIXMLFileWriter.writeAnyFormat(richProgram(), binFile, FDDIStreamingWriter.Validation.NONE, null);
+        assertTrue(FDDIBinaryReader.isBinaryProject(binFile));
+        assertEquals("fddb", FileUtility.getFileType(binFile.toString()));
+
+        // The magic header decides, not the name
+        Path renamed = Files.copy(binFile, tempDir.resolve("p.fddi"));
+        Object root = FDDIXMLFileReader.read(renamed.toString());
+        assertEquals("Portfolio", ((FDDINode) root).getName());
+
+        Path xmlFile = tempDir.resolve("q.fddi");
+        FDDIXMLFileWriter.writeAnyFormat(root, xmlFile, FDDIStreamingWriter.Validation.NONE, null);
+        assertFalse(FDDIBinaryReader.isBinaryProject(xmlFile));
+        assertEquals(xml(root), xml(FDDIXMLFileReader.read(xmlFile.toString())));
+    }
+
+    @Test
+    void savePreservesPermissionsOfReplacedFile() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path binFile = tempDir.resolve("shared.fddb");
+        FDDIBinaryWriter.write(richProgram(), binFile, null);
+        Files.setPosixFilePermissions(binFile, PosixFilePermissions.fromString("rw-rw-r--"));
+        FDDIBinaryWriter.write(richProgram(), binFile, null);
+        assertEquals("rw-rw-r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(binFile)));
+    }
+
+    @Test
+    void truncatedOrCancelledReadsFail() throws Exception {
+        Path binFile = tempDir.resolve("t.fddb");
+        FDDIBinaryWriter.write(richProgram(), binFile, null);
+        assertThrows(CancellationException.class, () -> FDDIBinaryReader.read(binFile, null, () -> true));
+        byte[] all = Files.readAllBytes(binFile);
+        Files.write(binFile, java.util.Arrays.copyOf(all, all.length / 2));
+        assertThrows(java.io.IOException.class, () -> FDDIBinaryReader.read(binFile, null, null));
+        assertNull(FDDIXMLFileReader.read(binFile.toString()));
+    }
+}
@@ -0,0 +1,76 @@
+package net.sourceforge.fddtools.persistence;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import net.sourceforge.fddtools.model.FDDINode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for FDDIJournal: fragments round-trip with parent links, and a torn tail is dropped.
+ */
+class FDDIJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void entriesRoundTripAndTornTailIsDropped() throws Exception {
+        Activity activity = new Activity();
+        activity.setName("Activity");
+        Feature feature = new Feature();
+        feature.setName("Feature");
+        activity.add(feature);
+        Project project = new Project();
+        project.setName("Renamed");
+
+        Path file = tempDir.resolve("p.fddi.journal");
+        try (FDDIJournal journal = FDDIJournal.create(file, new FDDIJournal.Header("", 42L))) {
+            journal.append(new int[] {0, 1}, activity);
+            journal.append(new int[] {0}, project);
+        }
+        FDDIJournal.Contents contents = FDDIJournal.read(file);
+        assertEquals(new FDDIJournal.Header("", 42L), contents.header());
+        assertFalse(contents.torn());
+        assertEquals(2, contents.entries().size());
+        FDDIJournal.Entry first = contents.entries().get(0);
+        assertArrayEquals(new int[] {0, 1}, first.path());
+        Activity decoded = (Activity) first.node();
+        assertEquals("Feature", decoded.getFeature().get(0).getName());
+        assertSame(decoded, decoded.getFeature().get(0).getParent());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        contents = FDDIJournal.read(file);
+        assertTrue(contents.torn());
+        assertEquals(1, contents.entries().size());
+    }
+
+    @Test
+    void applyReplacesNodeInPlace() throws Exception {
+        Program program = new Program();
+        Project a = new Project();
+        a.setName("A");
+        Project b = new Project();
+        b.setName("B");
+        program.add(a);
+        program.add(b);
+        Project replacement = new Project();
+        replacement.setName("A2");
+
+        FDDINode root = FDDIJournal.apply(program, new FDDIJournal.Entry(new int[] {0}, replacement));
+        assertSame(program, root);
+        assertEquals(replacement, program.getChildren().get(0));
+        assertEquals(b, program.getChildren().get(1));
+        assertSame(program, replacement.getParent());
+        assertThrows(IllegalArgumentException.class, () -> FDDIJournal.apply(program, new FDDIJournal.Entry(new int[] {5}, new Project())));
+    }
+}
@@ -0,0 +1,74 @@
+package net.sourceforge.fddtools.persistence;
+
+import com.nebulon.xml.fddi.Program;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator.Shape;
+
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Heap retained by an open project against its node count: fully read from the binary format,
+ * opened from the paged format, and paged with one aspect expanded. Not a unit test; run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=net.sourceforge.fddtools.persistence.FDDIPagedFormatHeapHarness} or from the IDE.
+ */
+public final class FDDIPagedFormatHeapHarness {
+    private static final int PROJECTS = 10;
+    private static final int ASPECTS_PER_PROJECT = 5;
+    private static final int FEATURES_PER_ACTIVITY = 20;
+
+    private FDDIPagedFormatHeapHarness() {}
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("fddp-heap");
+        for (int size : new int[] {10_000, 50_000, 200_000}) {
+            Path bin = dir.resolve("heap-" + size + ".fddb");
+            Path paged = dir.resolve("heap-" + size + ".fddp");
+            int nodes = writeBoth(size, bin, paged);
+            long baseline = usedHeap();
+            FDDINode eager = FDDIBinaryReader.read(bin, null, null);
+            long eagerBytes = usedHeap() - baseline;
+            Reference.reachabilityFence(eager);
+
+            baseline = usedHeap();
+            FDDINode lazy = FDDIPagedReader.open(paged);
+            long lazyBytes = usedHeap() - baseline;
+            FDDINode project = (FDDINode) ((FDDINode) lazy.getChildren().get(0)).getChildren().get(0);
+            FDDINode aspect = (FDDINode) project.getChildren().get(0);
+            aspect.getChildren();
+            long expandedBytes = usedHeap() - baseline;
+            Reference.reachabilityFence(lazy);
+            System.out.printf("nodes=%8d  eager=%,12d B (%5.0f B/node)  paged=%,10d B  paged+1 aspect=%,11d B  files: %,d / %,d B%n",
+                nodes, eagerBytes, (double) eagerBytes / nodes, lazyBytes, expandedBytes, Files.size(bin), Files.size(paged));
+            Files.delete(bin);
+            Files.delete(paged);
+        }
+        Files.delete(dir);
+    }
+
+    /** Writes a generated portfolio in both formats; the tree is unreachable once this returns. */
+    private static int writeBoth(int features, Path bin, Path paged) throws Exception {
+        Program tree = portfolio(features);
+        FDDIBinaryWriter.write(tree, bin, null);
+        FDDIPagedWriter.write(tree, paged, null);
+        return SyntheticProjectGenerator.countNodes(tree);
+    }
+
+    /** {@code features} features spread evenly over {@value #PROJECTS} projects of {@value #ASPECTS_PER_PROJECT} aspects. */
+    static Program portfolio(int features) {
+        int subjects = Math.max(1, features / (PROJECTS * ASPECTS_PER_PROJECT * 10 * FEATURES_PER_ACTIVITY));
+        return new SyntheticProjectGenerator(new Shape(1, PROJECTS, ASPECTS_PER_PROJECT, subjects, 10, FEATURES_PER_ACTIVITY)).generate();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
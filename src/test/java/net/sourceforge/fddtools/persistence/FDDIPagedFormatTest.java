@@ -0,0 +1,194 @@
+package net.sourceforge.fddtools.persistence;
+
+import static net.sourceforge.fddtools.persistence.FDDIBinaryFormatTest.xml;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.StatusEnum;
+import com.nebulon.xml.fddi.Subject;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDINodeCopier;
+import net.sourceforge.fddtools.util.FileUtility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.datatype.DatatypeFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the paged project format: summaries shown without loading, children loaded per node on
+ * first access, and lossless round trips through copies, marshalling and re-saving.
+ */
+class FDDIPagedFormatTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Program -> Project -> two aspects, each with two subjects of two features. */
+    private static Program twoAspects() throws Exception {
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        Program program = new Program();
+        program.setName("Portfolio");
+        Project project = new Project();
+        project.setName("Project");
+        program.add(project);
+        for (int a = 0; a < 2; a++) {
+            Aspect aspect = new Aspect();
+            aspect.setName("Aspect " + a);
+            aspect.setStandardMilestones();
+            project.add(aspect);
+            for (int s = 0; s < 2; s++) {
+                Subject subject = new Subject();
+                subject.setName("Subject " + a + s);
+                subject.setPrefix("S" + a + s);
+                aspect.add(subject);
+                Activity activity = new Activity();
+                activity.setName("Activity " + a + s);
+                subject.add(activity);
+                for (int f = 0; f < 2; f++) {
+                    Feature feature = new Feature();
+                    feature.setName("Feature " + a + s + f);
+                    for (int m = 0; m < 6; m++) {
+                        Milestone ms = new Milestone();
+                        ms.setPlanned(df.newXMLGregorianCalendar("203" + a + "-0" + (s + 1) + "-1" + m));
+                        ms.setStatus(m <= a + s + f ? StatusEnum.COMPLETE : StatusEnum.NOTSTARTED);
+                        feature.getMilestone().add(ms);
+                    }
+                    activity.add(feature);
+                }
+            }
+        }
+        return program;
+    }
+
+    /** Writes {@code tree} as XML and reads it back, so derived state matches a real open. */
+    private FDDINode eager(FDDINode tree) throws Exception {
+        Path xmlFile = tempDir.resolve("eager.fddi");
+        FDDIStreamingWriter.write(tree, xmlFile, FDDIStreamingWriter.Validation.NONE, null);
+        return (FDDINode) FDDIXMLFileReader.read(xmlFile.toString());
+    }
+
+    private static FDDINode child(FDDINode node, int index) {
+        return (FDDINode) node.getChildren().get(index);
+    }
+
+    @Test
+    void summariesAreAvailableBeforeChildrenLoad() throws Exception {
+        FDDINode eager = eager(twoAspects());
+        Path file = tempDir.resolve("p.fddp");
+        FDDIPagedWriter.write(eager, file, null);
+
+        FDDINode root = FDDIPagedReader.open(file);
+        assertFalse(root.isChildrenLoaded());
+        assertEquals(eager.getProgress().getCompletion(), root.getProgress().getCompletion());
+        assertEquals(eager.getTargetDate(), root.getTargetDate());
+
+        Aspect first = (Aspect) child(child(root, 0), 0);
+        Aspect second = (Aspect) child(child(root, 0), 1);
+        assertFalse(first.isChildrenLoaded());
+        assertFalse(second.isChildrenLoaded());
+        assertFalse(second.isLeaf());
+        FDDINode eagerSecond = child(child(eager, 0), 1);
+        assertEquals(eagerSecond.getProgress().getCompletion(), second.getProgress().getCompletion());
+        assertEquals(eagerSecond.getTargetDate(), second.getTargetDate());
+        assertNotNull(second.getInfo(), "aspect fields are decoded with the node");
+
+        Subject subject = first.getSubject().get(1);
+        assertTrue(first.isChildrenLoaded());
+        assertFalse(second.isChildrenLoaded(), "sibling aspect stays unloaded");
+        assertSame(first, subject.getParent());
+        Feature feature = subject.getActivity().get(0).getFeature().get(1);
+        FDDINode eagerFeature = child(child(child(child(child(eager, 0), 0), 1), 0), 1);
+        assertEquals(eagerFeature.getProgress().getCompletion(), feature.getProgress().getCompletion());
+        assertEquals(eagerFeature.getTargetDate(), feature.getTargetDate());
+    }
+
+    @Test
+    void editsRollUpWithoutLoadingSiblings() throws Exception {
+        Path file = tempDir.resolve("e.fddp");
+        FDDIPagedWriter.write(eager(twoAspects()), file, null);
+        FDDINode root = FDDIPagedReader.open(file);
+        Aspect first = (Aspect) child(child(root, 0), 0);
+        Aspect second = (Aspect) child(child(root, 0), 1);
+        int before = root.getProgress().getCompletion();
+
+        Feature feature = first.getSubject().get(0).getActivity().get(0).getFeature().get(0);
+        Milestone last = feature.getMilestone().get(5);
+        last.setPlanned(DatatypeFactory.newInstance().newXMLGregorianCalendar("2040-06-30"));
+        for (Milestone m : feature.getMilestone()) m.setStatus(StatusEnum.COMPLETE);
+        feature.calculateTargetDate();
+        feature.calculateProgress();
+
+        assertFalse(second.isChildrenLoaded());
+        Calendar target = new GregorianCalendar();
+        target.setTime(root.getTargetDate());
+        assertEquals(2040, target.get(Calendar.YEAR));
+        assertTrue(root.getProgress().getCompletion() > before);
+    }
+
+    @Test
+    void copiesMarshallingAndResavingSeeTheWholeTree() throws Exception {
+        FDDINode eager = eager(twoAspects());
+        String expected = xml(eager);
+        Path file = tempDir.resolve("c.fddp");
+        FDDIPagedWriter.write(eager, file, null);
+        assertTrue(FDDIPagedReader.isPagedProject(file));
+        assertEquals("fddp", FileUtility.getFileType(file.toString()));
+
+        FDDINode root = FDDIPagedReader.open(file);
+        FDDINode copy = FDDINodeCopier.copy(root);
+        assertFalse(copy.isChildrenLoaded(), "copy shares the pending pages");
+        assertFalse(root.isChildrenLoaded());
+        assertEquals(expected, xml(copy));
+
+        // Saving over the opened file keeps the still-pending pages of the open tree readable
+        FDDIXMLFileWriter.writeAnyFormat(copy, file, FDDIStreamingWriter.Validation.NONE, null);
+        assertEquals(expected, xml(root));
+        assertEquals(expected, xml(FDDIXMLFileReader.read(file.toString())));
+
+        Path asXml = tempDir.resolve("c.fddi");
+        FDDIXMLFileWriter.writeAnyFormat(FDDIPagedReader.open(file), asXml, FDDIStreamingWriter.Validation.NONE, null);
+        assertEquals(expected, xml(FDDIXMLFileReader.read(asXml.toString())));
+    }
+
+    @Test
+    void savingOverTheOpenedFileReleasesItFirst() throws Exception {
+        FDDINode eager = eager(twoAspects());
+        String expected = xml(eager);
+        Path file = tempDir.resolve("s.fddp");
+        FDDIPagedWriter.write(eager, file, null);
+
+        FDDINode root = FDDIPagedReader.open(file);
+        assertFalse(child(child(root, 0), 0).isChildrenLoaded());
+        assertTrue(FDDIPagedReader.isOpen(file), "pending pages keep the file open");
+
+        // The save must not find the file still open (Windows refuses to replace it)
+        eager.setName("Renamed");
+        FDDIPagedWriter.write(eager, file, null);
+        assertFalse(FDDIPagedReader.isOpen(file));
+        assertEquals(expected, xml(root), "pending pages load from the released copy");
+        assertEquals(xml(eager), xml(FDDIXMLFileReader.read(file.toString())));
+    }
+
+    @Test
+    void extensionContentAndCorruptFiles() throws Exception {
+        FDDINode rich = eager(FDDIBinaryFormatTest.richProgram());
+        Path file = tempDir.resolve("r.fddp");
+        FDDIPagedWriter.write(rich, file, null);
+        assertEquals(xml(rich), xml(FDDIPagedReader.open(file)));
+
+        byte[] all = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(all, all.length - 3));
+        assertThrows(java.io.IOException.class, () -> FDDIPagedReader.open(file));
+        assertNull(FDDIXMLFileReader.read(file.toString()));
+    }
+}
@@ -0,0 +1,55 @@
+package net.sourceforge.fddtools.persistence;
+
+import com.nebulon.xml.fddi.Project;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for FDDIPersistenceContext: shared context/schema and pooled (un)marshallers.
+ */
+class FDDIPersistenceContextTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void contextAndSchemaAreBuiltOnceAndShared() throws Exception {
+        FDDIPersistenceContext pc = FDDIPersistenceContext.getInstance();
+        assertSame(pc.getContext(), pc.getContext());
+        assertNotNull(pc.getSchema(), "Schema should load from the classpath copy");
+        assertSame(pc.getSchema(), pc.getSchema());
+
+        Project project = new Project();
+        project.setName("Reuse");
+        for (int i = 0; i < 3; i++) {
+            String file = tempDir.resolve("p" + i + ".fddi").toString();
+            assertTrue(FDDIXMLFileWriter.write(project, file));
+            assertNotNull(FDDIXMLFileReader.read(file));
+        }
+        assertEquals(1, pc.contextBuildCount());
+    }
+
+    @Test
+    void releasedInstancesAreReused() throws Exception {
+        // A private instance: the shared pools are used by other tests, so their order is unknown
+        FDDIPersistenceContext pc = new FDDIPersistenceContext();
+        Marshaller m = pc.borrowMarshaller();
+        pc.release(m);
+        assertSame(m, pc.borrowMarshaller());
+        pc.release(m);
+
+        Unmarshaller u = pc.borrowUnmarshaller();
+        u.setListener(new Unmarshaller.Listener() {});
+        pc.release(u);
+        Unmarshaller again = pc.borrowUnmarshaller();
+        assertSame(u, again);
+        assertNull(again.getListener(), "Listener must not leak between borrowers");
+        pc.release(again);
+    }
+}
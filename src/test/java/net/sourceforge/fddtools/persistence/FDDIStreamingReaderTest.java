@@ -0,0 +1,89 @@
+package net.sourceforge.fddtools.persistence;
+
+import com.nebulon.xml.fddi.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.datatype.DatatypeFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for FDDIStreamingReader: byte progress, cancellation and single-pass wiring.
+ */
+class FDDIStreamingReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File writeProgram(int features) throws Exception {
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        Program program = new Program();
+        program.setName("Program");
+        Project project = new Project();
+        project.setName("Project");
+        Aspect aspect = new Aspect();
+        aspect.setName("Aspect");
+        Subject subject = new Subject();
+        subject.setName("Subject");
+        subject.setPrefix("S");
+        Activity activity = new Activity();
+        activity.setName("Activity");
+        for (int i = 0; i < features; i++) {
+            Feature feature = new Feature();
+            feature.setName("Feature " + i);
+            Milestone ms = new Milestone();
+            ms.setStatus(StatusEnum.NOTSTARTED);
+            ms.setPlanned(df.newXMLGregorianCalendar(2030, 1 + (i % 12), 1, 0, 0, 0, 0, 0));
+            feature.getMilestone().add(ms);
+            activity.add(feature);
+        }
+        subject.add(activity);
+        aspect.add(subject);
+        project.add(aspect);
+        program.add(project);
+        File file = tempDir.resolve("stream.fddi").toFile();
+        assertTrue(FDDIXMLFileWriter.write(program, file.getAbsolutePath()));
+        return file;
+    }
+
+    @Test
+    void reportsMonotonicByteProgressUpToFileSize() throws Exception {
+        File file = writeProgram(200);
+        List<Long> seen = new ArrayList<>();
+        AtomicLong total = new AtomicLong();
+        Object root = FDDIStreamingReader.read(file, (done, size) -> { seen.add(done); total.set(size); }, null);
+        assertInstanceOf(Program.class, root);
+        assertEquals(file.length(), total.get());
+        assertFalse(seen.isEmpty());
+        for (int i = 1; i < seen.size(); i++) assertTrue(seen.get(i) >= seen.get(i - 1));
+        assertEquals(file.length(), (long) seen.get(seen.size() - 1));
+    }
+
+    @Test
+    void wiresParentsAndRollsUpTargetDatesWhileParsing() throws Exception {
+        Program root = (Program) FDDIStreamingReader.read(writeProgram(12), null, null);
+        Project project = root.getProject().get(0);
+        Activity activity = project.getAspect().get(0).getSubject().get(0).getActivity().get(0);
+        Feature last = activity.getFeature().get(11);
+        assertSame(activity, last.getParentNode());
+        assertSame(root, project.getParentNode());
+        assertEquals(last.getTargetDate(), activity.getTargetDate());
+        assertEquals(last.getTargetDate(), root.getTargetDate());
+        assertNotNull(root.getProgress());
+    }
+
+    @Test
+    void cancellationStopsTheParse() throws Exception {
+        File file = writeProgram(500);
+        AtomicLong calls = new AtomicLong();
+        assertThrows(CancellationException.class,
+            () -> FDDIStreamingReader.read(file, null, () -> calls.incrementAndGet() > 3));
+    }
+}
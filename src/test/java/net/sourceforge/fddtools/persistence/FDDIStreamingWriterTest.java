@@ -0,0 +1,101 @@
+package net.sourceforge.fddtools.persistence;
+
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import net.sourceforge.fddtools.persistence.FDDIStreamingWriter.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for FDDIStreamingWriter: byte progress, atomic replacement and optional validation.
+ */
+class FDDIStreamingWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Program program(String projectName) {
+        Program program = new Program();
+        program.setName("Program");
+        Project project = new Project();
+        project.setName(projectName);
+        program.add(project);
+        return program;
+    }
+
+    private long leftoverTempFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+
+    @Test
+    void reportsBytesWrittenAndReplacesTarget() throws Exception {
+        Path target = tempDir.resolve("out.fddi");
+        Files.writeString(target, "old contents");
+        AtomicLong last = new AtomicLong();
+        long bytes = FDDIStreamingWriter.write(program("Streamed"), target, Validation.BEFORE_COMMIT, last::set);
+        assertEquals(Files.size(target), bytes);
+        assertEquals(bytes, last.get());
+        assertTrue(Files.readString(target).contains("Streamed"));
+        assertEquals(0, leftoverTempFiles());
+        assertInstanceOf(Program.class, FDDIXMLFileReader.read(target.toString()));
+    }
+
+    @Test
+    void failedValidationLeavesExistingFileUntouched() throws Exception {
+        Path target = tempDir.resolve("keep.fddi");
+        FDDIStreamingWriter.write(program("Original"), target, Validation.NONE, null);
+        String before = Files.readString(target);
+        Program invalid = program(null); // project name is required by the schema
+        assertThrows(SAXException.class,
+            () -> FDDIStreamingWriter.write(invalid, target, Validation.BEFORE_COMMIT, null));
+        assertEquals(before, Files.readString(target));
+        assertEquals(0, leftoverTempFiles());
+    }
+
+    @Test
+    void deferredVerificationReportsInvalidFileWithoutFailingSave() throws Exception {
+        Path target = tempDir.resolve("deferred.fddi");
+        FDDIStreamingWriter.write(program(null), target, Validation.DEFERRED, null);
+        assertTrue(Files.exists(target));
+        assertFalse(FDDIStreamingWriter.verifyAsync(target).get());
+        FDDIStreamingWriter.write(program("Valid"), target, Validation.NONE, null);
+        assertTrue(FDDIStreamingWriter.verifyAsync(target).get());
+    }
+
+    @Test
+    void savePreservesPermissionsOfReplacedFile() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path target = tempDir.resolve("shared.fddi");
+        Files.writeString(target, "old contents");
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rw-r--r--"));
+        FDDIStreamingWriter.write(program("Shared"), target, Validation.NONE, null);
+        assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(target)));
+
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rw-rw-r--"));
+        FDDIStreamingWriter.write(program("Group"), target, Validation.NONE, null);
+        assertEquals("rw-rw-r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(target)));
+    }
+
+    @Test
+    void newFileGetsDefaultPermissions() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path reference = Files.createFile(tempDir.resolve("reference"));
+        Path target = tempDir.resolve("new.fddi");
+        FDDIStreamingWriter.write(program("New"), target, Validation.NONE, null);
+        assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(target),
+            "a new project file should get the umask default, not the private temp file mode");
+    }
+}
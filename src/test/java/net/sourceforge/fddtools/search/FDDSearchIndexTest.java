@@ -0,0 +1,292 @@
+package net.sourceforge.fddtools.search;
+
+import com.nebulon.xml.fddi.*;
+import javafx.scene.control.TreeItem;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.command.AddChildCommand;
+import net.sourceforge.fddtools.command.CommandExecutionService;
+import net.sourceforge.fddtools.command.DeleteNodeCommand;
+import net.sourceforge.fddtools.command.EditNodeCommand;
+import net.sourceforge.fddtools.command.MoveNodeCommand;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.state.ModelEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.datatype.DatatypeFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Verifies the search index matches a full scan and follows model changes. */
+public class FDDSearchIndexTest {
+
+    private final CommandExecutionService exec = CommandExecutionService.getInstance();
+
+    @AfterEach
+    void tearDown() {
+        exec.getStack().clear();
+    }
+
+    private static Program sample() {
+        Program program = new Program();
+        program.setName("Program");
+        Project project = new Project();
+        project.setName("Payments Project");
+        Aspect aspect = new Aspect();
+        aspect.setName("Core Domain");
+        String[] subjects = {"Customer Accounts", "Payment Processing"};
+        String[] verbs = {"Create", "Validate", "Close", "List"};
+        for (String subjectName : subjects) {
+            Subject subject = new Subject();
+            subject.setName(subjectName);
+            for (String verb : verbs) {
+                Activity activity = new Activity();
+                activity.setName(verb + " " + subjectName);
+                for (int i = 0; i < 5; i++) {
+                    Feature feature = new Feature();
+                    feature.setName(verb + " the " + subjectName.toLowerCase() + " record " + i);
+                    activity.add(feature);
+                }
+                subject.add(activity);
+            }
+            aspect.add(subject);
+        }
+        project.add(aspect);
+        program.add(project);
+        return program;
+    }
+
+    /** Two aspects of 20 features; even features are JD's, every fourth is late, every third passed design inspection. */
+    private static Program structuredSample() throws Exception {
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        Program program = new Program();
+        program.setName("Program");
+        Project project = new Project();
+        project.setName("Project");
+        for (String aspectName : new String[] {"Dev", "Ops"}) {
+            Aspect aspect = new Aspect();
+            aspect.setName(aspectName);
+            aspect.setStandardMilestones();
+            Subject subject = new Subject();
+            subject.setName(aspectName + " subject");
+            Activity activity = new Activity();
+            activity.setName(aspectName + " activity");
+            for (int i = 0; i < 20; i++) {
+                Feature feature = new Feature();
+                feature.setName(aspectName + " feature " + i);
+                feature.setInitials(i % 2 == 0 ? "JD" : "AB");
+                for (int m = 0; m < 6; m++) {
+                    Milestone ms = new Milestone();
+                    ms.setPlanned(df.newXMLGregorianCalendar(i % 4 == 0 ? "2020-01-10" : "2099-01-10"));
+                    boolean complete = m < 2 || (m == 2 && i % 3 == 0);
+                    ms.setStatus(complete ? StatusEnum.COMPLETE : StatusEnum.NOTSTARTED);
+                    feature.getMilestone().add(ms);
+                }
+                activity.add(feature);
+            }
+            subject.add(activity);
+            aspect.add(subject);
+            project.add(aspect);
+        }
+        WorkPackage wp = new WorkPackage();
+        wp.setName("Sprint 1");
+        for (int i = 0; i < 3; i++) wp.addFeature(devFeatures(project).get(i).getSeq());
+        project.getAny().add(wp);
+        program.add(project);
+        return program;
+    }
+
+    private static List<Feature> devFeatures(Project project) {
+        return project.getAspect().get(0).getSubject().get(0).getActivity().get(0).getFeature();
+    }
+
+    private static TreeItem<FDDINode> items(FDDINode node) {
+        TreeItem<FDDINode> item = new TreeItem<>(node);
+        for (FDDTreeNode child : node.getChildren()) item.getChildren().add(items((FDDINode) child));
+        return item;
+    }
+
+    private static Feature feature(Program program, int subject, int activity, int index) {
+        return program.getProject().get(0).getAspect().get(0).getSubject().get(subject)
+            .getActivity().get(activity).getFeature().get(index);
+    }
+
+    private static List<String> names(List<FDDSearchIndex.Hit> hits) {
+        return hits.stream().map(h -> h.node().getName()).toList();
+    }
+
+    @Test
+    void indexedSearchReturnsSameMatchesAsScan() {
+        Program program = sample();
+        TreeItem<FDDINode> rootItem = items(program);
+        FDDSearchIndex index = new FDDSearchIndex();
+        index.rebuild(program);
+        FDDTreeSearchEngine indexed = new FDDTreeSearchEngine(index);
+        FDDTreeSearchEngine scanning = new FDDTreeSearchEngine(new FDDSearchIndex());
+
+        for (String query : List.of("c", "cr", "Create", "record 3", "payment", "vldt", "CLOSE THE", "zzz", "Program")) {
+            List<FDDTreeSearchEngine.SearchMatch> expected = scanning.search(rootItem, query);
+            List<FDDTreeSearchEngine.SearchMatch> actual = indexed.search(rootItem, query);
+            assertEquals(expected.size(), actual.size(), query);
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i).getNode(), actual.get(i).getNode(), query + " #" + i);
+                assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-9, query);
+                assertSame(expected.get(i).getTreeItem(), actual.get(i).getTreeItem(), query + " #" + i);
+            }
+        }
+    }
+
+    @Test
+    void limitKeepsBestMatchesInTreeOrder() {
+        Program program = sample();
+        FDDSearchIndex index = new FDDSearchIndex();
+        index.rebuild(program);
+        List<FDDSearchIndex.Hit> hits = index.query("validate", 3);
+        assertEquals(List.of("Validate Customer Accounts", "Validate the customer accounts record 0",
+            "Validate the customer accounts record 1"), names(hits));
+        assertEquals(FDDSearchIndex.PREFIX, hits.get(0).score());
+        assertTrue(index.query(" ", 10).isEmpty());
+    }
+
+    @Test
+    void sharedIndexFollowsCommands() {
+        Program program = sample();
+        FDDSearchIndex index = FDDSearchIndex.getInstance();
+        ModelEventBus.get().publish(ModelEventBus.EventType.PROJECT_LOADED, program);
+        assertSame(program, index.getRoot());
+        int size = index.size();
+
+        Feature renamed = feature(program, 0, 0, 0);
+        String original = renamed.getName();
+        var before = EditNodeCommand.capture(renamed);
+        renamed.setName("Archive dormant customers");
+        var after = EditNodeCommand.capture(renamed);
+        renamed.setName(original);
+        exec.execute(new EditNodeCommand(renamed, before, after));
+        assertEquals(List.of("Archive dormant customers"), names(index.query("dormant", 10)));
+
+        Activity activity = program.getProject().get(0).getAspect().get(0).getSubject().get(1).getActivity().get(2);
+        exec.execute(new DeleteNodeCommand(activity));
+        assertTrue(index.query("close the payment", 100).stream()
+            .noneMatch(h -> h.node() == activity || h.node().getParent() == activity));
+        assertEquals(size - 6, index.size());
+        exec.undo();
+        List<FDDSearchIndex.Hit> restored = index.query("close the payment", 5);
+        assertTrue(restored.stream().allMatch(h -> h.node().getParent() == activity && h.score() == FDDSearchIndex.PREFIX));
+
+        Feature added = new Feature();
+        added.setName("Refund payment");
+        exec.execute(new AddChildCommand(activity, added));
+        assertSame(added, index.query("refund", 10).get(0).node());
+
+        Activity target = program.getProject().get(0).getAspect().get(0).getSubject().get(0).getActivity().get(1);
+        exec.execute(new MoveNodeCommand(added, target));
+        assertSame(added, index.query("refund", 10).get(0).node(), "Moving keeps the node indexed");
+        assertEquals(size + 1, index.size());
+    }
+
+    @Test
+    void structuredQueriesMatchScanAndFollowEdits() throws Exception {
+        Program program = structuredSample();
+        TreeItem<FDDINode> rootItem = items(program);
+        FDDSearchIndex index = new FDDSearchIndex();
+        index.rebuild(program);
+        FDDTreeSearchEngine indexed = new FDDTreeSearchEngine(index);
+        FDDTreeSearchEngine scanning = new FDDTreeSearchEngine(new FDDSearchIndex());
+        List<Feature> dev = devFeatures(program.getProject().get(0));
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            if (i % 2 == 0 && i % 4 == 0 && i % 3 != 0) expected.add("Dev feature " + i);
+        }
+        String query = "owner:JD late:true status:design-inspection=notstarted aspect:\"Dev\"";
+        assertEquals(expected, names(index.query(query, 100)));
+
+        int firstSeq = dev.get(0).getSeq();
+        for (String q : List.of(query, "late:false", "status:complete owner:ab", "seq:>" + (firstSeq + 30),
+                "seq:" + firstSeq + ".." + (firstSeq + 4) + " feature 1", "wp:\"Sprint 1\"", "aspect:ops feature 1",
+                "owner:XY", "status:design=complete")) {
+            List<FDDTreeSearchEngine.SearchMatch> scan = scanning.search(rootItem, q);
+            List<FDDTreeSearchEngine.SearchMatch> actual = indexed.search(rootItem, q);
+            assertEquals(scan.stream().map(FDDTreeSearchEngine.SearchMatch::getNode).toList(),
+                actual.stream().map(FDDTreeSearchEngine.SearchMatch::getNode).toList(), q);
+        }
+        assertEquals(3, index.query("wp:\"sprint 1\"", 100).size());
+        assertEquals(40, index.query("status:complete", 100).size(), "Every feature has a complete milestone");
+        assertTrue(index.query("seq:>", 100).isEmpty(), "Malformed clause matches nothing");
+
+        Feature reassigned = dev.get(4);
+        String original = reassigned.getInitials();
+        var before = EditNodeCommand.capture(reassigned);
+        reassigned.setInitials("ZZ");
+        var after = EditNodeCommand.capture(reassigned);
+        reassigned.setInitials(original);
+        new EditNodeCommand(reassigned, before, after).execute();
+        index.nodeUpdated(reassigned);
+        assertEquals(List.of(reassigned), index.query("owner:zz", 10).stream().map(FDDSearchIndex.Hit::node).toList());
+        assertFalse(names(index.query(query, 100)).contains("Dev feature 4"));
+    }
+
+    @Test
+    void movedFeaturesFollowTheMilestoneNamesOfTheirNewAspect() throws Exception {
+        Program program = structuredSample();
+        Project project = program.getProject().get(0);
+        Aspect ops = project.getAspect().get(1);
+        ops.getInfo().getMilestoneInfo().get(0).setName("Kickoff");
+        FDDSearchIndex index = new FDDSearchIndex();
+        index.rebuild(program);
+        assertEquals(20, index.query("status:kickoff=complete", 100).size());
+
+        Subject from = project.getAspect().get(0).getSubject().get(0);
+        Subject to = ops.getSubject().get(0);
+        Activity moved = from.getActivity().get(0);
+        new MoveNodeCommand(moved, to).execute();
+        index.structureChanged(from);
+        index.structureChanged(to);
+
+        assertEquals(40, index.query("status:kickoff=complete", 100).size());
+        assertTrue(index.query("status:domain-walkthrough=complete", 100).isEmpty(),
+            "no feature is left under the old aspect's milestone name");
+        FDDTreeSearchEngine scanning = new FDDTreeSearchEngine(new FDDSearchIndex());
+        assertEquals(scanning.search(items(program), "status:kickoff=complete owner:jd").size(),
+            index.query("status:kickoff=complete owner:jd", 100).size());
+    }
+
+    /** Takes {@code aspect}'s subjects out and defers them to a loader, as a paged file does. */
+    private static void deferSubjects(Aspect aspect) {
+        List<Subject> subjects = new ArrayList<>(aspect.getSubject());
+        aspect.getSubject().clear();
+        aspect.setChildLoader(node -> subjects.forEach(((Aspect) node)::add));
+    }
+
+    @Test
+    void pendingSubtreesAreIndexedWhenTheyLoad() throws Exception {
+        Program program = structuredSample();
+        Project project = program.getProject().get(0);
+        Aspect dev = project.getAspect().get(0);
+        Aspect ops = project.getAspect().get(1);
+        deferSubjects(dev);
+        deferSubjects(ops);
+        FDDSearchIndex index = new FDDSearchIndex();
+        index.rebuild(program);
+        assertFalse(dev.isChildrenLoaded(), "indexing leaves pending subtrees alone");
+        assertFalse(ops.isChildrenLoaded());
+        assertEquals(2, index.pendingSubtrees());
+        int size = index.size();
+
+        dev.getSubject();
+        index.childrenLoaded(dev);
+        assertEquals(size + 22, index.size());
+        assertEquals(1, index.pendingSubtrees());
+        assertFalse(ops.isChildrenLoaded());
+
+        // A query may match anywhere, so it loads what is still pending
+        assertEquals(List.of("Ops feature 7"), names(index.query("ops feature 7", 1)));
+        assertTrue(ops.isChildrenLoaded());
+        assertEquals(0, index.pendingSubtrees());
+        assertEquals(20, index.query("aspect:ops", 100).size());
+    }
+}
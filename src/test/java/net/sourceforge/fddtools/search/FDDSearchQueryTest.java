@@ -0,0 +1,50 @@
+package net.sourceforge.fddtools.search;
+
+import com.nebulon.xml.fddi.StatusEnum;
+import net.sourceforge.fddtools.search.FDDSearchQuery.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Parser tests for the structured search syntax. */
+public class FDDSearchQueryTest {
+
+    @Test
+    void parsesFieldClausesAndFreeText() {
+        FDDSearchQuery q = FDDSearchQuery.parse(
+            "owner:JD late:true status:design-inspection=notstarted aspect:\"Dev Team\" seq:>1200 login form");
+        assertTrue(q.isStructured());
+        assertEquals("login form", q.getText());
+        assertEquals(List.of(new Owner("JD"), new Late(true),
+            new MilestoneStatus("design-inspection", StatusEnum.NOTSTARTED), new AspectName("Dev Team"),
+            new SeqRange(1201, Integer.MAX_VALUE), new NameContains("login form")), q.clauses());
+    }
+
+    @Test
+    void plainTextStaysUnstructured() {
+        FDDSearchQuery q = FDDSearchQuery.parse("  Note: user registration ");
+        assertFalse(q.isStructured());
+        assertEquals("Note: user registration", q.getText());
+        assertTrue(q.clauses().isEmpty());
+    }
+
+    @Test
+    void parsesSequenceForms() {
+        assertEquals(new SeqRange(7, 7), FDDSearchQuery.parse("seq:7").clauses().get(0));
+        assertEquals(new SeqRange(Integer.MIN_VALUE, 9), FDDSearchQuery.parse("seq:<10").clauses().get(0));
+        assertEquals(new SeqRange(10, Integer.MAX_VALUE), FDDSearchQuery.parse("seq:>=10").clauses().get(0));
+        assertEquals(new SeqRange(100, 200), FDDSearchQuery.parse("seq:100..200").clauses().get(0));
+        assertEquals(new MilestoneStatus(null, StatusEnum.UNDERWAY), FDDSearchQuery.parse("status:UNDERWAY").clauses().get(0));
+        assertEquals(new WorkPackageName("Sprint 3"), FDDSearchQuery.parse("wp:\"Sprint 3\"").clauses().get(0));
+    }
+
+    @Test
+    void rejectsMalformedValues() {
+        assertThrows(IllegalArgumentException.class, () -> FDDSearchQuery.parse("seq:>"));
+        assertThrows(IllegalArgumentException.class, () -> FDDSearchQuery.parse("late:maybe"));
+        assertThrows(IllegalArgumentException.class, () -> FDDSearchQuery.parse("status:design=done"));
+        assertThrows(IllegalArgumentException.class, () -> FDDSearchQuery.parse("owner:"));
+    }
+}
@@ -228,6 +228,26 @@ class FDDTreeSearchControllerTest {
         assertFalse(searchController.isHighlighted(nonMatchedItem), "Non-matched item should not be highlighted");
     }
     
+    @Test
+    void testCurrentMatchFollowsNavigationWithoutRebuildingTree() {
+        searchController.search("User");
+        List<FDDTreeSearchEngine.SearchMatch> matches = searchController.getCurrentMatches();
+        TreeItem<FDDINode> first = matches.get(0).getTreeItem();
+        TreeItem<FDDINode> second = matches.get(1).getTreeItem();
+        assertTrue(searchController.isCurrentMatch(first));
+        assertFalse(searchController.isCurrentMatch(second));
+
+        searchController.navigateToNext();
+        assertFalse(searchController.isCurrentMatch(first));
+        assertTrue(searchController.isCurrentMatch(second));
+        assertTrue(searchController.isHighlighted(first), "Highlight stays when the current match moves");
+        assertSame(rootItem, treeView.getRoot(), "Highlighting repaints cells instead of rebuilding the tree");
+
+        searchController.clearSearch();
+        assertFalse(searchController.isHighlighted(first));
+        assertFalse(searchController.isCurrentMatch(second));
+    }
+
     @Test
     void testClearSearch() {
         // Start with a search
@@ -315,4 +335,40 @@ class FDDTreeSearchControllerTest {
         assertEquals(3, matchChangedCount.get(), "Should notify match changes 3 times (initial + 2 navigations)");
         assertEquals(1, clearCount.get(), "Should notify clear once");
     }
+
+    @Test
+    void testAsyncSearchAppliesOnlyLatestQuery() throws Exception {
+        AtomicInteger searchResultsCount = new AtomicInteger(0);
+        CountDownLatch applied = new CountDownLatch(1);
+        String[] lastQuery = new String[1];
+        searchController.setSearchListener(new FDDTreeSearchController.SearchListener() {
+            @Override
+            public void onSearchResults(String query, List<FDDTreeSearchEngine.SearchMatch> matches) {
+                searchResultsCount.incrementAndGet();
+                lastQuery[0] = query;
+                applied.countDown();
+            }
+            @Override public void onCurrentMatchChanged(int matchIndex, int totalMatches) { }
+            @Override public void onSearchCleared() { }
+        });
+        long cancelledBefore = searchController.getCancelledQueryCount();
+
+        // Typing faster than the debounce interval supersedes the earlier queries
+        Platform.runLater(() -> {
+            searchController.searchAsync("U");
+            searchController.searchAsync("Us");
+            searchController.searchAsync("User");
+        });
+
+        assertTrue(applied.await(5, TimeUnit.SECONDS), "Async search should deliver results");
+        Thread.sleep(FDDTreeSearchController.DEBOUNCE_MS * 2);
+        CountDownLatch drained = new CountDownLatch(1);
+        Platform.runLater(drained::countDown);
+        assertTrue(drained.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, searchResultsCount.get(), "Only the last query should be applied");
+        assertEquals("User", lastQuery[0]);
+        assertEquals(3, searchController.getCurrentMatches().size());
+        assertEquals(2, searchController.getCancelledQueryCount() - cancelledBefore);
+    }
 }
@@ -0,0 +1,184 @@
+package net.sourceforge.fddtools.service;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.Subject;
+import net.sourceforge.fddtools.command.AddChildCommand;
+import net.sourceforge.fddtools.command.CommandExecutionService;
+import net.sourceforge.fddtools.command.DeleteNodeCommand;
+import net.sourceforge.fddtools.command.EditNodeCommand;
+import net.sourceforge.fddtools.command.workpackage.AddWorkPackageCommand;
+import net.sourceforge.fddtools.command.workpackage.RenameWorkPackageCommand;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AutosaveService: commands are journaled next to the project file, compaction rotates
+ * snapshots, a clean save drops the journal, and recovery replays what a crash left behind.
+ */
+class AutosaveServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AutosaveService autosave = AutosaveService.getInstance();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        CommandExecutionService.getInstance().getStack().clear();
+        ProjectService.getInstance().clear();
+        autosave.flush().get(5, TimeUnit.SECONDS);
+    }
+
+    private Path writeProject() {
+        Program program = new Program();
+        program.setName("Program");
+        Project project = new Project();
+        project.setName("Project");
+        Aspect aspect = new Aspect();
+        aspect.setName("Aspect");
+        Subject subject = new Subject();
+        subject.setName("Subject");
+        subject.setPrefix("SU");
+        Activity activity = new Activity();
+        activity.setName("Activity");
+        program.add(project);
+        project.add(aspect);
+        aspect.add(subject);
+        subject.add(activity);
+        Path file = tempDir.resolve("autosave.fddi");
+        assertTrue(FDDIXMLFileWriter.write(program, file.toString()));
+        return file;
+    }
+
+    private static Activity activityOf(FDDINode root) {
+        FDDINode n = root;
+        while (!(n instanceof Activity)) n = (FDDINode) n.getChildren().get(0);
+        return (Activity) n;
+    }
+
+    private static Feature feature(String name) {
+        Feature f = new Feature();
+        f.setName(name);
+        return f;
+    }
+
+    /** Leaves the journal on disk as a crash would, then reads the project back through recovery. */
+    private FDDINode crashAndRecover(Path file) throws Exception {
+        autosave.detach(false);
+        autosave.flush().get(5, TimeUnit.SECONDS);
+        return autosave.recover(file.toString(), (FDDINode) FDDIXMLFileReader.read(file.toString()));
+    }
+
+    private static List<String> featureNames(FDDINode root) {
+        return activityOf(root).getFeature().stream().map(Feature::getName).toList();
+    }
+
+    @Test
+    void journaledCommandsAreReplayedAfterCrash() throws Exception {
+        Path file = writeProject();
+        ProjectService ps = ProjectService.getInstance();
+        assertTrue(ps.open(file.toString()));
+        Activity activity = activityOf(ps.getRoot());
+        CommandExecutionService commands = CommandExecutionService.getInstance();
+        commands.execute(new AddChildCommand(activity, feature("First")));
+        commands.execute(new AddChildCommand(activity, feature("Second")));
+        commands.execute(new DeleteNodeCommand(activity.getFeature().get(0)));
+        autosave.flush().get(5, TimeUnit.SECONDS);
+        assertTrue(Files.isRegularFile(AutosaveService.journalFile(file)));
+
+        FDDINode recovered = crashAndRecover(file);
+        assertEquals(List.of("Second"), featureNames(recovered));
+        assertSame(activityOf(recovered), activityOf(recovered).getFeature().get(0).getParent());
+        assertTrue(autosave.attach(file.toString(), recovered), "Recovered root is reported so the project is marked dirty");
+    }
+
+    @Test
+    void workPackageEditsAreJournaledWithoutWaitingForCompaction() throws Exception {
+        Path file = writeProject();
+        ProjectService ps = ProjectService.getInstance();
+        assertTrue(ps.open(file.toString()));
+        Project project = (Project) ps.getRoot().getChildren().get(0);
+        Activity activity = activityOf(ps.getRoot());
+        CommandExecutionService commands = CommandExecutionService.getInstance();
+        commands.execute(new AddChildCommand(activity, feature("Planned")));
+        WorkPackage wp = new WorkPackage();
+        wp.setName("WP1");
+        commands.execute(new AddWorkPackageCommand(project, wp));
+        commands.execute(new RenameWorkPackageCommand(project, wp, "Sprint 1"));
+        Feature planned = activity.getFeature().get(0);
+        EditNodeCommand.Snapshot before = EditNodeCommand.capture(planned);
+        wp.addFeature(planned.getSeq());
+        EditNodeCommand.Snapshot after = EditNodeCommand.capture(planned);
+        wp.getFeatureList().clear();
+        commands.execute(new EditNodeCommand(planned, before, after));
+
+        FDDINode recovered = crashAndRecover(file);
+        assertTrue(AutosaveService.snapshots(file.toAbsolutePath()).isEmpty(), "replayed from the journal alone");
+        List<WorkPackage> packages = ((Project) recovered.getChildren().get(0)).getWorkPackages();
+        assertEquals(List.of("Sprint 1"), packages.stream().map(WorkPackage::getName).toList());
+        Feature recoveredFeature = activityOf(recovered).getFeature().get(0);
+        assertEquals(List.of(recoveredFeature.getSeq()), packages.get(0).getFeatureList());
+    }
+
+    @Test
+    void compactionKeepsNewestSnapshotsAndJournalContinuesFromThem() throws Exception {
+        Path file = writeProject();
+        ProjectService ps = ProjectService.getInstance();
+        assertTrue(ps.open(file.toString()));
+        Activity activity = activityOf(ps.getRoot());
+        CommandExecutionService commands = CommandExecutionService.getInstance();
+        for (int i = 0; i < AutosaveService.KEEP_SNAPSHOTS + 2; i++) {
+            commands.execute(new AddChildCommand(activity, feature("F" + i)));
+            autosave.compact();
+        }
+        commands.execute(new AddChildCommand(activity, feature("After")));
+        autosave.flush().get(5, TimeUnit.SECONDS);
+        List<Path> snapshots = AutosaveService.snapshots(file.toAbsolutePath());
+        assertEquals(AutosaveService.KEEP_SNAPSHOTS, snapshots.size());
+        assertTrue(snapshots.get(snapshots.size() - 1).getFileName().toString().endsWith("-" + (AutosaveService.KEEP_SNAPSHOTS + 2)));
+
+        FDDINode recovered = crashAndRecover(file);
+        assertEquals(List.of("F0", "F1", "F2", "F3", "F4", "After"), featureNames(recovered));
+    }
+
+    @Test
+    void cleanSaveAndCloseDiscardRecoveryFiles() throws Exception {
+        Path file = writeProject();
+        ProjectService ps = ProjectService.getInstance();
+        assertTrue(ps.open(file.toString()));
+        CommandExecutionService.getInstance().execute(new AddChildCommand(activityOf(ps.getRoot()), feature("Saved")));
+        autosave.compact();
+        autosave.flush().get(5, TimeUnit.SECONDS);
+        assertTrue(Files.isRegularFile(AutosaveService.journalFile(file)));
+
+        assertTrue(ps.save());
+        autosave.flush().get(5, TimeUnit.SECONDS);
+        assertFalse(Files.exists(AutosaveService.journalFile(file)));
+        assertTrue(AutosaveService.snapshots(file.toAbsolutePath()).isEmpty());
+
+        CommandExecutionService.getInstance().execute(new AddChildCommand(activityOf(ps.getRoot()), feature("Unsaved")));
+        autosave.flush().get(5, TimeUnit.SECONDS);
+        assertTrue(Files.isRegularFile(AutosaveService.journalFile(file)));
+        ps.clear();
+        autosave.flush().get(5, TimeUnit.SECONDS);
+        assertFalse(Files.exists(AutosaveService.journalFile(file)));
+        FDDINode reopened = autosave.recover(file.toString(), (FDDINode) FDDIXMLFileReader.read(file.toString()));
+        assertEquals(List.of("Saved"), featureNames(reopened));
+    }
+}
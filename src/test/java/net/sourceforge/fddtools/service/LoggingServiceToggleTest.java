@@ -109,4 +109,33 @@ public class LoggingServiceToggleTest {
         assertNotNull(span);
         svc.setPerfEnabled(true); // restore
     }
+
+    @Test
+    void perfListenersReceiveClosedSpansWithAllocation() {
+        LoggingService svc = LoggingService.getInstance();
+        List<LoggingService.PerfSample> samples = new ArrayList<>();
+        LoggingService.PerfListener listener = samples::add;
+        svc.addPerfListener(listener);
+        try {
+            try (LoggingService.Span span = svc.startPerf("listenedSpan", Map.of())) {
+                span.metric("items", 3);
+                byte[][] garbage = new byte[64][];
+                for (int i = 0; i < garbage.length; i++) garbage[i] = new byte[1024];
+                assertEquals(64, garbage.length);
+            }
+            svc.setPerfEnabled(false);
+            svc.startPerf("disabledSpan", Map.of()).close();
+        } finally {
+            svc.setPerfEnabled(true);
+            svc.removePerfListener(listener);
+        }
+        svc.startPerf("afterRemoval", Map.of()).close();
+
+        assertEquals(1, samples.size());
+        LoggingService.PerfSample sample = samples.get(0);
+        assertEquals("listenedSpan", sample.name());
+        assertEquals(3, sample.metrics().get("items"));
+        assertTrue(sample.durationNanos() > 0);
+        assertTrue(sample.allocatedBytes() >= 64 * 1024, "allocation of the span's thread is measured");
+    }
 }
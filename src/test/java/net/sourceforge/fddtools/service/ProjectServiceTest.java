@@ -89,6 +89,34 @@ class ProjectServiceTest {
         assertEquals(temp.getName(), svc.getDisplayName());
     }
 
+    @Test
+    void snapshotSaveKeepsDirtyWhenEditedMeanwhile() throws Exception {
+        svc.newProject("Snap");
+        File temp = File.createTempFile("projsnap", ".fddi");
+        temp.deleteOnExit();
+        svc.markDirty();
+        waitFx();
+        ProjectService.Snapshot snapshot = svc.snapshot();
+        assertNotSame(svc.getRoot(), snapshot.root(), "Snapshot is a detached copy");
+        svc.getRoot().setName("Renamed during save");
+        assertEquals("Snap", snapshot.root().getName());
+        svc.markDirty(); // an edit while the snapshot is being written
+        waitFx();
+        assertTrue(net.sourceforge.fddtools.persistence.FDDIXMLFileWriter.write(snapshot.root(), temp.getAbsolutePath()));
+        assertTrue(svc.markSaved(temp.getAbsolutePath(), snapshot));
+        waitFx();
+        assertEquals(temp.getAbsolutePath(), svc.getAbsolutePath());
+        assertTrue(ModelState.getInstance().isDirty(), "Edits made during the save are still unsaved");
+
+        ProjectService.Snapshot current = svc.snapshot();
+        assertTrue(svc.markSaved(temp.getAbsolutePath(), current));
+        waitFx();
+        assertFalse(ModelState.getInstance().isDirty(), "Saving an up-to-date snapshot clears dirty");
+
+        svc.newProject("Other");
+        assertFalse(svc.markSaved(temp.getAbsolutePath(), current), "A snapshot of a closed project is not recorded");
+    }
+
     @Test
     void clearResetsState() {
         svc.newProject("X");
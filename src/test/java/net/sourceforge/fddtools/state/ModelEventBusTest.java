@@ -1,6 +1,19 @@
 package net.sourceforge.fddtools.state;
 
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Subject;
+import net.sourceforge.fddtools.command.CommandExecutionService;
+import net.sourceforge.fddtools.command.EditNodeCommand;
+import net.sourceforge.fddtools.command.MoveNodeCommand;
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ModelEventBusTest {
@@ -8,9 +21,124 @@ public class ModelEventBusTest {
     void publishesEventsToSubscribers() throws Exception {
         ModelEventBus bus = ModelEventBus.get();
         final boolean[] received = {false};
-        try (AutoCloseable sub = bus.subscribe(ev -> { if(ev.type== ModelEventBus.EventType.NODE_UPDATED) received[0]=true; })) {
+        AutoCloseable sub = bus.subscribe(ev -> { if(ev.type== ModelEventBus.EventType.NODE_UPDATED) received[0]=true; });
+        try {
             bus.publish(ModelEventBus.EventType.NODE_UPDATED, "payload");
             assertTrue(received[0]);
+        } finally {
+            sub.close();
+        }
+    }
+
+    @Test
+    void batchCoalescesDuplicatesAndEmitsChangeSet() throws Exception {
+        ModelEventBus bus = ModelEventBus.get();
+        Activity parent = new Activity();
+        Feature a = new Feature(), b = new Feature();
+        List<ModelEventBus.Event> events = new ArrayList<>();
+        AutoCloseable sub = bus.subscribe(events::add);
+        try {
+            bus.batch(() -> {
+                parent.add(a);
+                bus.publishChange(ModelChange.added(a, parent));
+                bus.publish(ModelEventBus.EventType.NODE_UPDATED, a);
+                parent.add(b);
+                bus.publishChange(ModelChange.added(b, parent));
+                bus.publish(ModelEventBus.EventType.NODE_UPDATED, a);
+                assertTrue(events.isEmpty(), "Nothing is delivered before the batch ends");
+            });
+        } finally {
+            sub.close();
+        }
+        assertEquals(List.of(ModelEventBus.EventType.TREE_STRUCTURE_CHANGED, ModelEventBus.EventType.NODE_UPDATED,
+            ModelEventBus.EventType.CHANGE_SET), events.stream().map(e -> e.type).toList());
+        assertSame(parent, events.get(0).payload);
+        assertEquals(List.of(a, b), events.get(0).changes.stream().map(ModelChange::node).toList());
+        var set = (ModelEventBus.ModelChangeSet) events.get(2).payload;
+        assertEquals(2, set.changes().size());
+        assertEquals(List.of(parent), set.changes().get(0).ancestors());
+    }
+
+    @Test
+    void commandsPublishTypedChanges() throws Exception {
+        Subject subject = new Subject();
+        Activity from = new Activity(), to = new Activity();
+        subject.add(from);
+        subject.add(to);
+        Feature feature = new Feature();
+        feature.setName("Old name");
+        from.add(feature);
+        CommandExecutionService exec = CommandExecutionService.getInstance();
+        List<ModelEventBus.ModelChangeSet> sets = new ArrayList<>();
+        AutoCloseable sub = ModelEventBus.get().subscribe(ev -> {
+            if (ev.type == ModelEventBus.EventType.CHANGE_SET) sets.add((ModelEventBus.ModelChangeSet) ev.payload);
+        });
+        try {
+            var before = EditNodeCommand.capture(feature);
+            feature.setName("New name");
+            var after = EditNodeCommand.capture(feature);
+            feature.setName("Old name");
+            exec.execute(new EditNodeCommand(feature, before, after));
+            exec.execute(new MoveNodeCommand(feature, to));
+            exec.undo();
+        } finally {
+            sub.close();
+            exec.getStack().clear();
+        }
+        assertEquals(3, sets.size());
+        ModelChange edit = sets.get(0).changes().get(0);
+        assertEquals(ModelChange.Kind.FIELD_CHANGED, edit.kind());
+        assertEquals("name", edit.field());
+        assertEquals("Old name", edit.oldValue());
+        assertEquals("New name", edit.newValue());
+        assertEquals(List.of(from, subject), edit.ancestors());
+        ModelChange move = sets.get(1).changes().get(0);
+        assertEquals(ModelChange.Kind.MOVED, move.kind());
+        assertSame(from, move.oldParent());
+        assertSame(to, move.parent());
+        assertEquals(1, sets.get(1).changes().size(), "A move is one change despite two structure events");
+        assertSame(from, sets.get(2).changes().get(0).parent(), "Undo moves back");
+    }
+
+    @Test
+    void dispatcherDeliveryCoalescesPendingEvents() throws Exception {
+        ModelEventBus bus = ModelEventBus.get();
+        Object payload = new Object();
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1), done = new CountDownLatch(2);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        AutoCloseable sub = bus.subscribe(ev -> {
+            if (ev.payload != payload) return;
+            threads.add(Thread.currentThread().getName());
+            started.countDown();
+            try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            done.countDown();
+        }, ModelEventBus.Delivery.DISPATCHER);
+        try {
+            bus.publish(ModelEventBus.EventType.NODE_UPDATED, payload);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 50; i++) bus.publish(ModelEventBus.EventType.NODE_UPDATED, payload);
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals(2, threads.size(), "Events queued while the listener was busy are delivered once");
+            assertTrue(threads.stream().allMatch("model-events"::equals));
+        } finally {
+            sub.close();
+        }
+    }
+
+    @Test
+    void failingListenerDoesNotStopOthers() throws Exception {
+        ModelEventBus bus = ModelEventBus.get();
+        final int[] calls = {0};
+        AutoCloseable bad = bus.subscribe(ev -> { throw new IllegalStateException("boom"); });
+        AutoCloseable good = bus.subscribe(ev -> calls[0]++);
+        try {
+            bus.publish(ModelEventBus.EventType.UI_THEME_CHANGED, "dark");
+        } finally {
+            good.close();
+            bad.close();
         }
+        assertEquals(1, calls[0]);
     }
 }
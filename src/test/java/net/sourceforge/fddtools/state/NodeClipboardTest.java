@@ -0,0 +1,108 @@
+package net.sourceforge.fddtools.state;
+
+import com.nebulon.xml.fddi.*;
+import net.sourceforge.fddtools.command.CommandExecutionService;
+import net.sourceforge.fddtools.command.DeleteNodeCommand;
+import net.sourceforge.fddtools.command.EditNodeCommand;
+import net.sourceforge.fddtools.command.PasteNodeCommand;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Tests for NodeClipboard: lazy copy on paste and snapshot before conflicting mutations. */
+public class NodeClipboardTest {
+
+    private final NodeClipboard clipboard = NodeClipboard.getInstance();
+    private final CommandExecutionService exec = CommandExecutionService.getInstance();
+
+    @AfterEach
+    void tearDown() {
+        clipboard.clear();
+        exec.getStack().clear();
+    }
+
+    private static Program program(String name) {
+        Program p = new Program();
+        p.setName(name);
+        return p;
+    }
+
+    private static Project project(Program parent, String name) {
+        Project p = new Project();
+        p.setName(name);
+        parent.add(p);
+        return p;
+    }
+
+    @Test
+    void copySharesUntilPasteAndPastesAreIndependent() {
+        Program root = program("Root");
+        Project source = project(root, "Source");
+        Program target = program("Target");
+        clipboard.copy(source);
+        assertTrue(clipboard.isShared());
+        assertSame(source, clipboard.peek());
+
+        PasteNodeCommand first = new PasteNodeCommand(target, clipboard, false);
+        PasteNodeCommand second = new PasteNodeCommand(target, clipboard, false);
+        exec.execute(first);
+        exec.execute(second);
+        assertTrue(clipboard.isShared(), "Pasting elsewhere does not touch the copied subtree");
+        assertNotSame(first.getPasted(), second.getPasted());
+        assertNotSame(source, first.getPasted());
+        assertEquals("Source", second.getPasted().getName());
+        assertSame(target, first.getPasted().getParentNode());
+    }
+
+    @Test
+    void editingCopiedNodeSnapshotsClipboardFirst() {
+        Program root = program("Root");
+        Project source = project(root, "Before");
+        clipboard.copy(source);
+
+        var before = EditNodeCommand.capture(source);
+        source.setName("After");
+        var after = EditNodeCommand.capture(source);
+        source.setName("Before");
+        exec.execute(new EditNodeCommand(source, before, after));
+
+        assertFalse(clipboard.isShared());
+        assertEquals("After", source.getName());
+        assertEquals("Before", clipboard.materialize(false).getName());
+    }
+
+    @Test
+    void cutKeepsRemovedSubtreeWithoutCopyingUntilItIsEdited() {
+        Program root = program("Root");
+        Project cut = project(root, "Cut");
+        clipboard.copy(cut);
+        exec.execute(new DeleteNodeCommand(cut));
+        assertTrue(clipboard.isShared(), "Removing the node does not change its own subtree");
+        exec.undo();
+        assertTrue(clipboard.isShared(), "Re-attaching the node does not change its own subtree either");
+
+        var before = EditNodeCommand.capture(cut);
+        cut.setName("Renamed");
+        var after = EditNodeCommand.capture(cut);
+        cut.setName("Cut");
+        exec.execute(new EditNodeCommand(cut, before, after));
+        assertFalse(clipboard.isShared());
+        assertEquals("Cut", clipboard.peek().getName());
+    }
+
+    @Test
+    void pastingIntoCopiedSubtreeSnapshotsFirst() {
+        Program root = program("Root");
+        Program nested = program("Nested");
+        root.add(nested);
+        clipboard.copy(root);
+        PasteNodeCommand paste = new PasteNodeCommand(nested, clipboard, false);
+        exec.execute(paste);
+        assertFalse(clipboard.isShared());
+        assertEquals(1, clipboard.peek().getChildren().size(), "Snapshot predates the paste");
+        exec.undo();
+        exec.redo();
+        assertSame(paste.getPasted(), nested.getChildren().get(0), "Redo re-attaches the same pasted instance");
+    }
+}
@@ -45,4 +45,16 @@ public final class FxTestUtil {
             if (fail.get() instanceof Exception e) throw e; else throw new RuntimeException(fail.get());
         }
     }
+
+    /** Waits until no background project open/save is running and its FX callbacks have run. */
+    public static void awaitProjectIo(int timeoutSeconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (true) {
+            AtomicReference<Boolean> busy = new AtomicReference<>(true);
+            runOnFxAndWait(timeoutSeconds, () -> busy.set(net.sourceforge.fddtools.ui.fx.ProjectIoTasks.isRunning()));
+            if (!busy.get()) return;
+            if (System.nanoTime() > deadline) throw new IllegalStateException("Project I/O did not finish in "+timeoutSeconds+"s");
+            Thread.sleep(10);
+        }
+    }
 }
@@ -0,0 +1,247 @@
+package net.sourceforge.fddtools.testutil;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Milestone;
+import com.nebulon.xml.fddi.Note;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import com.nebulon.xml.fddi.StatusEnum;
+import com.nebulon.xml.fddi.Subject;
+import net.sourceforge.fddtools.fddi.extension.WorkPackage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.model.ProgressRollup;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic generator of large Program -> Project -> Aspect -> Subject -> Activity -> Feature
+ * trees for benchmarks and stress tests. The same shape and seed always produce the same tree:
+ * names, owners, milestone dates and statuses, notes and work packages. A configurable share of
+ * features is late (planned dates in the past, not complete). Progress is rolled up; target dates
+ * are left to be derived on demand, as for a tree built in the editor.
+ * <p>
+ * The generated features can also be rendered in the two import formats ({@link #toCsv} for
+ * {@code FDDCSVImportReader}, {@link #toLegacyXml} for {@code FDDXMLImportReader}).
+ */
+public final class SyntheticProjectGenerator {
+    private static final String[] VERBS = {"Calculate", "Validate", "Display", "Import", "Export", "Schedule", "Approve", "Archive"};
+    private static final String[] OBJECTS = {"invoice", "customer", "order", "payment", "shipment", "report", "account", "contract"};
+    private static final String[] OWNERS = {"AB", "CD", "EF", "GH", "JK", "LM"};
+    private static final LocalDate PAST = LocalDate.of(2020, 1, 6);
+    private static final LocalDate FUTURE = LocalDate.of(2035, 1, 1);
+    private static final DatatypeFactory DATATYPES;
+    static {
+        try {
+            DATATYPES = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /** Fan-out at each level of the tree; every value is at least 1. */
+    public record Shape(int programs, int projects, int aspects, int subjects, int activities, int features) {
+        public Shape {
+            if (programs < 1 || projects < 1 || aspects < 1 || subjects < 1 || activities < 1 || features < 1) {
+                throw new IllegalArgumentException("Every level needs at least one node: " + this);
+            }
+        }
+
+        /** Roughly {@code features} features: 1 program, 4 projects, 3 aspects, 10 activities of 25 features per subject. */
+        public static Shape forFeatures(int features) {
+            return new Shape(1, 4, 3, Math.max(1, Math.round(features / (4f * 3 * 10 * 25))), 10, 25);
+        }
+
+        /** Roughly {@code features} features in one project with one aspect, 4 activities of 25 features per subject. */
+        public static Shape oneAspect(int features) {
+            return new Shape(1, 1, 1, Math.max(1, features / 100), 4, 25);
+        }
+
+        public int featureCount() {
+            return programs * projects * aspects * subjects * activities * features;
+        }
+    }
+
+    private final Shape shape;
+    private long seed = 42;
+    private int notesPerFeature = 1;
+    private int workPackagesPerProject = 3;
+    private double lateFraction = 0.1;
+
+    public SyntheticProjectGenerator(Shape shape) {
+        this.shape = shape;
+    }
+
+    public SyntheticProjectGenerator seed(long value) { seed = value; return this; }
+
+    public SyntheticProjectGenerator notesPerFeature(int value) { notesPerFeature = value; return this; }
+
+    public SyntheticProjectGenerator workPackagesPerProject(int value) { workPackagesPerProject = value; return this; }
+
+    /** Share of features (0..1) whose planned dates lie in the past while not all milestones are complete. */
+    public SyntheticProjectGenerator lateFraction(double value) { lateFraction = value; return this; }
+
+    public Shape shape() { return shape; }
+
+    /** Builds the tree. The global feature sequence ends up just past the generated sequence numbers. */
+    public Program generate() {
+        Random random = new Random(seed);
+        Program root = new Program();
+        root.setName("Synthetic portfolio");
+        int seq = 0;
+        for (int g = 0; g < shape.programs(); g++) {
+            Program program = new Program();
+            program.setName("Program " + (g + 1));
+            root.add(program);
+            for (int p = 0; p < shape.projects(); p++) {
+                Project project = new Project();
+                project.setName("Project " + (g + 1) + "." + (p + 1));
+                program.add(project);
+                WorkPackage[] packages = new WorkPackage[workPackagesPerProject];
+                for (int w = 0; w < packages.length; w++) {
+                    packages[w] = new WorkPackage();
+                    packages[w].setName("WP" + (w + 1));
+                    packages[w].setInitials(OWNERS[w % OWNERS.length]);
+                    project.getAny().add(packages[w]);
+                }
+                project.workPackageList = project.getWorkPackages();
+                for (int a = 0; a < shape.aspects(); a++) {
+                    Aspect aspect = new Aspect();
+                    aspect.setName("Aspect " + (a + 1));
+                    aspect.setStandardMilestones();
+                    project.add(aspect);
+                    for (int s = 0; s < shape.subjects(); s++) {
+                        Subject subject = new Subject();
+                        subject.setName(OBJECTS[s % OBJECTS.length] + " management " + (s + 1));
+                        subject.setPrefix("S" + (s + 1));
+                        aspect.add(subject);
+                        for (int c = 0; c < shape.activities(); c++) {
+                            Activity activity = new Activity();
+                            activity.setName("Manage " + OBJECTS[(s + c) % OBJECTS.length] + " " + (c + 1));
+                            activity.setInitials(OWNERS[random.nextInt(OWNERS.length)]);
+                            subject.add(activity);
+                            for (int f = 0; f < shape.features(); f++) {
+                                Feature feature = feature(random, ++seq);
+                                activity.add(feature);
+                                if (packages.length > 0) packages[random.nextInt(packages.length)].addFeature(seq);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        new Feature().setSequence(seq + 1);
+        ProgressRollup.recompute(root);
+        return root;
+    }
+
+    private Feature feature(Random random, int seq) {
+        Feature feature = new Feature();
+        feature.setSeq(seq);
+        feature.setName(VERBS[random.nextInt(VERBS.length)] + " the " + OBJECTS[random.nextInt(OBJECTS.length)] + " " + seq);
+        feature.setInitials(OWNERS[random.nextInt(OWNERS.length)]);
+        boolean late = random.nextDouble() < lateFraction;
+        LocalDate start = late ? PAST.plusDays(random.nextInt(365)) : FUTURE.plusDays(random.nextInt(720));
+        // Late features never reach the last milestone; others are anywhere from not started to done
+        int complete = late ? random.nextInt(6) : random.nextInt(7);
+        for (int m = 0; m < 6; m++) {
+            Milestone milestone = new Milestone();
+            milestone.setPlanned(date(start.plusWeeks(m)));
+            if (m < complete) {
+                milestone.setStatus(StatusEnum.COMPLETE);
+                milestone.setActual(date(start.plusWeeks(m).plusDays(random.nextInt(5))));
+            } else {
+                milestone.setStatus(m == complete ? StatusEnum.UNDERWAY : StatusEnum.NOTSTARTED);
+            }
+            feature.getMilestone().add(milestone);
+        }
+        for (int n = 0; n < notesPerFeature; n++) {
+            Note note = new Note();
+            note.setEntered(date(start.minusDays(n + 1)));
+            note.getContent().add("Remark " + (n + 1) + " on feature " + seq);
+            feature.getRemarks().add(note);
+        }
+        return feature;
+    }
+
+    private static XMLGregorianCalendar date(LocalDate day) {
+        return DATATYPES.newXMLGregorianCalendarDate(day.getYear(), day.getMonthValue(), day.getDayOfMonth(), DatatypeConstants.FIELD_UNDEFINED);
+    }
+
+    /**
+     * MS Project CSV export of {@code root}: a "Develop" summary row, then one row per subject,
+     * activity and feature (outline levels 2 to 4) with completion, target date and owner.
+     */
+    public static String toCsv(FDDINode root) {
+        DateTimeFormatter date = DateTimeFormatter.ofPattern("EEE MM/dd/yy", Locale.US);
+        StringBuilder out = new StringBuilder("1,Develop,").append(root.getProgress().getCompletion())
+            .append("%,").append(date.format(FUTURE)).append(",\n");
+        forEach(root, node -> {
+            int level = node instanceof Subject ? 2 : node instanceof Activity ? 3 : node instanceof Feature ? 4 : 0;
+            if (level == 0) return;
+            String owner = node instanceof Feature f ? f.getInitials() : node instanceof Activity a ? a.getInitials() : "";
+            out.append(level).append(',').append(csvName(node.getName())).append(',')
+               .append(node.getProgress().getCompletion()).append("%,")
+               .append(date.format(targetDay(node))).append(',').append(owner == null ? "" : owner).append('\n');
+        });
+        return out.toString();
+    }
+
+    /** Legacy FDD Project XML of {@code root}: subjects as major feature sets, activities as feature sets. */
+    public static String toLegacyXml(FDDINode root) {
+        DateTimeFormatter date = DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.US);
+        StringBuilder out = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Project>\n<Name>")
+            .append(xmlText(root.getName())).append("</Name>\n");
+        forEach(root, node -> {
+            if (node instanceof Subject s) {
+                out.append("<MajorFeatureSet>\n<Name>").append(xmlText(s.getName())).append("</Name>\n");
+                for (Activity a : s.getActivity()) {
+                    out.append("<FeatureSet>\n<Name>").append(xmlText(a.getName())).append("</Name>\n<Owner>")
+                       .append(a.getInitials()).append("</Owner>\n");
+                    for (Feature f : a.getFeature()) {
+                        out.append("<Feature>\n<Name>").append(xmlText(f.getName())).append("</Name>\n<Owner>")
+                           .append(f.getInitials()).append("</Owner>\n<Progress>").append(f.getProgress().getCompletion())
+                           .append("</Progress>\n<TargetMonth>").append(date.format(targetDay(f))).append("</TargetMonth>\n</Feature>\n");
+                    }
+                    out.append("</FeatureSet>\n");
+                }
+                out.append("</MajorFeatureSet>\n");
+            }
+        });
+        return out.append("</Project>\n").toString();
+    }
+
+    /** Number of nodes in the subtree under {@code node}, itself included. */
+    public static int countNodes(FDDINode node) {
+        int n = 1;
+        for (FDDTreeNode child : node.getChildren()) n += countNodes((FDDINode) child);
+        return n;
+    }
+
+    private static void forEach(FDDINode node, java.util.function.Consumer<FDDINode> action) {
+        action.accept(node);
+        for (FDDTreeNode child : node.getChildren()) forEach((FDDINode) child, action);
+    }
+
+    private static LocalDate targetDay(FDDINode node) {
+        java.util.Date target = node.getTargetDate();
+        return target == null ? FUTURE : LocalDate.ofInstant(target.toInstant(), java.time.ZoneId.systemDefault());
+    }
+
+    private static String csvName(String name) {
+        return name.indexOf(',') < 0 && name.indexOf('"') < 0 ? name : '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    private static String xmlText(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,74 @@
+package net.sourceforge.fddtools.testutil;
+
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import net.sourceforge.fddtools.persistence.FDDCSVImportReader;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileReader;
+import net.sourceforge.fddtools.persistence.FDDIXMLFileWriter;
+import net.sourceforge.fddtools.persistence.FDDXMLImportReader;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator.Shape;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticProjectGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final Shape SMALL = new Shape(1, 2, 2, 2, 3, 4);
+
+    @Test
+    void sameSeedGivesSameTreeAndShapeIsHonoured() throws Exception {
+        Program a = new SyntheticProjectGenerator(SMALL).generate();
+        Program b = new SyntheticProjectGenerator(SMALL).generate();
+        Path fa = tempDir.resolve("a.fddi");
+        Path fb = tempDir.resolve("b.fddi");
+        assertTrue(FDDIXMLFileWriter.write(a, fa.toString()));
+        assertTrue(FDDIXMLFileWriter.write(b, fb.toString()));
+        assertEquals(Files.readString(fa), Files.readString(fb));
+
+        // root + program + projects + aspects + subjects + activities + features
+        assertEquals(1 + 1 + 2 + 4 + 8 + 24 + 96, SyntheticProjectGenerator.countNodes(a));
+        assertEquals(96, SMALL.featureCount());
+        assertNotNull(FDDIXMLFileReader.read(fa.toString()));
+
+        Program other = new SyntheticProjectGenerator(SMALL).seed(7).generate();
+        assertNotEquals(SyntheticProjectGenerator.toCsv(a), SyntheticProjectGenerator.toCsv(other));
+        assertEquals(97, new Feature().getSeq(), "sequence continues after the generated features");
+    }
+
+    @Test
+    void lateFractionControlsOverdueFeatures() {
+        Program late = new SyntheticProjectGenerator(SMALL).lateFraction(1).generate();
+        Program onTime = new SyntheticProjectGenerator(SMALL).lateFraction(0).generate();
+        late.calculateTargetDate();
+        onTime.calculateTargetDate();
+        assertTrue(late.getTargetDate().before(onTime.getTargetDate()));
+        assertTrue(late.getProgress().getCompletion() < 100);
+    }
+
+    @Test
+    void importFormatsReadBack() throws Exception {
+        Program tree = new SyntheticProjectGenerator(SMALL).generate();
+        Path csv = tempDir.resolve("p.csv");
+        Files.writeString(csv, SyntheticProjectGenerator.toCsv(tree));
+        // Read twice: the reader must not carry state between imports
+        FDDCSVImportReader.read(csv.toString());
+        Project fromCsv = FDDCSVImportReader.read(csv.toString());
+        assertEquals(1, fromCsv.getAspect().size());
+        assertEquals(SMALL.featureCount() / SMALL.activities() / SMALL.features(), fromCsv.getAspect().get(0).getSubject().size());
+        assertEquals(SMALL.features(), fromCsv.getAspect().get(0).getSubject().get(0).getActivity().get(0).getFeature().size());
+
+        Path xml = tempDir.resolve("p.xml");
+        Files.writeString(xml, SyntheticProjectGenerator.toLegacyXml(tree));
+        Project fromXml = FDDXMLImportReader.read(xml.toString());
+        assertEquals(SMALL.featureCount() / SMALL.activities() / SMALL.features(), fromXml.getAspect().get(0).getSubject().size());
+        assertEquals(SMALL.activities(), fromXml.getAspect().get(0).getSubject().get(0).getActivity().size());
+    }
+}
@@ -0,0 +1,92 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.text.Font;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Dirty-region bookkeeping and partial canvas repaints. */
+public class CanvasDirtyRegionsTest {
+
+    @Test
+    void firstPaintCoversVisibleArea() {
+        CanvasDirtyRegions regions = new CanvasDirtyRegions();
+        Rectangle2D view = new Rectangle2D(0, 0, 400, 300);
+        assertEquals(List.of(view), regions.collect(view));
+        assertTrue(regions.collect(view).isEmpty(), "Nothing changed since the last paint");
+    }
+
+    @Test
+    void scrollingPaintsOnlyExposedStrip() {
+        CanvasDirtyRegions regions = new CanvasDirtyRegions();
+        regions.collect(new Rectangle2D(0, 0, 400, 300));
+        List<Rectangle2D> exposed = regions.collect(new Rectangle2D(0, 100, 400, 300));
+        assertEquals(List.of(new Rectangle2D(0, 300, 400, 100)), exposed);
+        assertTrue(regions.collect(new Rectangle2D(0, 0, 400, 300)).isEmpty(), "Scrolling back reuses painted pixels");
+
+        List<Rectangle2D> diagonal = regions.collect(new Rectangle2D(50, 350, 400, 300));
+        assertEquals(400 * 300 - 350 * 50, CanvasDirtyRegions.area(diagonal));
+    }
+
+    @Test
+    void invalidatedRectsRepaintWhenVisible() {
+        CanvasDirtyRegions regions = new CanvasDirtyRegions();
+        Rectangle2D view = new Rectangle2D(0, 0, 400, 300);
+        regions.invalidate(new Rectangle2D(10, 10, 50, 50));
+        assertEquals(List.of(view), regions.collect(view), "Never painted: no stale rect bookkeeping");
+
+        regions.invalidate(new Rectangle2D(10, 10, 50, 50));
+        regions.invalidate(new Rectangle2D(380, 280, 50, 50));
+        assertEquals(List.of(new Rectangle2D(10, 10, 50, 50), new Rectangle2D(380, 280, 20, 20)), regions.collect(view));
+        assertTrue(regions.collect(view).isEmpty());
+
+        regions.invalidateAll();
+        assertEquals(List.of(view), regions.collect(view));
+    }
+
+    @Test
+    void subtractAndUnion() {
+        Rectangle2D a = new Rectangle2D(0, 0, 100, 100);
+        assertEquals(4, CanvasDirtyRegions.subtract(a, new Rectangle2D(25, 25, 50, 50)).size());
+        assertTrue(CanvasDirtyRegions.subtract(a, new Rectangle2D(-10, -10, 200, 200)).isEmpty());
+        assertEquals(new Rectangle2D(0, 0, 100, 150), CanvasDirtyRegions.unionIfRectangular(a, new Rectangle2D(0, 50, 100, 100)));
+        assertNull(CanvasDirtyRegions.unionIfRectangular(a, new Rectangle2D(50, 50, 100, 100)));
+    }
+
+    @Test
+    void nodeChangeRepaintsOnlyItsElement() throws Exception {
+        FxTestUtil.ensureStarted();
+        Program program = new Program();
+        program.setName("Program");
+        for (int i = 0; i < 12; i++) {
+            Project p = new Project();
+            p.setName("Project " + i);
+            Aspect aspect = new Aspect();
+            aspect.setName("Aspect " + i);
+            p.add(aspect);
+            program.add(p);
+        }
+        FDDCanvasFX canvas = new FDDCanvasFX(program, Font.font(12));
+        FxTestUtil.runOnFxAndWait(5, canvas::reflow);
+        FxTestUtil.runOnFxAndWait(5, () -> { });
+        long full = canvas.getLastRepaintedPixelsForTest();
+        assertTrue(full > 100_000, "Initial paint covers the canvas: " + full);
+
+        Project changed = program.getProject().get(5);
+        FxTestUtil.runOnFxAndWait(5, () -> canvas.nodeChanged(changed.getAspect().get(0)));
+        FxTestUtil.runOnFxAndWait(5, () -> { });
+        long partial = canvas.getLastRepaintedPixelsForTest();
+        assertTrue(partial > 0 && partial <= 110 * 150, "Only the child element is repainted: " + partial);
+
+        FxTestUtil.runOnFxAndWait(5, canvas::redraw);
+        FxTestUtil.runOnFxAndWait(5, () -> { });
+        assertEquals(full, canvas.getLastRepaintedPixelsForTest());
+    }
+}
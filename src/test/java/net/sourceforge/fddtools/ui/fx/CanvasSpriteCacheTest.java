@@ -0,0 +1,119 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import com.nebulon.xml.fddi.Feature;
+import javafx.scene.image.WritableImage;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Validity, invalidation and memory cap of {@link CanvasSpriteCache}, and the pixel size of rasterized sprites. */
+class CanvasSpriteCacheTest {
+
+    private static final CanvasSpriteCache.Style STYLE =
+        new CanvasSpriteCache.Style(new TextMetricsCache.FontKey("System", "Regular", 12), "light", 1, 1);
+    private static final int ZOOM = CanvasSpriteCache.zoomBucket(1.0);
+    /** A 10x10 sprite takes 400 bytes. */
+    private static final long SPRITE_BYTES = 400;
+
+    @BeforeAll
+    static void initJfx() {
+        FxTestUtil.ensureStarted();
+    }
+
+    private static Feature feature(String name) {
+        Feature f = new Feature();
+        f.setName(name);
+        return f;
+    }
+
+    private static void put(CanvasSpriteCache cache, FDDINode node) {
+        cache.put(node, FDDGraphicFX.RenderState.of(node), ZOOM, STYLE, new WritableImage(10, 10));
+    }
+
+    private static WritableImage get(CanvasSpriteCache cache, FDDINode node) {
+        return cache.get(node, FDDGraphicFX.RenderState.of(node), ZOOM, STYLE);
+    }
+
+    @Test
+    void spriteIsReusedUntilNodeZoomOrStyleChanges() {
+        CanvasSpriteCache cache = new CanvasSpriteCache(10 * SPRITE_BYTES);
+        Feature f = feature("Pay invoice");
+        put(cache, f);
+        assertNotNull(get(cache, f));
+        assertNull(cache.get(f, FDDGraphicFX.RenderState.of(f), CanvasSpriteCache.zoomBucket(1.5), STYLE));
+        assertEquals(0, cache.size(), "a stale sprite is dropped on lookup");
+
+        put(cache, f);
+        assertNull(cache.get(f, FDDGraphicFX.RenderState.of(f), ZOOM,
+            new CanvasSpriteCache.Style(STYLE.font(), "dark", 1, 1)));
+        put(cache, f);
+        assertNull(cache.get(f, FDDGraphicFX.RenderState.of(f), ZOOM,
+            new CanvasSpriteCache.Style(STYLE.font(), "light", 2, 2)), "another screen's pixel density");
+        put(cache, f);
+        f.setName("Pay invoice twice");
+        assertNull(get(cache, f), "a changed node draws differently");
+
+        CanvasSpriteCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(4, stats.misses());
+        assertEquals(0, stats.bytes());
+    }
+
+    @Test
+    void invalidateDropsTheNodesSprite() {
+        CanvasSpriteCache cache = new CanvasSpriteCache(10 * SPRITE_BYTES);
+        Feature a = feature("a"), b = feature("b");
+        put(cache, a);
+        put(cache, b);
+        cache.invalidate(a);
+        cache.invalidate(a);
+        assertNull(get(cache, a));
+        assertNotNull(get(cache, b));
+        assertEquals(1, cache.stats().invalidations());
+        assertEquals(SPRITE_BYTES, cache.stats().bytes());
+    }
+
+    @Test
+    void leastRecentlyUsedSpritesAreEvictedOverTheCap() {
+        CanvasSpriteCache cache = new CanvasSpriteCache(2 * SPRITE_BYTES);
+        Feature a = feature("a"), b = feature("b"), c = feature("c");
+        put(cache, a);
+        put(cache, b);
+        get(cache, a);
+        put(cache, c);
+        assertEquals(List.of(a, c), cache.nodes());
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2 * SPRITE_BYTES, cache.stats().bytes());
+
+        cache.setMaxBytes(SPRITE_BYTES);
+        assertEquals(List.of(c), cache.nodes());
+
+        cache.setMaxBytes(0);
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.size());
+        put(cache, a);
+        assertNull(get(cache, a));
+    }
+
+    @Test
+    void spritesAreRasterizedAtTheOutputScale() throws Exception {
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            CanvasSpriteCache cache = new CanvasSpriteCache(1 << 24);
+            Feature f = feature("Pay invoice");
+            FDDGraphicFX.RenderState state = FDDGraphicFX.RenderState.of(f);
+            javafx.scene.text.Font font = javafx.scene.text.Font.font("System", 12);
+            double side = 100 - 2 * CanvasSpriteCache.MARGIN;
+            CanvasSpriteCache.Style hiDpi = new CanvasSpriteCache.Style(STYLE.font(), "light", 2, 1.5);
+            cache.render(List.of(new CanvasSpriteCache.Pending(f, state, side, side)), 1.25, font, hiDpi);
+            WritableImage sprite = cache.get(f, state, CanvasSpriteCache.zoomBucket(1.25), hiDpi);
+            assertNotNull(sprite);
+            assertEquals(250, sprite.getWidth(), "box plus margin, times zoom, times output scale");
+            assertEquals(188, sprite.getHeight());
+        });
+    }
+}
@@ -51,7 +51,7 @@ public class FDDCanvasMacGestureTest {
                 // Access the canvas node to verify gesture handlers
                 Field canvasField = FDDCanvasFX.class.getDeclaredField("canvas");
                 canvasField.setAccessible(true);
-                javafx.scene.canvas.Canvas canvasNode = (javafx.scene.canvas.Canvas) canvasField.get(canvas);
+                TiledCanvas canvasNode = (TiledCanvas) canvasField.get(canvas);
                 
                 // Check that zoom event handlers are set (not null)
                 assertNotNull(canvasNode.getOnZoomStarted(), 
@@ -169,7 +169,7 @@ public class FDDCanvasMacGestureTest {
             try {
                 Field canvasField = FDDCanvasFX.class.getDeclaredField("canvas");
                 canvasField.setAccessible(true);
-                javafx.scene.canvas.Canvas canvasNode = (javafx.scene.canvas.Canvas) canvasField.get(canvas);
+                TiledCanvas canvasNode = (TiledCanvas) canvasField.get(canvas);
                 
                 // Verify handlers are present regardless of platform
                 assertNotNull(canvasNode.getOnZoomStarted(),
@@ -2,7 +2,6 @@ package net.sourceforge.fddtools.ui.fx;
 
 import javafx.scene.text.Font;
 import javafx.scene.control.ScrollPane;
-import javafx.scene.canvas.Canvas;
 import com.nebulon.xml.fddi.Program;
 import com.nebulon.xml.fddi.Project;
 import org.junit.jupiter.api.BeforeAll;
@@ -227,15 +226,15 @@ public class FDDCanvasZoomFitTest {
                 
                 Field canvasField = FDDCanvasFX.class.getDeclaredField("canvas");
                 canvasField.setAccessible(true);
-                Canvas canvasNode = (Canvas) canvasField.get(canvas);
+                TiledCanvas canvasNode = (TiledCanvas) canvasField.get(canvas);
                 
                 // Test normal mode vs fit mode canvas sizing
                 canvas.setZoom(1.0);
                 canvas.reflow(); // Normal mode
-                double normalWidth = canvasNode.getWidth();
+                double normalWidth = canvasNode.getSurfaceWidth();
                 
                 canvas.fitToWindow(); // Fit mode
-                double fitWidth = canvasNode.getWidth();
+                double fitWidth = canvasNode.getSurfaceWidth();
                 
                 // In fit mode, canvas should be sized differently (typically to viewport)
                 // The exact relationship depends on the viewport mock, but they should differ
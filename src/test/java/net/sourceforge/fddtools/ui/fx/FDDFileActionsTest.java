@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
 import net.sourceforge.fddtools.testutil.HeadlessTestUtil;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -75,7 +76,8 @@ public class FDDFileActionsTest {
      * Waits for JavaFX Application Thread to complete any pending operations.
      * Used to ensure save operations complete before assertions in CI environments.
      */
-    private void waitFx() throws InterruptedException {
+    private void waitFx() throws Exception {
+        FxTestUtil.awaitProjectIo(5); // saves run on a background thread
         CountDownLatch latch = new CountDownLatch(1);
         Platform.runLater(latch::countDown);
         boolean completed = latch.await(5, TimeUnit.SECONDS);
@@ -0,0 +1,151 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Subject;
+import javafx.scene.control.TreeItem;
+import net.sourceforge.fddtools.command.AddChildCommand;
+import net.sourceforge.fddtools.command.CommandExecutionService;
+import net.sourceforge.fddtools.command.DeleteNodeCommand;
+import net.sourceforge.fddtools.command.MoveNodeCommand;
+import net.sourceforge.fddtools.command.PasteNodeCommand;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.model.FDDTreeNode;
+import net.sourceforge.fddtools.state.ModelEventBus;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that structure events patch the tree in place: untouched TreeItems, expansion and
+ * selection survive add, delete, paste, move, undo and redo.
+ */
+public class FDDTreeViewIncrementalPatchTest {
+
+    private final CommandExecutionService exec = CommandExecutionService.getInstance();
+
+    @BeforeAll
+    static void startFx() {
+        FxTestUtil.ensureStarted();
+    }
+
+    @AfterEach
+    void clearStack() {
+        exec.getStack().clear();
+    }
+
+    private static Subject sample() {
+        Subject subject = new Subject();
+        subject.setName("Subject");
+        for (int a = 0; a < 4; a++) {
+            Activity activity = new Activity();
+            activity.setName("Activity " + a);
+            for (int f = 0; f < 4; f++) {
+                Feature feature = new Feature();
+                feature.setName("Feature " + a + "." + f);
+                activity.add(feature);
+            }
+            subject.add(activity);
+        }
+        return subject;
+    }
+
+    private static void assertMirrors(FDDINode node, TreeItem<FDDINode> item) {
+        assertSame(node, item.getValue());
+        assertEquals(node.getChildren().size(), item.getChildren().size(), node.getName());
+        for (int i = 0; i < node.getChildren().size(); i++) {
+            TreeItem<FDDINode> child = item.getChildren().get(i);
+            assertSame(item, child.getParent());
+            assertMirrors((FDDINode) node.getChildren().get(i), child);
+        }
+    }
+
+    private static TreeItem<FDDINode> itemOf(TreeItem<FDDINode> root, FDDTreeNode node) {
+        if (root.getValue() == node) return root;
+        for (TreeItem<FDDINode> child : root.getChildren()) {
+            TreeItem<FDDINode> found = itemOf(child, node);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    @Test
+    void commandsPatchTreeWithoutRebuilding() throws Exception {
+        Subject subject = sample();
+        Activity first = subject.getActivity().get(0);
+        Activity second = subject.getActivity().get(1);
+        Activity third = subject.getActivity().get(2);
+        Activity untouched = subject.getActivity().get(3);
+        FDDTreeViewFX tree = new FDDTreeViewFX();
+        AutoCloseable subscription = ModelEventBus.get().subscribe(ev -> {
+            if (ev.type == ModelEventBus.EventType.TREE_STRUCTURE_CHANGED) tree.childrenChanged((FDDINode) ev.payload);
+            if (ev.type == ModelEventBus.EventType.NODE_UPDATED) tree.nodeUpdated((FDDINode) ev.payload);
+        });
+        try {
+            FxTestUtil.runOnFxAndWait(5, () -> {
+                tree.populateTree(subject);
+                TreeItem<FDDINode> rootItem = tree.getRoot();
+                TreeItem<FDDINode> thirdItem = itemOf(rootItem, third);
+                TreeItem<FDDINode> untouchedItem = itemOf(rootItem, untouched);
+                thirdItem.setExpanded(false);
+                untouchedItem.setExpanded(false);
+                Feature selected = second.getFeature().get(2);
+                tree.selectNode(selected, false);
+
+                Feature added = new Feature();
+                added.setName("Added");
+                exec.execute(new AddChildCommand(first, added));
+                assertMirrors(subject, rootItem);
+
+                exec.execute(new DeleteNodeCommand(second.getFeature().get(0)));
+                assertMirrors(subject, rootItem);
+                assertSame(selected, tree.getSelectedNode(), "Selection survives a sibling delete");
+
+                exec.execute(new MoveNodeCommand(added, third, 1));
+                assertMirrors(subject, rootItem);
+                assertTrue(thirdItem.isExpanded(), "A parent receiving children is expanded");
+                exec.execute(new PasteNodeCommand(third, first.getFeature().get(1), false));
+                assertMirrors(subject, rootItem);
+
+                exec.undo();
+                exec.undo();
+                exec.undo();
+                assertMirrors(subject, rootItem);
+                exec.redo();
+                assertMirrors(subject, rootItem);
+
+                exec.execute(new DeleteNodeCommand(first));
+                assertMirrors(subject, rootItem);
+                exec.undo();
+                assertMirrors(subject, rootItem);
+
+                assertSame(rootItem, tree.getRoot(), "No full rebuild happened");
+                assertSame(thirdItem, itemOf(rootItem, third), "Surviving items are reused");
+                assertSame(untouchedItem, itemOf(rootItem, untouched));
+                assertFalse(untouchedItem.isExpanded(), "Collapsed state is kept");
+                assertSame(selected, tree.getSelectedNode());
+            });
+        } finally {
+            subscription.close();
+        }
+    }
+
+    @Test
+    void missingItemFallsBackToRebuild() throws Exception {
+        Subject subject = sample();
+        FDDTreeViewFX tree = new FDDTreeViewFX();
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            tree.populateTree(subject);
+            TreeItem<FDDINode> rootItem = tree.getRoot();
+            Feature untracked = new Feature();
+            untracked.setName("Untracked");
+            subject.getActivity().get(0).add(untracked); // no command, no event
+            tree.ensureItem(untracked);
+            assertNotSame(rootItem, tree.getRoot());
+            assertMirrors(subject, tree.getRoot());
+        });
+    }
+}
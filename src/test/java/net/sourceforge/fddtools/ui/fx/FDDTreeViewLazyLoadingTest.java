@@ -0,0 +1,172 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Program;
+import com.nebulon.xml.fddi.Project;
+import javafx.scene.control.TreeItem;
+import javafx.util.Duration;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.search.FDDSearchIndex;
+import net.sourceforge.fddtools.search.FDDTreeSearchEngine;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator.Shape;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that large trees get TreeItems on demand: only the opened levels on populate, the path
+ * to a selected or found node, and collapsed subtrees dropped again after the release delay.
+ */
+public class FDDTreeViewLazyLoadingTest {
+
+    /** root, program, 2 projects, 2 aspects each, 3 subjects, 4 activities, 5 features: 308 nodes. */
+    private static final Shape SHAPE = new Shape(1, 2, 2, 3, 4, 5);
+
+    @BeforeAll
+    static void startFx() {
+        FxTestUtil.ensureStarted();
+    }
+
+    private static Feature lastFeature(Program root) {
+        Project project = root.getProgram().get(0).getProject().get(1);
+        Activity activity = project.getAspect().get(1).getSubject().get(2).getActivity().get(3);
+        return activity.getFeature().get(4);
+    }
+
+    @Test
+    void smallTreesAreBuiltInFull() throws Exception {
+        Program root = new SyntheticProjectGenerator(SHAPE).generate();
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            FDDTreeViewFX tree = new FDDTreeViewFX();
+            tree.setLazyLoading(SyntheticProjectGenerator.countNodes(root), 0, null);
+            tree.populateTree(root);
+            assertFalse(tree.isLazy());
+            assertEquals(SyntheticProjectGenerator.countNodes(root), tree.itemCount());
+        });
+    }
+
+    @Test
+    void largeTreesCreateOnlyOpenedLevelsAndSelectedPaths() throws Exception {
+        Program root = new SyntheticProjectGenerator(SHAPE).generate();
+        Feature target = lastFeature(root);
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            FDDTreeViewFX tree = new FDDTreeViewFX();
+            tree.setLazyLoading(100, 2, null);
+            tree.populateTree(root);
+            assertTrue(tree.isLazy());
+            // root and program open, the two projects are placeholders
+            assertEquals(4, tree.itemCount());
+            TreeItem<FDDINode> program = tree.getRoot().getChildren().get(0);
+            assertTrue(program.isExpanded());
+            assertEquals(4, tree.itemCount(), "walking opened levels creates nothing");
+
+            tree.selectNode(target);
+            assertSame(target, tree.getSelectedNode());
+            // + aspects of the project, subjects, activities and features along the path
+            assertEquals(4 + 2 + 3 + 4 + 5, tree.itemCount());
+            for (TreeItem<FDDINode> p = tree.getSelectionModel().getSelectedItem().getParent(); p != null; p = p.getParent()) {
+                assertTrue(p.isExpanded(), p.getValue().getName());
+            }
+            TreeItem<FDDINode> otherProject = program.getChildren().get(0);
+            assertFalse(otherProject.isLeaf());
+            assertFalse(otherProject.isExpanded());
+            otherProject.setExpanded(true);
+            assertEquals(4 + 2 + 3 + 4 + 5 + 2, tree.itemCount());
+        });
+    }
+
+    @Test
+    void refreshReopensItemsAsTheyWere() throws Exception {
+        Program root = new SyntheticProjectGenerator(SHAPE).generate();
+        Feature target = lastFeature(root);
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            FDDTreeViewFX tree = new FDDTreeViewFX();
+            tree.setLazyLoading(100, 2, null);
+            tree.populateTree(root);
+            TreeItem<FDDINode> program = tree.getRoot().getChildren().get(0);
+            program.getChildren().get(0).setExpanded(true);
+            tree.selectNode(target);
+            int before = tree.itemCount();
+
+            tree.refresh();
+            assertNotSame(program, tree.getRoot().getChildren().get(0));
+            assertEquals(before, tree.itemCount(), "the same items are opened again");
+            assertTrue(tree.getRoot().getChildren().get(0).getChildren().get(0).isExpanded());
+            assertSame(target, tree.getSelectedNode());
+        });
+    }
+
+    @Test
+    void editsBelowPlaceholdersDoNotBuildOrRebuild() throws Exception {
+        Program root = new SyntheticProjectGenerator(SHAPE).generate();
+        Activity activity = (Activity) lastFeature(root).getParent();
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            FDDTreeViewFX tree = new FDDTreeViewFX();
+            tree.setLazyLoading(100, 2, null);
+            tree.populateTree(root);
+            TreeItem<FDDINode> rootItem = tree.getRoot();
+            Feature added = new Feature();
+            added.setName("Added");
+            activity.add(added);
+            tree.childrenChanged(activity);
+            assertSame(rootItem, tree.getRoot(), "no full refresh");
+            assertEquals(4, tree.itemCount());
+
+            tree.selectNode(added);
+            assertSame(added, tree.getSelectedNode());
+            assertEquals(6, tree.getSelectionModel().getSelectedItem().getParent().getChildren().size());
+        });
+    }
+
+    @Test
+    void searchRevealCreatesThePathToEachMatch() throws Exception {
+        Program root = new SyntheticProjectGenerator(SHAPE).generate();
+        Feature target = lastFeature(root);
+        FDDSearchIndex.getInstance().rebuild(root);
+        try {
+            FxTestUtil.runOnFxAndWait(5, () -> {
+                FDDTreeViewFX tree = new FDDTreeViewFX();
+                tree.setLazyLoading(100, 2, null);
+                tree.populateTree(root);
+                List<FDDTreeSearchEngine.SearchMatch> matches = new FDDTreeSearchEngine().search(tree.getRoot(), target.getName());
+                assertFalse(matches.isEmpty());
+                assertSame(target, matches.get(0).getNode());
+                assertSame(target, matches.get(0).getTreeItem().getValue());
+                assertTrue(tree.itemCount() < SyntheticProjectGenerator.countNodes(root));
+            });
+        } finally {
+            FDDSearchIndex.getInstance().rebuild(null);
+        }
+    }
+
+    @Test
+    void collapsedSubtreesAreReleasedAfterTheDelay() throws Exception {
+        Program root = new SyntheticProjectGenerator(SHAPE).generate();
+        Feature target = lastFeature(root);
+        FDDTreeViewFX[] tree = new FDDTreeViewFX[1];
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            tree[0] = new FDDTreeViewFX();
+            tree[0].setLazyLoading(100, 2, Duration.millis(50));
+            tree[0].populateTree(root);
+            TreeItem<FDDINode> program = tree[0].getRoot().getChildren().get(0);
+            program.getChildren().get(0).setExpanded(true);
+            program.getChildren().get(0).setExpanded(false);
+            tree[0].selectNode(target);
+        });
+        int withBoth = 4 + 2 + 2 + 3 + 4 + 5;
+        long deadline = System.currentTimeMillis() + 5000;
+        int[] count = new int[1];
+        do {
+            Thread.sleep(50);
+            FxTestUtil.runOnFxAndWait(5, () -> count[0] = tree[0].itemCount());
+        } while (count[0] == withBoth && System.currentTimeMillis() < deadline);
+        assertEquals(withBoth - 2, count[0], "collapsed project dropped its aspects, the selected path stays");
+        FxTestUtil.runOnFxAndWait(5, () -> assertSame(target, tree[0].getSelectedNode()));
+    }
+}
@@ -143,11 +143,6 @@ class HeadlessUITest {
                 // This should "open" our mock file without showing dialogs
                 mockController.requestOpenProject();
                 
-                // Verify file was "opened"
-                String openedPath = ProjectService.getInstance().getAbsolutePath();
-                assertNotNull(openedPath, "File path should be set");
-                assertTrue(openedPath.contains("test-project.fddi"), "Should open the mock file");
-                
             } catch (Exception e) {
                 fail("Mock file operation should not throw exception: " + e.getMessage());
             } finally {
@@ -156,6 +151,12 @@ class HeadlessUITest {
         });
         
         assertTrue(latch.await(10, TimeUnit.SECONDS), "Mock file operation should complete");
+        FxTestUtil.awaitProjectIo(10); // the file is parsed on a background thread
+        
+        // Verify file was "opened"
+        String openedPath = ProjectService.getInstance().getAbsolutePath();
+        assertNotNull(openedPath, "File path should be set");
+        assertTrue(openedPath.contains("test-project.fddi"), "Should open the mock file");
     }
 
     @Test
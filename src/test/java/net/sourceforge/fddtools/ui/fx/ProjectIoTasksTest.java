@@ -0,0 +1,107 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import com.nebulon.xml.fddi.Activity;
+import com.nebulon.xml.fddi.Feature;
+import javafx.concurrent.Task;
+import net.sourceforge.fddtools.command.AddChildCommand;
+import net.sourceforge.fddtools.command.CommandExecutionService;
+import net.sourceforge.fddtools.state.ModelState;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ProjectIoTasks: the model is frozen while a task runs, and callbacks run once on completion.
+ */
+public class ProjectIoTasksTest {
+
+    @BeforeAll
+    static void startFx() {
+        FxTestUtil.ensureStarted();
+    }
+
+    @AfterEach
+    void clearStack() {
+        CommandExecutionService.getInstance().getStack().clear();
+    }
+
+    private static Task<String> blockingTask(CountDownLatch release, Exception failure) {
+        return new Task<>() {
+            @Override protected String call() throws Exception {
+                release.await(5, TimeUnit.SECONDS);
+                if (failure != null) throw failure;
+                return "done";
+            }
+        };
+    }
+
+    @Test
+    void commandsAreRefusedWhileTaskRunsAndCallbackRunsOnce() throws Exception {
+        Activity activity = new Activity();
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> results = new ArrayList<>();
+        BusyOverlay[] overlay = new BusyOverlay[1];
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            overlay[0] = new BusyOverlay();
+            ProjectIoTasks.run(blockingTask(release, null), overlay[0], results::add, ex -> fail(ex));
+            assertTrue(ModelState.getInstance().isBusy());
+            assertTrue(overlay[0].isVisible());
+            CommandExecutionService.getInstance().execute(new AddChildCommand(activity, new Feature()));
+            assertTrue(activity.getFeature().isEmpty(), "Model is frozen during project I/O");
+            // A second operation is not started while one is running
+            ProjectIoTasks.run(blockingTask(new CountDownLatch(0), null), null, results::add, ex -> fail(ex));
+        });
+        release.countDown();
+        FxTestUtil.awaitProjectIo(5);
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            assertEquals(List.of("done"), results);
+            assertFalse(overlay[0].isVisible());
+            CommandExecutionService.getInstance().execute(new AddChildCommand(activity, new Feature()));
+            assertEquals(1, activity.getFeature().size());
+        });
+    }
+
+    @Test
+    void snapshotTasksLeaveModelEditable() throws Exception {
+        Activity activity = new Activity();
+        CountDownLatch release = new CountDownLatch(1);
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            ProjectIoTasks.run(blockingTask(release, null), null, false, r -> { }, ex -> fail(ex));
+            assertTrue(ProjectIoTasks.isRunning());
+            assertFalse(ModelState.getInstance().isBusy());
+            CommandExecutionService.getInstance().execute(new AddChildCommand(activity, new Feature()));
+            assertEquals(1, activity.getFeature().size());
+        });
+        release.countDown();
+        FxTestUtil.awaitProjectIo(5);
+    }
+
+    @Test
+    void failureIsReportedAndCancelIsSilent() throws Exception {
+        List<Throwable> failures = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+        IOException cause = new IOException("disk full");
+        FxTestUtil.runOnFxAndWait(5, () ->
+            ProjectIoTasks.run(blockingTask(new CountDownLatch(0), cause), null, results::add, failures::add));
+        FxTestUtil.awaitProjectIo(5);
+        FxTestUtil.runOnFxAndWait(5, () -> assertEquals(List.of(cause), failures));
+
+        Task<String> cancelled = blockingTask(new CountDownLatch(1), null);
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            ProjectIoTasks.run(cancelled, null, results::add, failures::add);
+            cancelled.cancel();
+        });
+        FxTestUtil.awaitProjectIo(5);
+        assertTrue(results.isEmpty());
+        assertEquals(1, failures.size());
+    }
+}
@@ -1,11 +1,18 @@
 package net.sourceforge.fddtools.ui.fx;
 
+import com.nebulon.xml.fddi.Aspect;
+import com.nebulon.xml.fddi.Feature;
+import com.nebulon.xml.fddi.Project;
 import javafx.application.Platform;
 import javafx.stage.Stage;
 import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.persistence.FDDIPagedWriter;
+import net.sourceforge.fddtools.search.FDDSearchIndex;
 import net.sourceforge.fddtools.service.ProjectService;
 import net.sourceforge.fddtools.state.ModelState;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
 import net.sourceforge.fddtools.testutil.HeadlessTestUtil;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +20,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -118,6 +126,7 @@ public class ProjectLifecycleControllerIntegrationTest {
             openLatch.countDown();
         });
         assertTrue(openLatch.await(3, TimeUnit.SECONDS), "Open operation should complete");
+        FxTestUtil.awaitProjectIo(5); // the file is parsed on a background thread
         
         // 4. Verify that ProjectService was properly updated
         assertNotNull(projectService.getRoot(), "Project root should be loaded");
@@ -216,6 +225,36 @@ public class ProjectLifecycleControllerIntegrationTest {
         assertTrue(Files.size(testFile) > 0, "File should have content");
     }
 
+    @Test
+    void pagedFileStaysPendingUntilExpandedOrSearched() throws Exception {
+        Path testFile = tempDir.resolve("paged-test.fddp");
+        FDDIPagedWriter.write(new SyntheticProjectGenerator(new SyntheticProjectGenerator.Shape(1, 1, 3, 2, 2, 5)).generate(),
+            testFile, null);
+        FDDSearchIndex index = FDDSearchIndex.getInstance(); // created with the search UI in the app
+
+        Platform.runLater(() -> controller.openSpecificRecent(testFile.toString()));
+        FxTestUtil.awaitProjectIo(5);
+        FDDINode root = projectService.getRoot();
+        assertNotNull(root, "Project root should be loaded");
+        assertSame(root, index.getRoot(), "the search index follows the opened project");
+        assertFalse(root.isChildrenLoaded(), "indexing the opened file loads nothing");
+        assertEquals(1, index.pendingSubtrees());
+
+        FDDINode project = (FDDINode) ((FDDINode) root.getChildren().get(0)).getChildren().get(0);
+        List<Aspect> aspects = ((Project) project).getAspect();
+        assertEquals(3, index.pendingSubtrees(), "expanded nodes are indexed as they load");
+        assertTrue(aspects.stream().noneMatch(FDDINode::isChildrenLoaded), "unexpanded aspects stay pending");
+
+        aspects.get(0).getSubject();
+        assertEquals(2, index.pendingSubtrees());
+        assertFalse(aspects.get(2).isChildrenLoaded());
+
+        // The last feature sits in the last aspect, which only a search loads
+        Feature last = aspects.get(2).getSubject().get(1).getActivity().get(1).getFeature().get(4);
+        assertEquals(List.of(last), index.query(last.getName(), 1).stream().map(FDDSearchIndex.Hit::node).toList());
+        assertEquals(0, index.pendingSubtrees());
+    }
+
     // Utility to ensure FX pending runLater tasks have flushed
     private void waitFx() throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(1);
@@ -0,0 +1,274 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import com.nebulon.xml.fddi.Program;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.TreeItem;
+import javafx.scene.text.Font;
+import net.sourceforge.fddtools.model.FDDINode;
+import net.sourceforge.fddtools.search.FDDSearchIndex;
+import net.sourceforge.fddtools.search.FDDTreeSearchController;
+import net.sourceforge.fddtools.service.LoggingService;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator;
+import net.sourceforge.fddtools.testutil.SyntheticProjectGenerator.Shape;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Headless rendering benchmark for {@link FDDCanvasFX} and {@link FDDTreeViewFX} over generated
+ * projects, on the Monocle headless platform. Each operation is timed as a frame: the call, a CSS
+ * and layout pass, and the FX tasks it queued (reflows and paints). Frame times and bytes
+ * allocated on the FX thread come from the {@link LoggingService} perf spans: one
+ * {@code render*} span per frame, plus the spans the components open themselves
+ * ({@code canvasReflow}, {@code canvasRedraw}, {@code fitToWindow}, {@code treePopulate},
+ * {@code treeRefresh}, {@code treeHighlight}). Text-cache hit rates are printed with the results.
+ * <p>
+ * Budgets are read from {@code render-budgets.properties} on the test classpath as
+ * {@code <span>.p95Ms} and {@code <span>.allocKbPerOp}. Override them with
+ * {@code -Drender.budget.<span>.p95Ms=...}. Other settings: {@code render.features} (comma separated
+ * sizes, default 2000,20000), {@code render.iterations} (frames per operation, default 10) and
+ * {@code render.output} (JSON report, default target/render-bench.json). Exits with 1 when a budget
+ * is exceeded and 2 when a scenario fails to run. Not a unit test; run with
+ * {@code mvn -P benchmarks test} (after the JMH benchmarks), or alone with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dglass.platform=Monocle -Dmonocle.platform=Headless
+ * -Dexec.mainClass=net.sourceforge.fddtools.ui.fx.RenderBenchmarkHarness}.
+ */
+public final class RenderBenchmarkHarness {
+    private static final double[] ZOOM_SWEEP = {0.1, 0.25, 0.5, 0.75, 1.0, 1.5, 2.0, 3.0, 4.0, 5.0};
+    private static final String[] QUERIES = {"payment", "validate invoice"};
+    private static final int TIMEOUT_SECONDS = 120;
+
+    /** Durations (ns) and allocations (bytes, -1 if unknown) of closed spans, by span name. */
+    private final Map<String, List<long[]>> samples = new TreeMap<>();
+    private final List<String> errors = new ArrayList<>();
+    private final int iterations;
+    private int features;
+    private TextMetricsCache.Stats textStats;
+
+    private RenderBenchmarkHarness(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.getInteger("render.iterations", 10);
+        Path output = Path.of(System.getProperty("render.output", "target/render-bench.json"));
+        Properties budgets = budgets();
+        FxTestUtil.ensureStarted();
+        Map<Integer, RenderBenchmarkHarness> runs = new LinkedHashMap<>();
+        for (String size : System.getProperty("render.features", "2000,20000").split(",")) {
+            RenderBenchmarkHarness run = new RenderBenchmarkHarness(iterations);
+            run.run(Integer.parseInt(size.trim()));
+            runs.put(run.features, run);
+        }
+        List<String> violations = new ArrayList<>();
+        StringBuilder json = new StringBuilder("[\n");
+        for (RenderBenchmarkHarness run : runs.values()) {
+            run.report(budgets, violations, json);
+        }
+        if (json.charAt(json.length() - 2) == ',') json.setLength(json.length() - 2);
+        json.append("\n]\n");
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+        System.out.println("Render benchmark results written to " + output.toAbsolutePath());
+
+        int status = 0;
+        for (RenderBenchmarkHarness run : runs.values()) {
+            for (String error : run.errors) {
+                System.out.println("ERROR " + error);
+                status = 2;
+            }
+        }
+        for (String violation : violations) System.out.println("BUDGET EXCEEDED " + violation);
+        if (!violations.isEmpty()) status = 1;
+        javafx.application.Platform.exit();
+        System.exit(status);
+    }
+
+    private static Properties budgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = RenderBenchmarkHarness.class.getResourceAsStream("/render-budgets.properties")) {
+            if (in != null) budgets.load(in);
+        }
+        String prefix = "render.budget.";
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(prefix)) budgets.setProperty(key.substring(prefix.length()), System.getProperty(key));
+        }
+        return budgets;
+    }
+
+    private void run(int featureCount) throws Exception {
+        // One aspect of many subjects, so the canvas shows a large grid when the aspect is current
+        Shape shape = Shape.oneAspect(featureCount);
+        features = shape.featureCount();
+        Program root = new SyntheticProjectGenerator(shape).generate();
+        FDDINode aspect = (FDDINode) ((FDDINode) ((FDDINode) root.getChildren().get(0)).getChildren().get(0)).getChildren().get(0);
+        System.out.printf(Locale.ROOT, "Rendering %d features (%d nodes), %d frames per operation%n",
+            features, SyntheticProjectGenerator.countNodes(root), iterations);
+        LoggingService.PerfListener listener = this::record;
+        LoggingService.getInstance().setPerfEnabled(true);
+        LoggingService.getInstance().addPerfListener(listener);
+        TextMetricsCache.Stats textBefore = TextMetricsCache.getInstance().stats();
+        try {
+            scenario("canvas", () -> canvas(aspect));
+            scenario("tree", () -> tree(root));
+        } finally {
+            LoggingService.getInstance().removePerfListener(listener);
+            textStats = TextMetricsCache.getInstance().stats().since(textBefore);
+        }
+    }
+
+    private synchronized void record(LoggingService.PerfSample s) {
+        samples.computeIfAbsent(s.name(), k -> new ArrayList<>()).add(new long[] {s.durationNanos(), s.allocatedBytes()});
+    }
+
+    private interface Scenario { void run() throws Exception; }
+
+    private void scenario(String name, Scenario scenario) {
+        try {
+            scenario.run();
+        } catch (Throwable t) {
+            Throwable cause = t;
+            while (cause.getCause() != null) cause = cause.getCause();
+            errors.add(name + " @" + features + " features: " + cause);
+        }
+    }
+
+    private void canvas(FDDINode node) throws Exception {
+        FDDCanvasFX[] canvas = new FDDCanvasFX[1];
+        Scene[] scene = new Scene[1];
+        FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> {
+            canvas[0] = new FDDCanvasFX(node, Font.font(12));
+            scene[0] = scene(canvas[0]);
+        });
+        drain(scene[0]);
+        for (int i = 0; i < iterations; i++) frame(scene[0], "renderCanvasReflow", () -> canvas[0].reflow());
+        for (int i = 0; i < iterations; i++) frame(scene[0], "renderCanvasRedraw", () -> canvas[0].redraw());
+        for (int i = 0; i < iterations; i++) {
+            frame(scene[0], "renderCanvasFit", () -> canvas[0].fitToWindow());
+            frame(scene[0], "renderCanvasReset", () -> canvas[0].resetZoom());
+        }
+        for (int i = 0; i < Math.max(1, iterations / ZOOM_SWEEP.length); i++) {
+            for (double zoom : ZOOM_SWEEP) frame(scene[0], "renderCanvasZoom", () -> canvas[0].setZoom(zoom));
+        }
+    }
+
+    private void tree(Program root) throws Exception {
+        FDDTreeViewFX[] tree = new FDDTreeViewFX[1];
+        FDDTreeSearchController[] search = new FDDTreeSearchController[1];
+        Scene[] scene = new Scene[1];
+        FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> {
+            tree[0] = new FDDTreeViewFX(true);
+            search[0] = new FDDTreeSearchController(tree[0]);
+            tree[0].setSearchController(search[0]);
+            scene[0] = scene(tree[0]);
+        });
+        try {
+            for (int i = 0; i < iterations; i++) frame(scene[0], "renderTreePopulate", () -> tree[0].populateTree(root));
+            for (int i = 0; i < iterations; i++) frame(scene[0], "renderTreeRefresh", () -> tree[0].refresh());
+            for (int i = 0; i < iterations; i++) {
+                FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> setExpanded(tree[0].getRoot(), false));
+                drain(scene[0]);
+                frame(scene[0], "renderTreeExpandAll", () -> setExpanded(tree[0].getRoot(), true));
+            }
+            FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> FDDSearchIndex.getInstance().rebuild(root));
+            for (int i = 0; i < iterations; i++) {
+                String query = QUERIES[i % QUERIES.length];
+                frame(scene[0], "renderTreeSearch", () -> search[0].search(query));
+            }
+            // Same tree shown lazily: only the top levels get items
+            FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> tree[0].setLazyLoading(0, 2, null));
+            for (int i = 0; i < iterations; i++) frame(scene[0], "renderTreePopulateLazy", () -> tree[0].populateTree(root));
+        } finally {
+            FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> FDDSearchIndex.getInstance().rebuild(null));
+        }
+    }
+
+    private static void setExpanded(TreeItem<FDDINode> item, boolean expanded) {
+        if (item == null) return;
+        for (TreeItem<FDDINode> child : item.getChildren()) setExpanded(child, expanded);
+        // The root stays open, as in the application
+        item.setExpanded(expanded || item.getParent() == null);
+    }
+
+    /** A window-less scene: CSS and layout run on demand, which is all the benchmark needs. */
+    private static Scene scene(Parent content) {
+        Scene scene = new Scene(content, 1280, 800);
+        layout(scene);
+        return scene;
+    }
+
+    /**
+     * Runs {@code action} on the FX thread inside a {@code span} perf span that also covers the
+     * following layout pass and the FX tasks queued meanwhile (two levels: reflow, then paint).
+     */
+    private static void frame(Scene scene, String span, Runnable action) throws Exception {
+        LoggingService.Span[] open = new LoggingService.Span[1];
+        FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> {
+            open[0] = LoggingService.getInstance().startPerf(span, Map.of());
+            action.run();
+            layout(scene);
+        });
+        FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> layout(scene));
+        FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> {
+            layout(scene);
+            open[0].close();
+        });
+    }
+
+    private static void drain(Scene scene) throws Exception {
+        for (int i = 0; i < 3; i++) FxTestUtil.runOnFxAndWait(TIMEOUT_SECONDS, () -> layout(scene));
+    }
+
+    private static void layout(Scene scene) {
+        scene.getRoot().applyCss();
+        scene.getRoot().layout();
+    }
+
+    private synchronized void report(Properties budgets, List<String> violations, StringBuilder json) {
+        System.out.printf(Locale.ROOT, "%n%-24s %8s %6s %10s %10s %10s %12s %10s%n",
+            "span", "features", "n", "mean ms", "p95 ms", "max ms", "alloc KB/op", "MB/s");
+        for (Map.Entry<String, List<long[]>> e : samples.entrySet()) {
+            String span = e.getKey();
+            List<long[]> list = e.getValue();
+            long[] nanos = list.stream().mapToLong(s -> s[0]).sorted().toArray();
+            long totalNanos = 0, totalBytes = 0;
+            boolean allocKnown = true;
+            for (long[] s : list) {
+                totalNanos += s[0];
+                if (s[1] < 0) allocKnown = false; else totalBytes += s[1];
+            }
+            double mean = totalNanos / 1e6 / nanos.length;
+            double p95 = nanos[Math.min(nanos.length - 1, (int) Math.ceil(nanos.length * 0.95) - 1)] / 1e6;
+            double max = nanos[nanos.length - 1] / 1e6;
+            double allocKb = allocKnown ? totalBytes / 1024.0 / nanos.length : -1;
+            double rate = allocKnown && totalNanos > 0 ? totalBytes / 1e6 / (totalNanos / 1e9) : -1;
+            System.out.printf(Locale.ROOT, "%-24s %8d %6d %10.2f %10.2f %10.2f %12.1f %10.1f%n",
+                span, features, nanos.length, mean, p95, max, allocKb, rate);
+            json.append(String.format(Locale.ROOT,
+                "  {\"span\": \"%s\", \"features\": %d, \"count\": %d, \"meanMs\": %.3f, \"p95Ms\": %.3f, \"maxMs\": %.3f, \"allocKbPerOp\": %.1f, \"allocMbPerSec\": %.1f},%n",
+                span, features, nanos.length, mean, p95, max, allocKb, rate));
+            check(budgets, span + ".p95Ms", p95, violations);
+            if (allocKnown) check(budgets, span + ".allocKbPerOp", allocKb, violations);
+        }
+        System.out.printf(Locale.ROOT, "text cache: wrap hit rate %.3f (%d evictions), glyph hit rate %.3f%n",
+            textStats.wrapHitRate(), textStats.wrapEvictions(), textStats.glyphHitRate());
+    }
+
+    private void check(Properties budgets, String key, double value, List<String> violations) {
+        String budget = budgets.getProperty(key);
+        if (budget != null && value > Double.parseDouble(budget)) {
+            violations.add(String.format(Locale.ROOT, "%s @%d features: %.2f > %s", key, features, value, budget));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import javafx.stage.FileChooser;
 import net.sourceforge.fddtools.model.FDDINode;
 import net.sourceforge.fddtools.service.ProjectService;
 import net.sourceforge.fddtools.state.ModelState;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -168,8 +169,7 @@ public class SaveAfterOpenRegressionTest {
         });
         assertTrue(saveLatch.await(3, TimeUnit.SECONDS), "Save operation should complete");
         
-        // Allow some time for any async operations to complete
-        Thread.sleep(100);
+        FxTestUtil.awaitProjectIo(5); // saves run on a background thread
         
         // 7. Verify that NO save dialog was shown (the critical test)
         int saveDialogCount = dialogStrategy.getSaveDialogCount();
@@ -201,8 +201,7 @@ public class SaveAfterOpenRegressionTest {
         });
         assertTrue(saveAsLatch.await(3, TimeUnit.SECONDS), "Save As operation should complete");
         
-        // Allow some time for any async operations to complete
-        Thread.sleep(100);
+        FxTestUtil.awaitProjectIo(5); // saves run on a background thread
         
         // 3. Verify that a save dialog was shown
         int saveDialogCount = dialogStrategy.getSaveDialogCount();
@@ -234,8 +233,7 @@ public class SaveAfterOpenRegressionTest {
         });
         assertTrue(saveLatch.await(3, TimeUnit.SECONDS), "Save operation should complete");
         
-        // Allow some time for any async operations to complete
-        Thread.sleep(100);
+        FxTestUtil.awaitProjectIo(5); // saves run on a background thread
         
         // 3. Verify that a save dialog was shown (Save As behavior for new projects)
         int saveDialogCount = dialogStrategy.getSaveDialogCount();
@@ -280,7 +278,7 @@ public class SaveAfterOpenRegressionTest {
             firstSaveLatch.countDown();
         });
         assertTrue(firstSaveLatch.await(3, TimeUnit.SECONDS));
-        Thread.sleep(100); // Allow async operations to complete
+        FxTestUtil.awaitProjectIo(5); // saves run on a background thread
         
         // Verify no dialog for first save
         assertEquals(0, dialogStrategy.getSaveDialogCount(), "First save after open should not show dialog");
@@ -296,7 +294,7 @@ public class SaveAfterOpenRegressionTest {
             secondSaveLatch.countDown();
         });
         assertTrue(secondSaveLatch.await(3, TimeUnit.SECONDS));
-        Thread.sleep(100); // Allow async operations to complete
+        FxTestUtil.awaitProjectIo(5); // saves run on a background thread
         
         // Verify no dialog for second save either
         assertEquals(0, dialogStrategy.getSaveDialogCount(), "Second save should also not show dialog");
@@ -0,0 +1,96 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Wrapping and caching of {@link TextMetricsCache}, with a fixed-advance measurer instead of text layout. */
+class TextMetricsCacheTest {
+
+    /** Every glyph is 10 wide except spaces (4); lines are 12 high. Counts measurements. */
+    private static final class FixedMeasurer implements TextMetricsCache.Measurer {
+        int glyphs, fonts;
+
+        @Override public double advance(Font font, char c) { glyphs++; return c == ' ' ? 4 : 10; }
+        @Override public double lineHeight(Font font) { fonts++; return 12; }
+        @Override public double baselineOffset(Font font) { return 9; }
+    }
+
+    @BeforeAll
+    static void initJfx() throws Exception {
+        FxTestUtil.ensureStarted();
+    }
+
+    @Test
+    void wrapsGreedilyOnMeasuredWidths() {
+        TextMetricsCache cache = new TextMetricsCache(16, new FixedMeasurer());
+        Font font = Font.font("System", 12);
+        // "ab cd" is 10+10+4+10+10 = 44 wide
+        assertEquals(List.of("ab cd", "ef"), cache.wrap("ab cd ef", font, 44));
+        assertEquals(List.of("ab", "cd", "ef"), cache.wrap("ab   cd ef", font, 43));
+        assertEquals(List.of("toolongword", "x"), cache.wrap(" toolongword x ", font, 20));
+        assertEquals(List.of(), cache.wrap("  ", font, 100));
+        assertEquals(34, cache.width("a bc", font));
+        assertEquals(12, cache.lineHeight(font));
+    }
+
+    @Test
+    void measuresEachGlyphOncePerFont() {
+        FixedMeasurer measurer = new FixedMeasurer();
+        TextMetricsCache cache = new TextMetricsCache(16, measurer);
+        Font regular = Font.font("System", 12);
+        cache.width("banana", regular);
+        assertEquals(3, measurer.glyphs);
+        cache.width("nab", Font.font("System", 12));
+        assertEquals(3, measurer.glyphs, "an equal font shares the metrics");
+        cache.width("nab", Font.font("System", FontWeight.BOLD, 12));
+        cache.width("nab", Font.font("System", 14));
+        assertEquals(3, measurer.fonts);
+        TextMetricsCache.Stats stats = cache.stats();
+        assertEquals(9, stats.glyphMisses());
+        assertEquals(6, stats.glyphHits());
+    }
+
+    @Test
+    void wrappedLinesAreCachedWithLruEviction() {
+        TextMetricsCache cache = new TextMetricsCache(2, new FixedMeasurer());
+        Font font = Font.font("System", 12);
+        List<String> first = cache.wrap("one two", font, 30);
+        assertSame(first, cache.wrap("one two", font, 30));
+        assertNotSame(first, cache.wrap("one two", font, 80), "width is part of the key");
+        cache.wrap("one two", font, 30); // most recently used
+        cache.wrap("three", font, 30);
+        assertEquals(2, cache.wrapEntries());
+        assertSame(first, cache.wrap("one two", font, 30), "the least recently used entry was evicted");
+
+        TextMetricsCache.Stats stats = cache.stats();
+        assertEquals(3, stats.wrapHits());
+        assertEquals(3, stats.wrapMisses());
+        assertEquals(1, stats.wrapEvictions());
+        assertEquals(0.5, stats.wrapHitRate());
+        assertEquals(1.0, cache.stats().since(stats).wrapHitRate(), "an idle interval has nothing to miss");
+    }
+
+    @Test
+    void fontMetricsStayBoundedAcrossAZoomSweep() {
+        FixedMeasurer measurer = new FixedMeasurer();
+        TextMetricsCache cache = new TextMetricsCache(16, measurer);
+        Font base = Font.font("System", 12);
+        // Sizes as the canvas derives them from a continuously changing zoom
+        for (int i = 0; i < 1000; i++) {
+            Font font = Font.font("System", 12 * (1 + Math.log(1 + i / 100.0) * 0.15));
+            cache.width("ab", font);
+            cache.width("ab", base); // in use all along
+        }
+        assertEquals(TextMetricsCache.FONT_CAPACITY, cache.fontEntries());
+        int measured = measurer.fonts;
+        cache.width("ab", Font.font("System", 12));
+        assertEquals(measured, measurer.fonts, "the font in use is not evicted");
+    }
+}
@@ -0,0 +1,155 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import javafx.geometry.Rectangle2D;
+import net.sourceforge.fddtools.testutil.FxTestUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Tile placement, culling, recycling and partial repaint of {@link TiledCanvas}, with a recording painter. */
+class TiledCanvasTest {
+
+    private static final int T = TiledCanvas.TILE_SIZE;
+
+    /** Records the painted regions and fills them, so nothing depends on text layout. */
+    private static final class RecordingPainter implements TiledCanvas.Painter {
+        final List<Rectangle2D> regions = new ArrayList<>();
+
+        @Override
+        public void paint(javafx.scene.canvas.GraphicsContext gc, Rectangle2D region) {
+            regions.add(region);
+            gc.fillRect(region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight());
+        }
+    }
+
+    @BeforeAll
+    static void initJfx() {
+        FxTestUtil.ensureStarted();
+    }
+
+    private static TiledCanvas.TileKey key(int col, int row) {
+        return new TiledCanvas.TileKey(0, col, row);
+    }
+
+    @Test
+    void onlyTilesAroundTheViewportAreShown() throws Exception {
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            RecordingPainter painter = new RecordingPainter();
+            TiledCanvas tiles = new TiledCanvas(painter, 64, 0);
+            tiles.setSurfaceSize(4 * T, 10 * T + 100);
+            tiles.paint(new Rectangle2D(T + 10, 2 * T + 10, T - 20, T - 20));
+            assertEquals(List.of(key(1, 2)), tiles.attachedTiles());
+            assertEquals(List.of(new Rectangle2D(T + 10, 2 * T + 10, T - 20, T - 20)), painter.regions,
+                "only the visible part is painted at once");
+            assertTrue(tiles.hasPendingPrefetch(), "the rest of the tile is painted ahead");
+
+            tiles.paint(new Rectangle2D(3 * T + 10, 10 * T + 10, 50, 50));
+            assertEquals(List.of(key(3, 10)), tiles.attachedTiles(), "scrolled-off tiles leave the scene");
+            assertEquals(1, tiles.getChildrenUnmodifiable().size());
+            assertEquals(2, tiles.stats().cached(), "but stay cached");
+        });
+    }
+
+    @Test
+    void marginTilesAndEdgeTilesFollowTheSurface() throws Exception {
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            TiledCanvas tiles = new TiledCanvas(new RecordingPainter(), 64, T / 2.0);
+            tiles.setSurfaceSize(2 * T + 100, T + 40);
+            tiles.paint(new Rectangle2D(0, 0, 100, 100));
+            assertEquals(List.of(key(0, 0)), tiles.attachedTiles());
+            // Near the corner of tile (0, 0) the margin reaches its neighbours
+            tiles.paint(new Rectangle2D(T - 100, T - 100, 100, 100));
+            assertEquals(List.of(key(0, 0), key(1, 0), key(0, 1), key(1, 1)), tiles.attachedTiles());
+
+            tiles.paint(new Rectangle2D(2 * T, T, 100, 40));
+            assertTrue(tiles.attachedTiles().contains(key(2, 1)));
+            javafx.scene.Node corner = tiles.getChildrenUnmodifiable().stream()
+                .filter(n -> n.getLayoutX() == 2 * T && n.getLayoutY() == T).findFirst().orElseThrow();
+            javafx.scene.canvas.Canvas canvas = (javafx.scene.canvas.Canvas) corner;
+            assertEquals(100, canvas.getWidth(), "edge tiles end with the surface");
+            assertEquals(40, canvas.getHeight());
+            assertEquals(2 * T + 100, tiles.prefWidth(-1));
+        });
+    }
+
+    @Test
+    void offScreenTilesAreRecycledWhenTheCacheIsFull() throws Exception {
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            TiledCanvas tiles = new TiledCanvas(new RecordingPainter(), 2, 0);
+            tiles.setSurfaceSize(T, 4 * T);
+            tiles.paint(new Rectangle2D(0, 0, 10, 10));
+            tiles.paint(new Rectangle2D(0, T, 10, 10));
+            tiles.paint(new Rectangle2D(0, 2 * T, 10, 10));
+            TiledCanvas.Stats stats = tiles.stats();
+            assertEquals(1, stats.recycled());
+            assertEquals(2, stats.cached());
+            assertEquals(1, stats.attached());
+
+            tiles.paint(new Rectangle2D(0, T, 10, 10));
+            assertEquals(1, tiles.stats().hits(), "the more recently used tile is still cached");
+            assertEquals(1, tiles.stats().since(stats).hits());
+        });
+    }
+
+    @Test
+    void invalidateRepaintsOnlyTheStaleRectangle() throws Exception {
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            RecordingPainter painter = new RecordingPainter();
+            TiledCanvas tiles = new TiledCanvas(painter, 64, 0);
+            tiles.setSurfaceSize(2 * T, T);
+            Rectangle2D visible = new Rectangle2D(0, 0, 2 * T, T);
+            assertTrue(tiles.needsPaint(visible));
+            assertEquals(2, tiles.paint(visible).size());
+            assertFalse(tiles.needsPaint(visible));
+            assertTrue(tiles.hasPaintedContent());
+
+            painter.regions.clear();
+            // Straddles the tile border: one rectangle per tile
+            tiles.invalidate(new Rectangle2D(T - 10, 20, 30, 40));
+            assertTrue(tiles.needsPaint(visible));
+            tiles.paint(visible);
+            assertEquals(List.of(new Rectangle2D(T - 10, 20, 10, 40), new Rectangle2D(T, 20, 20, 40)), painter.regions);
+
+            tiles.setZoomBucket(1);
+            assertFalse(tiles.hasPaintedContent(), "tiles of another zoom are not shown");
+            assertTrue(tiles.needsPaint(visible));
+        });
+    }
+
+    @Test
+    void tilesOfOtherZoomsSurviveTheirSurfaceResize() throws Exception {
+        FxTestUtil.runOnFxAndWait(5, () -> {
+            RecordingPainter painter = new RecordingPainter();
+            TiledCanvas tiles = new TiledCanvas(painter, 64, 0);
+            Rectangle2D visible = new Rectangle2D(0, 0, T, T);
+            tiles.setSurfaceSize(2 * T, 2 * T);
+            tiles.paint(visible);
+
+            tiles.setZoomBucket(1);
+            tiles.setSurfaceSize(4 * T, 4 * T);
+            assertTrue(tiles.needsPaint(visible));
+            tiles.paint(visible);
+            assertEquals(2, tiles.stats().cached(), "the first zoom's tile is kept");
+
+            // Back at the first zoom with its layout unchanged: shown again without painting
+            painter.regions.clear();
+            TiledCanvas.Stats before = tiles.stats();
+            tiles.setZoomBucket(0);
+            tiles.setSurfaceSize(2 * T, 2 * T);
+            assertFalse(tiles.needsPaint(visible));
+            tiles.paint(visible);
+            assertTrue(painter.regions.isEmpty());
+            assertEquals(1, tiles.stats().since(before).hits());
+            assertEquals(List.of(key(0, 0)), tiles.attachedTiles());
+
+            // A new size at the same zoom is a new layout: that zoom's tiles go, the other zoom's stay
+            tiles.setSurfaceSize(2 * T, 3 * T);
+            assertEquals(1, tiles.stats().cached());
+            assertTrue(tiles.needsPaint(visible));
+        });
+    }
+}
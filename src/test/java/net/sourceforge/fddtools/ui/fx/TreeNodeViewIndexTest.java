@@ -0,0 +1,79 @@
+package net.sourceforge.fddtools.ui.fx;
+
+import com.nebulon.xml.fddi.Feature;
+import javafx.scene.control.TreeItem;
+import net.sourceforge.fddtools.model.FDDINode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeNodeViewIndexTest {
+
+    private static Feature feature(String name) {
+        Feature feature = new Feature();
+        feature.setName(name);
+        return feature;
+    }
+
+    @Test
+    void itemsAreBoundByIdentityAndExpansionOutlivesThem() {
+        TreeNodeViewIndex index = new TreeNodeViewIndex();
+        Feature a = feature("same");
+        Feature b = feature("same");
+        TreeItem<FDDINode> itemA = new TreeItem<>(a);
+        TreeItem<FDDINode> itemB = new TreeItem<>(b);
+        index.bind(a, itemA);
+        index.bind(b, itemB);
+        assertSame(itemA, index.item(a));
+        assertSame(itemB, index.item(b));
+        assertEquals(2, index.itemCount());
+
+        // A stale item does not unbind the node's current one
+        index.unbind(new TreeItem<>(a), true);
+        assertSame(itemA, index.item(a));
+
+        itemA.setExpanded(false);
+        index.unbind(itemA, true);
+        assertNull(index.item(a));
+        assertEquals(1, index.itemCount());
+        assertFalse(index.rememberedExpansion(a, true));
+
+        itemB.setExpanded(true);
+        index.unbindAll();
+        assertEquals(0, index.itemCount());
+        assertTrue(index.rememberedExpansion(b, false));
+
+        index.clear();
+        assertTrue(index.rememberedExpansion(b, true));
+        assertFalse(index.rememberedExpansion(b, false));
+    }
+
+    /** Names of the changed nodes, sorted: the order of changes is unspecified. */
+    private static List<String> names(List<FDDINode> nodes) {
+        return nodes.stream().map(FDDINode::getName).sorted().toList();
+    }
+
+    @Test
+    void highlightChangesReportOnlyTheNodesThatChanged() {
+        TreeNodeViewIndex index = new TreeNodeViewIndex();
+        Feature a = feature("a");
+        Feature b = feature("b");
+        Feature c = feature("c");
+
+        assertEquals(List.of("a", "a", "b"), names(index.setHighlights(List.of(a, b), a)));
+        assertTrue(index.isHighlighted(a));
+        assertTrue(index.isCurrentMatch(a));
+        assertFalse(index.isCurrentMatch(b));
+
+        assertEquals(List.of("a", "a", "b", "c"), names(index.setHighlights(List.of(b, c), b)));
+        assertFalse(index.isHighlighted(a));
+        assertFalse(index.isCurrentMatch(a));
+
+        assertEquals(List.of(), index.setCurrentMatch(b));
+        assertEquals(List.of("b", "c"), names(index.setCurrentMatch(c)));
+        assertEquals(List.of("b", "c", "c"), names(index.setHighlights(List.of(), null)));
+        assertFalse(index.isHighlighted(c));
+    }
+}